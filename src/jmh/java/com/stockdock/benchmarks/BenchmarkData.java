@@ -0,0 +1,87 @@
+package com.stockdock.benchmarks;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.stockdock.dto.HistoricalBar;
+import com.stockdock.dto.StockBar;
+import com.stockdock.dto.StockQuote;
+import com.stockdock.dto.StockSnapshotResponse;
+import com.stockdock.dto.StockTrade;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.slf4j.LoggerFactory;
+
+/**
+ * Deterministic payloads shaped like Alpaca's responses, so runs are comparable across commits.
+ */
+final class BenchmarkData {
+
+   static final Instant START = Instant.parse("2024-01-02T14:30:00Z");
+
+   private BenchmarkData () {
+   }
+
+   // Keep per-call debug logging out of the measurements
+   static void quietLogging() {
+      ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+   }
+
+   static List<String> symbols(int count) {
+      List<String> symbols = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+         symbols.add("S" + Integer.toString(i, 36).toUpperCase());
+      }
+      return symbols;
+   }
+
+   static Map<String, StockQuote> quotes(List<String> symbols, Instant t) {
+      Random random = new Random(42);
+      Map<String, StockQuote> quotes = new LinkedHashMap<>();
+      for (String symbol : symbols) {
+         double mid = 10 + random.nextDouble() * 490;
+         quotes.put(symbol, new StockQuote(
+             mid + 0.01, random.nextInt(1, 20), "V",
+             mid - 0.01, random.nextInt(1, 20), "V",
+             List.of("R"), t, "C"));
+      }
+      return quotes;
+   }
+
+   static List<HistoricalBar> bars(int count, Duration step) {
+      Random random = new Random(42);
+      List<HistoricalBar> bars = new ArrayList<>(count);
+      double close = 100;
+      for (int i = 0; i < count; i++) {
+         double open = close;
+         close = Math.max(1, open * (1 + random.nextGaussian() * 0.002));
+         bars.add(new HistoricalBar(
+             close,
+             Math.max(open, close) * 1.001,
+             Math.min(open, close) * 0.999,
+             random.nextInt(10, 5000),
+             open,
+             START.plus(step.multipliedBy(i)),
+             random.nextLong(1_000, 5_000_000),
+             (open + close) / 2));
+      }
+      return bars;
+   }
+
+   static StockSnapshotResponse snapshot(String symbol) {
+      StockBar bar = new StockBar(101.2, 102.5, 99.8, 48211, 100.1, START, 3_412_877, 101.04);
+      return new StockSnapshotResponse(
+          symbol,
+          bar,
+          bar,
+          new StockQuote(101.25, 3, "V", 101.2, 5, "V", List.of("R"), START, "C"),
+          new StockTrade(List.of("@", "I"), 52983525034275L, 101.22, 100, START, "V", "C"),
+          bar);
+   }
+}
@@ -0,0 +1,138 @@
+package com.stockdock.benchmarks;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.stockdock.clients.ChunkedRequestExecutor;
+import com.stockdock.config.AlpacaProperties;
+import com.stockdock.config.QuoteCacheProperties;
+import com.stockdock.config.QuoteHistoryProperties;
+import com.stockdock.config.QuoteStreamProperties;
+import com.stockdock.config.StaleWhileRevalidateProperties;
+import com.stockdock.config.SymbolConfig;
+import com.stockdock.config.WriteBehindProperties;
+import com.stockdock.dto.QuoteWriteResult;
+import com.stockdock.dto.StockQuote;
+import com.stockdock.models.CurrentStock;
+import com.stockdock.repos.CurrentStockRepo;
+import com.stockdock.services.CurrentStockService;
+import com.stockdock.services.QuoteBroadcaster;
+import com.stockdock.services.QuoteCache;
+import com.stockdock.services.QuoteHistoryStore;
+import com.stockdock.services.QuoteWriteBehindQueue;
+import com.stockdock.services.StaleWhileRevalidate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping quotes to {@link CurrentStock} documents, on its own and as part of the write path.
+ *
+ * {@code applyQuotes} alternates between two quote sets with different timestamps, so every call
+ * maps and hands all symbols to the (in-memory) bulk upsert instead of skipping unchanged quotes.
+ * With {@code writeBehind} the call only queues them and the flusher upserts in the background,
+ * so the score is the cost left on the caller's thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CurrentStockMappingBenchmark {
+
+   @Param({ "100", "2000" })
+   public int quoteCount;
+
+   @Param({ "false", "true" })
+   public boolean writeBehind;
+
+   private Map<String, StockQuote> quotes;
+   private Map<String, StockQuote> nextQuotes;
+   private boolean next;
+   private QuoteBroadcaster quoteBroadcaster;
+   private QuoteWriteBehindQueue writeBehindQueue;
+   private CurrentStockService service;
+   private Blackhole writtenDocuments;
+
+   @Setup
+   public void setUp(Blackhole blackhole) {
+      BenchmarkData.quietLogging();
+      List<String> symbols = BenchmarkData.symbols(quoteCount);
+      quotes = BenchmarkData.quotes(symbols, BenchmarkData.START);
+      nextQuotes = BenchmarkData.quotes(symbols, BenchmarkData.START.plusSeconds(1));
+      writtenDocuments = blackhole;
+
+      AlpacaProperties alpacaProperties = new AlpacaProperties();
+      SymbolConfig symbolConfig = new SymbolConfig();
+      symbolConfig.setPredefined(symbols);
+      quoteBroadcaster = new QuoteBroadcaster(new QuoteStreamProperties());
+
+      CurrentStockRepo currentStockRepo = Stubs.repository(CurrentStockRepo.class, Map.of(
+          "bulkUpsert", args -> {
+             Collection<?> documents = (Collection<?>) args[0];
+             writtenDocuments.consume(documents);
+             return BulkWriteResult.acknowledged(0, 0, documents.size(), 0, List.of(), List.of());
+          }));
+
+      WriteBehindProperties writeBehindProperties = new WriteBehindProperties();
+      writeBehindProperties.setEnabled(writeBehind);
+      writeBehindQueue = new QuoteWriteBehindQueue(currentStockRepo, writeBehindProperties, new SimpleMeterRegistry());
+      writeBehindQueue.start();
+
+      StaleWhileRevalidateProperties staleWhileRevalidateProperties = new StaleWhileRevalidateProperties();
+      service = new CurrentStockService(
+          new StubCurrentStockClient(alpacaProperties, symbolConfig, null, List.of()),
+          currentStockRepo,
+          symbolConfig,
+          new QuoteCache(new QuoteCacheProperties(), symbolConfig),
+          null,
+          new ChunkedRequestExecutor(alpacaProperties),
+          quoteBroadcaster,
+          writeBehindQueue,
+          disabledQuoteHistory(),
+          new StaleWhileRevalidate(staleWhileRevalidateProperties),
+          staleWhileRevalidateProperties);
+   }
+
+   // History buckets are flushed on a schedule, recording them is not part of this write path
+   private static QuoteHistoryStore disabledQuoteHistory() {
+      QuoteHistoryProperties historyProperties = new QuoteHistoryProperties();
+      historyProperties.setEnabled(false);
+      return new QuoteHistoryStore(null, historyProperties);
+   }
+
+   @TearDown
+   public void tearDown() {
+      writeBehindQueue.stop();
+      quoteBroadcaster.shutdown();
+   }
+
+   @Benchmark
+   public List<CurrentStock> mapToDocuments() {
+      List<CurrentStock> documents = new ArrayList<>(quotes.size());
+      quotes.forEach((symbol, quote) -> documents.add(new CurrentStock(symbol, "USD", quote)));
+      return documents;
+   }
+
+   @Benchmark
+   public QuoteWriteResult applyQuotes() {
+      next = !next;
+      return service.applyStreamedQuotes(next ? nextQuotes : quotes);
+   }
+}
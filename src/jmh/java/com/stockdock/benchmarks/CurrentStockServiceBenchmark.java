@@ -0,0 +1,173 @@
+package com.stockdock.benchmarks;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.stockdock.clients.ChunkedRequestExecutor;
+import com.stockdock.config.AlpacaProperties;
+import com.stockdock.config.QuoteCacheProperties;
+import com.stockdock.config.QuoteHistoryProperties;
+import com.stockdock.config.QuoteStreamProperties;
+import com.stockdock.config.StaleWhileRevalidateProperties;
+import com.stockdock.config.SymbolConfig;
+import com.stockdock.config.WriteBehindProperties;
+import com.stockdock.dto.BarSeries;
+import com.stockdock.dto.HistoricalBar;
+import com.stockdock.dto.HistoricalBarsResponse;
+import com.stockdock.dto.StockQuotes;
+import com.stockdock.models.StoredBar;
+import com.stockdock.repos.BarCoverageRepo;
+import com.stockdock.repos.CurrentStockRepo;
+import com.stockdock.repos.HistoricalBarRepo;
+import com.stockdock.services.CurrentStockService;
+import com.stockdock.services.HistoricalBarStore;
+import com.stockdock.services.QuoteBroadcaster;
+import com.stockdock.services.QuoteCache;
+import com.stockdock.services.QuoteHistoryStore;
+import com.stockdock.services.QuoteWriteBehindQueue;
+import com.stockdock.services.StaleWhileRevalidate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CurrentStockService hot paths against an in-process client and in-memory repositories.
+ *
+ * {@code fetchAllQuotesCached} answers from the quote cache, {@code fetchAllQuotesRefresh} goes through
+ * the client and updates cache and stream subscribers. {@code fetchHistoricalBarsStored} reads a range
+ * that is already covered locally, {@code fetchHistoricalBarsUncovered} fetches and stores it first.
+ * {@code fetchBarSeriesStored} reads the covered range in columnar form.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CurrentStockServiceBenchmark {
+
+   private static final String SYMBOL = "AAPL";
+   private static final String TIMEFRAME = "1Min";
+
+   @Param({ "100", "2000" })
+   public int quoteCount;
+
+   @Param({ "10000" })
+   public int barCount;
+
+   private AlpacaProperties alpacaProperties;
+   private SymbolConfig symbolConfig;
+   private StubCurrentStockClient client;
+   private QuoteBroadcaster quoteBroadcaster;
+   private List<StoredBar> storedBars;
+   private String start;
+   private String end;
+
+   private CurrentStockService service;
+   private CurrentStockService uncoveredService;
+
+   @Setup
+   public void setUp() {
+      BenchmarkData.quietLogging();
+      List<String> symbols = BenchmarkData.symbols(quoteCount);
+      List<HistoricalBar> bars = BenchmarkData.bars(barCount, Duration.ofMinutes(1));
+
+      alpacaProperties = new AlpacaProperties();
+      alpacaProperties.getRateLimit().setEnabled(false);
+      symbolConfig = new SymbolConfig();
+      symbolConfig.setPredefined(symbols);
+      client = new StubCurrentStockClient(alpacaProperties, symbolConfig,
+          new StockQuotes("USD", BenchmarkData.quotes(symbols, BenchmarkData.START)), bars);
+      quoteBroadcaster = new QuoteBroadcaster(new QuoteStreamProperties());
+      storedBars = bars.stream().map(bar -> StoredBar.from(SYMBOL, TIMEFRAME, bar)).toList();
+      start = bars.getFirst().t().toString();
+      end = bars.getLast().t().toString();
+
+      service = newService();
+      service.fetchAllQuotes(true);                                        // Fill the quote cache
+      service.fetchHistoricalBars(SYMBOL, TIMEFRAME, start, end, null);    // Cover the bar range
+   }
+
+   @Setup(Level.Invocation)
+   public void resetUncoveredService() {
+      uncoveredService = newService();
+   }
+
+   @TearDown
+   public void tearDown() {
+      quoteBroadcaster.shutdown();
+   }
+
+   @Benchmark
+   public StockQuotes fetchAllQuotesCached() {
+      return service.fetchAllQuotes();
+   }
+
+   @Benchmark
+   public StockQuotes fetchAllQuotesRefresh() {
+      return service.fetchAllQuotes(true);
+   }
+
+   @Benchmark
+   public HistoricalBarsResponse fetchHistoricalBarsStored() {
+      return service.fetchHistoricalBars(SYMBOL, TIMEFRAME, start, end, null);
+   }
+
+   @Benchmark
+   public BarSeries fetchBarSeriesStored() {
+      return service.fetchBarSeries(SYMBOL, TIMEFRAME, start, end, null);
+   }
+
+   @Benchmark
+   public HistoricalBarsResponse fetchHistoricalBarsUncovered() {
+      return uncoveredService.fetchHistoricalBars(SYMBOL, TIMEFRAME, start, end, null);
+   }
+
+   private CurrentStockService newService() {
+      BulkWriteResult acknowledged = BulkWriteResult.acknowledged(0, 0, 0, 0, List.of(), List.of());
+      HistoricalBarRepo historicalBarRepo = Stubs.repository(HistoricalBarRepo.class, Map.of(
+          "bulkUpsert", args -> acknowledged,
+          "streamRange", args -> storedBars.stream()));
+      BarCoverageRepo barCoverageRepo = Stubs.repository(BarCoverageRepo.class, Map.of(
+          "findById", args -> Optional.empty(),
+          "save", args -> args[0]));
+      CurrentStockRepo currentStockRepo = Stubs.repository(CurrentStockRepo.class, Map.of(
+          "bulkUpsert", args -> acknowledged));
+
+      WriteBehindProperties writeBehindProperties = new WriteBehindProperties();
+      writeBehindProperties.setEnabled(false); // Write synchronously, no flusher thread per invocation
+      QuoteHistoryProperties historyProperties = new QuoteHistoryProperties();
+      historyProperties.setEnabled(false);
+
+      StaleWhileRevalidateProperties staleWhileRevalidateProperties = new StaleWhileRevalidateProperties();
+
+      return new CurrentStockService(
+          client,
+          currentStockRepo,
+          symbolConfig,
+          new QuoteCache(new QuoteCacheProperties(), symbolConfig),
+          new HistoricalBarStore(client, historicalBarRepo, barCoverageRepo),
+          new ChunkedRequestExecutor(alpacaProperties),
+          quoteBroadcaster,
+          new QuoteWriteBehindQueue(currentStockRepo, writeBehindProperties, new SimpleMeterRegistry()),
+          new QuoteHistoryStore(null, historyProperties),
+          new StaleWhileRevalidate(staleWhileRevalidateProperties),
+          staleWhileRevalidateProperties);
+   }
+}
@@ -0,0 +1,69 @@
+package com.stockdock.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockdock.dto.HistoricalBarsResponse;
+import com.stockdock.dto.StockQuotes;
+import com.stockdock.dto.StockSnapshotResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson deserialization of the Alpaca payloads, using the same ObjectMapper setup as the application.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonDeserializationBenchmark {
+
+   @Param({ "100", "2000" })
+   public int quoteCount;
+
+   @Param({ "10000" })
+   public int barCount;
+
+   private ObjectMapper objectMapper;
+   private byte[] quotesJson;
+   private byte[] snapshotJson;
+   private byte[] barsJson;
+
+   @Setup
+   public void setUp() throws Exception {
+      objectMapper = Jackson2ObjectMapperBuilder.json().build();
+      quotesJson = objectMapper.writeValueAsBytes(
+          new StockQuotes("USD", BenchmarkData.quotes(BenchmarkData.symbols(quoteCount), BenchmarkData.START)));
+      snapshotJson = objectMapper.writeValueAsBytes(BenchmarkData.snapshot("AAPL"));
+      barsJson = objectMapper.writeValueAsBytes(
+          new HistoricalBarsResponse(BenchmarkData.bars(barCount, Duration.ofMinutes(1)), "AAPL", "QUFQTHxNfDIwMjQ="));
+   }
+
+   @Benchmark
+   public StockQuotes stockQuotes() throws Exception {
+      return objectMapper.readValue(quotesJson, StockQuotes.class);
+   }
+
+   @Benchmark
+   public StockSnapshotResponse stockSnapshot() throws Exception {
+      return objectMapper.readValue(snapshotJson, StockSnapshotResponse.class);
+   }
+
+   @Benchmark
+   public HistoricalBarsResponse historicalBars() throws Exception {
+      return objectMapper.readValue(barsJson, HistoricalBarsResponse.class);
+   }
+}
@@ -0,0 +1,121 @@
+package com.stockdock.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.stockdock.dto.BarSeries;
+import com.stockdock.dto.HistoricalBarsResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialization time of historical bars in every response format the API negotiates: JSON rows
+ * (today's default), columnar JSON, CBOR and Smile, plus gzip on top of JSON.
+ *
+ * Bytes on the wire do not vary between iterations, so they are printed once per trial instead of
+ * being measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseFormatBenchmark {
+
+   @Param({ "1000", "10000" })
+   public int barCount;
+
+   private ObjectMapper json;
+   private ObjectMapper cbor;
+   private ObjectMapper smile;
+   private HistoricalBarsResponse rows;
+   private BarSeries columns;
+
+   @Setup
+   public void setUp() throws Exception {
+      // Same date handling as the application's mappers
+      json = Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+      cbor = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+      smile = Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+      rows = new HistoricalBarsResponse(BenchmarkData.bars(barCount, Duration.ofMinutes(1)), "AAPL", null);
+      columns = BarSeries.of(rows.symbol(), null, rows.bars());
+
+      System.out.printf("%nBytes for %d bars:%n", barCount);
+      printSize("json rows", json.writeValueAsBytes(rows));
+      printSize("json columnar", json.writeValueAsBytes(columns));
+      printSize("cbor rows", cbor.writeValueAsBytes(rows));
+      printSize("cbor columnar", cbor.writeValueAsBytes(columns));
+      printSize("smile rows", smile.writeValueAsBytes(rows));
+      printSize("smile columnar", smile.writeValueAsBytes(columns));
+   }
+
+   @Benchmark
+   public byte[] jsonRows() throws Exception {
+      return json.writeValueAsBytes(rows);
+   }
+
+   @Benchmark
+   public byte[] jsonColumnar() throws Exception {
+      return json.writeValueAsBytes(columns);
+   }
+
+   @Benchmark
+   public byte[] cborRows() throws Exception {
+      return cbor.writeValueAsBytes(rows);
+   }
+
+   @Benchmark
+   public byte[] cborColumnar() throws Exception {
+      return cbor.writeValueAsBytes(columns);
+   }
+
+   @Benchmark
+   public byte[] smileRows() throws Exception {
+      return smile.writeValueAsBytes(rows);
+   }
+
+   @Benchmark
+   public byte[] smileColumnar() throws Exception {
+      return smile.writeValueAsBytes(columns);
+   }
+
+   @Benchmark
+   public byte[] jsonRowsGzip() throws Exception {
+      return gzip(json.writeValueAsBytes(rows));
+   }
+
+   @Benchmark
+   public byte[] jsonColumnarGzip() throws Exception {
+      return gzip(json.writeValueAsBytes(columns));
+   }
+
+   private static void printSize(String format, byte[] body) throws IOException {
+      System.out.printf("  %-15s %9d bytes, %9d gzipped%n", format, body.length, gzip(body).length);
+   }
+
+   private static byte[] gzip(byte[] body) throws IOException {
+      ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+      try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+         gzip.write(body);
+      }
+      return out.toByteArray();
+   }
+}
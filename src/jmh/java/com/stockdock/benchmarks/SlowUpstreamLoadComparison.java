@@ -0,0 +1,203 @@
+package com.stockdock.benchmarks;
+
+import com.stockdock.StockDockBackendApplication;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load comparison of request handling on platform threads versus virtual threads under a slow upstream.
+ *
+ * Starts a stand-in Alpaca server that answers latest-quote requests after a fixed delay, then runs
+ * the application twice in this JVM, once with Tomcat's platform thread pool and once with
+ * {@code spring.threads.virtual.enabled}. Each run fires all requests at once (distinct symbols, so
+ * request coalescing does not help) while a probe polls {@code /actuator/health}, and reports latency
+ * percentiles, peak platform threads and health check latency.
+ *
+ * Not a JMH benchmark. Run with:
+ * {@code mvn -P benchmark test-compile exec:exec@load-comparison -Dload.requests=10000 -Dload.upstream-delay-ms=1000}
+ * Ten thousand concurrent requests need about 40k file descriptors (client, server, upstream and stub
+ * sockets), so raise {@code ulimit -n} accordingly.
+ */
+public final class SlowUpstreamLoadComparison {
+
+   private static final Duration HEALTH_TIMEOUT = Duration.ofSeconds(2);
+   private static final Duration HEALTH_INTERVAL = Duration.ofMillis(250);
+
+   private SlowUpstreamLoadComparison () {
+   }
+
+   public static void main(String[] args) throws Exception {
+      int requests = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+      Duration upstreamDelay = Duration.ofMillis(args.length > 1 ? Long.parseLong(args[1]) : 1000);
+      System.setProperty("spring.devtools.restart.enabled", "false"); // Devtools would relaunch main with the Spring arguments
+
+      HttpServer upstream = startUpstream(upstreamDelay, requests);
+      try {
+         Result platform = run(false, requests, upstream.getAddress().getPort());
+         Result virtual = run(true, requests, upstream.getAddress().getPort());
+
+         System.out.printf("%n%d concurrent requests, upstream delay %d ms%n", requests, upstreamDelay.toMillis());
+         System.out.printf("%-9s %8s %8s %8s %8s %8s %7s %7s %12s %12s%n",
+             "threads", "wall ms", "p50 ms", "p99 ms", "max ms", "ok", "errors", "peak", "health max", "health fail");
+         for (Result result : new Result[] { platform, virtual }) {
+            System.out.printf("%-9s %8d %8d %8d %8d %8d %7d %7d %12d %12d%n",
+                result.mode, result.wallMillis, result.percentile(0.50), result.percentile(0.99), result.percentile(1.0),
+                result.succeeded, result.failed, result.peakThreads, result.healthMaxMillis, result.healthFailures);
+         }
+      } finally {
+         upstream.stop(0);
+      }
+   }
+
+   private static Result run(boolean virtualThreads, int requests, int upstreamPort) throws Exception {
+      Map<String, Object> properties = new LinkedHashMap<>();
+      properties.put("server.port", 0);
+      properties.put("spring.threads.virtual.enabled", virtualThreads);
+      properties.put("requests.concurrency.enabled", false); // Compare the thread models, not the limiter
+      properties.put("spring.data.mongodb.uri", "mongodb://localhost:1/?serverSelectionTimeoutMS=500");
+      properties.put("spring.data.mongodb.auto-index-creation", false);
+      properties.put("management.health.mongo.enabled", false); // No database here, health should reflect the web layer only
+      properties.put("alpaca.api.key", "load-test");
+      properties.put("alpaca.api.secret", "load-test");
+      properties.put("alpaca.api.base.url", "http://localhost:" + upstreamPort);
+      properties.put("alpaca.http.quotes-read-timeout", "2m");
+      properties.put("alpaca.http.compression", false);
+      properties.put("alpaca.rate-limit.enabled", false);
+      properties.put("logging.level.root", "WARN");
+      properties.put("logging.level.com.stockdock", "ERROR");
+
+      // Passed as arguments so they override application.properties
+      String[] args = properties.entrySet().stream().map(entry -> "--" + entry.getKey() + "=" + entry.getValue()).toArray(String[]::new);
+      try (ConfigurableApplicationContext context = new SpringApplicationBuilder(StockDockBackendApplication.class).run(args)) {
+         int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+         String mode = virtualThreads ? "virtual" : "platform";
+         System.out.printf("Running %d requests on %s threads...%n", requests, mode);
+
+         ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+         threads.resetPeakThreadCount();
+
+         HttpClient client = HttpClient.newBuilder()
+             .version(HttpClient.Version.HTTP_1_1)
+             .executor(Executors.newVirtualThreadPerTaskExecutor())
+             .build();
+         long[] latencies = new long[requests];
+         AtomicInteger succeeded = new AtomicInteger();
+         AtomicInteger failed = new AtomicInteger();
+         AtomicBoolean running = new AtomicBoolean(true);
+         AtomicLong healthMax = new AtomicLong();
+         AtomicInteger healthFailures = new AtomicInteger();
+
+         long start = System.nanoTime();
+         try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(() -> probeHealth(client, port, running, healthMax, healthFailures));
+            try (ExecutorService load = Executors.newVirtualThreadPerTaskExecutor()) {
+               for (int i = 0; i < requests; i++) {
+                  int index = i;
+                  load.submit(() -> {
+                     HttpRequest request = HttpRequest.newBuilder(
+                         URI.create("http://localhost:" + port + "/api/quotes/L" + index + "?refresh=true")).build();
+                     long sent = System.nanoTime();
+                     try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        (response.statusCode() == 200 ? succeeded : failed).incrementAndGet();
+                     } catch (Exception e) {
+                        failed.incrementAndGet();
+                     }
+                     latencies[index] = (System.nanoTime() - sent) / 1_000_000;
+                  });
+               }
+            }
+            running.set(false);
+         }
+         long wallMillis = (System.nanoTime() - start) / 1_000_000;
+
+         return new Result(mode, wallMillis, latencies, succeeded.get(), failed.get(), threads.getPeakThreadCount(),
+             healthMax.get(), healthFailures.get());
+      }
+   }
+
+   private static void probeHealth(HttpClient client, int port, AtomicBoolean running, AtomicLong maxMillis, AtomicInteger failures) {
+      HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/actuator/health"))
+          .timeout(HEALTH_TIMEOUT)
+          .build();
+      while (running.get()) {
+         long sent = System.nanoTime();
+         try {
+            if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() >= 500) {
+               failures.incrementAndGet();
+            }
+         } catch (Exception e) {
+            failures.incrementAndGet();
+         }
+         maxMillis.accumulateAndGet((System.nanoTime() - sent) / 1_000_000, Math::max);
+         try {
+            Thread.sleep(HEALTH_INTERVAL);
+         } catch (InterruptedException e) {
+            return;
+         }
+      }
+   }
+
+   // Stand-in for Alpaca: every latest-quote request is answered after the delay
+   private static HttpServer startUpstream(Duration delay, int backlog) throws IOException {
+      HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), backlog);
+      server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+      server.createContext("/", exchange -> {
+         String[] path = exchange.getRequestURI().getPath().split("/"); // /v2/stocks/{symbol}/quotes/latest
+         if (path.length == 6) {
+            try {
+               Thread.sleep(delay);
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+            }
+            respond(exchange, "{\"symbol\":\"" + path[3] + "\",\"quote\":{\"ap\":101.02,\"as\":3,\"ax\":\"V\",\"bp\":101.0,"
+                + "\"bs\":2,\"bx\":\"V\",\"c\":[\"R\"],\"t\":\"" + BenchmarkData.START + "\",\"z\":\"C\"}}");
+         } else {
+            respond(exchange, "{\"quotes\":{}}"); // Scheduled refresh of the predefined symbols
+         }
+      });
+      server.start();
+      return server;
+   }
+
+   private static void respond(HttpExchange exchange, String body) throws IOException {
+      byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", "application/json");
+      exchange.sendResponseHeaders(200, bytes.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+         out.write(bytes);
+      }
+   }
+
+   private record Result(String mode, long wallMillis, long[] latencies, int succeeded, int failed, int peakThreads,
+                         long healthMaxMillis, int healthFailures) {
+
+      long percentile(double fraction) {
+         long[] sorted = latencies.clone();
+         Arrays.sort(sorted);
+         return sorted[Math.max(0, (int) Math.ceil(fraction * sorted.length) - 1)];
+      }
+   }
+}
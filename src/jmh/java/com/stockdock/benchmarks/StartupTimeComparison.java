@@ -0,0 +1,183 @@
+package com.stockdock.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Startup comparison of the regular build against the prod build (Spring AOT and a CDS archive).
+ *
+ * Starts the application as a separate JVM per run and measures:
+ * <ul>
+ *    <li>startup: the time Spring Boot reports in its "Started ... in" log line;</li>
+ *    <li>first request: from launching the JVM until {@code /api/quotes/cache/stats} answers 200.
+ *        That endpoint goes through the quote controller, so lazy beans it needs are included.</li>
+ * </ul>
+ * The variants are the regular jar, the prod build, and the prod build with
+ * {@code spring.main.lazy-initialization}. All of them run with the prod profile, so the regular and prod
+ * numbers differ only by AOT and CDS. Runs are interleaved so drift affects all variants alike,
+ * and every run uses an unreachable MongoDB and Alpaca, so the numbers do not depend on the network.
+ *
+ * Not a JMH benchmark. Run with:
+ * {@code mvn -P prod,benchmark package exec:exec@startup-comparison -Dstartup.runs=5}
+ */
+public final class StartupTimeComparison {
+
+   private static final Pattern STARTED = Pattern.compile("Started \\w+ in ([0-9.]+) seconds");
+   private static final String PROBE_PATH = "/api/quotes/cache/stats";
+   private static final Duration START_TIMEOUT = Duration.ofMinutes(2);
+
+   private StartupTimeComparison () {
+   }
+
+   public static void main(String[] args) throws Exception {
+      Path jar = Path.of(args.length > 0 ? args[0] : "target/stockdock-backend-0.0.1-SNAPSHOT.jar");
+      Path prodDirectory = Path.of(args.length > 1 ? args[1] : "target/prod");
+      int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+      Path prodJar = prodDirectory.resolve(jar.getFileName());
+      Path archive = prodDirectory.resolve("application.jsa");
+      if (!Files.exists(prodJar) || !Files.exists(archive)) {
+         throw new IllegalStateException("No prod build in " + prodDirectory + ", build it with mvn -P prod package");
+      }
+
+      List<String> regular = List.of("-Dspring.profiles.active=prod");
+      List<String> prod = concat(concat(regular, "-XX:SharedArchiveFile=" + archive), "-Dspring.aot.enabled=true");
+      Map<String, Variant> variants = new LinkedHashMap<>();
+      variants.put("regular", new Variant(regular, jar));
+      variants.put("prod", new Variant(prod, prodJar));
+      variants.put("prod-lazy", new Variant(concat(prod, "-Dspring.main.lazy-initialization=true"), prodJar));
+
+      Map<String, List<Result>> results = new LinkedHashMap<>();
+      variants.keySet().forEach(name -> results.put(name, new ArrayList<>()));
+      run(variants.get("regular")); // Warm the OS file cache so the first measured run is not penalized
+
+      for (int i = 0; i < runs; i++) {
+         for (Map.Entry<String, Variant> variant : variants.entrySet()) {
+            Result result = run(variant.getValue());
+            results.get(variant.getKey()).add(result);
+            System.out.printf("run %d %-9s startup %5d ms, first request %5d ms%n",
+                i + 1, variant.getKey(), result.startupMillis, result.firstRequestMillis);
+         }
+      }
+
+      System.out.printf("%n%d runs per variant, median (min-max)%n", runs);
+      System.out.printf("%-9s %22s %22s%n", "variant", "startup ms", "first request ms");
+      results.forEach((name, variantResults) -> System.out.printf("%-9s %22s %22s%n", name,
+          summary(variantResults.stream().mapToLong(result -> result.startupMillis).toArray()),
+          summary(variantResults.stream().mapToLong(result -> result.firstRequestMillis).toArray())));
+   }
+
+   private static Result run(Variant variant) throws Exception {
+      int port = freePort();
+      List<String> command = new ArrayList<>();
+      command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+      command.addAll(variant.jvmArguments);
+      command.add("-jar");
+      command.add(variant.jar.toString());
+      command.add("--server.port=" + port);
+      command.add("--spring.data.mongodb.uri=mongodb://localhost:1/?serverSelectionTimeoutMS=500");
+      command.add("--spring.data.mongodb.auto-index-creation=false");
+      command.add("--alpaca.api.key=startup");
+      command.add("--alpaca.api.secret=startup");
+      command.add("--alpaca.api.base.url=http://127.0.0.1:1");
+      command.add("--quotes.cache.warm-start.enabled=false"); // Its duration depends on MongoDB, not on the build
+
+      long launched = System.nanoTime();
+      Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+      AtomicLong startupMillis = new AtomicLong(-1);
+      CountDownLatch started = new CountDownLatch(1);
+      Thread.ofVirtual().start(() -> readOutput(process, startupMillis, started));
+
+      try {
+         long firstRequestMillis = awaitFirstRequest(port, launched);
+         started.await(START_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+         return new Result(startupMillis.get(), firstRequestMillis);
+      } finally {
+         process.destroy();
+         if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+         }
+      }
+   }
+
+   // Drains the application's output, noting the startup time Spring Boot reports
+   private static void readOutput(Process process, AtomicLong startupMillis, CountDownLatch started) {
+      try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+         String line;
+         while ((line = output.readLine()) != null) {
+            Matcher matcher = STARTED.matcher(line);
+            if (started.getCount() > 0 && matcher.find()) {
+               startupMillis.set(Math.round(Double.parseDouble(matcher.group(1)) * 1000));
+               started.countDown();
+            }
+         }
+      } catch (IOException e) {
+         // The process was stopped
+      }
+   }
+
+   private static long awaitFirstRequest(int port, long launched) throws Exception {
+      HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+      HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + PROBE_PATH))
+          .timeout(Duration.ofSeconds(5))
+          .build();
+      long deadline = launched + START_TIMEOUT.toNanos();
+
+      while (System.nanoTime() < deadline) {
+         try {
+            if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+               return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - launched);
+            }
+         } catch (ConnectException e) {
+            // Not listening yet
+         }
+         Thread.sleep(10);
+      }
+      throw new IllegalStateException("Application did not answer " + PROBE_PATH + " within " + START_TIMEOUT);
+   }
+
+   private static int freePort() throws IOException {
+      try (ServerSocket socket = new ServerSocket(0)) {
+         return socket.getLocalPort();
+      }
+   }
+
+   private static String summary(long[] values) {
+      long[] sorted = values.clone();
+      Arrays.sort(sorted);
+      return String.format("%d (%d-%d)", sorted[sorted.length / 2], sorted[0], sorted[sorted.length - 1]);
+   }
+
+   private static List<String> concat(List<String> list, String value) {
+      List<String> result = new ArrayList<>(list);
+      result.add(value);
+      return result;
+   }
+
+   private record Variant(List<String> jvmArguments, Path jar) {
+   }
+
+   private record Result(long startupMillis, long firstRequestMillis) {
+   }
+}
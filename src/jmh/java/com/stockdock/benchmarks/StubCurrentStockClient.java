@@ -0,0 +1,55 @@
+package com.stockdock.benchmarks;
+
+import com.stockdock.clients.ChunkedRequestExecutor;
+import com.stockdock.clients.CurrentStockClient;
+import com.stockdock.clients.UpstreamCircuitBreaker;
+import com.stockdock.clients.UpstreamLatencyTracker;
+import com.stockdock.clients.UpstreamRateLimiter;
+import com.stockdock.config.AlpacaProperties;
+import com.stockdock.config.SymbolConfig;
+import com.stockdock.dto.HistoricalBar;
+import com.stockdock.dto.StockQuotes;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * CurrentStockClient that answers from memory, so service benchmarks measure our code and not the network.
+ */
+class StubCurrentStockClient extends CurrentStockClient {
+
+   private final StockQuotes quotes;
+   private final List<HistoricalBar> bars;
+
+   StubCurrentStockClient (AlpacaProperties alpacaProperties, SymbolConfig symbolConfig, StockQuotes quotes, List<HistoricalBar> bars) {
+      super(
+          RestClient.create(),
+          HttpClient.newHttpClient(),
+          alpacaProperties,
+          new UpstreamLatencyTracker(new SimpleMeterRegistry()),
+          new UpstreamRateLimiter(alpacaProperties),
+          new UpstreamCircuitBreaker(alpacaProperties),
+          symbolConfig,
+          new ChunkedRequestExecutor(alpacaProperties));
+      this.quotes = quotes;
+      this.bars = bars;
+   }
+
+   @Override
+   public StockQuotes getAllQuotes () {
+      return quotes;
+   }
+
+   @Override
+   public StockQuotes getQuotes (List<String> symbols) {
+      return quotes;
+   }
+
+   @Override
+   public Stream<HistoricalBar> streamHistoricalBars(String symbol, String timeframe, String start, String end, Integer limit) {
+      return bars.stream();
+   }
+}
@@ -0,0 +1,29 @@
+package com.stockdock.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * In-process stand-ins for Spring Data repositories, answering only the methods a benchmark uses.
+ */
+final class Stubs {
+
+   private Stubs () {
+   }
+
+   static <T> T repository(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+      return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+         Function<Object[], Object> answer = answers.get(method.getName());
+         if (answer != null) {
+            return answer.apply(args);
+         }
+         return switch (method.getName()) {
+            case "toString" -> "Stub" + type.getSimpleName();
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            default -> throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+         };
+      }));
+   }
+}
@@ -0,0 +1,152 @@
+package com.stockdock.charts;
+
+import com.stockdock.dto.BarSeries;
+import com.stockdock.dto.Timeframe;
+import com.stockdock.exceptions.InvalidRequestParameterException;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Rolls a fine-grained bar series up into a coarser timeframe.
+ *
+ * Intraday buckets (minutes, hours) are aligned to the epoch; day, week and month buckets follow
+ * the exchange calendar in New York time, the same way Alpaca stamps its daily bars. Each bucket
+ * becomes one bar: first open, highest high, lowest low, last close, summed volume and trade count,
+ * and the volume-weighted average of the bar VWAPs.
+ */
+public final class BarResampler {
+
+   static final ZoneId MARKET_ZONE = ZoneId.of("America/New_York");
+   private static final long HOUR_MILLIS = 3_600_000L;
+
+   private BarResampler () {
+   }
+
+   /**
+    * Resample a series from its base timeframe into the target timeframe.
+    *
+    * @param series The bars to roll up, ordered by time.
+    * @param base   The timeframe of {@code series}.
+    * @param target The coarser timeframe to produce.
+    * @return A series in the target timeframe, one bar per non-empty bucket.
+    * @throws InvalidRequestParameterException if the target is not an exact roll-up of the base.
+    */
+   public static BarSeries resample(BarSeries series, Timeframe base, Timeframe target) {
+      validate(base, target);
+
+      long[] t = series.t();
+      double[] o = series.o();
+      double[] h = series.h();
+      double[] l = series.l();
+      double[] c = series.c();
+      long[] v = series.v();
+      long[] n = series.n();
+      double[] vw = series.vw();
+
+      long expectedSize = series.size() * base.duration().toMillis() / target.duration().toMillis() + 1;
+      BarSeries.Builder builder = BarSeries.builder(series.symbol(), target.toString(), (int) Math.min(series.size(), expectedSize));
+
+      int i = 0;
+      while (i < t.length) {
+         long bucket = bucketStart(t[i], target);
+         long bucketEnd = nextBucketStart(bucket, target);
+
+         double open = o[i];
+         double high = h[i];
+         double low = l[i];
+         double close = c[i];
+         long volume = 0;
+         long trades = 0;
+         double weightedVwap = 0;
+         double lastVwap = vw[i];
+
+         for (; i < t.length && t[i] < bucketEnd; i++) {
+            high = Math.max(high, h[i]);
+            low = Math.min(low, l[i]);
+            close = c[i];
+            volume += v[i];
+            trades += n[i];
+            weightedVwap += vw[i] * v[i];
+            lastVwap = vw[i];
+         }
+
+         builder.add(bucket, open, high, low, close, volume, trades, volume > 0 ? weightedVwap / volume : lastVwap);
+      }
+      return builder.build();
+   }
+
+   /**
+    * The start of the target bucket containing the given instant.
+    */
+   public static Instant bucketStart(Instant instant, Timeframe target) {
+      return Instant.ofEpochMilli(bucketStart(instant.toEpochMilli(), target));
+   }
+
+   static long bucketStart(long epochMillis, Timeframe target) {
+      return switch (target.unit()) {
+         case MIN, HOUR -> {
+            long length = target.duration().toMillis();
+            yield Math.floorDiv(epochMillis, length) * length;
+         }
+         case DAY -> {
+            long epochDay = marketDate(epochMillis).toEpochDay();
+            yield startOfDay(LocalDate.ofEpochDay(epochDay - Math.floorMod(epochDay, target.amount())));
+         }
+         case WEEK -> {
+            LocalDate monday = marketDate(epochMillis).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            long week = Math.floorDiv(monday.toEpochDay() - LocalDate.EPOCH.with(DayOfWeek.MONDAY).toEpochDay(), 7);
+            yield startOfDay(monday.minusWeeks(Math.floorMod(week, target.amount())));
+         }
+         case MONTH -> {
+            LocalDate date = marketDate(epochMillis).withDayOfMonth(1);
+            long month = date.getYear() * 12L + date.getMonthValue() - 1;
+            yield startOfDay(date.minusMonths(Math.floorMod(month, target.amount())));
+         }
+      };
+   }
+
+   private static long nextBucketStart(long bucketStart, Timeframe target) {
+      return switch (target.unit()) {
+         case MIN, HOUR -> bucketStart + target.duration().toMillis();
+         case DAY -> startOfDay(marketDate(bucketStart).plusDays(target.amount()));
+         case WEEK -> startOfDay(marketDate(bucketStart).plusWeeks(target.amount()));
+         case MONTH -> startOfDay(marketDate(bucketStart).plusMonths(target.amount()));
+      };
+   }
+
+   /**
+    * Check that every bucket of the target timeframe is an exact union of base bars.
+    *
+    * @throws InvalidRequestParameterException if the target cannot be built from the base.
+    */
+   public static void validate(Timeframe base, Timeframe target) {
+      if (target.duration().compareTo(base.duration()) <= 0) {
+         throw new InvalidRequestParameterException("Timeframe " + target + " must be coarser than the base timeframe " + base + ".");
+      }
+      boolean aligned = switch (target.unit()) {
+         case MIN, HOUR -> target.duration().toMillis() % base.duration().toMillis() == 0;
+         default -> isIntraday(base)
+             ? HOUR_MILLIS % base.duration().toMillis() == 0 // Bars never straddle a market day boundary
+             : base.amount() == 1 && !(base.unit() == Timeframe.Unit.WEEK && target.unit() == Timeframe.Unit.MONTH);
+      };
+      if (!aligned) {
+         throw new InvalidRequestParameterException("Timeframe " + target + " cannot be built from " + base + " bars.");
+      }
+   }
+
+   private static boolean isIntraday(Timeframe timeframe) {
+      return timeframe.unit() == Timeframe.Unit.MIN || timeframe.unit() == Timeframe.Unit.HOUR;
+   }
+
+   private static LocalDate marketDate(long epochMillis) {
+      return Instant.ofEpochMilli(epochMillis).atZone(MARKET_ZONE).toLocalDate();
+   }
+
+   private static long startOfDay(LocalDate date) {
+      return date.atStartOfDay(MARKET_ZONE).toInstant().toEpochMilli();
+   }
+}
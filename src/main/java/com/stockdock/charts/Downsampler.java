@@ -0,0 +1,153 @@
+package com.stockdock.charts;
+
+import com.stockdock.dto.BarSeries;
+import com.stockdock.exceptions.InvalidRequestParameterException;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Reduces a bar series to at most a given number of bars for charting.
+ *
+ * Both methods keep original bars rather than synthesizing new ones, always keep the first and last
+ * bar, and run in a single O(n) pass.
+ */
+public final class Downsampler {
+
+   static final int MIN_POINTS = 3;
+   static final int MIN_MAX_MIN_POINTS = 4; // One bucket contributes up to two bars besides the endpoints
+
+   public enum Method {
+      /**
+       * Largest-Triangle-Three-Buckets on the close price: picks the bar per bucket that spans the
+       * largest triangle with its neighbours, which preserves the visual shape of a line chart.
+       */
+      LTTB,
+      /**
+       * The bars with the lowest low and the highest high of each bucket, so no price extreme is lost.
+       * Needs room for at least one bucket, i.e. 4 bars.
+       */
+      MIN_MAX;
+
+      /**
+       * @throws InvalidRequestParameterException if the name is not a known method.
+       */
+      public static Method parse(String value) {
+         return switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "lttb" -> LTTB;
+            case "minmax", "min-max", "min_max" -> MIN_MAX;
+            default -> throw new InvalidRequestParameterException("Unsupported downsampling '" + value + "'. Use lttb or minmax.");
+         };
+      }
+   }
+
+   private Downsampler () {
+   }
+
+   /**
+    * Downsample a series to at most {@code maxPoints} bars.
+    *
+    * @param series    The bars to reduce, ordered by time.
+    * @param maxPoints The maximum number of bars to return, at least 3 (4 for min-max).
+    * @param method    How to pick the bars that are kept.
+    * @return The series itself if it is already small enough, otherwise a series of selected bars.
+    * @throws InvalidRequestParameterException if {@code maxPoints} is below the method's minimum.
+    */
+   public static BarSeries downsample(BarSeries series, int maxPoints, Method method) {
+      if (maxPoints < MIN_POINTS) {
+         throw new InvalidRequestParameterException("maxPoints must be at least " + MIN_POINTS + ".");
+      }
+      if (method == Method.MIN_MAX && maxPoints < MIN_MAX_MIN_POINTS) {
+         throw new InvalidRequestParameterException("maxPoints must be at least " + MIN_MAX_MIN_POINTS + " for minmax downsampling.");
+      }
+      if (series.size() <= maxPoints) {
+         return series;
+      }
+      int[] indices = switch (method) {
+         case LTTB -> lttb(series.t(), series.c(), maxPoints);
+         case MIN_MAX -> minMax(series.l(), series.h(), maxPoints);
+      };
+      return series.select(indices);
+   }
+
+   static int[] lttb(long[] x, double[] y, int threshold) {
+      int size = x.length;
+      int[] selected = new int[threshold];
+      int count = 0;
+      selected[count++] = 0;
+
+      // The first and last bar are fixed, the rest is split into threshold - 2 buckets
+      double bucketSize = (double) (size - 2) / (threshold - 2);
+      int previous = 0;
+
+      for (int bucket = 0; bucket < threshold - 2; bucket++) {
+         int from = (int) (bucket * bucketSize) + 1;
+         int to = (int) ((bucket + 1) * bucketSize) + 1;
+
+         // Average of the next bucket, or the last bar for the final bucket
+         int nextFrom = to;
+         int nextTo = Math.min((int) ((bucket + 2) * bucketSize) + 1, size);
+         double averageX = 0;
+         double averageY = 0;
+         for (int i = nextFrom; i < nextTo; i++) {
+            averageX += x[i];
+            averageY += y[i];
+         }
+         int nextCount = nextTo - nextFrom;
+         averageX /= nextCount;
+         averageY /= nextCount;
+
+         double previousX = x[previous];
+         double previousY = y[previous];
+         double maxArea = -1;
+         int chosen = from;
+         for (int i = from; i < to; i++) {
+            // Twice the triangle area, the factor does not change the maximum
+            double area = Math.abs((previousX - averageX) * (y[i] - previousY) - (previousX - x[i]) * (averageY - previousY));
+            if (area > maxArea) {
+               maxArea = area;
+               chosen = i;
+            }
+         }
+
+         selected[count++] = chosen;
+         previous = chosen;
+      }
+
+      selected[count++] = size - 1;
+      return Arrays.copyOf(selected, count);
+   }
+
+   static int[] minMax(double[] low, double[] high, int maxPoints) {
+      int size = low.length;
+      int buckets = (maxPoints - 2) / 2;
+      int[] selected = new int[buckets * 2 + 2];
+      int count = 0;
+      selected[count++] = 0;
+
+      double bucketSize = (double) (size - 2) / buckets;
+      for (int bucket = 0; bucket < buckets; bucket++) {
+         int from = (int) (bucket * bucketSize) + 1;
+         int to = (int) ((bucket + 1) * bucketSize) + 1;
+         int lowest = from;
+         int highest = from;
+         for (int i = from + 1; i < to; i++) {
+            if (low[i] < low[lowest]) {
+               lowest = i;
+            }
+            if (high[i] > high[highest]) {
+               highest = i;
+            }
+         }
+
+         // Keep time order and do not emit the same bar twice
+         selected[count++] = Math.min(lowest, highest);
+         if (lowest != highest) {
+            selected[count++] = Math.max(lowest, highest);
+         }
+      }
+
+      selected[count++] = size - 1;
+      return Arrays.copyOf(selected, count);
+   }
+}
@@ -0,0 +1,27 @@
+package com.stockdock.clients;
+
+import com.stockdock.config.AlpacaProperties;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * The Alpaca REST endpoints used by {@link CurrentStockClient}, each with its own read timeout.
+ */
+public enum AlpacaEndpoint {
+   LATEST_QUOTE(AlpacaProperties.Http::getQuotesReadTimeout),
+   LATEST_QUOTES(AlpacaProperties.Http::getQuotesReadTimeout),
+   SNAPSHOT(AlpacaProperties.Http::getSnapshotsReadTimeout),
+   SNAPSHOTS(AlpacaProperties.Http::getSnapshotsReadTimeout),
+   BARS(AlpacaProperties.Http::getBarsReadTimeout);
+
+   private final Function<AlpacaProperties.Http, Duration> readTimeout;
+
+   AlpacaEndpoint(Function<AlpacaProperties.Http, Duration> readTimeout) {
+      this.readTimeout = readTimeout;
+   }
+
+   public Duration readTimeout(AlpacaProperties.Http http) {
+      return readTimeout.apply(http);
+   }
+}
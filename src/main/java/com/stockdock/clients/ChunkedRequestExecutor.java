@@ -0,0 +1,139 @@
+package com.stockdock.clients;
+
+import com.stockdock.config.AlpacaProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Runs multi-symbol Alpaca requests in URL-safe chunks.
+ *
+ * The symbol list is split by {@code alpaca.batch.chunk-size} and {@code alpaca.batch.max-symbols-length},
+ * and the chunks are fetched concurrently on virtual threads, at most {@code alpaca.batch.max-concurrency}
+ * at a time. A failing chunk does not fail the others; its error is returned with its result.
+ * The caller's {@link RequestPriority} is carried over to the chunk threads.
+ */
+@Component
+public class ChunkedRequestExecutor {
+
+   private static final Logger logger = LoggerFactory.getLogger(ChunkedRequestExecutor.class);
+
+   private final AlpacaProperties.Batch batch;
+
+   public ChunkedRequestExecutor (AlpacaProperties alpacaProperties) {
+      this.batch = alpacaProperties.getBatch();
+   }
+
+   /**
+    * The outcome of one chunk: either a value or the exception that made it fail.
+    */
+   public record ChunkResult<T>(List<String> symbols, T value, Exception error, Duration latency) {
+      public boolean failed() {
+         return error != null;
+      }
+   }
+
+   /**
+    * Fetch all symbols chunk by chunk.
+    *
+    * @param symbols The symbols to fetch.
+    * @param fetch   The request for a single chunk of symbols.
+    * @return One result per chunk, in chunk order.
+    */
+   public <T> List<ChunkResult<T>> execute(List<String> symbols, Function<List<String>, T> fetch) {
+      List<List<String>> chunks = partition(symbols);
+      if (chunks.size() == 1) {
+         // No fan-out needed for a single chunk
+         return List.of(fetchChunk(chunks.getFirst(), fetch));
+      }
+
+      RequestPriority priority = RequestPriority.current();
+      Semaphore permits = new Semaphore(Math.max(1, batch.getMaxConcurrency()));
+      List<Future<ChunkResult<T>>> futures = new ArrayList<>(chunks.size());
+
+      try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+         for (List<String> chunk : chunks) {
+            futures.add(executor.submit(() -> {
+               permits.acquire();
+               try {
+                  return RequestPriority.callWith(priority, () -> fetchChunk(chunk, fetch));
+               } finally {
+                  permits.release();
+               }
+            }));
+         }
+      }
+
+      List<ChunkResult<T>> results = new ArrayList<>(futures.size());
+      for (int i = 0; i < futures.size(); i++) {
+         results.add(resultOf(futures.get(i), chunks.get(i)));
+      }
+
+      Duration slowest = results.stream().map(ChunkResult::latency).max(Duration::compareTo).orElse(Duration.ZERO);
+      logger.info("Fetched {} symbols in {} chunks, slowest chunk took {} ms", symbols.size(), chunks.size(), slowest.toMillis());
+      return results;
+   }
+
+   /**
+    * Split symbols into chunks bounded by both symbol count and joined query length.
+    * Each chunk costs one upstream request.
+    */
+   public List<List<String>> partition(List<String> symbols) {
+      List<List<String>> chunks = new ArrayList<>();
+      List<String> current = new ArrayList<>();
+      int length = 0;
+
+      for (String symbol : symbols) {
+         int added = current.isEmpty() ? symbol.length() : symbol.length() + 1; // Comma separator
+         if (!current.isEmpty() && (current.size() >= batch.getChunkSize() || length + added > batch.getMaxSymbolsLength())) {
+            chunks.add(current);
+            current = new ArrayList<>();
+            added = symbol.length();
+            length = 0;
+         }
+         current.add(symbol);
+         length += added;
+      }
+
+      if (!current.isEmpty() || chunks.isEmpty()) {
+         chunks.add(current);
+      }
+      return chunks;
+   }
+
+   private <T> ChunkResult<T> fetchChunk(List<String> chunk, Function<List<String>, T> fetch) {
+      long startNanos = System.nanoTime();
+      try {
+         T value = fetch.apply(chunk);
+         Duration latency = Duration.ofNanos(System.nanoTime() - startNanos);
+         logger.debug("Chunk of {} symbols fetched in {} ms", chunk.size(), latency.toMillis());
+         return new ChunkResult<>(chunk, value, null, latency);
+      } catch (Exception e) {
+         Duration latency = Duration.ofNanos(System.nanoTime() - startNanos);
+         logger.warn("Chunk of {} symbols failed after {} ms: {}", chunk.size(), latency.toMillis(), e.getMessage());
+         return new ChunkResult<>(chunk, null, e, latency);
+      }
+   }
+
+   private <T> ChunkResult<T> resultOf(Future<ChunkResult<T>> future, List<String> chunk) {
+      try {
+         return future.get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         return new ChunkResult<>(chunk, null, e, Duration.ZERO);
+      } catch (ExecutionException e) {
+         Exception cause = e.getCause() instanceof Exception exception ? exception : e;
+         return new ChunkResult<>(chunk, null, cause, Duration.ZERO);
+      }
+   }
+}
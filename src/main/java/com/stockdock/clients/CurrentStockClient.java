@@ -1,64 +1,87 @@
 
 package com.stockdock.clients;
 
+import com.stockdock.clients.ChunkedRequestExecutor.ChunkResult;
+import com.stockdock.config.AlpacaProperties;
 import com.stockdock.config.SymbolConfig;
+import com.stockdock.dto.HistoricalBar;
 import com.stockdock.dto.HistoricalBarsResponse;
+import com.stockdock.dto.StockQuote;
 import com.stockdock.dto.StockQuoteResponse;
 import com.stockdock.dto.StockQuotes;
 import com.stockdock.dto.StockSnapshotResponse;
-import com.stockdock.services.CurrentStockService;
-import org.springframework.beans.factory.annotation.Value;
+import com.stockdock.exceptions.ApiRequestException;
+import com.stockdock.exceptions.RateLimitExceededException;
+import com.stockdock.exceptions.ServiceUnavailableException;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
-import org.springframework.web.util.UriComponentsBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Service
 public class CurrentStockClient {
 
-   private final RestClient restClient;
+   private final Map<AlpacaEndpoint, RestClient> restClients = new EnumMap<>(AlpacaEndpoint.class);
    private final SymbolConfig symbolConfig; // Inject Symbols list
-   private static final Logger logger = LoggerFactory.getLogger(CurrentStockService.class);
-
-   private final String apiKey;
-   private final String apiSecret;
-   private final String baseUrl;
-   private final String paperUrl;
+   private final ChunkedRequestExecutor chunkedRequestExecutor;
+   private static final Logger logger = LoggerFactory.getLogger(CurrentStockClient.class);
 
+   /**
+    * Each endpoint gets its own view of the shared RestClient: same pooled connections, base URL
+    * and default headers, but with the endpoint's read timeout and a latency interceptor.
+    * Every call first passes the endpoint's circuit breaker, then takes a token from the shared rate
+    * limiter; the wait is not counted as latency.
+    */
    public CurrentStockClient (
+       RestClient restClient,
+       HttpClient alpacaHttpClient,
+       AlpacaProperties alpacaProperties,
+       UpstreamLatencyTracker latencyTracker,
+       UpstreamRateLimiter rateLimiter,
+       UpstreamCircuitBreaker circuitBreaker,
        SymbolConfig symbolConfig, // Add symbols list to constructor
-       @Value("${alpaca.api.key}") String apiKey,
-       @Value("${alpaca.api.secret}") String apiSecret,
-       @Value("${alpaca.api.base.url}") String baseUrl,
-       @Value("${alpaca.api.paper.url}") String paperUrl
+       ChunkedRequestExecutor chunkedRequestExecutor
                              ) {
-      this.restClient = RestClient.builder().build();
+      for (AlpacaEndpoint endpoint : AlpacaEndpoint.values()) {
+         JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(alpacaHttpClient);
+         requestFactory.setReadTimeout(endpoint.readTimeout(alpacaProperties.getHttp()));
+         restClients.put(endpoint, restClient.mutate()
+             .requestFactory(requestFactory)
+             .requestInterceptor(circuitBreaker.interceptor(endpoint))
+             .requestInterceptor((request, body, execution) -> {
+                rateLimiter.acquire();
+                return execution.execute(request, body);
+             })
+             .requestInterceptor(new UpstreamLatencyInterceptor(endpoint, latencyTracker))
+             .build());
+      }
       this.symbolConfig = symbolConfig;
-      this.apiKey = apiKey;
-      this.apiSecret = apiSecret;
-      this.baseUrl = baseUrl;
-      this.paperUrl = paperUrl;
+      this.chunkedRequestExecutor = chunkedRequestExecutor;
    }
 
    // Fetch single quote by symbol
    public StockQuoteResponse getSingleQuoteBySymbol (String symbol) {
-      URI uri = UriComponentsBuilder.fromUriString(baseUrl)
-          .path("/v2/stocks/{symbol}/quotes/latest")
-          .buildAndExpand(symbol)
-          .toUri();
-      System.out.println("Constructed URI: " + uri);
+      logger.debug("Fetching latest quote for symbol {}", symbol);
 
       // Make API Call
-      return restClient.get()
-          .uri(uri)
-          .headers(httpHeaders -> {
-             httpHeaders.set("APCA-API-KEY-ID", apiKey);
-             httpHeaders.set("APCA-API-SECRET-KEY", apiSecret);
-             httpHeaders.set("Accept", "application/json");
-          })
+      return restClients.get(AlpacaEndpoint.LATEST_QUOTE).get()
+          .uri("/v2/stocks/{symbol}/quotes/latest", symbol)
           .retrieve()
           .body(StockQuoteResponse.class); // Convert response to StockQuoteResponse
    }
@@ -66,50 +89,126 @@ public class CurrentStockClient {
    // Fetch all predefined quotes
    public StockQuotes getAllQuotes () {
       // Use predefined list of symbols from Config
-      List<String> symbols = symbolConfig.getPredefined();
+      return getQuotes(symbolConfig.getPredefined());
+   }
+
+   /**
+    * Fetch the latest quotes for a list of symbols.
+    *
+    * Large symbol lists are split into URL-safe chunks that are fetched in parallel with bounded
+    * concurrency, so the whole list takes about as long as the slowest chunk. Failed chunks are
+    * logged and left out of the result; only if every chunk fails is the request failed.
+    *
+    * @param symbols The stock symbols to fetch.
+    * @return StockQuotes with the merged quotes of all successful chunks.
+    * @throws RateLimitExceededException if no chunk got past the upstream rate limiter.
+    * @throws ServiceUnavailableException if no chunk got past the open circuit breaker.
+    * @throws ApiRequestException if no chunk could be fetched.
+    */
+   public StockQuotes getQuotes (List<String> symbols) {
+      List<ChunkResult<StockQuotes>> chunks = chunkedRequestExecutor.execute(symbols, this::getQuotesChunk);
+
+      Map<String, StockQuote> quotes = new LinkedHashMap<>();
+      String currency = null;
+      Exception lastError = null;
+      int failedSymbols = 0;
+
+      for (ChunkResult<StockQuotes> chunk : chunks) {
+         if (chunk.failed()) {
+            lastError = chunk.error();
+            failedSymbols += chunk.symbols().size();
+            continue;
+         }
+         if (chunk.value() != null && chunk.value().quotes() != null) {
+            quotes.putAll(chunk.value().quotes());
+            currency = currency == null ? chunk.value().currency() : currency;
+         }
+      }
+
+      if (lastError instanceof RateLimitExceededException rateLimitExceeded && failedSymbols == symbols.size()) {
+         throw rateLimitExceeded;
+      }
+      if (lastError instanceof ServiceUnavailableException serviceUnavailable && failedSymbols == symbols.size()) {
+         throw serviceUnavailable;
+      }
+      if (lastError != null && failedSymbols == symbols.size()) {
+         throw new ApiRequestException("Failed to fetch quotes: " + lastError.getMessage(), lastError);
+      }
+      if (failedSymbols > 0) {
+         logger.warn("Quotes for {} of {} symbols could not be fetched", failedSymbols, symbols.size());
+      }
+
+      return new StockQuotes(currency, quotes);
+   }
+
+   // Fetch the latest quotes for one chunk of symbols in a single request
+   private StockQuotes getQuotesChunk (List<String> symbols) {
       String symbolsListAsQueryParam = String.join(",", symbols);
 
-      // Build URI
-      URI uri = UriComponentsBuilder.fromUriString(baseUrl)
-          .path("/v2/stocks/quotes/latest")
-          .queryParam("symbols", symbolsListAsQueryParam) // Add symbols as query param
-          .build()
-          .toUri();
-      System.out.println("Final URI: " + uri);
+      logger.debug("Fetching latest quotes for {} symbols", symbols.size());
 
       // Make API Call
-      return restClient.get()
-          .uri(uri)
-          .headers(httpHeaders -> {
-             httpHeaders.set("APCA-API-KEY-ID", apiKey);
-             httpHeaders.set("APCA-API-SECRET-KEY", apiSecret);
-             httpHeaders.set("Accept", "application/json");
-          })
+      return restClients.get(AlpacaEndpoint.LATEST_QUOTES).get()
+          .uri(uriBuilder -> uriBuilder
+              .path("/v2/stocks/quotes/latest")
+              .queryParam("symbols", symbolsListAsQueryParam) // Add symbols as query param
+              .build())
           .retrieve()
           .body(StockQuotes.class); // Convert response to DTO
    }
 
    // Fetch detailed data for a single stock
    public StockSnapshotResponse getStockSnapshot (String symbol) {
-      URI uri = UriComponentsBuilder.fromUriString(baseUrl)
-          .path("/v2/stocks/{symbol}/snapshot") // Use the snapshot endpoint
-          .buildAndExpand(symbol)
-          .toUri();
-
-      System.out.println("Fetching snapshot for symbol: " + symbol);
+      logger.debug("Fetching snapshot for symbol {}", symbol);
 
       // Make API Call
-      return restClient.get()
-          .uri(uri)
-          .headers(httpHeaders -> {
-             httpHeaders.set("APCA-API-KEY-ID", apiKey);
-             httpHeaders.set("APCA-API-SECRET-KEY", apiSecret);
-             httpHeaders.set("Accept", "application/json");
-          })
+      return restClients.get(AlpacaEndpoint.SNAPSHOT).get()
+          .uri("/v2/stocks/{symbol}/snapshot", symbol) // Use the snapshot endpoint
           .retrieve()
           .body(StockSnapshotResponse.class); // Convert response to DTO
    }
 
+   /**
+    * Fetch snapshots for several symbols in one request.
+    *
+    * The multi-symbol endpoint returns snapshots keyed by symbol without a symbol field,
+    * so each snapshot is returned with its symbol filled in. Symbols without data are absent.
+    *
+    * @param symbols The stock symbols to fetch, small enough to fit in one URL.
+    * @return Snapshots keyed by symbol.
+    */
+   public Map<String, StockSnapshotResponse> getStockSnapshots (List<String> symbols) {
+      logger.debug("Fetching snapshots for {} symbols", symbols.size());
+
+      // Make API Call
+      Map<String, StockSnapshotResponse> snapshots = restClients.get(AlpacaEndpoint.SNAPSHOTS).get()
+          .uri(uriBuilder -> uriBuilder
+              .path("/v2/stocks/snapshots")
+              .queryParam("symbols", String.join(",", symbols))
+              .build())
+          .retrieve()
+          .body(new ParameterizedTypeReference<Map<String, StockSnapshotResponse>>() {});
+
+      if (snapshots == null) {
+         return Map.of();
+      }
+
+      Map<String, StockSnapshotResponse> withSymbols = new HashMap<>(snapshots.size());
+      snapshots.forEach((symbol, snapshot) -> {
+         if (snapshot != null) {
+            withSymbols.put(symbol, new StockSnapshotResponse(
+                symbol,
+                snapshot.dailyBar(),
+                snapshot.prevDailyBar(),
+                snapshot.latestQuote(),
+                snapshot.latestTrade(),
+                snapshot.minuteBar()
+            ));
+         }
+      });
+      return withSymbols;
+   }
+
    /**
     * Fetch historical stock bars from the Alpaca API.
     *
@@ -117,6 +216,9 @@ public class CurrentStockClient {
     * within a given timeframe and date range. The bars include aggregated
     * data such as open, high, low, close prices, volume, and more.
     *
+    * Alpaca returns at most {@code limit} bars per request, so this follows
+    * {@code next_page_token} until the whole range has been read.
+    *
     * @param symbol    The stock symbol to fetch (e.g., "AAPL").
     * @param timeframe The aggregation timeframe for the bars (e.g., "1Day", "1Week", "1Month").
     *                  Accepted values should match Alpaca's API requirements.
@@ -124,29 +226,76 @@ public class CurrentStockClient {
     *                  or simple date format (e.g., "2024-01-01").
     * @param end       The end date for the historical data in RFC-3339 format (e.g., "2024-12-31T23:59:59Z")
     *                  or simple date format (e.g., "2024-12-31").
+    * @param limit     The page size per upstream request, or null for Alpaca's default.
     * @return A {@link HistoricalBarsResponse} containing the historical bars data.
     *         This includes a list of bars sorted by the provided timeframe.
-    * @throws IllegalArgumentException if any required parameter is null or empty.
     */
-   public HistoricalBarsResponse getHistoricalBars(String symbol, String timeframe, String start, String end) {
-      URI uri = UriComponentsBuilder.fromUriString(baseUrl)
-          .path("/v2/stocks/{symbol}/bars")
-          .queryParam("timeframe", timeframe)
-          .queryParam("start", start)
-          .queryParam("end", end)
-          .buildAndExpand(symbol)
-          .toUri();
-
-      logger.info("Calling Alpaca API for historical bars: {}", uri);
-
-      return restClient.get()
-          .uri(uri)
-          .headers(httpHeaders -> {
-             httpHeaders.set("APCA-API-KEY-ID", apiKey);
-             httpHeaders.set("APCA-API-SECRET-KEY", apiSecret);
-             httpHeaders.set("Accept", "application/json");
-          })
+   public HistoricalBarsResponse getHistoricalBars(String symbol, String timeframe, String start, String end, Integer limit) {
+      List<HistoricalBar> bars = streamHistoricalBars(symbol, timeframe, start, end, limit).toList();
+      return new HistoricalBarsResponse(bars, symbol, null);
+   }
+
+   /**
+    * Fetch a single page of historical stock bars from the Alpaca API.
+    *
+    * @param limit     The maximum number of bars in the page, or null for Alpaca's default.
+    * @param pageToken The {@code next_page_token} of the previous page, or null for the first page.
+    * @return A {@link HistoricalBarsResponse} with the bars of this page and the token for the next one.
+    */
+   public HistoricalBarsResponse getHistoricalBarsPage(
+       String symbol, String timeframe, String start, String end, Integer limit, String pageToken) {
+      logger.info("Calling Alpaca API for historical bars: {} {} {}..{} page {}", symbol, timeframe, start, end, pageToken);
+
+      return restClients.get(AlpacaEndpoint.BARS).get()
+          .uri(uriBuilder -> uriBuilder
+              .path("/v2/stocks/{symbol}/bars")
+              .queryParam("timeframe", timeframe)
+              .queryParam("start", start)
+              .queryParam("end", end)
+              .queryParamIfPresent("limit", Optional.ofNullable(limit))
+              .queryParamIfPresent("page_token", Optional.ofNullable(pageToken))
+              .build(symbol))
           .retrieve()
           .body(HistoricalBarsResponse.class);
    }
-}
\ No newline at end of file
+
+   /**
+    * Lazily stream historical stock bars from the Alpaca API.
+    *
+    * Pages are requested one at a time as the stream is consumed, and each page is released
+    * once its bars have been handed on. Memory use is bounded by the page size regardless of
+    * how long the requested range is. Nothing is fetched until a terminal operation runs.
+    *
+    * @param limit The page size per upstream request, or null for Alpaca's default.
+    * @return An ordered, sequential stream over every bar in the range.
+    */
+   public Stream<HistoricalBar> streamHistoricalBars(String symbol, String timeframe, String start, String end, Integer limit) {
+      Spliterator<HistoricalBar> pages = new Spliterators.AbstractSpliterator<>(
+          Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+
+         private Iterator<HistoricalBar> currentPage = Collections.emptyIterator();
+         private String nextPageToken;
+         private boolean lastPageFetched;
+
+         @Override
+         public boolean tryAdvance(Consumer<? super HistoricalBar> action) {
+            while (!currentPage.hasNext()) {
+               if (lastPageFetched) {
+                  return false;
+               }
+               HistoricalBarsResponse page = getHistoricalBarsPage(symbol, timeframe, start, end, limit, nextPageToken);
+
+               nextPageToken = page == null ? null : page.nextPageToken();
+               lastPageFetched = nextPageToken == null || nextPageToken.isBlank();
+               currentPage = page == null || page.bars() == null
+                   ? Collections.emptyIterator()
+                   : page.bars().iterator();
+            }
+            action.accept(currentPage.next());
+            return true;
+         }
+      };
+
+      return StreamSupport.stream(pages, false);
+   }
+}
@@ -0,0 +1,76 @@
+package com.stockdock.clients;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Asks for gzip-encoded responses and transparently decodes them.
+ *
+ * The JDK HttpClient behind the RestClient does not decompress bodies on its own, so this
+ * interceptor unwraps gzip bodies before they reach the message converters.
+ */
+public class GzipDecompressingInterceptor implements ClientHttpRequestInterceptor {
+
+   @Override
+   public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+      request.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+      ClientHttpResponse response = execution.execute(request, body);
+
+      if (!"gzip".equalsIgnoreCase(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))) {
+         return response;
+      }
+      return new GzipResponse(response);
+   }
+
+   private static final class GzipResponse implements ClientHttpResponse {
+
+      private final ClientHttpResponse delegate;
+      private final HttpHeaders headers;
+      private InputStream body;
+
+      private GzipResponse(ClientHttpResponse delegate) {
+         this.delegate = delegate;
+         // The decoded body no longer matches the encoded length
+         this.headers = new HttpHeaders();
+         this.headers.putAll(delegate.getHeaders());
+         this.headers.remove(HttpHeaders.CONTENT_ENCODING);
+         this.headers.remove(HttpHeaders.CONTENT_LENGTH);
+      }
+
+      @Override
+      public HttpStatusCode getStatusCode() throws IOException {
+         return delegate.getStatusCode();
+      }
+
+      @Override
+      public String getStatusText() throws IOException {
+         return delegate.getStatusText();
+      }
+
+      @Override
+      public HttpHeaders getHeaders() {
+         return headers;
+      }
+
+      @Override
+      public InputStream getBody() throws IOException {
+         if (body == null) {
+            body = new GZIPInputStream(delegate.getBody());
+         }
+         return body;
+      }
+
+      @Override
+      public void close() {
+         delegate.close();
+      }
+   }
+}
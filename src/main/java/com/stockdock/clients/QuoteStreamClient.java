@@ -0,0 +1,210 @@
+package com.stockdock.clients;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockdock.config.AlpacaProperties;
+import com.stockdock.dto.StockQuote;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Client for Alpaca's real-time market data WebSocket stream.
+ *
+ * After connecting it authenticates with the API key, subscribes to quotes for the given symbols
+ * and hands every batch of received quotes to a listener. When the connection drops it reconnects
+ * with exponential backoff and subscribes again.
+ *
+ * Protocol: https://docs.alpaca.markets/docs/real-time-stock-pricing-data
+ */
+@Component
+public class QuoteStreamClient {
+
+   private static final Logger logger = LoggerFactory.getLogger(QuoteStreamClient.class);
+
+   private final AlpacaProperties.Stream properties;
+   private final ObjectMapper objectMapper;
+   private final HttpClient httpClient;
+   private final String apiKey;
+   private final String apiSecret;
+
+   private final ScheduledExecutorService reconnectScheduler = Executors.newSingleThreadScheduledExecutor(
+       Thread.ofPlatform().name("quote-stream-reconnect").daemon().factory());
+
+   private volatile List<String> symbols = List.of();
+   private volatile Consumer<Map<String, StockQuote>> listener = quotes -> { };
+   private volatile WebSocket webSocket;
+   private volatile boolean authenticated;
+   private volatile boolean stopped;
+   private volatile Instant lastMessageAt = Instant.EPOCH;
+   private volatile Duration reconnectDelay;
+
+   public QuoteStreamClient (
+       AlpacaProperties alpacaProperties,
+       ObjectMapper objectMapper,
+       HttpClient alpacaHttpClient,
+       @Value("${alpaca.api.key}") String apiKey,
+       @Value("${alpaca.api.secret}") String apiSecret
+                            ) {
+      this.properties = alpacaProperties.getStream();
+      this.objectMapper = objectMapper;
+      this.httpClient = alpacaHttpClient; // WebSocket upgrades always use HTTP/1.1
+      this.apiKey = apiKey;
+      this.apiSecret = apiSecret;
+      this.reconnectDelay = properties.getReconnectInitialDelay();
+   }
+
+   /**
+    * Connect to the stream and subscribe to quotes for the given symbols.
+    *
+    * @param symbols  The symbols to subscribe to, resubscribed after every reconnect.
+    * @param listener Receives each batch of quotes keyed by symbol, called on the stream's thread.
+    */
+   public void start(List<String> symbols, Consumer<Map<String, StockQuote>> listener) {
+      this.symbols = List.copyOf(symbols);
+      this.listener = Objects.requireNonNull(listener);
+      this.stopped = false;
+      connect();
+   }
+
+   /**
+    * Whether the stream is authenticated and has delivered a message recently enough to be trusted
+    * as the source of the latest quotes.
+    */
+   public boolean isLive() {
+      return authenticated && lastMessageAt.plus(properties.getStaleAfter()).isAfter(Instant.now());
+   }
+
+   @PreDestroy
+   public void stop() {
+      stopped = true;
+      reconnectScheduler.shutdownNow();
+      WebSocket current = webSocket;
+      if (current != null) {
+         current.sendClose(WebSocket.NORMAL_CLOSURE, "shutdown");
+      }
+   }
+
+   private void connect() {
+      if (stopped) {
+         return;
+      }
+
+      logger.info("Connecting to quote stream {}", properties.getUrl());
+      httpClient.newWebSocketBuilder()
+          .buildAsync(URI.create(properties.getUrl()), new StreamListener())
+          .whenComplete((socket, error) -> {
+             if (error != null) {
+                logger.warn("Quote stream connection failed: {}", error.getMessage());
+                scheduleReconnect();
+             } else {
+                webSocket = socket;
+             }
+          });
+   }
+
+   private void scheduleReconnect() {
+      authenticated = false;
+      if (stopped) {
+         return;
+      }
+
+      Duration delay = reconnectDelay;
+      Duration doubled = delay.multipliedBy(2);
+      reconnectDelay = doubled.compareTo(properties.getReconnectMaxDelay()) > 0 ? properties.getReconnectMaxDelay() : doubled;
+
+      logger.info("Reconnecting to quote stream in {} ms", delay.toMillis());
+      reconnectScheduler.schedule(this::connect, delay.toMillis(), TimeUnit.MILLISECONDS);
+   }
+
+   // Every stream frame is a JSON array of messages, each tagged with its type in "T"
+   private void handleFrame(WebSocket socket, String frame) throws Exception {
+      lastMessageAt = Instant.now();
+      Map<String, StockQuote> quotes = new LinkedHashMap<>();
+
+      for (JsonNode message : objectMapper.readTree(frame)) {
+         switch (message.path("T").asText()) {
+            case "success" -> {
+               if ("connected".equals(message.path("msg").asText())) {
+                  send(socket, Map.of("action", "auth", "key", apiKey, "secret", apiSecret));
+               } else if ("authenticated".equals(message.path("msg").asText())) {
+                  authenticated = true;
+                  reconnectDelay = properties.getReconnectInitialDelay();
+                  send(socket, Map.of("action", "subscribe", "quotes", symbols));
+                  logger.info("Quote stream authenticated, subscribing to {} symbols", symbols.size());
+               }
+            }
+            case "subscription" -> logger.info("Quote stream subscribed to {} symbols", message.path("quotes").size());
+            case "error" -> logger.error("Quote stream error {}: {}", message.path("code").asInt(), message.path("msg").asText());
+            case "q" -> quotes.put(message.path("S").asText(), objectMapper.treeToValue(message, StockQuote.class));
+            default -> logger.debug("Ignoring quote stream message: {}", message);
+         }
+      }
+
+      if (!quotes.isEmpty()) {
+         listener.accept(quotes);
+      }
+   }
+
+   private void send(WebSocket socket, Map<String, Object> message) throws Exception {
+      socket.sendText(objectMapper.writeValueAsString(message), true);
+   }
+
+   private class StreamListener implements WebSocket.Listener {
+
+      private final StringBuilder buffer = new StringBuilder();
+
+      @Override
+      public void onOpen(WebSocket socket) {
+         logger.info("Quote stream connected");
+         socket.request(1);
+      }
+
+      @Override
+      public CompletionStage<?> onText(WebSocket socket, CharSequence data, boolean last) {
+         buffer.append(data);
+         if (last) {
+            String frame = buffer.toString();
+            buffer.setLength(0);
+            try {
+               handleFrame(socket, frame);
+            } catch (Exception e) {
+               logger.error("Failed to handle quote stream message: {}", e.getMessage(), e);
+            }
+         }
+         // Only ask for the next frame once this one is handled, so a slow listener applies backpressure
+         socket.request(1);
+         return null;
+      }
+
+      @Override
+      public CompletionStage<?> onClose(WebSocket socket, int statusCode, String reason) {
+         logger.warn("Quote stream closed ({}): {}", statusCode, reason);
+         scheduleReconnect();
+         return null;
+      }
+
+      @Override
+      public void onError(WebSocket socket, Throwable error) {
+         logger.error("Quote stream failed: {}", error.getMessage());
+         scheduleReconnect();
+      }
+   }
+}
@@ -0,0 +1,33 @@
+package com.stockdock.clients;
+
+import java.util.function.Supplier;
+
+/**
+ * Priority of the Alpaca calls made on the current thread.
+ *
+ * Scheduled refreshes keep the stored quotes current for everyone, so the rate limiter lets them
+ * wait longer and serves them before user requests.
+ */
+public enum RequestPriority {
+   SCHEDULED,
+   INTERACTIVE;
+
+   private static final ThreadLocal<RequestPriority> CURRENT = ThreadLocal.withInitial(() -> INTERACTIVE);
+
+   public static RequestPriority current() {
+      return CURRENT.get();
+   }
+
+   /**
+    * Run a call with the given priority, restoring the previous one afterwards.
+    */
+   public static <T> T callWith(RequestPriority priority, Supplier<T> call) {
+      RequestPriority previous = CURRENT.get();
+      CURRENT.set(priority);
+      try {
+         return call.get();
+      } finally {
+         CURRENT.set(previous);
+      }
+   }
+}
@@ -0,0 +1,262 @@
+package com.stockdock.clients;
+
+import com.stockdock.config.AlpacaProperties;
+import com.stockdock.dto.CircuitBreakerStats;
+import com.stockdock.exceptions.ServiceUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker per Alpaca endpoint, so a failing endpoint is not called until it has had time to recover.
+ *
+ * Each endpoint tracks the outcome of its last {@code alpaca.circuit-breaker.window-size} calls. A call
+ * fails when it gets no response (connect or read timeout) or a 5xx or 429 status; other 4xx statuses
+ * are the request's fault and count as successes. Once the failure rate reaches the threshold the breaker
+ * opens and calls fail immediately with {@link ServiceUnavailableException} instead of waiting for a
+ * timeout. After {@code open-duration} a single trial call is let through: success closes the breaker,
+ * failure opens it again.
+ */
+@Component
+public class UpstreamCircuitBreaker {
+
+   private static final Logger logger = LoggerFactory.getLogger(UpstreamCircuitBreaker.class);
+
+   public enum State {
+      CLOSED,
+      HALF_OPEN,
+      OPEN
+   }
+
+   private final AlpacaProperties.CircuitBreaker properties;
+   private final LongSupplier nanoTime;
+   private final Map<AlpacaEndpoint, Circuit> circuits = new EnumMap<>(AlpacaEndpoint.class);
+
+   @Autowired
+   public UpstreamCircuitBreaker (AlpacaProperties alpacaProperties) {
+      this(alpacaProperties, System::nanoTime);
+   }
+
+   /**
+    * @param nanoTime Monotonic time the open duration is measured with.
+    */
+   UpstreamCircuitBreaker (AlpacaProperties alpacaProperties, LongSupplier nanoTime) {
+      this.properties = alpacaProperties.getCircuitBreaker();
+      this.nanoTime = nanoTime;
+      for (AlpacaEndpoint endpoint : AlpacaEndpoint.values()) {
+         circuits.put(endpoint, new Circuit(endpoint));
+      }
+   }
+
+   /**
+    * Interceptor that guards every call to one endpoint. It runs before the rate limiter, so calls
+    * rejected by an open breaker do not use up tokens.
+    */
+   public ClientHttpRequestInterceptor interceptor(AlpacaEndpoint endpoint) {
+      Circuit circuit = circuits.get(endpoint);
+      return (request, body, execution) -> {
+         if (!properties.isEnabled()) {
+            return execution.execute(request, body);
+         }
+
+         circuit.acquire();
+         ClientHttpResponse response;
+         try {
+            response = execution.execute(request, body);
+         } catch (IOException e) {
+            circuit.record(true);
+            throw e;
+         } catch (RuntimeException e) {
+            // Rejected by our own rate limiter, Alpaca was not asked
+            circuit.release();
+            throw e;
+         }
+
+         HttpStatusCode status = response.getStatusCode();
+         circuit.record(status.is5xxServerError() || status.value() == 429);
+         return response;
+      };
+   }
+
+   public State state(AlpacaEndpoint endpoint) {
+      return circuits.get(endpoint).state();
+   }
+
+   /**
+    * @return Calls to the endpoint that failed immediately because its breaker was open.
+    */
+   public long rejected(AlpacaEndpoint endpoint) {
+      return circuits.get(endpoint).rejected.sum();
+   }
+
+   /**
+    * @return One entry per endpoint, in declaration order.
+    */
+   public List<CircuitBreakerStats> stats() {
+      List<CircuitBreakerStats> stats = new ArrayList<>(circuits.size());
+      circuits.values().forEach(circuit -> stats.add(circuit.stats()));
+      return stats;
+   }
+
+   private final class Circuit {
+      private final AlpacaEndpoint endpoint;
+      private final LongAdder rejected = new LongAdder();
+      private final ReentrantLock lock = new ReentrantLock();
+
+      // Guarded by lock
+      private final boolean[] failures = new boolean[properties.getWindowSize()];
+      private int next;
+      private int calls;
+      private int failed;
+      private State state = State.CLOSED;
+      private long openedAtNanos;
+      private boolean trialInFlight;
+      private long opened;
+
+      private Circuit (AlpacaEndpoint endpoint) {
+         this.endpoint = endpoint;
+      }
+
+      private void acquire() {
+         lock.lock();
+         try {
+            advance();
+            if (state == State.CLOSED) {
+               return;
+            }
+            if (state == State.HALF_OPEN && !trialInFlight) {
+               trialInFlight = true;
+               logger.info("Circuit breaker for {} is half-open, sending a trial call", endpoint);
+               return;
+            }
+
+            rejected.increment();
+            throw new ServiceUnavailableException(state == State.OPEN
+                ? "Alpaca " + endpoint + " is failing, calls are paused for " + remaining().toSeconds() + "s"
+                : "Alpaca " + endpoint + " is failing, waiting for a trial call");
+         } finally {
+            lock.unlock();
+         }
+      }
+
+      private void record(boolean callFailed) {
+         lock.lock();
+         try {
+            switch (state) {
+               case HALF_OPEN -> {
+                  trialInFlight = false;
+                  if (callFailed) {
+                     open();
+                  } else {
+                     reset();
+                     state = State.CLOSED;
+                     logger.info("Circuit breaker for {} closed, the trial call succeeded", endpoint);
+                  }
+               }
+               case CLOSED -> {
+                  if (calls == failures.length && failures[next]) {
+                     failed--;
+                  }
+                  failures[next] = callFailed;
+                  next = (next + 1) % failures.length;
+                  calls = Math.min(calls + 1, failures.length);
+                  if (callFailed) {
+                     failed++;
+                  }
+                  if (calls >= properties.getMinimumCalls() && failed * 100 >= properties.getFailureRateThreshold() * calls) {
+                     logger.warn("Circuit breaker for {} opened: {} of the last {} calls failed", endpoint, failed, calls);
+                     open();
+                  }
+               }
+               case OPEN -> {
+                  // A call that started before the breaker opened
+               }
+            }
+         } finally {
+            lock.unlock();
+         }
+      }
+
+      // Free the trial slot of a call that never reached Alpaca
+      private void release() {
+         lock.lock();
+         try {
+            trialInFlight = false;
+         } finally {
+            lock.unlock();
+         }
+      }
+
+      private State state() {
+         lock.lock();
+         try {
+            advance();
+            return state;
+         } finally {
+            lock.unlock();
+         }
+      }
+
+      private CircuitBreakerStats stats() {
+         lock.lock();
+         try {
+            advance();
+            return new CircuitBreakerStats(
+                endpoint.name(),
+                state.name(),
+                calls == 0 ? 0 : failed * 100 / calls,
+                calls,
+                rejected.sum(),
+                opened,
+                state == State.OPEN ? remaining().toMillis() : 0
+            );
+         } finally {
+            lock.unlock();
+         }
+      }
+
+      // An open breaker lets a trial call through once the open duration has passed
+      private void advance() {
+         if (state == State.OPEN && nanoTime.getAsLong() - openedAtNanos >= properties.getOpenDuration().toNanos()) {
+            state = State.HALF_OPEN;
+         }
+      }
+
+      private void open() {
+         if (state == State.HALF_OPEN) {
+            logger.warn("Circuit breaker for {} opened again, the trial call failed", endpoint);
+         }
+         state = State.OPEN;
+         openedAtNanos = nanoTime.getAsLong();
+         opened++;
+         reset();
+      }
+
+      private void reset() {
+         Arrays.fill(failures, false);
+         next = 0;
+         calls = 0;
+         failed = 0;
+      }
+
+      private Duration remaining() {
+         long left = properties.getOpenDuration().toNanos() - (nanoTime.getAsLong() - openedAtNanos);
+         return Duration.ofNanos(Math.max(left, 0));
+      }
+   }
+}
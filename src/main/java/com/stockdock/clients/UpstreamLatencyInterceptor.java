@@ -0,0 +1,110 @@
+package com.stockdock.clients;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+
+/**
+ * Times every call to one Alpaca endpoint, up to the arrival of the response headers, and
+ * measures the size of the response body as it is read.
+ */
+public class UpstreamLatencyInterceptor implements ClientHttpRequestInterceptor {
+
+   private static final Logger logger = LoggerFactory.getLogger(UpstreamLatencyInterceptor.class);
+
+   private final AlpacaEndpoint endpoint;
+   private final UpstreamLatencyTracker tracker;
+
+   public UpstreamLatencyInterceptor (AlpacaEndpoint endpoint, UpstreamLatencyTracker tracker) {
+      this.endpoint = endpoint;
+      this.tracker = tracker;
+   }
+
+   @Override
+   public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+      long startNanos = System.nanoTime();
+      try {
+         ClientHttpResponse response = execution.execute(request, body);
+         Duration latency = Duration.ofNanos(System.nanoTime() - startNanos);
+         HttpStatusCode status = response.getStatusCode();
+         tracker.record(endpoint, latency, String.valueOf(status.value()), status.isError());
+         logger.debug("{} {} answered {} in {} ms", endpoint, request.getURI().getPath(), status.value(), latency.toMillis());
+         return new SizeMeasuringResponse(response);
+      } catch (IOException e) {
+         // Connect and read timeouts end up here
+         Duration latency = Duration.ofNanos(System.nanoTime() - startNanos);
+         tracker.record(endpoint, latency, UpstreamLatencyTracker.IO_ERROR_STATUS, true);
+         logger.warn("{} {} failed after {} ms: {}", endpoint, request.getURI().getPath(), latency.toMillis(), e.getMessage());
+         throw e;
+      }
+   }
+
+   // Counts body bytes as they are consumed and records the total when the response is closed
+   private final class SizeMeasuringResponse implements ClientHttpResponse {
+
+      private final ClientHttpResponse delegate;
+      private long bytesRead;
+      private InputStream body;
+
+      private SizeMeasuringResponse(ClientHttpResponse delegate) {
+         this.delegate = delegate;
+      }
+
+      @Override
+      public HttpStatusCode getStatusCode() throws IOException {
+         return delegate.getStatusCode();
+      }
+
+      @Override
+      public String getStatusText() throws IOException {
+         return delegate.getStatusText();
+      }
+
+      @Override
+      public HttpHeaders getHeaders() {
+         return delegate.getHeaders();
+      }
+
+      @Override
+      public InputStream getBody() throws IOException {
+         if (body == null) {
+            body = new FilterInputStream(delegate.getBody()) {
+               @Override
+               public int read() throws IOException {
+                  int read = super.read();
+                  if (read >= 0) {
+                     bytesRead++;
+                  }
+                  return read;
+               }
+
+               @Override
+               public int read(byte[] buffer, int offset, int length) throws IOException {
+                  int read = super.read(buffer, offset, length);
+                  if (read > 0) {
+                     bytesRead += read;
+                  }
+                  return read;
+               }
+            };
+         }
+         return body;
+      }
+
+      @Override
+      public void close() {
+         tracker.recordResponseSize(endpoint, bytesRead);
+         delegate.close();
+      }
+   }
+}
@@ -0,0 +1,99 @@
+package com.stockdock.clients;
+
+import com.stockdock.dto.UpstreamCallStats;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-endpoint call counters and latencies for the Alpaca REST calls.
+ *
+ * Every call is also recorded in Micrometer as {@code alpaca.client.requests} (tagged by endpoint,
+ * HTTP status and outcome) and {@code alpaca.client.response.size}, both with percentile histograms.
+ */
+@Component
+public class UpstreamLatencyTracker {
+
+   static final String IO_ERROR_STATUS = "IO_ERROR";
+
+   private final MeterRegistry meterRegistry;
+   private final Map<AlpacaEndpoint, Counters> counters = new EnumMap<>(AlpacaEndpoint.class);
+   private final Map<AlpacaEndpoint, DistributionSummary> responseSizes = new EnumMap<>(AlpacaEndpoint.class);
+
+   public UpstreamLatencyTracker (MeterRegistry meterRegistry) {
+      this.meterRegistry = meterRegistry;
+      for (AlpacaEndpoint endpoint : AlpacaEndpoint.values()) {
+         counters.put(endpoint, new Counters());
+         responseSizes.put(endpoint, DistributionSummary.builder("alpaca.client.response.size")
+             .description("Size of Alpaca response bodies as received on the wire")
+             .baseUnit("bytes")
+             .tag("endpoint", endpoint.name())
+             .publishPercentileHistogram()
+             .register(meterRegistry));
+      }
+   }
+
+   /**
+    * @param status The HTTP status code, or {@code IO_ERROR} if no response arrived.
+    */
+   public void record(AlpacaEndpoint endpoint, Duration latency, String status, boolean failed) {
+      Counters endpointCounters = counters.get(endpoint);
+      long nanos = latency.toNanos();
+      endpointCounters.calls.increment();
+      endpointCounters.totalNanos.add(nanos);
+      endpointCounters.maxNanos.accumulateAndGet(nanos, Math::max);
+      endpointCounters.lastNanos.set(nanos);
+      if (failed) {
+         endpointCounters.errors.increment();
+      }
+
+      Timer.builder("alpaca.client.requests")
+          .description("Latency of Alpaca REST calls until the response headers arrive")
+          .tag("endpoint", endpoint.name())
+          .tag("status", status)
+          .tag("outcome", failed ? "failure" : "success")
+          .publishPercentileHistogram()
+          .register(meterRegistry)
+          .record(latency);
+   }
+
+   public void recordResponseSize(AlpacaEndpoint endpoint, long bytes) {
+      responseSizes.get(endpoint).record(bytes);
+   }
+
+   /**
+    * @return One entry per endpoint, in declaration order.
+    */
+   public List<UpstreamCallStats> stats() {
+      List<UpstreamCallStats> stats = new ArrayList<>(counters.size());
+      counters.forEach((endpoint, endpointCounters) -> {
+         long calls = endpointCounters.calls.sum();
+         stats.add(new UpstreamCallStats(
+             endpoint.name(),
+             calls,
+             endpointCounters.errors.sum(),
+             calls == 0 ? 0 : Duration.ofNanos(endpointCounters.totalNanos.sum() / calls).toMillis(),
+             Duration.ofNanos(endpointCounters.maxNanos.get()).toMillis(),
+             Duration.ofNanos(endpointCounters.lastNanos.get()).toMillis()
+         ));
+      });
+      return stats;
+   }
+
+   private static final class Counters {
+      private final LongAdder calls = new LongAdder();
+      private final LongAdder errors = new LongAdder();
+      private final LongAdder totalNanos = new LongAdder();
+      private final AtomicLong maxNanos = new AtomicLong();
+      private final AtomicLong lastNanos = new AtomicLong();
+   }
+}
@@ -0,0 +1,168 @@
+package com.stockdock.clients;
+
+import com.stockdock.config.AlpacaProperties;
+import com.stockdock.dto.RateLimiterStats;
+import com.stockdock.exceptions.RateLimitExceededException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token bucket in front of every Alpaca REST call, keeping us under the upstream per-minute quota.
+ *
+ * The bucket refills continuously at {@code alpaca.rate-limit.requests-per-minute} up to
+ * {@code alpaca.rate-limit.burst} tokens. When it is empty callers queue until a token is due;
+ * callers that would wait longer than their maximum wait, or find the queue full, fail fast with
+ * {@link RateLimitExceededException}. Scheduled refreshes are served before waiting user requests
+ * and may use a small reserve of tokens that user requests leave untouched.
+ */
+@Component
+public class UpstreamRateLimiter {
+
+   private static final Logger logger = LoggerFactory.getLogger(UpstreamRateLimiter.class);
+
+   private final AlpacaProperties.RateLimit properties;
+   private final double tokensPerNano;
+   private final ReentrantLock lock = new ReentrantLock();
+   private final Condition released = lock.newCondition();
+
+   // Guarded by lock
+   private double tokens;
+   private long lastRefillNanos;
+   private int queueDepth;
+   private int scheduledWaiting;
+   private int peakQueueDepth;
+
+   private final LongAdder acquired = new LongAdder();
+   private final LongAdder delayed = new LongAdder();
+   private final LongAdder rejected = new LongAdder();
+   private final LongAdder totalWaitNanos = new LongAdder();
+   private final AtomicLong maxWaitNanos = new AtomicLong();
+
+   public UpstreamRateLimiter (AlpacaProperties alpacaProperties) {
+      this.properties = alpacaProperties.getRateLimit();
+      this.tokensPerNano = properties.getRequestsPerMinute() / (double) TimeUnit.MINUTES.toNanos(1);
+      this.tokens = properties.getBurst();
+      this.lastRefillNanos = System.nanoTime();
+   }
+
+   /**
+    * Take one token for a call with the current thread's {@link RequestPriority}, waiting if needed.
+    *
+    * @throws RateLimitExceededException if the queue is full or no token is due within the maximum wait.
+    */
+   public void acquire() {
+      if (!properties.isEnabled()) {
+         return;
+      }
+
+      RequestPriority priority = RequestPriority.current();
+      boolean scheduled = priority == RequestPriority.SCHEDULED;
+      long startNanos = System.nanoTime();
+
+      lock.lock();
+      try {
+         refill();
+         if (tryTake(scheduled)) {
+            acquired.increment();
+            return;
+         }
+         if (queueDepth >= properties.getMaxQueueDepth()) {
+            rejected.increment();
+            throw new RateLimitExceededException("Too many requests waiting for the upstream API, try again later.");
+         }
+
+         Duration maxWait = scheduled ? properties.getSchedulerMaxWait() : properties.getMaxWait();
+         long deadline = startNanos + maxWait.toNanos();
+         queueDepth++;
+         peakQueueDepth = Math.max(peakQueueDepth, queueDepth);
+         if (scheduled) {
+            scheduledWaiting++;
+         }
+
+         try {
+            while (true) {
+               long remaining = deadline - System.nanoTime();
+               if (remaining <= 0) {
+                  rejected.increment();
+                  throw new RateLimitExceededException("Upstream request budget exhausted, try again later.");
+               }
+               released.awaitNanos(Math.min(remaining, nanosUntilToken(scheduled)));
+               refill();
+               if (tryTake(scheduled)) {
+                  break;
+               }
+            }
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejected.increment();
+            throw new RateLimitExceededException("Interrupted while waiting for the upstream request budget.");
+         } finally {
+            queueDepth--;
+            if (scheduled) {
+               scheduledWaiting--;
+            }
+            released.signalAll(); // Let user requests re-check once scheduled ones stop waiting
+         }
+      } finally {
+         lock.unlock();
+      }
+
+      long waited = System.nanoTime() - startNanos;
+      acquired.increment();
+      delayed.increment();
+      totalWaitNanos.add(waited);
+      maxWaitNanos.accumulateAndGet(waited, Math::max);
+      logger.debug("{} upstream call waited {} ms for a token", priority, TimeUnit.NANOSECONDS.toMillis(waited));
+   }
+
+   public RateLimiterStats stats() {
+      lock.lock();
+      try {
+         refill();
+         long delayedCalls = delayed.sum();
+         return new RateLimiterStats(
+             properties.isEnabled(),
+             Math.floor(tokens * 100) / 100,
+             queueDepth,
+             peakQueueDepth,
+             acquired.sum(),
+             delayedCalls,
+             rejected.sum(),
+             delayedCalls == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.sum() / delayedCalls),
+             TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get())
+         );
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   // Callers must hold the lock
+   private void refill() {
+      long now = System.nanoTime();
+      tokens = Math.min(properties.getBurst(), tokens + (now - lastRefillNanos) * tokensPerNano);
+      lastRefillNanos = now;
+   }
+
+   // User requests leave the reserve alone and step aside while a scheduled refresh is waiting
+   private boolean tryTake(boolean scheduled) {
+      double required = scheduled ? 1 : 1 + properties.getSchedulerReserve();
+      if (tokens < required || (!scheduled && scheduledWaiting > 0)) {
+         return false;
+      }
+      tokens -= 1;
+      return true;
+   }
+
+   private long nanosUntilToken(boolean scheduled) {
+      double required = scheduled ? 1 : 1 + properties.getSchedulerReserve();
+      return Math.max(TimeUnit.MILLISECONDS.toNanos(1), (long) Math.ceil((required - tokens) / tokensPerNano));
+   }
+}
@@ -1,6 +1,308 @@
 package com.stockdock.config;
 
+import jakarta.annotation.PostConstruct;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "alpaca")
 public class AlpacaProperties {
 
+   private final Http http = new Http();
+   private final RateLimit rateLimit = new RateLimit();
+   private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+   private final Batch batch = new Batch();
+   private final Stream stream = new Stream();
+
+   public Http getHttp() {
+      return http;
+   }
+
+   public RateLimit getRateLimit() {
+      return rateLimit;
+   }
+
+   public CircuitBreaker getCircuitBreaker() {
+      return circuitBreaker;
+   }
+
+   public Batch getBatch() {
+      return batch;
+   }
+
+   public Stream getStream() {
+      return stream;
+   }
+
+   @PostConstruct
+   public void check() {
+      if (rateLimit.isEnabled() && rateLimit.getBurst() <= rateLimit.getSchedulerReserve()) {
+         throw new IllegalStateException("alpaca.rate-limit.burst (" + rateLimit.getBurst() + ") must exceed scheduler-reserve ("
+             + rateLimit.getSchedulerReserve() + "), user requests need a token beyond the reserve and would always time out");
+      }
+      if (circuitBreaker.getWindowSize() <= 0) {
+         throw new IllegalStateException("alpaca.circuit-breaker.window-size must be positive, was " + circuitBreaker.getWindowSize());
+      }
+      if (circuitBreaker.getMinimumCalls() > circuitBreaker.getWindowSize()) {
+         throw new IllegalStateException("alpaca.circuit-breaker.minimum-calls (" + circuitBreaker.getMinimumCalls()
+             + ") must not exceed window-size (" + circuitBreaker.getWindowSize() + "), the breaker could never open");
+      }
+   }
+
+   /**
+    * Settings for the shared HTTP transport used by all Alpaca REST calls (alpaca.http.*).
+    */
+   public static class Http {
+      private Duration connectTimeout = Duration.ofSeconds(2);        // TCP + TLS setup
+      private Duration quotesReadTimeout = Duration.ofSeconds(3);     // Latest quote(s) requests
+      private Duration snapshotsReadTimeout = Duration.ofSeconds(5);  // Snapshot requests
+      private Duration barsReadTimeout = Duration.ofSeconds(15);      // Historical bars pages
+      private boolean compression = true;                             // Request gzip-encoded responses
+
+      public Duration getConnectTimeout() {
+         return connectTimeout;
+      }
+
+      public void setConnectTimeout(Duration connectTimeout) {
+         this.connectTimeout = connectTimeout;
+      }
+
+      public Duration getQuotesReadTimeout() {
+         return quotesReadTimeout;
+      }
+
+      public void setQuotesReadTimeout(Duration quotesReadTimeout) {
+         this.quotesReadTimeout = quotesReadTimeout;
+      }
+
+      public Duration getSnapshotsReadTimeout() {
+         return snapshotsReadTimeout;
+      }
+
+      public void setSnapshotsReadTimeout(Duration snapshotsReadTimeout) {
+         this.snapshotsReadTimeout = snapshotsReadTimeout;
+      }
+
+      public Duration getBarsReadTimeout() {
+         return barsReadTimeout;
+      }
+
+      public void setBarsReadTimeout(Duration barsReadTimeout) {
+         this.barsReadTimeout = barsReadTimeout;
+      }
+
+      public boolean isCompression() {
+         return compression;
+      }
+
+      public void setCompression(boolean compression) {
+         this.compression = compression;
+      }
+   }
+
+   /**
+    * Token bucket shared by all Alpaca REST calls (alpaca.rate-limit.*).
+    */
+   public static class RateLimit {
+      private boolean enabled = true;
+      private int requestsPerMinute = 200;                      // Sustained rate, Alpaca's basic plan quota
+      private int burst = 20;                                   // Bucket capacity
+      private int schedulerReserve = 5;                         // Tokens only scheduled refreshes may take
+      private int maxQueueDepth = 100;                          // Waiting callers beyond this fail fast
+      private Duration maxWait = Duration.ofSeconds(2);         // Longest wait for user requests
+      private Duration schedulerMaxWait = Duration.ofSeconds(30); // Longest wait for scheduled refreshes
+
+      public boolean isEnabled() {
+         return enabled;
+      }
+
+      public void setEnabled(boolean enabled) {
+         this.enabled = enabled;
+      }
+
+      public int getRequestsPerMinute() {
+         return requestsPerMinute;
+      }
+
+      public void setRequestsPerMinute(int requestsPerMinute) {
+         this.requestsPerMinute = requestsPerMinute;
+      }
+
+      public int getBurst() {
+         return burst;
+      }
+
+      public void setBurst(int burst) {
+         this.burst = burst;
+      }
+
+      public int getSchedulerReserve() {
+         return schedulerReserve;
+      }
+
+      public void setSchedulerReserve(int schedulerReserve) {
+         this.schedulerReserve = schedulerReserve;
+      }
+
+      public int getMaxQueueDepth() {
+         return maxQueueDepth;
+      }
+
+      public void setMaxQueueDepth(int maxQueueDepth) {
+         this.maxQueueDepth = maxQueueDepth;
+      }
+
+      public Duration getMaxWait() {
+         return maxWait;
+      }
+
+      public void setMaxWait(Duration maxWait) {
+         this.maxWait = maxWait;
+      }
+
+      public Duration getSchedulerMaxWait() {
+         return schedulerMaxWait;
+      }
+
+      public void setSchedulerMaxWait(Duration schedulerMaxWait) {
+         this.schedulerMaxWait = schedulerMaxWait;
+      }
+   }
+
+   /**
+    * Circuit breaker per Alpaca endpoint (alpaca.circuit-breaker.*).
+    */
+   public static class CircuitBreaker {
+      private boolean enabled = true;
+      private int windowSize = 20;                              // Most recent calls the failure rate is taken over
+      private int minimumCalls = 10;                            // Calls in the window before the breaker may open
+      private int failureRateThreshold = 50;                    // Failure percentage that opens the breaker
+      private Duration openDuration = Duration.ofSeconds(30);   // Time calls are rejected before a trial call
+
+      public boolean isEnabled() {
+         return enabled;
+      }
+
+      public void setEnabled(boolean enabled) {
+         this.enabled = enabled;
+      }
+
+      public int getWindowSize() {
+         return windowSize;
+      }
+
+      public void setWindowSize(int windowSize) {
+         this.windowSize = windowSize;
+      }
+
+      public int getMinimumCalls() {
+         return minimumCalls;
+      }
+
+      public void setMinimumCalls(int minimumCalls) {
+         this.minimumCalls = minimumCalls;
+      }
+
+      public int getFailureRateThreshold() {
+         return failureRateThreshold;
+      }
+
+      public void setFailureRateThreshold(int failureRateThreshold) {
+         this.failureRateThreshold = failureRateThreshold;
+      }
+
+      public Duration getOpenDuration() {
+         return openDuration;
+      }
+
+      public void setOpenDuration(Duration openDuration) {
+         this.openDuration = openDuration;
+      }
+   }
+
+   /**
+    * Settings for multi-symbol requests that are split into chunks (alpaca.batch.*).
+    */
+   public static class Batch {
+      private int chunkSize = 100;         // Maximum symbols per upstream request
+      private int maxSymbolsLength = 2000; // Maximum length of the joined symbols query parameter, keeps URLs safe
+      private int maxConcurrency = 8;      // Chunks fetched at the same time
+
+      public int getChunkSize() {
+         return chunkSize;
+      }
+
+      public void setChunkSize(int chunkSize) {
+         this.chunkSize = chunkSize;
+      }
+
+      public int getMaxSymbolsLength() {
+         return maxSymbolsLength;
+      }
+
+      public void setMaxSymbolsLength(int maxSymbolsLength) {
+         this.maxSymbolsLength = maxSymbolsLength;
+      }
+
+      public int getMaxConcurrency() {
+         return maxConcurrency;
+      }
+
+      public void setMaxConcurrency(int maxConcurrency) {
+         this.maxConcurrency = maxConcurrency;
+      }
+   }
+
+   /**
+    * Settings for push-based quote ingestion from the market data WebSocket (alpaca.stream.*).
+    */
+   public static class Stream {
+      private boolean enabled = false;                                    // Subscribe to the stream on startup
+      private String url = "wss://stream.data.alpaca.markets/v2/iex";     // Market data stream endpoint
+      private Duration reconnectInitialDelay = Duration.ofSeconds(1);     // First reconnect backoff
+      private Duration reconnectMaxDelay = Duration.ofMinutes(1);         // Backoff ceiling
+      private Duration staleAfter = Duration.ofMinutes(2);                // Silence after which REST polling takes over
+
+      public boolean isEnabled() {
+         return enabled;
+      }
+
+      public void setEnabled(boolean enabled) {
+         this.enabled = enabled;
+      }
+
+      public String getUrl() {
+         return url;
+      }
+
+      public void setUrl(String url) {
+         this.url = url;
+      }
+
+      public Duration getReconnectInitialDelay() {
+         return reconnectInitialDelay;
+      }
+
+      public void setReconnectInitialDelay(Duration reconnectInitialDelay) {
+         this.reconnectInitialDelay = reconnectInitialDelay;
+      }
+
+      public Duration getReconnectMaxDelay() {
+         return reconnectMaxDelay;
+      }
+
+      public void setReconnectMaxDelay(Duration reconnectMaxDelay) {
+         this.reconnectMaxDelay = reconnectMaxDelay;
+      }
+
+      public Duration getStaleAfter() {
+         return staleAfter;
+      }
 
+      public void setStaleAfter(Duration staleAfter) {
+         this.staleAfter = staleAfter;
+      }
+   }
 }
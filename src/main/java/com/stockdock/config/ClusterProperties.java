@@ -0,0 +1,65 @@
+package com.stockdock.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "cluster")
+public class ClusterProperties {
+   private boolean enabled = false;                               // Split scheduled refreshes between instances
+   private String nodeId;                                         // Defaults to the host name plus a random suffix
+   private Duration leaseDuration = Duration.ofSeconds(15);       // A node without renewal for this long is dead
+   private Duration renewInterval = Duration.ofSeconds(5);        // How often leases are renewed and membership re-read
+   private Duration handoverDelay = Duration.ofSeconds(10);       // How long a node waits before taking symbols from a live node
+   private int virtualNodes = 128;                                // Points per node on the hash ring
+
+   public boolean isEnabled() {
+      return enabled;
+   }
+
+   public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+   }
+
+   public String getNodeId() {
+      return nodeId;
+   }
+
+   public void setNodeId(String nodeId) {
+      this.nodeId = nodeId;
+   }
+
+   public Duration getLeaseDuration() {
+      return leaseDuration;
+   }
+
+   public void setLeaseDuration(Duration leaseDuration) {
+      this.leaseDuration = leaseDuration;
+   }
+
+   public Duration getRenewInterval() {
+      return renewInterval;
+   }
+
+   public void setRenewInterval(Duration renewInterval) {
+      this.renewInterval = renewInterval;
+   }
+
+   public Duration getHandoverDelay() {
+      return handoverDelay;
+   }
+
+   public void setHandoverDelay(Duration handoverDelay) {
+      this.handoverDelay = handoverDelay;
+   }
+
+   public int getVirtualNodes() {
+      return virtualNodes;
+   }
+
+   public void setVirtualNodes(int virtualNodes) {
+      this.virtualNodes = virtualNodes;
+   }
+}
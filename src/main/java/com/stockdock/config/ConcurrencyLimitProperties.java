@@ -0,0 +1,48 @@
+package com.stockdock.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "requests.concurrency")
+public class ConcurrencyLimitProperties {
+   private boolean enabled = true;                          // Reject requests beyond the limit with 503
+   private int maxConcurrent = 2000;                        // Requests handled at the same time
+   private Duration maxWait = Duration.ofMillis(100);       // How long a request may wait for a free slot
+   private List<String> excludedPaths = List.of("/actuator/**"); // Never limited, so health checks keep answering
+
+   public boolean isEnabled() {
+      return enabled;
+   }
+
+   public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+   }
+
+   public int getMaxConcurrent() {
+      return maxConcurrent;
+   }
+
+   public void setMaxConcurrent(int maxConcurrent) {
+      this.maxConcurrent = maxConcurrent;
+   }
+
+   public Duration getMaxWait() {
+      return maxWait;
+   }
+
+   public void setMaxWait(Duration maxWait) {
+      this.maxWait = maxWait;
+   }
+
+   public List<String> getExcludedPaths() {
+      return excludedPaths;
+   }
+
+   public void setExcludedPaths(List<String> excludedPaths) {
+      this.excludedPaths = excludedPaths;
+   }
+}
@@ -0,0 +1,27 @@
+package com.stockdock.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "indicators")
+public class IndicatorProperties {
+   private int cacheMaxEntries = 1000;    // Cached indicator series (symbol, timeframe, start and parameters)
+   private int maxPerRequest = 10;        // Indicators one request may ask for
+
+   public int getCacheMaxEntries() {
+      return cacheMaxEntries;
+   }
+
+   public void setCacheMaxEntries(int cacheMaxEntries) {
+      this.cacheMaxEntries = cacheMaxEntries;
+   }
+
+   public int getMaxPerRequest() {
+      return maxPerRequest;
+   }
+
+   public void setMaxPerRequest(int maxPerRequest) {
+      this.maxPerRequest = maxPerRequest;
+   }
+}
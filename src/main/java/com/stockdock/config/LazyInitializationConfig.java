@@ -0,0 +1,38 @@
+package com.stockdock.config;
+
+import com.stockdock.schedulers.CurrentStockScheduler;
+import com.stockdock.schedulers.MarketCalendar;
+import com.stockdock.services.ClusterMembership;
+import com.stockdock.services.QuoteCache;
+import com.stockdock.services.QuoteCacheWarmer;
+import com.stockdock.services.QuoteHistoryStore;
+import com.stockdock.services.QuoteWriteBehindQueue;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Beans that are created on startup even with {@code spring.main.lazy-initialization=true}.
+ *
+ * A lazy bean's {@code @Scheduled} methods are only registered once something uses it, and its
+ * {@code @PostConstruct} checks only run then. These beans do background work or validate the
+ * configuration, so they must not wait for a request.
+ */
+@Configuration
+public class LazyInitializationConfig {
+
+   @Bean
+   static LazyInitializationExcludeFilter eagerBackgroundBeans() {
+      return LazyInitializationExcludeFilter.forBeanTypes(
+          CurrentStockScheduler.class,
+          MarketCalendar.class,
+          SymbolConfig.class,
+          AlpacaProperties.class,
+          ClusterMembership.class,
+          QuoteWriteBehindQueue.class,
+          QuoteHistoryStore.class,
+          QuoteCacheWarmer.class,
+          QuoteCache.class
+      );
+   }
+}
@@ -0,0 +1,173 @@
+package com.stockdock.config;
+
+import com.stockdock.clients.AlpacaEndpoint;
+import com.stockdock.clients.UpstreamCircuitBreaker;
+import com.stockdock.clients.UpstreamRateLimiter;
+import com.stockdock.controllers.ConcurrencyLimitFilter;
+import com.stockdock.services.ClusterMembership;
+import com.stockdock.services.QuoteBroadcaster;
+import com.stockdock.services.QuoteCache;
+import com.stockdock.services.QuoteHistoryStore;
+import com.stockdock.services.QuoteWriteBehindQueue;
+import com.stockdock.services.StaleWhileRevalidate;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Publishes the state of the in-memory components as Micrometer meters.
+ *
+ * Request-level metrics are recorded where the work happens (client, scheduler, repositories);
+ * HTTP server latencies come from Spring Boot's {@code http.server.requests}.
+ */
+@Configuration
+public class MetricsConfig {
+
+   @Bean
+   public MeterBinder quoteCacheMetrics(QuoteCache quoteCache) {
+      return registry -> {
+         Gauge.builder("stockdock.quote.cache.size", quoteCache, cache -> cache.stats().size())
+             .description("Symbols currently cached")
+             .register(registry);
+         Gauge.builder("stockdock.quote.cache.stale", quoteCache, cache -> cache.stats().stale())
+             .description("Cached symbols served from the warm start or as last known quotes")
+             .register(registry);
+         FunctionCounter.builder("stockdock.quote.cache.requests", quoteCache, cache -> cache.stats().hits())
+             .tag("result", "hit")
+             .register(registry);
+         FunctionCounter.builder("stockdock.quote.cache.requests", quoteCache, cache -> cache.stats().misses())
+             .tag("result", "miss")
+             .register(registry);
+         FunctionCounter.builder("stockdock.quote.cache.evictions", quoteCache, cache -> cache.stats().evictions())
+             .register(registry);
+      };
+   }
+
+   @Bean
+   public MeterBinder rateLimiterMetrics(UpstreamRateLimiter rateLimiter) {
+      return registry -> {
+         Gauge.builder("alpaca.ratelimit.tokens", rateLimiter, limiter -> limiter.stats().availableTokens())
+             .description("Upstream calls that can start without waiting")
+             .register(registry);
+         Gauge.builder("alpaca.ratelimit.queue.depth", rateLimiter, limiter -> limiter.stats().queueDepth())
+             .description("Callers waiting for an upstream token")
+             .register(registry);
+         FunctionCounter.builder("alpaca.ratelimit.rejected", rateLimiter, limiter -> limiter.stats().rejected())
+             .description("Calls failed by the upstream rate limiter")
+             .register(registry);
+      };
+   }
+
+   @Bean
+   public MeterBinder circuitBreakerMetrics(UpstreamCircuitBreaker circuitBreaker) {
+      return registry -> {
+         for (AlpacaEndpoint endpoint : AlpacaEndpoint.values()) {
+            Gauge.builder("alpaca.circuitbreaker.state", circuitBreaker, breaker -> breaker.state(endpoint).ordinal())
+                .description("Circuit breaker state: 0 closed, 1 half-open, 2 open")
+                .tag("endpoint", endpoint.name())
+                .register(registry);
+            FunctionCounter.builder("alpaca.circuitbreaker.rejected", circuitBreaker, breaker -> breaker.rejected(endpoint))
+                .description("Calls failed immediately because the circuit breaker was open")
+                .tag("endpoint", endpoint.name())
+                .register(registry);
+         }
+      };
+   }
+
+   @Bean
+   public MeterBinder staleWhileRevalidateMetrics(StaleWhileRevalidate staleWhileRevalidate) {
+      return registry -> {
+         FunctionCounter.builder("stockdock.upstream.reads", staleWhileRevalidate, StaleWhileRevalidate::freshCount)
+             .description("Reads answered by Alpaca or with the last known value")
+             .tag("result", "fresh")
+             .register(registry);
+         FunctionCounter.builder("stockdock.upstream.reads", staleWhileRevalidate, StaleWhileRevalidate::staleAfterBudgetCount)
+             .description("Reads answered by Alpaca or with the last known value")
+             .tag("result", "stale-budget")
+             .register(registry);
+         FunctionCounter.builder("stockdock.upstream.reads", staleWhileRevalidate, StaleWhileRevalidate::staleAfterFailureCount)
+             .description("Reads answered by Alpaca or with the last known value")
+             .tag("result", "stale-failure")
+             .register(registry);
+         FunctionCounter.builder("stockdock.upstream.revalidations", staleWhileRevalidate, StaleWhileRevalidate::revalidationCount)
+             .description("Background refreshes started for stale cached values")
+             .register(registry);
+      };
+   }
+
+   @Bean
+   public MeterBinder quoteStreamMetrics(QuoteBroadcaster quoteBroadcaster) {
+      return registry -> Gauge.builder("stockdock.quote.stream.subscribers", quoteBroadcaster, QuoteBroadcaster::subscriberCount)
+          .description("Open Server-Sent Events quote streams")
+          .register(registry);
+   }
+
+   @Bean
+   public MeterBinder concurrencyLimitMetrics(ConcurrencyLimitFilter concurrencyLimitFilter) {
+      return registry -> {
+         Gauge.builder("stockdock.http.inflight", concurrencyLimitFilter, ConcurrencyLimitFilter::inFlight)
+             .description("Requests currently holding a concurrency slot")
+             .register(registry);
+         FunctionCounter.builder("stockdock.http.rejected", concurrencyLimitFilter, ConcurrencyLimitFilter::rejected)
+             .description("Requests rejected with 503 by the concurrency limit")
+             .register(registry);
+      };
+   }
+
+   @Bean
+   public MeterBinder clusterMetrics(ClusterMembership clusterMembership) {
+      return registry -> {
+         Gauge.builder("stockdock.cluster.nodes", clusterMembership, membership -> membership.liveNodes().size())
+             .description("Live instances sharing the scheduled refreshes")
+             .register(registry);
+         Gauge.builder("stockdock.cluster.lease.held", clusterMembership, membership -> membership.holdsLease() ? 1 : 0)
+             .description("Whether this instance holds a valid scheduler lease")
+             .register(registry);
+         FunctionCounter.builder("stockdock.cluster.lease.failures", clusterMembership, ClusterMembership::renewalFailures)
+             .description("Failed scheduler lease renewals")
+             .register(registry);
+      };
+   }
+
+   @Bean
+   public MeterBinder writeBehindMetrics(QuoteWriteBehindQueue writeBehindQueue) {
+      return registry -> {
+         Gauge.builder("stockdock.quote.writebehind.depth", writeBehindQueue, queue -> queue.stats().depth())
+             .description("Symbols waiting to be written to current_stocks")
+             .register(registry);
+         Gauge.builder("stockdock.quote.writebehind.oldest", writeBehindQueue, queue -> queue.stats().oldestPendingMillis() / 1000.0)
+             .description("Seconds the longest waiting quote has been queued")
+             .baseUnit("seconds")
+             .register(registry);
+         FunctionCounter.builder("stockdock.quote.writebehind.coalesced", writeBehindQueue, queue -> queue.stats().coalesced())
+             .description("Queued quotes that replaced an older waiting quote")
+             .register(registry);
+         FunctionCounter.builder("stockdock.quote.writebehind.dropped", writeBehindQueue, queue -> queue.stats().dropped())
+             .description("Quotes lost to a full write-behind queue")
+             .register(registry);
+      };
+   }
+
+   @Bean
+   public MeterBinder quoteHistoryMetrics(QuoteHistoryStore quoteHistoryStore) {
+      return registry -> {
+         Gauge.builder("stockdock.quote.history.pending", quoteHistoryStore, QuoteHistoryStore::pendingQuotes)
+             .description("Recorded quotes not yet written to historical_stock_data")
+             .register(registry);
+         FunctionCounter.builder("stockdock.quote.history.written", quoteHistoryStore, QuoteHistoryStore::written)
+             .description("Quotes appended to historical_stock_data")
+             .register(registry);
+         FunctionCounter.builder("stockdock.quote.history.duplicates", quoteHistoryStore, QuoteHistoryStore::duplicates)
+             .description("Quotes skipped because their timestamp was already recorded")
+             .register(registry);
+         FunctionCounter.builder("stockdock.quote.history.dropped", quoteHistoryStore, QuoteHistoryStore::dropped)
+             .description("Recorded quotes dropped while MongoDB was unavailable")
+             .register(registry);
+         FunctionCounter.builder("stockdock.quote.history.failures", quoteHistoryStore, QuoteHistoryStore::failedFlushes)
+             .description("Quote history flushes that failed and were retried")
+             .register(registry);
+      };
+   }
+}
@@ -0,0 +1,67 @@
+package com.stockdock.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "quotes.cache")
+public class QuoteCacheProperties {
+   private Duration ttl = Duration.ofMinutes(10); // How long a cached quote may be served without refetching
+   private int maxSize = 5000;                    // Upper bound on cached symbols
+   private final WarmStart warmStart = new WarmStart();
+
+   public Duration getTtl() {
+      return ttl;
+   }
+
+   public void setTtl(Duration ttl) {
+      this.ttl = ttl;
+   }
+
+   public int getMaxSize() {
+      return maxSize;
+   }
+
+   public void setMaxSize(int maxSize) {
+      this.maxSize = maxSize;
+   }
+
+   public WarmStart getWarmStart() {
+      return warmStart;
+   }
+
+   /**
+    * Settings for loading the stored quotes of 'current_stocks' into the cache on startup (quotes.cache.warm-start.*).
+    */
+   public static class WarmStart {
+      private boolean enabled = true;                     // Load stored quotes before the app reports ready
+      private Duration timeout = Duration.ofSeconds(10);  // Longest readiness is held back; the load carries on afterwards
+      private int batchSize = 1000;                       // Documents per cursor batch
+
+      public boolean isEnabled() {
+         return enabled;
+      }
+
+      public void setEnabled(boolean enabled) {
+         this.enabled = enabled;
+      }
+
+      public Duration getTimeout() {
+         return timeout;
+      }
+
+      public void setTimeout(Duration timeout) {
+         this.timeout = timeout;
+      }
+
+      public int getBatchSize() {
+         return batchSize;
+      }
+
+      public void setBatchSize(int batchSize) {
+         this.batchSize = batchSize;
+      }
+   }
+}
@@ -0,0 +1,70 @@
+package com.stockdock.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "quotes.history")
+public class QuoteHistoryProperties {
+   private boolean enabled = true;                          // Record the saved quotes into historical_stock_data
+   private Bucket bucket = Bucket.HOUR;                     // Period one bucket document covers
+   private int maxPerBucket = 720;                          // Quotes per bucket, a full bucket continues in a new one
+   private Duration flushInterval = Duration.ofSeconds(10); // How often recorded quotes are written
+   private int maxPendingPerSymbol = 2000;                  // Unwritten quotes kept per symbol while MongoDB is unavailable
+   private Duration maxRange = Duration.ofDays(7);          // Longest range one history request may read
+
+   public enum Bucket {
+      HOUR, // One bucket per symbol and hour
+      DAY   // One bucket per symbol and New York trading day
+   }
+
+   public boolean isEnabled() {
+      return enabled;
+   }
+
+   public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+   }
+
+   public Bucket getBucket() {
+      return bucket;
+   }
+
+   public void setBucket(Bucket bucket) {
+      this.bucket = bucket;
+   }
+
+   public int getMaxPerBucket() {
+      return maxPerBucket;
+   }
+
+   public void setMaxPerBucket(int maxPerBucket) {
+      this.maxPerBucket = maxPerBucket;
+   }
+
+   public Duration getFlushInterval() {
+      return flushInterval;
+   }
+
+   public void setFlushInterval(Duration flushInterval) {
+      this.flushInterval = flushInterval;
+   }
+
+   public int getMaxPendingPerSymbol() {
+      return maxPendingPerSymbol;
+   }
+
+   public void setMaxPendingPerSymbol(int maxPendingPerSymbol) {
+      this.maxPendingPerSymbol = maxPendingPerSymbol;
+   }
+
+   public Duration getMaxRange() {
+      return maxRange;
+   }
+
+   public void setMaxRange(Duration maxRange) {
+      this.maxRange = maxRange;
+   }
+}
@@ -0,0 +1,162 @@
+package com.stockdock.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "quotes.refresh")
+public class QuoteRefreshProperties {
+   private Duration tick = Duration.ofSeconds(1);             // How often due symbols are looked for
+   private int budgetPerMinute = 120;                         // Upstream requests the scheduler may make per minute
+   private int budgetBurst = 10;                              // Requests it may make back to back
+   private boolean adaptive = true;                           // Stretch intervals of symbols whose quote does not move
+   private int extendedHoursFactor = 4;                       // Interval multiplier in pre-market and after-hours
+   private Duration closedInterval = Duration.ofHours(1);     // Interval while the market is closed
+   private double piggybackThreshold = 0.75;                  // Share of its interval after which a symbol may join another request
+   private String defaultTier = "cold";                       // Tier of symbols not listed in any tier
+   private Map<String, Tier> tiers = new LinkedHashMap<>();
+   private Calendar calendar = new Calendar();
+
+   public Duration getTick() {
+      return tick;
+   }
+
+   public void setTick(Duration tick) {
+      this.tick = tick;
+   }
+
+   public int getBudgetPerMinute() {
+      return budgetPerMinute;
+   }
+
+   public void setBudgetPerMinute(int budgetPerMinute) {
+      this.budgetPerMinute = budgetPerMinute;
+   }
+
+   public int getBudgetBurst() {
+      return budgetBurst;
+   }
+
+   public void setBudgetBurst(int budgetBurst) {
+      this.budgetBurst = budgetBurst;
+   }
+
+   public boolean isAdaptive() {
+      return adaptive;
+   }
+
+   public void setAdaptive(boolean adaptive) {
+      this.adaptive = adaptive;
+   }
+
+   public int getExtendedHoursFactor() {
+      return extendedHoursFactor;
+   }
+
+   public void setExtendedHoursFactor(int extendedHoursFactor) {
+      this.extendedHoursFactor = extendedHoursFactor;
+   }
+
+   public Duration getClosedInterval() {
+      return closedInterval;
+   }
+
+   public void setClosedInterval(Duration closedInterval) {
+      this.closedInterval = closedInterval;
+   }
+
+   public double getPiggybackThreshold() {
+      return piggybackThreshold;
+   }
+
+   public void setPiggybackThreshold(double piggybackThreshold) {
+      this.piggybackThreshold = piggybackThreshold;
+   }
+
+   public String getDefaultTier() {
+      return defaultTier;
+   }
+
+   public void setDefaultTier(String defaultTier) {
+      this.defaultTier = defaultTier;
+   }
+
+   public Map<String, Tier> getTiers() {
+      return tiers;
+   }
+
+   public void setTiers(Map<String, Tier> tiers) {
+      this.tiers = tiers;
+   }
+
+   public Calendar getCalendar() {
+      return calendar;
+   }
+
+   public void setCalendar(Calendar calendar) {
+      this.calendar = calendar;
+   }
+
+   /**
+    * A refresh tier (quotes.refresh.tiers.{name}.*).
+    */
+   public static class Tier {
+      private Duration interval = Duration.ofMinutes(5);      // Regular-session interval while the quote keeps moving
+      private Duration maxInterval = Duration.ofMinutes(15);  // Longest interval adaptation may stretch to
+      private List<String> symbols = List.of();
+
+      public Duration getInterval() {
+         return interval;
+      }
+
+      public void setInterval(Duration interval) {
+         this.interval = interval;
+      }
+
+      public Duration getMaxInterval() {
+         return maxInterval;
+      }
+
+      public void setMaxInterval(Duration maxInterval) {
+         this.maxInterval = maxInterval;
+      }
+
+      public List<String> getSymbols() {
+         return symbols;
+      }
+
+      public void setSymbols(List<String> symbols) {
+         this.symbols = symbols;
+      }
+   }
+
+   /**
+    * Exchange days that differ from the weekly pattern (quotes.refresh.calendar.*), see market-calendar.yml.
+    */
+   public static class Calendar {
+      private List<LocalDate> holidays = List.of();     // Full-day closures
+      private List<LocalDate> earlyCloses = List.of();  // Regular session ends at 13:00, after-hours at 17:00
+
+      public List<LocalDate> getHolidays() {
+         return holidays;
+      }
+
+      public void setHolidays(List<LocalDate> holidays) {
+         this.holidays = holidays;
+      }
+
+      public List<LocalDate> getEarlyCloses() {
+         return earlyCloses;
+      }
+
+      public void setEarlyCloses(List<LocalDate> earlyCloses) {
+         this.earlyCloses = earlyCloses;
+      }
+   }
+}
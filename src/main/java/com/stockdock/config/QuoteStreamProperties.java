@@ -0,0 +1,47 @@
+package com.stockdock.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "quotes.stream")
+public class QuoteStreamProperties {
+   private int maxSubscribers = 10000;                         // Open SSE connections accepted at once
+   private int maxSymbolsPerSubscriber = 500;                  // Bounds each subscriber's conflation buffer
+   private Duration heartbeatInterval = Duration.ofSeconds(15); // Keeps idle connections and proxies alive
+   private Duration emitterTimeout = Duration.ofMinutes(30);   // Clients reconnect after this, EventSource does so automatically
+
+   public int getMaxSubscribers() {
+      return maxSubscribers;
+   }
+
+   public void setMaxSubscribers(int maxSubscribers) {
+      this.maxSubscribers = maxSubscribers;
+   }
+
+   public int getMaxSymbolsPerSubscriber() {
+      return maxSymbolsPerSubscriber;
+   }
+
+   public void setMaxSymbolsPerSubscriber(int maxSymbolsPerSubscriber) {
+      this.maxSymbolsPerSubscriber = maxSymbolsPerSubscriber;
+   }
+
+   public Duration getHeartbeatInterval() {
+      return heartbeatInterval;
+   }
+
+   public void setHeartbeatInterval(Duration heartbeatInterval) {
+      this.heartbeatInterval = heartbeatInterval;
+   }
+
+   public Duration getEmitterTimeout() {
+      return emitterTimeout;
+   }
+
+   public void setEmitterTimeout(Duration emitterTimeout) {
+      this.emitterTimeout = emitterTimeout;
+   }
+}
@@ -0,0 +1,52 @@
+package com.stockdock.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.stockdock.controllers.ColumnarBarsHttpMessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Response formats offered through content negotiation on the {@code Accept} header.
+ *
+ * Besides JSON, every endpoint can answer in CBOR ({@code application/cbor}) or Smile
+ * ({@code application/x-jackson-smile}), and historical bars also in columnar JSON
+ * ({@code application/vnd.stockdock.columnar+json}). The binary mappers are built from the
+ * application's Jackson settings, so dates and field names match the JSON output.
+ */
+@Configuration
+public class ResponseFormatConfig implements WebMvcConfigurer {
+
+   private final ObjectMapper objectMapper;
+
+   public ResponseFormatConfig (ObjectMapper objectMapper) {
+      this.objectMapper = objectMapper;
+   }
+
+   @Bean
+   public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+      return new MappingJackson2CborHttpMessageConverter(builder.createXmlMapper(false).factory(new CBORFactory()).build());
+   }
+
+   @Bean
+   public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+      return new MappingJackson2SmileHttpMessageConverter(builder.createXmlMapper(false).factory(new SmileFactory()).build());
+   }
+
+   /**
+    * Registered ahead of the JSON converter, which would otherwise also claim the "+json" type.
+    * It only writes when columnar JSON is requested explicitly, so JSON stays the default.
+    */
+   @Override
+   public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+      converters.addFirst(new ColumnarBarsHttpMessageConverter(objectMapper));
+   }
+}
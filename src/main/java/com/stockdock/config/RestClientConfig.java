@@ -1,15 +1,65 @@
 package com.stockdock.config;
 
+import com.stockdock.clients.GzipDecompressingInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.net.http.HttpClient;
+import java.util.concurrent.Executors;
+
 @Configuration
 public class RestClientConfig {
 
+   /**
+    * Shared JDK HttpClient for all Alpaca traffic.
+    *
+    * The client negotiates HTTP/2 where the server supports it (falling back to HTTP/1.1) and keeps
+    * its connections pooled and alive between calls, so quote requests do not pay for a new TCP and
+    * TLS handshake each time. Idle connections are kept for {@code jdk.httpclient.keepalive.timeout}.
+    *
+    * With {@code spring.threads.virtual.enabled}, the client's internal tasks also run on virtual
+    * threads; its default cached pool would otherwise grow one platform thread per concurrent call.
+    */
+   @Bean
+   public HttpClient alpacaHttpClient(
+       AlpacaProperties alpacaProperties,
+       @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+      HttpClient.Builder builder = HttpClient.newBuilder()
+          .version(HttpClient.Version.HTTP_2)
+          .connectTimeout(alpacaProperties.getHttp().getConnectTimeout())
+          .followRedirects(HttpClient.Redirect.NORMAL);
+
+      if (virtualThreads) {
+         builder.executor(Executors.newVirtualThreadPerTaskExecutor());
+      }
+      return builder.build();
+   }
+
+   /**
+    * RestClient preconfigured for the Alpaca market data API: base URL, auth headers and
+    * gzip decoding are set once here instead of on every call.
+    */
    @Bean
-   public RestClient restClient() {
-      // Create and configure RestClient here
-      return RestClient.create();
+   public RestClient restClient(
+       HttpClient alpacaHttpClient,
+       AlpacaProperties alpacaProperties,
+       @Value("${alpaca.api.key}") String apiKey,
+       @Value("${alpaca.api.secret}") String apiSecret,
+       @Value("${alpaca.api.base.url}") String baseUrl) {
+      RestClient.Builder builder = RestClient.builder()
+          .baseUrl(baseUrl)
+          .requestFactory(new JdkClientHttpRequestFactory(alpacaHttpClient))
+          .defaultHeader("APCA-API-KEY-ID", apiKey)
+          .defaultHeader("APCA-API-SECRET-KEY", apiSecret)
+          .defaultHeader("Accept", MediaType.APPLICATION_JSON_VALUE);
+
+      if (alpacaProperties.getHttp().isCompression()) {
+         builder.requestInterceptor(new GzipDecompressingInterceptor());
+      }
+      return builder.build();
    }
 }
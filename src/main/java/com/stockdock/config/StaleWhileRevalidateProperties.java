@@ -0,0 +1,56 @@
+package com.stockdock.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "stale-while-revalidate")
+public class StaleWhileRevalidateProperties {
+   private boolean enabled = true;                              // false waits for Alpaca and fails with it, as before
+   private Duration quotesBudget = Duration.ofSeconds(1);       // Longest a quote read waits for Alpaca before serving the last known quote
+   private Duration snapshotsBudget = Duration.ofSeconds(2);    // Same for snapshots
+   private Duration barsBudget = Duration.ofSeconds(5);         // Same for bars, which may need several pages
+   private int maxSnapshots = 1000;                             // Last known snapshots kept in memory
+
+   public boolean isEnabled() {
+      return enabled;
+   }
+
+   public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+   }
+
+   public Duration getQuotesBudget() {
+      return quotesBudget;
+   }
+
+   public void setQuotesBudget(Duration quotesBudget) {
+      this.quotesBudget = quotesBudget;
+   }
+
+   public Duration getSnapshotsBudget() {
+      return snapshotsBudget;
+   }
+
+   public void setSnapshotsBudget(Duration snapshotsBudget) {
+      this.snapshotsBudget = snapshotsBudget;
+   }
+
+   public Duration getBarsBudget() {
+      return barsBudget;
+   }
+
+   public void setBarsBudget(Duration barsBudget) {
+      this.barsBudget = barsBudget;
+   }
+
+   public int getMaxSnapshots() {
+      return maxSnapshots;
+   }
+
+   public void setMaxSnapshots(int maxSnapshots) {
+      this.maxSnapshots = maxSnapshots;
+   }
+}
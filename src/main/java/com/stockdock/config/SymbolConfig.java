@@ -3,12 +3,15 @@ package com.stockdock.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.List;
 
 @Configuration
 @ConfigurationProperties(prefix = "symbols")
 public class SymbolConfig {
+   private static final Logger logger = LoggerFactory.getLogger(SymbolConfig.class);
    private List<String> predefined;
 
    public List<String> getPredefined() {
@@ -21,6 +24,7 @@ public class SymbolConfig {
 
    @PostConstruct
    public void debugSymbols() {
-      System.out.println("Loaded Symbols: " + predefined);
+      logger.info("Loaded {} predefined symbols", predefined == null ? 0 : predefined.size());
+      logger.debug("Loaded symbols: {}", predefined);
    }
 }
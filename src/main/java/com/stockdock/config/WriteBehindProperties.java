@@ -0,0 +1,97 @@
+package com.stockdock.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "quotes.write-behind")
+public class WriteBehindProperties {
+   private boolean enabled = true;                              // false writes every quote synchronously on the caller's thread
+   private int maxPending = 10000;                              // Symbols waiting to be written at most
+   private int batchSize = 500;                                 // Flush as soon as this many symbols are waiting
+   private Duration flushInterval = Duration.ofMillis(500);     // Flush at the latest once the oldest waiting quote is this old
+   private Overflow overflow = Overflow.DROP_OLDEST;            // What to do with a new symbol while the queue is full
+   private Duration offerTimeout = Duration.ofSeconds(1);       // Longest a caller waits for room with overflow=block
+   private Duration retryDelay = Duration.ofSeconds(1);         // Wait after a failed flush, doubled per failure
+   private Duration maxRetryDelay = Duration.ofSeconds(30);     // Upper bound for the doubled retry delay
+   private Duration drainTimeout = Duration.ofSeconds(10);      // Time given to write the remaining quotes on shutdown
+
+   public enum Overflow {
+      BLOCK,       // Make the caller wait for room, then drop the new quote after offer-timeout
+      DROP_OLDEST  // Drop the symbol that has been waiting longest
+   }
+
+   public boolean isEnabled() {
+      return enabled;
+   }
+
+   public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+   }
+
+   public int getMaxPending() {
+      return maxPending;
+   }
+
+   public void setMaxPending(int maxPending) {
+      this.maxPending = maxPending;
+   }
+
+   public int getBatchSize() {
+      return batchSize;
+   }
+
+   public void setBatchSize(int batchSize) {
+      this.batchSize = batchSize;
+   }
+
+   public Duration getFlushInterval() {
+      return flushInterval;
+   }
+
+   public void setFlushInterval(Duration flushInterval) {
+      this.flushInterval = flushInterval;
+   }
+
+   public Overflow getOverflow() {
+      return overflow;
+   }
+
+   public void setOverflow(Overflow overflow) {
+      this.overflow = overflow;
+   }
+
+   public Duration getOfferTimeout() {
+      return offerTimeout;
+   }
+
+   public void setOfferTimeout(Duration offerTimeout) {
+      this.offerTimeout = offerTimeout;
+   }
+
+   public Duration getRetryDelay() {
+      return retryDelay;
+   }
+
+   public void setRetryDelay(Duration retryDelay) {
+      this.retryDelay = retryDelay;
+   }
+
+   public Duration getMaxRetryDelay() {
+      return maxRetryDelay;
+   }
+
+   public void setMaxRetryDelay(Duration maxRetryDelay) {
+      this.maxRetryDelay = maxRetryDelay;
+   }
+
+   public Duration getDrainTimeout() {
+      return drainTimeout;
+   }
+
+   public void setDrainTimeout(Duration drainTimeout) {
+      this.drainTimeout = drainTimeout;
+   }
+}
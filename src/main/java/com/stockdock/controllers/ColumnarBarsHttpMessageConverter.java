@@ -0,0 +1,59 @@
+package com.stockdock.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockdock.dto.BarSeries;
+import com.stockdock.dto.HistoricalBarsResponse;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link HistoricalBarsResponse} as columnar JSON when the client asks for
+ * {@code application/vnd.stockdock.columnar+json}.
+ *
+ * The body has the {@link BarSeries} layout: one array per bar field instead of one object per bar,
+ * so field names are not repeated for every bar. Write-only, and only chosen when columnar JSON is
+ * requested explicitly.
+ */
+public class ColumnarBarsHttpMessageConverter extends AbstractHttpMessageConverter<HistoricalBarsResponse> {
+
+   public static final String COLUMNAR_JSON_VALUE = "application/vnd.stockdock.columnar+json";
+   public static final MediaType COLUMNAR_JSON = MediaType.parseMediaType(COLUMNAR_JSON_VALUE);
+
+   private final ObjectMapper objectMapper;
+
+   public ColumnarBarsHttpMessageConverter (ObjectMapper objectMapper) {
+      super(COLUMNAR_JSON);
+      this.objectMapper = objectMapper;
+   }
+
+   @Override
+   protected boolean supports(Class<?> clazz) {
+      return HistoricalBarsResponse.class.isAssignableFrom(clazz);
+   }
+
+   @Override
+   public boolean canRead(Class<?> clazz, MediaType mediaType) {
+      return false;
+   }
+
+   // Only when columnar JSON was asked for explicitly, it is never offered as a default
+   @Override
+   public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+      return mediaType != null && COLUMNAR_JSON.isCompatibleWith(mediaType) && !mediaType.isWildcardSubtype() && supports(clazz);
+   }
+
+   @Override
+   protected HistoricalBarsResponse readInternal(Class<? extends HistoricalBarsResponse> clazz, HttpInputMessage inputMessage) {
+      throw new HttpMessageNotReadableException("Columnar bars can only be written", inputMessage);
+   }
+
+   @Override
+   protected void writeInternal(HistoricalBarsResponse response, HttpOutputMessage outputMessage) throws IOException {
+      objectMapper.writeValue(outputMessage.getBody(), BarSeries.of(response.symbol(), null, response.bars()));
+   }
+}
@@ -0,0 +1,91 @@
+package com.stockdock.controllers;
+
+import com.stockdock.config.ConcurrencyLimitProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps the number of requests handled at the same time.
+ *
+ * With request handling on virtual threads, the servlet container no longer bounds concurrency
+ * through its thread pool, so a slow upstream could pile up an unbounded number of waiting
+ * requests. Beyond {@code requests.concurrency.max-concurrent}, a request waits at most
+ * {@code requests.concurrency.max-wait} for a slot and is otherwise answered with 503 and
+ * {@code Retry-After}. Excluded paths (actuator by default) are never limited.
+ *
+ * Asynchronous requests such as SSE streams give up their slot once the handler returns.
+ */
+@Component
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+   private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimitFilter.class);
+
+   private final ConcurrencyLimitProperties properties;
+   private final Semaphore slots;
+   private final AntPathMatcher pathMatcher = new AntPathMatcher();
+   private final LongAdder rejected = new LongAdder();
+
+   public ConcurrencyLimitFilter (ConcurrencyLimitProperties properties) {
+      this.properties = properties;
+      this.slots = new Semaphore(Math.max(1, properties.getMaxConcurrent()));
+   }
+
+   public int inFlight() {
+      return Math.max(1, properties.getMaxConcurrent()) - slots.availablePermits();
+   }
+
+   public long rejected() {
+      return rejected.sum();
+   }
+
+   @Override
+   protected boolean shouldNotFilter(HttpServletRequest request) {
+      if (!properties.isEnabled()) {
+         return true;
+      }
+      String path = request.getRequestURI().substring(request.getContextPath().length());
+      return properties.getExcludedPaths().stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+   }
+
+   @Override
+   protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+       throws ServletException, IOException {
+      boolean acquired;
+      try {
+         acquired = slots.tryAcquire(properties.getMaxWait().toNanos(), TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         acquired = false;
+      }
+
+      if (!acquired) {
+         rejected.increment();
+         logger.warn("Rejecting {} {}: {} requests in flight", request.getMethod(), request.getRequestURI(), inFlight());
+         response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+         response.setHeader("Retry-After", "1");
+         response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+         response.getWriter().write("Service unavailable: too many concurrent requests, try again later.");
+         return;
+      }
+
+      try {
+         chain.doFilter(request, response);
+      } finally {
+         slots.release();
+      }
+   }
+}
@@ -1,70 +1,302 @@
 package com.stockdock.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockdock.charts.Downsampler;
+import com.stockdock.clients.UpstreamCircuitBreaker;
+import com.stockdock.clients.UpstreamLatencyTracker;
+import com.stockdock.clients.UpstreamRateLimiter;
+import com.stockdock.dto.BarSeries;
+import com.stockdock.dto.ChartOptions;
+import com.stockdock.dto.CircuitBreakerStats;
+import com.stockdock.dto.HistoricalBar;
 import com.stockdock.dto.HistoricalBarsResponse;
+import com.stockdock.dto.IndicatorsResponse;
+import com.stockdock.dto.QuoteCacheStats;
+import com.stockdock.dto.QuoteHistoryResponse;
+import com.stockdock.dto.QuoteWriteResult;
+import com.stockdock.dto.RateLimiterStats;
+import com.stockdock.dto.RefreshScheduleStats;
+import com.stockdock.dto.StockBar;
 import com.stockdock.dto.StockQuote;
 import com.stockdock.dto.StockQuotes;
 import com.stockdock.dto.StockSnapshotResponse;
+import com.stockdock.dto.StockSnapshotsResponse;
+import com.stockdock.dto.TimeRange;
+import com.stockdock.dto.Timeframe;
+import com.stockdock.dto.UpstreamCallStats;
+import com.stockdock.dto.WriteBehindStats;
+import com.stockdock.schedulers.CurrentStockScheduler;
 import com.stockdock.services.CurrentStockService;
+import com.stockdock.services.IndicatorService;
+import com.stockdock.services.QuoteCache;
+import com.stockdock.services.QuoteWriteBehindQueue;
+import com.stockdock.services.StaleWhileRevalidate.Served;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import com.stockdock.exceptions.InvalidRequestParameterException;
 import com.stockdock.exceptions.InvalidSymbolException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
 @RestController
 @RequestMapping("api/quotes")
 public class CurrentStockController {
 
    private final CurrentStockService currentStockService;
+   private final IndicatorService indicatorService;
+   private final QuoteCache quoteCache;
+   private final ObjectMapper objectMapper;
+   private final UpstreamLatencyTracker upstreamLatencyTracker;
+   private final UpstreamRateLimiter upstreamRateLimiter;
+   private final UpstreamCircuitBreaker upstreamCircuitBreaker;
+   private final CurrentStockScheduler currentStockScheduler;
+   private final QuoteWriteBehindQueue quoteWriteBehindQueue;
    private static final Logger logger = LoggerFactory.getLogger(CurrentStockService.class);
+   private static final String STALE_HEADER = "X-Data-Stale"; // Set while a preloaded or last known value is served instead of a fresh one
 
-   public CurrentStockController (CurrentStockService currentStockService) {
+   public CurrentStockController (
+       CurrentStockService currentStockService,
+       IndicatorService indicatorService,
+       QuoteCache quoteCache,
+       ObjectMapper objectMapper,
+       UpstreamLatencyTracker upstreamLatencyTracker,
+       UpstreamRateLimiter upstreamRateLimiter,
+       UpstreamCircuitBreaker upstreamCircuitBreaker,
+       CurrentStockScheduler currentStockScheduler,
+       QuoteWriteBehindQueue quoteWriteBehindQueue) {
       this.currentStockService = currentStockService;
+      this.indicatorService = indicatorService;
+      this.quoteCache = quoteCache;
+      this.objectMapper = objectMapper;
+      this.upstreamLatencyTracker = upstreamLatencyTracker;
+      this.upstreamRateLimiter = upstreamRateLimiter;
+      this.upstreamCircuitBreaker = upstreamCircuitBreaker;
+      this.currentStockScheduler = currentStockScheduler;
+      this.quoteWriteBehindQueue = quoteWriteBehindQueue;
    }
 
    /**
     * Endpoint to fetch a single stock quote by symbol.
     *
-    * @param symbol The stock symbol to fetch (e.g., AAPL).
+    * A quote preloaded from MongoDB on startup, or a last known quote served while Alpaca is
+    * unavailable, is flagged with the {@code X-Data-Stale} header until it has been refreshed.
+    *
+    * @param symbol  The stock symbol to fetch (e.g., AAPL).
+    * @param refresh Bypass the quote cache and fetch a fresh quote from Alpaca.
     *
     * @return StockQuote containing the latest quote for the given symbol.
     */
    @GetMapping ("/{symbol}")
-   public StockQuote getSingleQuote (@PathVariable String symbol) {
-      return currentStockService.fetchQuoteBySymbol(symbol);
+   public ResponseEntity<StockQuote> getSingleQuote (
+       @PathVariable String symbol,
+       @RequestParam(defaultValue = "false") boolean refresh) {
+      Served<StockQuote> quote = currentStockService.fetchQuoteBySymbolServed(symbol, refresh);
+      return staleFlagged(ResponseEntity.ok(), quote.stale()).body(quote.value());
    }
 
    /**
     * Endpoint to fetch all predefined stock quotes.
     *
+    * The response carries an ETag derived from the quote timestamps. Pollers that send it back
+    * in {@code If-None-Match} get a bodiless 304 until a quote changes. When any quote is still
+    * the one preloaded from MongoDB on startup, or a last known quote served while Alpaca is
+    * unavailable, the {@code X-Data-Stale} header is set.
+    *
+    * @param refresh Bypass the quote cache and fetch fresh quotes from Alpaca.
+    * @param source  Where to read from: "cache" (default, falls back to Alpaca) or "db" to read
+    *                'current_stocks' directly.
+    * @param accept  The negotiated format is part of the ETag.
+    *
     * @return StockQuotes containing the latest quotes for all predefined symbols.
+    * @throws InvalidRequestParameterException if the source is not supported or refresh is combined with source=db.
     */
    @GetMapping ("/all")
-   public StockQuotes getAllQuotes () {
+   public ResponseEntity<StockQuotes> getAllQuotes (
+       @RequestParam(defaultValue = "false") boolean refresh,
+       @RequestParam(defaultValue = "cache") String source,
+       @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+      StockQuotes quotes;
+      boolean stale;
+      switch (source.toLowerCase(Locale.ROOT)) {
+         case "cache" -> {
+            Served<StockQuotes> served = currentStockService.fetchAllQuotesServed(refresh);
+            quotes = served.value();
+            stale = served.stale();
+         }
+         case "db" -> {
+            if (refresh) {
+               throw new InvalidRequestParameterException("refresh cannot be combined with source=db.");
+            }
+            quotes = currentStockService.fetchAllQuotesFromDb();
+            stale = false;
+         }
+         default -> throw new InvalidRequestParameterException("Unsupported source '" + source + "'. Use cache or db.");
+      }
+
+      ETags etag = ETags.of("quotes")
+          .add(accept)
+          .add(source.toLowerCase(Locale.ROOT))
+          .add(quotes.currency())
+          .add(stale ? "stale" : null); // A refresh that confirms the stored quotes still changes the ETag
+      quotes.quotes().forEach((symbol, quote) -> etag.addUnordered(ETags.of(symbol).add(quote == null ? null : quote.t())));
+      return staleFlagged(ResponseEntity.ok().eTag(etag.build()).cacheControl(CacheControl.noCache()).varyBy(HttpHeaders.ACCEPT), stale)
+          .body(quotes);
+   }
+
+   /**
+    * Endpoint to stream quote updates as Server-Sent Events.
+    *
+    * Each "quotes" event carries the quotes that changed since the previous event, keyed by symbol.
+    * Slow clients only receive the latest quote per symbol; heartbeat comments keep idle connections open.
+    *
+    * @param symbols Optional comma-separated symbols to subscribe to, defaults to all predefined symbols.
+    *
+    * @return SseEmitter delivering the quote updates.
+    */
+   @GetMapping (path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+   public SseEmitter streamQuotes (@RequestParam(required = false) List<String> symbols) {
+      return currentStockService.streamQuotes(symbols);
+   }
+
+   /**
+    * Endpoint to inspect the in-memory quote cache.
+    *
+    * @return QuoteCacheStats with hit, miss and eviction counters.
+    */
+   @GetMapping ("/cache/stats")
+   public QuoteCacheStats getCacheStats () {
+      return quoteCache.stats();
+   }
 
-      return currentStockService.fetchAllQuotes();
+   /**
+    * Endpoint to expose call counts and latencies of the upstream Alpaca endpoints.
+    *
+    * @return One UpstreamCallStats entry per Alpaca endpoint.
+    */
+   @GetMapping ("/upstream/stats")
+   public List<UpstreamCallStats> getUpstreamStats () {
+      return upstreamLatencyTracker.stats();
+   }
+
+   /**
+    * Endpoint to expose the state of the upstream rate limiter.
+    *
+    * @return RateLimiterStats with available tokens, queue depth and wait times.
+    */
+   @GetMapping ("/upstream/limiter")
+   public RateLimiterStats getUpstreamLimiterStats () {
+      return upstreamRateLimiter.stats();
+   }
+
+   /**
+    * Endpoint to expose the state of the circuit breakers around the Alpaca endpoints.
+    *
+    * @return One CircuitBreakerStats entry per Alpaca endpoint.
+    */
+   @GetMapping ("/upstream/circuit-breakers")
+   public List<CircuitBreakerStats> getCircuitBreakerStats () {
+      return upstreamCircuitBreaker.stats();
+   }
+
+   /**
+    * Endpoint to inspect the adaptive quote refresh schedule.
+    *
+    * @return RefreshScheduleStats with the market session, request budget and per-symbol intervals.
+    */
+   @GetMapping ("/refresh/schedule")
+   public RefreshScheduleStats getRefreshSchedule () {
+      return currentStockScheduler.stats();
+   }
+
+   /**
+    * Endpoint to inspect the write-behind queue in front of 'current_stocks'.
+    *
+    * @return WriteBehindStats with the queue depth, dropped quotes and flush latencies.
+    */
+   @GetMapping ("/save/stats")
+   public WriteBehindStats getWriteBehindStats () {
+      return quoteWriteBehindQueue.stats();
+   }
+
+   /**
+    * Endpoint to fetch the recorded quote history of a stock.
+    *
+    * Returns the quotes this service has fetched or streamed for the symbol, as stored in
+    * 'historical_stock_data'. Ranges are limited to {@code quotes.history.max-range}.
+    *
+    * @param symbol The stock symbol (e.g., "AAPL").
+    * @param start  The start of the range in RFC-3339 or YYYY-MM-DD format.
+    * @param end    The end of the range in RFC-3339 or YYYY-MM-DD format.
+    *
+    * @return QuoteHistoryResponse with the quotes in the range, oldest first.
+    */
+   @GetMapping ("/{symbol}/history")
+   public QuoteHistoryResponse getQuoteHistory (
+       @PathVariable String symbol,
+       @RequestParam String start,
+       @RequestParam String end) {
+      return currentStockService.fetchQuoteHistory(symbol, start, end);
    }
 
    /**
     * Endpoint to fetch detailed snapshot data for a stock.
     *
+    * The response carries an ETag derived from the timestamps of the latest quote, trade and bars.
+    * While Alpaca is unavailable the last known snapshot is served with the {@code X-Data-Stale} header.
+    *
     * @param symbol The stock symbol to fetch (e.g., AAPL).
+    * @param accept The negotiated format is part of the ETag.
     *
     * @return StockSnapshotResponse containing detailed stock data.
     */
    @GetMapping ("/{symbol}/snapshot")
-   public StockSnapshotResponse getStockSnapshot (@PathVariable String symbol) {
-      return currentStockService.fetchStockSnapshot(symbol);
+   public ResponseEntity<StockSnapshotResponse> getStockSnapshot (
+       @PathVariable String symbol,
+       @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+      Served<StockSnapshotResponse> snapshot = currentStockService.fetchStockSnapshotServed(symbol);
+      return revalidated(snapshot.value(), snapshotETag(snapshot.value(), accept, snapshot.stale()), snapshot.stale());
+   }
+
+   /**
+    * Endpoint to fetch snapshot data for several stocks at once.
+    *
+    * @param symbols Comma-separated stock symbols (e.g., AAPL,MSFT,NVDA).
+    *
+    * @return StockSnapshotsResponse with the snapshots and any per-symbol errors.
+    */
+   @GetMapping ("/snapshots")
+   public StockSnapshotsResponse getStockSnapshots (@RequestParam List<String> symbols) {
+      return currentStockService.fetchStockSnapshots(symbols);
    }
 
    /**
     * Endpoint to fetch and save all stock quotes to MongoDB.
     *
-    * @return A confirmation message after saving.
+    * The changed quotes are written in the background by the write-behind queue.
+    *
+    * @return A confirmation message with the number of queued, unchanged and dropped quotes.
     */
    @PostMapping ("/save")
    public String saveQuotes () {
-      currentStockService.saveAllQuotesToDb();
-      return "All quotes saved to MongoDB.";
+      QuoteWriteResult result = currentStockService.saveAllQuotesToDb();
+      return String.format("All quotes queued for saving to MongoDB: %d queued, %d unchanged, %d dropped.",
+          result.queued(), result.skipped(), result.dropped());
    }
 
    /**
@@ -72,6 +304,9 @@ public class CurrentStockController {
     *
     * This endpoint retrieves historical bar data (e.g., open, high, low, close prices) for a specific stock
     * symbol within a given timeframe and date range. The data is aggregated based on the timeframe (e.g., "1Day", "1Week").
+    * All upstream pages are followed, so the response always covers the full range. While Alpaca is
+    * unavailable the stored bars are served instead, with the {@code X-Data-Stale} header and without
+    * the long-lived cache headers of a closed range.
     *
     * @param symbol    The stock symbol to fetch historical data for (e.g., "AAPL").
     * @param timeframe The timeframe for data aggregation (e.g., "1Day", "1Week").
@@ -80,23 +315,261 @@ public class CurrentStockController {
     *                  Example: "2025-01-01T00:00:00Z".
     * @param end       The end date for the historical data in RFC-3339 or YYYY-MM-DD format.
     *                  Example: "2025-01-08T00:00:00Z".
+    * @param limit     Optional page size for each upstream request (1 to 10000).
+    * @param baseTimeframe Optional finer timeframe (e.g. "1Min") to fetch and roll up into {@code timeframe} locally.
+    * @param maxPoints Optional maximum number of bars to return, the series is downsampled beyond it.
+    * @param downsample The downsampling method, "lttb" (default) or "minmax".
+    * @param accept    The negotiated format is part of the ETag.
+    * @param ifNoneMatch ETag of a copy the client already has.
     * @return A {@link HistoricalBarsResponse} containing the historical bar data for the given symbol and timeframe.
     * @throws IllegalArgumentException if any parameter (symbol, timeframe, start, end) is null, blank, or invalid.
     * @throws InvalidSymbolException if the symbol is invalid or no historical data is found.
+    * @see #closedRangeCacheControl()
     */
    @GetMapping("/{symbol}/bars")
-   public HistoricalBarsResponse getHistoricalBars(
+   public ResponseEntity<HistoricalBarsResponse> getHistoricalBars(
        @PathVariable String symbol,
        @RequestParam(required = true) String timeframe,
        @RequestParam(required = true) String start,
-       @RequestParam(required = true) String end) {
+       @RequestParam(required = true) String end,
+       @RequestParam(required = false) Integer limit,
+       @RequestParam(required = false) String baseTimeframe,
+       @RequestParam(required = false) Integer maxPoints,
+       @RequestParam(defaultValue = "lttb") String downsample,
+       @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
       if (symbol.isBlank() || timeframe.isBlank() || start.isBlank() || end.isBlank()) {
          throw new IllegalArgumentException("All parameters (symbol, timeframe, start, end) must be provided.");
       }
 
+      ChartOptions options = new ChartOptions(baseTimeframe, maxPoints, downsample);
+      boolean closed = currentStockService.isClosedRange(timeframe, start, end, options);
+      if (closed) {
+         String etag = barsETag("bars", symbol, timeframe, start, end, options, accept).build();
+         if (ETags.matches(ifNoneMatch, etag)) {
+            return notModified(etag);
+         }
+      }
+
       logger.info("Fetching historical bars for symbol: {}, timeframe: {}, start: {}, end: {}", symbol, timeframe, start, end);
 
-      return currentStockService.fetchHistoricalBars(symbol, timeframe, start, end);
+      Served<HistoricalBarsResponse> response = currentStockService.fetchHistoricalBarsServed(symbol, timeframe, start, end, limit, options);
+      ETags etag = barsETag("bars", symbol, timeframe, start, end, options, accept);
+      if (closed && !response.stale()) {
+         return immutable(response.value(), etag.build());
+      }
+      List<HistoricalBar> bars = response.value().bars();
+      return revalidated(response.value(), lastBarETag(etag.add(response.stale() ? "stale" : null), bars.size(), bars.getFirst().t(), bars.getLast()),
+          response.stale());
+   }
+
+   /**
+    * Endpoint to fetch historical stock bars in columnar form.
+    *
+    * Same data as {@code /{symbol}/bars}, but serialized as one array per field
+    * ({@code t}, {@code o}, {@code h}, {@code l}, {@code c}, {@code v}, {@code n}, {@code vw}) with
+    * timestamps as epoch milliseconds. This is considerably smaller than an array of bar objects and
+    * maps directly onto charting libraries that take column data.
+    *
+    * For charts, {@code maxPoints} caps the number of bars (e.g. to the chart's pixel width) and
+    * {@code baseTimeframe} rolls one stored fine series up into any coarser zoom level. Stored bars
+    * served while Alpaca is unavailable are flagged as in {@code /{symbol}/bars}.
+    *
+    * @param symbol    The stock symbol to fetch historical data for (e.g., "AAPL").
+    * @param timeframe The timeframe for data aggregation (e.g., "1Min", "1Day").
+    * @param start     The start date in RFC-3339 or YYYY-MM-DD format.
+    * @param end       The end date in RFC-3339 or YYYY-MM-DD format.
+    * @param limit     Optional page size for each upstream request (1 to 10000).
+    * @param baseTimeframe Optional finer timeframe (e.g. "1Min") to fetch and roll up into {@code timeframe} locally.
+    * @param maxPoints Optional maximum number of bars to return, the series is downsampled beyond it.
+    * @param downsample The downsampling method, "lttb" (default) or "minmax".
+    * @param accept    The negotiated format is part of the ETag.
+    * @param ifNoneMatch ETag of a copy the client already has.
+    * @return A {@link BarSeries} with the bars in the range.
+    * @see #closedRangeCacheControl()
+    */
+   @GetMapping("/{symbol}/bars/columnar")
+   public ResponseEntity<BarSeries> getHistoricalBarSeries(
+       @PathVariable String symbol,
+       @RequestParam String timeframe,
+       @RequestParam String start,
+       @RequestParam String end,
+       @RequestParam(required = false) Integer limit,
+       @RequestParam(required = false) String baseTimeframe,
+       @RequestParam(required = false) Integer maxPoints,
+       @RequestParam(defaultValue = "lttb") String downsample,
+       @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+      ChartOptions options = new ChartOptions(baseTimeframe, maxPoints, downsample);
+      boolean closed = currentStockService.isClosedRange(timeframe, start, end, options);
+      if (closed) {
+         String etag = barsETag("columnar", symbol, timeframe, start, end, options, accept).build();
+         if (ETags.matches(ifNoneMatch, etag)) {
+            return notModified(etag);
+         }
+      }
+
+      logger.info("Fetching columnar bars for symbol: {}, timeframe: {}, start: {}, end: {}", symbol, timeframe, start, end);
+
+      Served<BarSeries> served = currentStockService.fetchChartSeriesServed(symbol, timeframe, start, end, limit, options);
+      BarSeries series = served.value();
+      ETags etag = barsETag("columnar", symbol, timeframe, start, end, options, accept);
+      if (closed && !served.stale()) {
+         return immutable(series, etag.build());
+      }
+      return revalidated(series, lastBarETag(etag.add(served.stale() ? "stale" : null), series.size(), series.timestamp(0), series.bar(series.size() - 1)),
+          served.stale());
+   }
+
+   /**
+    * Endpoint to compute technical indicators over historical bars.
+    *
+    * Indicators are computed server-side and cached, so clients no longer need to download the
+    * full bar range. Values are aligned with the returned bar timestamps and null where an indicator
+    * is not defined yet (e.g. the first 19 bars of a 20-bar SMA).
+    *
+    * @param symbol     The stock symbol (e.g., "AAPL").
+    * @param timeframe  The bar timeframe (e.g., "1Min", "1Day").
+    * @param start      The start date in RFC-3339 or YYYY-MM-DD format.
+    * @param end        The end date in RFC-3339 or YYYY-MM-DD format.
+    * @param indicators Comma-separated specs, e.g. "sma:20,ema:50,rsi:14,macd:12:26:9,bb:20:2,vwap:20".
+    * @return An {@link IndicatorsResponse} with the timestamps and one array per indicator output.
+    */
+   @GetMapping("/{symbol}/indicators")
+   public IndicatorsResponse getIndicators(
+       @PathVariable String symbol,
+       @RequestParam String timeframe,
+       @RequestParam String start,
+       @RequestParam String end,
+       @RequestParam List<String> indicators) {
+      logger.info("Computing indicators {} for symbol: {}, timeframe: {}, start: {}, end: {}", indicators, symbol, timeframe, start, end);
+
+      return indicatorService.computeIndicators(symbol, timeframe, start, end, indicators);
+   }
+
+   /**
+    * Endpoint to stream historical stock bars.
+    *
+    * Bars are written to the response as each upstream page arrives, so memory use stays constant
+    * no matter how long the requested range is.
+    *
+    * @param symbol    The stock symbol to fetch historical data for (e.g., "AAPL").
+    * @param timeframe The timeframe for data aggregation (e.g., "1Min", "1Day").
+    * @param start     The start date in RFC-3339 or YYYY-MM-DD format.
+    * @param end       The end date in RFC-3339 or YYYY-MM-DD format.
+    * @param limit     Optional page size for each upstream request (1 to 10000).
+    * @param format    "ndjson" for one bar per line (default) or "json" for a single chunked JSON array.
+    * @return A streaming body of {@link HistoricalBar} objects.
+    * @throws InvalidRequestParameterException if the format is not supported.
+    */
+   @GetMapping("/{symbol}/bars/stream")
+   public ResponseEntity<StreamingResponseBody> streamHistoricalBars(
+       @PathVariable String symbol,
+       @RequestParam String timeframe,
+       @RequestParam String start,
+       @RequestParam String end,
+       @RequestParam(required = false) Integer limit,
+       @RequestParam(defaultValue = "ndjson") String format) {
+      boolean ndjson = switch (format) {
+         case "ndjson" -> true;
+         case "json" -> false;
+         default -> throw new InvalidRequestParameterException("Unsupported format '" + format + "'. Use ndjson or json.");
+      };
+
+      logger.info("Streaming historical bars for symbol: {}, timeframe: {}, start: {}, end: {}", symbol, timeframe, start, end);
+
+      // Validates eagerly, upstream pages are only requested while the body is written
+      Stream<HistoricalBar> bars = currentStockService.streamHistoricalBars(symbol, timeframe, start, end, limit);
+
+      StreamingResponseBody body = outputStream -> {
+         try (bars; JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            if (ndjson) {
+               generator.setRootValueSeparator(new SerializedString("\n"));
+            } else {
+               generator.writeStartArray();
+            }
+            Iterator<HistoricalBar> iterator = bars.iterator();
+            while (iterator.hasNext()) {
+               generator.writeObject(iterator.next());
+            }
+            if (ndjson) {
+               generator.writeRaw('\n');
+            } else {
+               generator.writeEndArray();
+            }
+         }
+      };
+
+      return ResponseEntity.ok()
+          .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+          .body(body);
+   }
+
+   /**
+    * Fully closed historical ranges never change: caches may keep them for a year without revalidating.
+    */
+   private static CacheControl closedRangeCacheControl() {
+      return CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+   }
+
+   // Live data: caches must revalidate with the ETag before reusing a copy
+   private static <T> ResponseEntity<T> revalidated(T body, String etag, boolean stale) {
+      // Spring answers a matching If-None-Match with 304 before the body is serialized
+      return staleFlagged(ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).varyBy(HttpHeaders.ACCEPT), stale)
+          .body(body);
+   }
+
+   private static ResponseEntity.BodyBuilder staleFlagged(ResponseEntity.BodyBuilder builder, boolean stale) {
+      return stale ? builder.header(STALE_HEADER, "true") : builder;
+   }
+
+   private static <T> ResponseEntity<T> immutable(T body, String etag) {
+      return ResponseEntity.ok().eTag(etag).cacheControl(closedRangeCacheControl()).varyBy(HttpHeaders.ACCEPT).body(body);
+   }
+
+   private static <T> ResponseEntity<T> notModified(String etag) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(closedRangeCacheControl())
+          .varyBy(HttpHeaders.ACCEPT).build();
+   }
+
+   // Identifies a bars request by its normalized parameters, enough for a closed range
+   private static ETags barsETag(String kind, String symbol, String timeframe, String start, String end,
+                                 ChartOptions options, String accept) {
+      TimeRange range = TimeRange.parse(start, end);
+      boolean resampled = options.baseTimeframe() != null && !options.baseTimeframe().isBlank();
+      return ETags.of(kind)
+          .add(accept)
+          .add(symbol.toUpperCase(Locale.ROOT))
+          .add(Timeframe.parse(timeframe).toString())
+          .add(range.start())
+          .add(range.end())
+          .add(resampled ? Timeframe.parse(options.baseTimeframe()).toString() : null)
+          .add(options.maxPoints() == null ? -1 : options.maxPoints())
+          .add(options.maxPoints() == null ? null : Downsampler.Method.parse(options.downsample()).name());
+   }
+
+   // An open range changes as bars are added and the last bar is updated
+   private static String lastBarETag(ETags request, int size, Instant firstBar, HistoricalBar lastBar) {
+      return request
+          .add(size)
+          .add(firstBar)
+          .add(lastBar.t())
+          .add(lastBar.c())
+          .add(lastBar.v())
+          .add(lastBar.n())
+          .build();
+   }
+
+   private static String snapshotETag(StockSnapshotResponse snapshot, String accept, boolean stale) {
+      ETags etag = ETags.of("snapshot").add(accept).add(snapshot.symbol()).add(stale ? "stale" : null)
+          .add(snapshot.latestQuote() == null ? null : snapshot.latestQuote().t())
+          .add(snapshot.latestTrade() == null ? null : snapshot.latestTrade().t())
+          .add(snapshot.prevDailyBar() == null ? null : snapshot.prevDailyBar().t());
+      // The current bars keep their start time while trading updates them
+      for (StockBar bar : new StockBar[] { snapshot.minuteBar(), snapshot.dailyBar() }) {
+         etag = bar == null ? etag.add(0L) : etag.add(bar.t()).add(bar.c()).add(bar.v());
+      }
+      return etag.build();
    }
 
-}
\ No newline at end of file
+}
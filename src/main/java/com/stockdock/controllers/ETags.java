@@ -0,0 +1,103 @@
+package com.stockdock.controllers;
+
+import java.time.Instant;
+
+/**
+ * Builds ETags from the few values that identify a response, without serializing it.
+ *
+ * Values are folded into a 64-bit FNV-1a hash. {@link #addUnordered} combines entries so that the
+ * result does not depend on map iteration order.
+ *
+ * The tags are weak: they identify the content, not the exact bytes. Tomcat refuses to gzip a
+ * response with a strong ETag (the compressed bytes would differ from what the tag promises), and
+ * {@code If-None-Match} uses weak comparison anyway, so conditional requests behave the same.
+ */
+final class ETags {
+
+   private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+   private static final long PRIME = 0x100000001b3L;
+
+   private long hash = OFFSET_BASIS;
+   private long unordered; // Sum of the entry hashes passed to addUnordered
+
+   private ETags () {
+   }
+
+   /**
+    * @param kind Distinguishes endpoints that could otherwise produce the same values.
+    */
+   static ETags of(String kind) {
+      return new ETags().add(kind);
+   }
+
+   ETags add(String value) {
+      if (value == null) {
+         return add(0L);
+      }
+      for (int i = 0; i < value.length(); i++) {
+         hash = (hash ^ value.charAt(i)) * PRIME;
+      }
+      return add((long) value.length());
+   }
+
+   ETags add(long value) {
+      hash = mix(hash, value);
+      return this;
+   }
+
+   ETags add(double value) {
+      return add(Double.doubleToLongBits(value));
+   }
+
+   ETags add(Instant value) {
+      return value == null ? add(Long.MIN_VALUE) : add(value.getEpochSecond()).add((long) value.getNano());
+   }
+
+   /**
+    * Mix in one entry of an unordered collection, e.g. {@code ETags.of(symbol).add(t)}.
+    * Entries are summed, so their order does not matter.
+    */
+   ETags addUnordered(ETags entry) {
+      unordered += entry.hash;
+      return this;
+   }
+
+   /**
+    * The weak ETag, e.g. {@code W/"3f2a9c0d5e71b846"}.
+    */
+   String build() {
+      return "W/\"" + String.format("%016x", mix(hash, unordered)) + "\"";
+   }
+
+   private static long mix(long hash, long value) {
+      for (int shift = 0; shift < 64; shift += 8) {
+         hash = (hash ^ ((value >>> shift) & 0xff)) * PRIME;
+      }
+      return hash;
+   }
+
+   /**
+    * Whether an {@code If-None-Match} header matches the given ETag, using weak comparison as RFC 9110
+    * requires for this header.
+    */
+   static boolean matches(String ifNoneMatch, String etag) {
+      if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+         return false;
+      }
+      String expected = opaqueTag(etag);
+      for (String candidate : ifNoneMatch.split(",")) {
+         String tag = candidate.trim();
+         if (tag.equals("*")) {
+            return true;
+         }
+         if (opaqueTag(tag).equals(expected)) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   private static String opaqueTag(String etag) {
+      return etag.startsWith("W/") ? etag.substring(2) : etag;
+   }
+}
@@ -0,0 +1,248 @@
+package com.stockdock.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A series of bars stored column by column in parallel primitive arrays.
+ *
+ * Bar {@code i} is made of {@code t[i]}, {@code o[i]}, {@code h[i]} and so on. Compared to a list of
+ * {@link HistoricalBar} records this needs eight arrays instead of two objects per bar, which keeps
+ * long minute series cheap to hold and fast to scan. Timestamps are epoch milliseconds.
+ *
+ * Serialized to JSON as one array per column. The arrays are shared, not copied: callers must not
+ * modify them.
+ */
+@JsonPropertyOrder({ "symbol", "timeframe", "size", "t", "o", "h", "l", "c", "v", "n", "vw" })
+public final class BarSeries {
+
+   private final String symbol;
+   private final String timeframe;
+   private final long[] t;     // Bar start, epoch milliseconds
+   private final double[] o;   // Open price
+   private final double[] h;   // High price
+   private final double[] l;   // Low price
+   private final double[] c;   // Close price
+   private final long[] v;     // Volume
+   private final long[] n;     // Number of trades
+   private final double[] vw;  // Volume-weighted average price
+
+   private BarSeries (String symbol, String timeframe, long[] t, double[] o, double[] h, double[] l, double[] c,
+                      long[] v, long[] n, double[] vw) {
+      this.symbol = symbol;
+      this.timeframe = timeframe;
+      this.t = t;
+      this.o = o;
+      this.h = h;
+      this.l = l;
+      this.c = c;
+      this.v = v;
+      this.n = n;
+      this.vw = vw;
+   }
+
+   public static Builder builder(String symbol, String timeframe) {
+      return new Builder(symbol, timeframe, 256);
+   }
+
+   /**
+    * @param expectedSize Initial column capacity, the builder grows beyond it as needed.
+    */
+   public static Builder builder(String symbol, String timeframe, int expectedSize) {
+      return new Builder(symbol, timeframe, expectedSize);
+   }
+
+   public static BarSeries of(String symbol, String timeframe, List<HistoricalBar> bars) {
+      Builder builder = new Builder(symbol, timeframe, bars.size());
+      bars.forEach(builder::add);
+      return builder.build();
+   }
+
+   @JsonProperty("symbol")
+   public String symbol() {
+      return symbol;
+   }
+
+   @JsonProperty("timeframe")
+   @JsonInclude(JsonInclude.Include.NON_NULL)
+   public String timeframe() {
+      return timeframe;
+   }
+
+   @JsonProperty("size")
+   public int size() {
+      return t.length;
+   }
+
+   @JsonIgnore
+   public boolean isEmpty() {
+      return t.length == 0;
+   }
+
+   @JsonProperty("t")
+   public long[] t() {
+      return t;
+   }
+
+   @JsonProperty("o")
+   public double[] o() {
+      return o;
+   }
+
+   @JsonProperty("h")
+   public double[] h() {
+      return h;
+   }
+
+   @JsonProperty("l")
+   public double[] l() {
+      return l;
+   }
+
+   @JsonProperty("c")
+   public double[] c() {
+      return c;
+   }
+
+   @JsonProperty("v")
+   public long[] v() {
+      return v;
+   }
+
+   @JsonProperty("n")
+   public long[] n() {
+      return n;
+   }
+
+   @JsonProperty("vw")
+   public double[] vw() {
+      return vw;
+   }
+
+   public Instant timestamp(int index) {
+      return Instant.ofEpochMilli(t[index]);
+   }
+
+   /**
+    * Materialize one bar as a record, for callers that need the row form.
+    */
+   public HistoricalBar bar(int index) {
+      Objects.checkIndex(index, t.length);
+      return new HistoricalBar(c[index], h[index], l[index], Math.toIntExact(n[index]), o[index], timestamp(index), v[index], vw[index]);
+   }
+
+   /**
+    * A new series holding only the bars at the given indices.
+    *
+    * @param indices Strictly ascending bar indices.
+    */
+   public BarSeries select(int[] indices) {
+      Builder builder = new Builder(symbol, timeframe, indices.length);
+      for (int i : indices) {
+         builder.add(t[i], o[i], h[i], l[i], c[i], v[i], n[i], vw[i]);
+      }
+      return builder.build();
+   }
+
+   public List<HistoricalBar> toBars() {
+      List<HistoricalBar> bars = new ArrayList<>(t.length);
+      for (int i = 0; i < t.length; i++) {
+         bars.add(bar(i));
+      }
+      return bars;
+   }
+
+   /**
+    * Appends bars column by column, growing the arrays geometrically.
+    */
+   public static final class Builder {
+
+      private final String symbol;
+      private final String timeframe;
+      private int size;
+      private long[] t;
+      private double[] o;
+      private double[] h;
+      private double[] l;
+      private double[] c;
+      private long[] v;
+      private long[] n;
+      private double[] vw;
+
+      private Builder (String symbol, String timeframe, int expectedSize) {
+         int capacity = Math.max(1, expectedSize);
+         this.symbol = symbol;
+         this.timeframe = timeframe;
+         this.t = new long[capacity];
+         this.o = new double[capacity];
+         this.h = new double[capacity];
+         this.l = new double[capacity];
+         this.c = new double[capacity];
+         this.v = new long[capacity];
+         this.n = new long[capacity];
+         this.vw = new double[capacity];
+      }
+
+      public Builder add(long epochMillis, double open, double high, double low, double close, long volume, long trades, double vwap) {
+         if (size == t.length) {
+            grow();
+         }
+         t[size] = epochMillis;
+         o[size] = open;
+         h[size] = high;
+         l[size] = low;
+         c[size] = close;
+         v[size] = volume;
+         n[size] = trades;
+         vw[size] = vwap;
+         size++;
+         return this;
+      }
+
+      public Builder add(HistoricalBar bar) {
+         return add(bar.t().toEpochMilli(), bar.o(), bar.h(), bar.l(), bar.c(), bar.v(), bar.n(), bar.vw());
+      }
+
+      public int size() {
+         return size;
+      }
+
+      /**
+       * Build the series, trimming the columns to the number of bars added.
+       */
+      public BarSeries build() {
+         return new BarSeries(
+             symbol,
+             timeframe,
+             Arrays.copyOf(t, size),
+             Arrays.copyOf(o, size),
+             Arrays.copyOf(h, size),
+             Arrays.copyOf(l, size),
+             Arrays.copyOf(c, size),
+             Arrays.copyOf(v, size),
+             Arrays.copyOf(n, size),
+             Arrays.copyOf(vw, size)
+         );
+      }
+
+      private void grow() {
+         int capacity = t.length + (t.length >> 1) + 1;
+         t = Arrays.copyOf(t, capacity);
+         o = Arrays.copyOf(o, capacity);
+         h = Arrays.copyOf(h, capacity);
+         l = Arrays.copyOf(l, capacity);
+         c = Arrays.copyOf(c, capacity);
+         v = Arrays.copyOf(v, capacity);
+         n = Arrays.copyOf(n, capacity);
+         vw = Arrays.copyOf(vw, capacity);
+      }
+   }
+}
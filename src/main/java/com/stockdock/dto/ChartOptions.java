@@ -0,0 +1,13 @@
+package com.stockdock.dto;
+
+/**
+ * Optional server-side shaping of a bar series for charts.
+ */
+public record ChartOptions(
+    String baseTimeframe,   // Fetch bars in this finer timeframe and resample them, null to fetch directly
+    Integer maxPoints,      // Downsample to at most this many bars, null to keep every bar
+    String downsample       // Downsampling method, "lttb" or "minmax"
+) {
+
+   public static final ChartOptions NONE = new ChartOptions(null, null, "lttb");
+}
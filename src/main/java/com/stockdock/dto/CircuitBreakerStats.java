@@ -0,0 +1,12 @@
+package com.stockdock.dto;
+
+public record CircuitBreakerStats(
+    String endpoint,        // Alpaca endpoint name
+    String state,           // CLOSED, OPEN or HALF_OPEN
+    int failureRate,        // Failure percentage over the current window
+    int windowCalls,        // Calls in the current window
+    long rejected,          // Calls failed fast while the breaker was open
+    long opened,            // Times the breaker opened since startup
+    long openForMillis      // Time left before the next trial call, 0 unless open
+) {
+}
@@ -9,7 +9,7 @@ public record HistoricalBar(
     int n,          // Number of trades
     double o,       // Open price
     Instant t,      // Timestamp
-    int v,          // Volume
+    long v,         // Volume
     double vw       // Volume-weighted average price
 ) {}
 
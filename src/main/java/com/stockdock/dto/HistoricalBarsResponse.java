@@ -1,7 +1,14 @@
 package com.stockdock.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import java.util.List;
 
 public record HistoricalBarsResponse(
-    List<HistoricalBar> bars
-) {}
\ No newline at end of file
+    List<HistoricalBar> bars,
+    String symbol,
+    @JsonProperty("next_page_token")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    String nextPageToken    // Token for the next page, null on the last page
+) {}
@@ -0,0 +1,14 @@
+package com.stockdock.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.util.Map;
+
+public record IndicatorsResponse(
+    String symbol,
+    String timeframe,
+    long[] t,                   // Bar timestamps, epoch milliseconds
+    @JsonSerialize(contentUsing = NanAsNullArraySerializer.class)
+    Map<String, double[]> values // One array per output line aligned with t, null where not yet defined
+) {
+}
@@ -0,0 +1,30 @@
+package com.stockdock.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@code double[]} as a JSON array with {@code null} for NaN, which JSON cannot represent.
+ */
+public class NanAsNullArraySerializer extends StdSerializer<double[]> {
+
+   public NanAsNullArraySerializer () {
+      super(double[].class);
+   }
+
+   @Override
+   public void serialize(double[] values, JsonGenerator generator, SerializerProvider provider) throws IOException {
+      generator.writeStartArray(values, values.length);
+      for (double value : values) {
+         if (Double.isNaN(value)) {
+            generator.writeNull();
+         } else {
+            generator.writeNumber(value);
+         }
+      }
+      generator.writeEndArray();
+   }
+}
@@ -0,0 +1,12 @@
+package com.stockdock.dto;
+
+public record QuoteCacheStats(
+    long hits,          // Lookups answered from memory
+    long misses,        // Lookups that had to go upstream
+    long evictions,     // Entries dropped for capacity
+    int size,           // Symbols currently cached
+    int stale,          // Cached symbols served from the warm start or as last known quotes, not refreshed yet
+    int maxSize,        // Configured capacity
+    long ttlSeconds     // Configured time-to-live
+) {
+}
@@ -0,0 +1,10 @@
+package com.stockdock.dto;
+
+import java.util.List;
+
+public record QuoteHistoryResponse(
+    String symbol,          // Stock symbol (e.g., AAPL)
+    String currency,        // Currency of the prices (e.g., USD)
+    List<StockQuote> quotes // Recorded quotes in the range, oldest first
+) {
+}
@@ -0,0 +1,8 @@
+package com.stockdock.dto;
+
+public record QuoteWriteResult(
+    int queued,     // Quotes handed to the write-behind queue (written immediately when it is disabled)
+    int skipped,    // Symbols whose quote timestamp had not moved since the last write
+    int dropped     // Quotes lost to a full queue: waiting ones evicted for these, or new ones that found no room
+) {
+}
@@ -0,0 +1,14 @@
+package com.stockdock.dto;
+
+public record RateLimiterStats(
+    boolean enabled,        // Whether calls are limited at all
+    double availableTokens, // Calls that can start right now
+    int queueDepth,         // Callers currently waiting for a token
+    int peakQueueDepth,     // Most callers ever waiting at once
+    long acquired,          // Calls let through
+    long delayed,           // Calls that had to wait for a token
+    long rejected,          // Calls failed for a full queue or too long a wait
+    long avgWaitMillis,     // Mean wait of delayed calls
+    long maxWaitMillis      // Longest wait since startup
+) {
+}
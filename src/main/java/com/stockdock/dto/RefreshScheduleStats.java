@@ -0,0 +1,19 @@
+package com.stockdock.dto;
+
+import java.util.List;
+
+public record RefreshScheduleStats(
+    String session,                     // Current market session, e.g. REGULAR or CLOSED
+    boolean streamLive,                 // REST refreshes are skipped while the quote stream delivers
+    String node,                        // This instance's cluster node id
+    int clusterNodes,                   // Live nodes sharing the symbols, this one included
+    int budgetPerMinute,                // Configured upstream request budget of the scheduler
+    double budgetTokens,                // Requests that can start right now
+    long requests,                      // Upstream requests made since startup
+    long refreshedSymbols,              // Symbol refreshes since startup, piggybacked ones included
+    long followedSymbols,               // Stored quotes of other nodes' symbols loaded from MongoDB
+    long deferredSymbols,               // Due symbols postponed because the budget was spent
+    long overlapsSkipped,               // Runs skipped because the previous one was still going
+    List<SymbolRefreshStats> symbols    // Per-symbol schedule, soonest first
+) {
+}
@@ -0,0 +1,9 @@
+package com.stockdock.dto;
+
+import java.util.Map;
+
+public record StockSnapshotsResponse(
+    Map<String, StockSnapshotResponse> snapshots,   // Snapshots keyed by symbol
+    Map<String, String> errors                      // Failure reason keyed by symbol, empty if all succeeded
+) {
+}
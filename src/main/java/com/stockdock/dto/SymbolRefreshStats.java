@@ -0,0 +1,14 @@
+package com.stockdock.dto;
+
+import java.time.Instant;
+
+public record SymbolRefreshStats(
+    String symbol,
+    String tier,               // Refresh tier the symbol is assigned to
+    boolean owned,             // Fetched by this node; otherwise followed through MongoDB
+    long intervalSeconds,      // Current adapted regular-session interval
+    Instant lastRefresh,       // Null until the first refresh
+    Instant nextRefresh,
+    Instant lastQuoteTime      // Timestamp of the latest quote seen, used to detect movement
+) {
+}
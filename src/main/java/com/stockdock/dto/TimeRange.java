@@ -0,0 +1,58 @@
+package com.stockdock.dto;
+
+import com.stockdock.exceptions.InvalidDateRangeException;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * An inclusive {@code [start, end]} time range for historical data requests.
+ */
+public record TimeRange(Instant start, Instant end) {
+
+   /**
+    * Parse request dates in RFC-3339 or YYYY-MM-DD format.
+    *
+    * A plain end date covers that whole day, so "2025-01-08" includes bars stamped later on January 8th.
+    *
+    * @throws InvalidDateRangeException if a date cannot be parsed or start is after end.
+    */
+   public static TimeRange parse(String start, String end) {
+      Instant startInstant = parseDate(start, false);
+      Instant endInstant = parseDate(end, true);
+
+      if (startInstant.isAfter(endInstant)) {
+         throw new InvalidDateRangeException("Start date must be before end date.");
+      }
+
+      return new TimeRange(startInstant, endInstant);
+   }
+
+   public boolean contains(Instant instant) {
+      return !instant.isBefore(start) && !instant.isAfter(end);
+   }
+
+   /**
+    * Format an instant the way the Alpaca API expects it (RFC-3339, UTC).
+    */
+   public static String format(Instant instant) {
+      return DateTimeFormatter.ISO_INSTANT.format(instant);
+   }
+
+   private static Instant parseDate(String value, boolean endOfDay) {
+      try {
+         if (value.length() == 10) {
+            LocalDate date = LocalDate.parse(value);
+            return endOfDay
+                ? date.plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC).minusNanos(1)
+                : date.atStartOfDay().toInstant(ZoneOffset.UTC);
+         }
+         return DateTimeFormatter.ISO_OFFSET_DATE_TIME.parse(value, Instant::from);
+      } catch (DateTimeParseException e) {
+         throw new InvalidDateRangeException("Dates must be in RFC-3339 or YYYY-MM-DD format: " + value, e);
+      }
+   }
+}
@@ -0,0 +1,79 @@
+package com.stockdock.dto;
+
+import com.stockdock.exceptions.UnsupportedTimeframeException;
+
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A bar aggregation period in Alpaca's notation (e.g. "1Min", "15Min", "1Hour", "1Day", "1Week", "1Month").
+ *
+ * @param amount The number of units per bar.
+ * @param unit   The unit of the period.
+ */
+public record Timeframe(int amount, Unit unit) {
+
+   private static final Pattern FORMAT = Pattern.compile("^(\\d+)(Min|T|Hour|H|Day|D|Week|W|Month|M)$");
+
+   public enum Unit {
+      MIN("Min", Duration.ofMinutes(1)),
+      HOUR("Hour", Duration.ofHours(1)),
+      DAY("Day", Duration.ofDays(1)),
+      WEEK("Week", Duration.ofDays(7)),
+      MONTH("Month", Duration.ofDays(31)); // Longest possible month, used as an upper bound
+
+      private final String alpacaName;
+      private final Duration length;
+
+      Unit(String alpacaName, Duration length) {
+         this.alpacaName = alpacaName;
+         this.length = length;
+      }
+   }
+
+   /**
+    * Parse a timeframe string, accepting both Alpaca's long ("1Min") and short ("1T") unit names.
+    *
+    * @throws UnsupportedTimeframeException if the value is blank or not a valid timeframe.
+    */
+   public static Timeframe parse(String value) {
+      if (value == null || value.isBlank()) {
+         throw new UnsupportedTimeframeException("Timeframe cannot be null or blank. Supported values: [1Day, 1Week, ...]");
+      }
+
+      Matcher matcher = FORMAT.matcher(value.trim());
+      if (!matcher.matches()) {
+         throw new UnsupportedTimeframeException("Unsupported timeframe '" + value + "'. Supported values: [1Min, 1Hour, 1Day, 1Week, 1Month, ...]");
+      }
+
+      int amount = Integer.parseInt(matcher.group(1));
+      Unit unit = switch (matcher.group(2)) {
+         case "Min", "T" -> Unit.MIN;
+         case "Hour", "H" -> Unit.HOUR;
+         case "Day", "D" -> Unit.DAY;
+         case "Week", "W" -> Unit.WEEK;
+         default -> Unit.MONTH;
+      };
+      if (amount < 1) {
+         throw new UnsupportedTimeframeException("Timeframe amount must be positive: " + value);
+      }
+
+      return new Timeframe(amount, unit);
+   }
+
+   /**
+    * The (maximum) length of one bar period.
+    */
+   public Duration duration() {
+      return unit.length.multipliedBy(amount);
+   }
+
+   /**
+    * The canonical Alpaca name, e.g. "15Min".
+    */
+   @Override
+   public String toString() {
+      return amount + unit.alpacaName;
+   }
+}
@@ -0,0 +1,11 @@
+package com.stockdock.dto;
+
+public record UpstreamCallStats(
+    String endpoint,    // Alpaca endpoint name
+    long calls,         // Completed calls, successful or not
+    long errors,        // Calls that failed or returned a 4xx/5xx status
+    long avgMillis,     // Mean latency per call
+    long maxMillis,     // Slowest call since startup
+    long lastMillis     // Latency of the most recent call
+) {
+}
@@ -0,0 +1,17 @@
+package com.stockdock.dto;
+
+public record WriteBehindStats(
+    boolean enabled,          // Whether quotes are queued at all
+    int depth,                // Symbols currently waiting to be written
+    int maxPending,           // Configured capacity
+    long oldestPendingMillis, // Age of the longest waiting quote, 0 when empty
+    long queued,              // Quotes handed to the queue
+    long coalesced,           // Queued quotes that replaced an older waiting quote of the same symbol
+    long dropped,             // Quotes lost to a full queue
+    long written,             // Documents written to current_stocks
+    long flushes,             // Successful bulk writes
+    long failedFlushes,       // Bulk writes that failed and were retried
+    long lastFlushMillis,     // Latency of the most recent bulk write
+    long maxFlushMillis       // Longest bulk write since startup
+) {
+}
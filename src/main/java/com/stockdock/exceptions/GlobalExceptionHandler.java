@@ -41,4 +41,22 @@ public class GlobalExceptionHandler {
 		logger.error("Data not found: {}", e.getMessage());
 		return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Data not found: " + e.getMessage());
 	}
+
+	@ExceptionHandler(InvalidRequestParameterException.class)
+	public ResponseEntity<String> handleInvalidRequestParameterException(InvalidRequestParameterException e) {
+		logger.error("Invalid request parameter: {}", e.getMessage());
+		return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid request parameter: " + e.getMessage());
+	}
+
+	@ExceptionHandler(ServiceUnavailableException.class)
+	public ResponseEntity<String> handleServiceUnavailableException(ServiceUnavailableException e) {
+		logger.warn("Service unavailable: {}", e.getMessage());
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Service unavailable: " + e.getMessage());
+	}
+
+	@ExceptionHandler(RateLimitExceededException.class)
+	public ResponseEntity<String> handleRateLimitExceededException(RateLimitExceededException e) {
+		logger.warn("Rate limit exceeded: {}", e.getMessage());
+		return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header("Retry-After", "1").body("Rate limit exceeded: " + e.getMessage());
+	}
 }
@@ -0,0 +1,7 @@
+package com.stockdock.exceptions;
+
+public class InvalidRequestParameterException extends RuntimeException {
+   public InvalidRequestParameterException(String message) {
+      super(message);
+   }
+}
@@ -0,0 +1,7 @@
+package com.stockdock.exceptions;
+
+public class RateLimitExceededException extends RuntimeException {
+   public RateLimitExceededException(String message) {
+      super(message);
+   }
+}
@@ -0,0 +1,65 @@
+package com.stockdock.indicators;
+
+import java.util.List;
+
+/**
+ * Bollinger bands: the simple moving average of the close and the bands {@code k} population
+ * standard deviations above and below it, from running sums of the values and their squares.
+ */
+final class BollingerBands extends Indicator {
+
+   private final RollingWindow closes;
+   private final RollingWindow squares;
+   private final double k;
+   private final String name;
+
+   BollingerBands (int period, double k) {
+      this.closes = new RollingWindow(period);
+      this.squares = new RollingWindow(period);
+      this.k = k;
+      this.name = "bb(" + period + "," + formatK(k) + ")";
+   }
+
+   private BollingerBands (BollingerBands other) {
+      this.closes = other.closes.copy();
+      this.squares = other.squares.copy();
+      this.k = other.k;
+      this.name = other.name;
+   }
+
+   @Override
+   public String name() {
+      return name;
+   }
+
+   @Override
+   public List<String> outputs() {
+      return List.of(name + ".middle", name + ".upper", name + ".lower");
+   }
+
+   @Override
+   public void update(double high, double low, double close, long volume, double vwap, double[] out) {
+      closes.push(close);
+      squares.push(close * close);
+      if (!closes.isFull()) {
+         out[0] = out[1] = out[2] = Double.NaN;
+         return;
+      }
+
+      int period = closes.size();
+      double mean = closes.sum() / period;
+      double deviation = Math.sqrt(Math.max(0, squares.sum() / period - mean * mean));
+      out[0] = mean;
+      out[1] = mean + k * deviation;
+      out[2] = mean - k * deviation;
+   }
+
+   @Override
+   public Indicator copy() {
+      return new BollingerBands(this);
+   }
+
+   private static String formatK(double k) {
+      return k == Math.rint(k) ? String.valueOf((long) k) : String.valueOf(k);
+   }
+}
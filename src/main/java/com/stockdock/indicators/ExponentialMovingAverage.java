@@ -0,0 +1,65 @@
+package com.stockdock.indicators;
+
+import java.util.List;
+
+/**
+ * Exponential moving average of the close with smoothing {@code 2 / (period + 1)}, seeded with the
+ * simple average of the first {@code period} closes.
+ */
+final class ExponentialMovingAverage extends Indicator {
+
+   private final int period;
+   private final double alpha;
+   private int seen;
+   private double seedSum;
+   private double value = Double.NaN;
+
+   ExponentialMovingAverage (int period) {
+      this.period = period;
+      this.alpha = 2.0 / (period + 1);
+   }
+
+   private ExponentialMovingAverage (ExponentialMovingAverage other) {
+      this.period = other.period;
+      this.alpha = other.alpha;
+      this.seen = other.seen;
+      this.seedSum = other.seedSum;
+      this.value = other.value;
+   }
+
+   @Override
+   public String name() {
+      return "ema(" + period + ")";
+   }
+
+   @Override
+   public List<String> outputs() {
+      return List.of(name());
+   }
+
+   @Override
+   public void update(double high, double low, double close, long volume, double vwap, double[] out) {
+      out[0] = next(close);
+   }
+
+   /**
+    * Add one value and return the average, NaN until {@code period} values have been seen.
+    */
+   double next(double input) {
+      if (seen < period) {
+         seen++;
+         seedSum += input;
+         if (seen == period) {
+            value = seedSum / period;
+         }
+      } else {
+         value += alpha * (input - value);
+      }
+      return value;
+   }
+
+   @Override
+   public ExponentialMovingAverage copy() {
+      return new ExponentialMovingAverage(this);
+   }
+}
@@ -0,0 +1,72 @@
+package com.stockdock.indicators;
+
+import com.stockdock.exceptions.InvalidRequestParameterException;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A technical indicator that is updated one bar at a time.
+ *
+ * Every implementation keeps only the running state it needs (sums, smoothed averages, a fixed-size
+ * window), so adding a bar costs O(1) regardless of how long the series already is. Outputs are NaN
+ * until the indicator has seen enough bars to be defined.
+ */
+public abstract class Indicator {
+
+   static final int MAX_PERIOD = 1000;
+
+   /**
+    * Parse an indicator spec of the form {@code name[:param[:param...]]}, e.g. {@code sma:20},
+    * {@code macd:12:26:9} or {@code bb:20:2}. Omitted parameters take their usual defaults.
+    *
+    * @throws InvalidRequestParameterException if the name is unknown or a parameter is invalid.
+    */
+   public static Indicator parse(String spec) {
+      String[] parts = spec.trim().toLowerCase(Locale.ROOT).split(":");
+      try {
+         return switch (parts[0]) {
+            case "sma" -> new SimpleMovingAverage(period(parts, 1, 20));
+            case "ema" -> new ExponentialMovingAverage(period(parts, 1, 20));
+            case "rsi" -> new RelativeStrengthIndex(period(parts, 1, 14));
+            case "macd" -> new Macd(period(parts, 1, 12), period(parts, 2, 26), period(parts, 3, 9));
+            case "bb", "bollinger" -> new BollingerBands(period(parts, 1, 20), parts.length > 2 ? Double.parseDouble(parts[2]) : 2);
+            case "vwap" -> new RollingVwap(period(parts, 1, 20));
+            default -> throw new InvalidRequestParameterException(
+                "Unknown indicator '" + parts[0] + "'. Supported: sma, ema, rsi, macd, bb, vwap.");
+         };
+      } catch (NumberFormatException e) {
+         throw new InvalidRequestParameterException("Invalid parameters in indicator '" + spec + "'.");
+      }
+   }
+
+   /**
+    * @return The canonical name including parameters, e.g. {@code sma(20)}.
+    */
+   public abstract String name();
+
+   /**
+    * @return The names of the output lines, in the order {@link #update} writes them.
+    */
+   public abstract List<String> outputs();
+
+   /**
+    * Add the next bar and write the indicator's values for it.
+    *
+    * @param out Receives one value per output line.
+    */
+   public abstract void update(double high, double low, double close, long volume, double vwap, double[] out);
+
+   /**
+    * @return An independent copy of the running state, used to evaluate bars that may still change.
+    */
+   public abstract Indicator copy();
+
+   private static int period(String[] parts, int index, int defaultValue) {
+      int period = parts.length > index ? Integer.parseInt(parts[index]) : defaultValue;
+      if (period < 1 || period > MAX_PERIOD) {
+         throw new InvalidRequestParameterException("Indicator periods must be between 1 and " + MAX_PERIOD + ".");
+      }
+      return period;
+   }
+}
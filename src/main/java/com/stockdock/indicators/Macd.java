@@ -0,0 +1,54 @@
+package com.stockdock.indicators;
+
+import java.util.List;
+
+/**
+ * Moving average convergence/divergence: the fast EMA minus the slow EMA of the close, its signal
+ * line (an EMA of the MACD line) and the histogram between the two.
+ */
+final class Macd extends Indicator {
+
+   private final ExponentialMovingAverage fast;
+   private final ExponentialMovingAverage slow;
+   private final ExponentialMovingAverage signal;
+   private final String name;
+
+   Macd (int fastPeriod, int slowPeriod, int signalPeriod) {
+      this.fast = new ExponentialMovingAverage(fastPeriod);
+      this.slow = new ExponentialMovingAverage(slowPeriod);
+      this.signal = new ExponentialMovingAverage(signalPeriod);
+      this.name = "macd(" + fastPeriod + "," + slowPeriod + "," + signalPeriod + ")";
+   }
+
+   private Macd (Macd other) {
+      this.fast = other.fast.copy();
+      this.slow = other.slow.copy();
+      this.signal = other.signal.copy();
+      this.name = other.name;
+   }
+
+   @Override
+   public String name() {
+      return name;
+   }
+
+   @Override
+   public List<String> outputs() {
+      return List.of(name, name + ".signal", name + ".histogram");
+   }
+
+   @Override
+   public void update(double high, double low, double close, long volume, double vwap, double[] out) {
+      double macd = fast.next(close) - slow.next(close);
+      double signalValue = Double.isNaN(macd) ? Double.NaN : signal.next(macd);
+
+      out[0] = macd;
+      out[1] = signalValue;
+      out[2] = macd - signalValue;
+   }
+
+   @Override
+   public Indicator copy() {
+      return new Macd(this);
+   }
+}
@@ -0,0 +1,78 @@
+package com.stockdock.indicators;
+
+import java.util.List;
+
+/**
+ * Wilder's relative strength index of the close, from 0 to 100.
+ *
+ * The first average gain and loss are simple averages over {@code period} changes; after that
+ * they are smoothed with {@code (previous * (period - 1) + current) / period}.
+ */
+final class RelativeStrengthIndex extends Indicator {
+
+   private final int period;
+   private double previousClose = Double.NaN;
+   private int changes;
+   private double averageGain;
+   private double averageLoss;
+
+   RelativeStrengthIndex (int period) {
+      this.period = period;
+   }
+
+   private RelativeStrengthIndex (RelativeStrengthIndex other) {
+      this.period = other.period;
+      this.previousClose = other.previousClose;
+      this.changes = other.changes;
+      this.averageGain = other.averageGain;
+      this.averageLoss = other.averageLoss;
+   }
+
+   @Override
+   public String name() {
+      return "rsi(" + period + ")";
+   }
+
+   @Override
+   public List<String> outputs() {
+      return List.of(name());
+   }
+
+   @Override
+   public void update(double high, double low, double close, long volume, double vwap, double[] out) {
+      if (Double.isNaN(previousClose)) {
+         previousClose = close;
+         out[0] = Double.NaN;
+         return;
+      }
+
+      double change = close - previousClose;
+      double gain = Math.max(change, 0);
+      double loss = Math.max(-change, 0);
+      previousClose = close;
+
+      if (changes < period) {
+         changes++;
+         averageGain += gain / period;
+         averageLoss += loss / period;
+         if (changes < period) {
+            out[0] = Double.NaN;
+            return;
+         }
+      } else {
+         averageGain = (averageGain * (period - 1) + gain) / period;
+         averageLoss = (averageLoss * (period - 1) + loss) / period;
+      }
+
+      if (averageLoss == 0) {
+         out[0] = averageGain == 0 ? 50 : 100;
+      } else {
+         out[0] = 100 - 100 / (1 + averageGain / averageLoss);
+      }
+   }
+
+   @Override
+   public Indicator copy() {
+      return new RelativeStrengthIndex(this);
+   }
+}
@@ -0,0 +1,47 @@
+package com.stockdock.indicators;
+
+import java.util.List;
+
+/**
+ * Volume-weighted average price over the last {@code period} bars.
+ *
+ * Each bar contributes its own VWAP (or its typical price when the feed has none) weighted by its volume.
+ */
+final class RollingVwap extends Indicator {
+
+   private final RollingWindow priceVolume;
+   private final RollingWindow volumes;
+
+   RollingVwap (int period) {
+      this.priceVolume = new RollingWindow(period);
+      this.volumes = new RollingWindow(period);
+   }
+
+   private RollingVwap (RollingVwap other) {
+      this.priceVolume = other.priceVolume.copy();
+      this.volumes = other.volumes.copy();
+   }
+
+   @Override
+   public String name() {
+      return "vwap(" + volumes.size() + ")";
+   }
+
+   @Override
+   public List<String> outputs() {
+      return List.of(name());
+   }
+
+   @Override
+   public void update(double high, double low, double close, long volume, double vwap, double[] out) {
+      double price = vwap > 0 ? vwap : (high + low + close) / 3;
+      priceVolume.push(price * volume);
+      volumes.push(volume);
+      out[0] = volumes.isFull() && volumes.sum() > 0 ? priceVolume.sum() / volumes.sum() : Double.NaN;
+   }
+
+   @Override
+   public Indicator copy() {
+      return new RollingVwap(this);
+   }
+}
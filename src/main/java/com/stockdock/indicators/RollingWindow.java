@@ -0,0 +1,52 @@
+package com.stockdock.indicators;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size ring buffer that keeps the running sum of its values.
+ */
+final class RollingWindow {
+
+   private final double[] values;
+   private int next;
+   private int count;
+   private double sum;
+
+   RollingWindow (int size) {
+      this.values = new double[size];
+   }
+
+   private RollingWindow (RollingWindow other) {
+      this.values = Arrays.copyOf(other.values, other.values.length);
+      this.next = other.next;
+      this.count = other.count;
+      this.sum = other.sum;
+   }
+
+   void push(double value) {
+      if (count == values.length) {
+         sum -= values[next];
+      } else {
+         count++;
+      }
+      values[next] = value;
+      sum += value;
+      next = (next + 1) % values.length;
+   }
+
+   boolean isFull() {
+      return count == values.length;
+   }
+
+   double sum() {
+      return sum;
+   }
+
+   int size() {
+      return values.length;
+   }
+
+   RollingWindow copy() {
+      return new RollingWindow(this);
+   }
+}
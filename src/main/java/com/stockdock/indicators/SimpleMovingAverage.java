@@ -0,0 +1,40 @@
+package com.stockdock.indicators;
+
+import java.util.List;
+
+/**
+ * Mean close over the last {@code period} bars.
+ */
+final class SimpleMovingAverage extends Indicator {
+
+   private final RollingWindow closes;
+
+   SimpleMovingAverage (int period) {
+      this.closes = new RollingWindow(period);
+   }
+
+   private SimpleMovingAverage (SimpleMovingAverage other) {
+      this.closes = other.closes.copy();
+   }
+
+   @Override
+   public String name() {
+      return "sma(" + closes.size() + ")";
+   }
+
+   @Override
+   public List<String> outputs() {
+      return List.of(name());
+   }
+
+   @Override
+   public void update(double high, double low, double close, long volume, double vwap, double[] out) {
+      closes.push(close);
+      out[0] = closes.isFull() ? closes.sum() / closes.size() : Double.NaN;
+   }
+
+   @Override
+   public Indicator copy() {
+      return new SimpleMovingAverage(this);
+   }
+}
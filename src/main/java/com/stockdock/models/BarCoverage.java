@@ -0,0 +1,22 @@
+package com.stockdock.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+@Document(collection = "bar_coverage") // Collection Name
+public record BarCoverage(
+    @Id String id,              // "<symbol>:<timeframe>"
+    String symbol,              // Stock symbol (e.g., AAPL)
+    String timeframe,           // Canonical timeframe (e.g., 1Day)
+    List<CoveredRange> ranges   // Sorted, non-overlapping ranges already stored in historical_bars
+) {
+
+   /**
+    * An inclusive range of bar timestamps whose bars have all been fetched and whose periods had closed.
+    */
+   public record CoveredRange(Instant start, Instant end) {
+   }
+}
@@ -0,0 +1,26 @@
+package com.stockdock.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Document(collection = "historical_stock_data") // Collection Name
+@CompoundIndex(name = "symbol_start_sequence", def = "{'symbol': 1, 'start': 1, 'sequence': 1}")
+public record QuoteHistoryBucket(
+    @Id String id,      // "<symbol>:<epoch second of start>:<sequence>"
+    String symbol,      // Stock symbol (e.g., AAPL)
+    String currency,    // Currency of the prices (e.g., USD)
+    Instant start,      // Start of the hour or New York trading day the bucket covers
+    int sequence,       // 0 for the first bucket of the period, a full bucket continues in the next one
+    Instant first,      // Timestamp of the first quote
+    Instant last,       // Timestamp of the last quote, later quotes are appended after it
+    int count,          // Quotes in the bucket, at most quotes.history.max-per-bucket
+    byte[] data         // The quotes, delta-encoded by QuoteHistoryCodec
+) {
+
+   public static String id(String symbol, Instant start, int sequence) {
+      return symbol + ":" + start.getEpochSecond() + ":" + sequence;
+   }
+}
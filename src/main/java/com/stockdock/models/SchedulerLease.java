@@ -0,0 +1,17 @@
+package com.stockdock.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Document(collection = "scheduler_leases") // Collection Name
+public record SchedulerLease(
+    @Id String nodeId,     // Instance holding the lease (cluster.node-id)
+    Instant startedAt,     // When the instance joined
+    Instant renewedAt,     // Last successful renewal
+    @Indexed(expireAfter = "0s")
+    Instant expiresAt      // The lease counts as dead after this; MongoDB's TTL monitor removes it later
+) {
+}
@@ -0,0 +1,45 @@
+package com.stockdock.models;
+
+import com.stockdock.dto.HistoricalBar;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Document(collection = "historical_bars") // Collection Name
+@CompoundIndex(name = "symbol_timeframe_t", def = "{'symbol': 1, 'timeframe': 1, 't': 1}")
+public record StoredBar(
+    @Id String id,      // "<symbol>:<timeframe>:<epoch second>", makes re-fetched bars overwrite instead of duplicate
+    String symbol,      // Stock symbol (e.g., AAPL)
+    String timeframe,   // Canonical timeframe (e.g., 1Day)
+    Instant t,          // Bar start timestamp
+    double o,           // Open price
+    double h,           // High price
+    double l,           // Low price
+    double c,           // Close price
+    long v,             // Volume
+    int n,              // Number of trades
+    double vw           // Volume-weighted average price
+) {
+
+   public static StoredBar from(String symbol, String timeframe, HistoricalBar bar) {
+      return new StoredBar(
+          symbol + ":" + timeframe + ":" + bar.t().getEpochSecond(),
+          symbol,
+          timeframe,
+          bar.t(),
+          bar.o(),
+          bar.h(),
+          bar.l(),
+          bar.c(),
+          bar.v(),
+          bar.n(),
+          bar.vw()
+      );
+   }
+
+   public HistoricalBar toHistoricalBar() {
+      return new HistoricalBar(c, h, l, n, o, t, v, vw);
+   }
+}
@@ -0,0 +1,31 @@
+package com.stockdock.repos;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.stockdock.models.CurrentStock;
+
+import java.util.Collection;
+import java.util.stream.Stream;
+
+/**
+ * Custom operations for {@link CurrentStockRepo} that are not covered by Spring Data's derived methods.
+ */
+public interface CurrentStockRepoCustom {
+
+   /**
+    * Upsert all given stocks in a single unordered bulk write.
+    *
+    * @param stocks The documents to insert or replace, keyed by symbol.
+    * @return The driver's bulk write result with inserted (upserted) and modified counts.
+    */
+   BulkWriteResult bulkUpsert(Collection<CurrentStock> stocks);
+
+   /**
+    * Stream all stored quotes through a cursor, reading only the fields needed to serve them.
+    *
+    * The stream holds a server-side cursor and must be closed.
+    *
+    * @param batchSize The number of documents fetched per cursor batch.
+    * @return The stocks that have a latest quote, in no particular order.
+    */
+   Stream<CurrentStock> streamLatestQuotes(int batchSize);
+}
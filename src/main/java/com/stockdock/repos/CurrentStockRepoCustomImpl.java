@@ -0,0 +1,55 @@
+package com.stockdock.repos;
+
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import com.stockdock.models.CurrentStock;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class CurrentStockRepoCustomImpl implements CurrentStockRepoCustom {
+
+   private final MongoTemplate mongoTemplate;
+   private final Timer bulkWriteTimer;
+
+   public CurrentStockRepoCustomImpl (MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+      this.mongoTemplate = mongoTemplate;
+      this.bulkWriteTimer = Timer.builder("stockdock.mongo.bulk.writes")
+          .description("Latency of one bulk upsert batch")
+          .tag("collection", mongoTemplate.getCollectionName(CurrentStock.class))
+          .publishPercentileHistogram()
+          .register(meterRegistry);
+   }
+
+   @Override
+   public BulkWriteResult bulkUpsert(Collection<CurrentStock> stocks) {
+      if (stocks.isEmpty()) {
+         // The driver rejects empty bulk writes
+         return BulkWriteResult.acknowledged(0, 0, 0, 0, List.of(), List.of());
+      }
+
+      // Unordered so one failing document does not stop the rest of the batch
+      BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CurrentStock.class);
+      stocks.forEach(stock -> bulkOps.replaceOne(
+          Query.query(Criteria.where("_id").is(stock.symbol())),
+          stock,
+          FindAndReplaceOptions.options().upsert()
+      ));
+
+      return bulkWriteTimer.record(bulkOps::execute);
+   }
+
+   @Override
+   public Stream<CurrentStock> streamLatestQuotes(int batchSize) {
+      Query query = Query.query(Criteria.where("latestQuote").ne(null)).cursorBatchSize(batchSize);
+      query.fields().include("currency", "latestQuote"); // _id is always returned; skips _class and anything added later
+      return mongoTemplate.stream(query, CurrentStock.class);
+   }
+}
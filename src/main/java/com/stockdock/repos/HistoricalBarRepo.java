@@ -0,0 +1,19 @@
+package com.stockdock.repos;
+
+import com.stockdock.models.StoredBar;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.stream.Stream;
+
+@Repository
+public interface HistoricalBarRepo extends MongoRepository<StoredBar, String>, HistoricalBarRepoCustom {
+
+   // Inclusive range read served by the symbol_timeframe_t index, backed by a cursor so documents
+   // are decoded one at a time as the stream is consumed
+   @Query("{ 'symbol': ?0, 'timeframe': ?1, 't': { $gte: ?2, $lte: ?3 } }")
+   Stream<StoredBar> streamRange(String symbol, String timeframe, Instant start, Instant end, Sort sort);
+}
@@ -0,0 +1,20 @@
+package com.stockdock.repos;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.stockdock.models.StoredBar;
+
+import java.util.Collection;
+
+/**
+ * Custom write operations for {@link HistoricalBarRepo}.
+ */
+public interface HistoricalBarRepoCustom {
+
+   /**
+    * Upsert all given bars in a single unordered bulk write.
+    *
+    * @param bars The bars to insert or replace, keyed by their id.
+    * @return The driver's bulk write result.
+    */
+   BulkWriteResult bulkUpsert(Collection<StoredBar> bars);
+}
@@ -0,0 +1,46 @@
+package com.stockdock.repos;
+
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import com.stockdock.models.StoredBar;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Collection;
+import java.util.List;
+
+public class HistoricalBarRepoCustomImpl implements HistoricalBarRepoCustom {
+
+   private final MongoTemplate mongoTemplate;
+   private final Timer bulkWriteTimer;
+
+   public HistoricalBarRepoCustomImpl (MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+      this.mongoTemplate = mongoTemplate;
+      this.bulkWriteTimer = Timer.builder("stockdock.mongo.bulk.writes")
+          .description("Latency of one bulk upsert batch")
+          .tag("collection", mongoTemplate.getCollectionName(StoredBar.class))
+          .publishPercentileHistogram()
+          .register(meterRegistry);
+   }
+
+   @Override
+   public BulkWriteResult bulkUpsert(Collection<StoredBar> bars) {
+      if (bars.isEmpty()) {
+         // The driver rejects empty bulk writes
+         return BulkWriteResult.acknowledged(0, 0, 0, 0, List.of(), List.of());
+      }
+
+      BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StoredBar.class);
+      bars.forEach(bar -> bulkOps.replaceOne(
+          Query.query(Criteria.where("_id").is(bar.id())),
+          bar,
+          FindAndReplaceOptions.options().upsert()
+      ));
+
+      return bulkWriteTimer.record(bulkOps::execute);
+   }
+}
@@ -0,0 +1,24 @@
+package com.stockdock.repos;
+
+import com.stockdock.models.QuoteHistoryBucket;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface QuoteHistoryRepo extends MongoRepository<QuoteHistoryBucket, String>, QuoteHistoryRepoCustom {
+
+   // Buckets starting within an inclusive range, served by the symbol_start_sequence index
+   @Query("{ 'symbol': ?0, 'start': { $gte: ?1, $lte: ?2 } }")
+   List<QuoteHistoryBucket> findBuckets(String symbol, Instant fromStart, Instant toStart, Sort sort);
+
+   /**
+    * The bucket the next quotes of a symbol are appended to.
+    */
+   Optional<QuoteHistoryBucket> findFirstBySymbolOrderByStartDescSequenceDesc(String symbol);
+}
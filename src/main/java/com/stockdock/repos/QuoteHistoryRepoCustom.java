@@ -0,0 +1,25 @@
+package com.stockdock.repos;
+
+import com.stockdock.models.QuoteHistoryBucket;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Custom write operations for {@link QuoteHistoryRepo}.
+ */
+public interface QuoteHistoryRepoCustom {
+
+   /**
+    * Write new versions of buckets in a single unordered bulk write.
+    *
+    * A bucket is only written if its stored quote count is still the one the new version was built
+    * on, so quotes appended by another instance in the meantime are never overwritten.
+    *
+    * @param buckets        The buckets to insert or replace, keyed by their id.
+    * @param expectedCounts The stored count per bucket id, 0 for buckets that do not exist yet.
+    * @return The ids of the buckets that were not written because their stored count had changed.
+    */
+   Set<String> bulkAppend(Collection<QuoteHistoryBucket> buckets, Map<String, Integer> expectedCounts);
+}
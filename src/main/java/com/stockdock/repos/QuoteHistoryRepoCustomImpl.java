@@ -0,0 +1,75 @@
+package com.stockdock.repos;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import com.stockdock.models.QuoteHistoryBucket;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.Document;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class QuoteHistoryRepoCustomImpl implements QuoteHistoryRepoCustom {
+
+   private final MongoTemplate mongoTemplate;
+   private final Timer bulkWriteTimer;
+
+   public QuoteHistoryRepoCustomImpl (MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+      this.mongoTemplate = mongoTemplate;
+      this.bulkWriteTimer = Timer.builder("stockdock.mongo.bulk.writes")
+          .description("Latency of one bulk upsert batch")
+          .tag("collection", mongoTemplate.getCollectionName(QuoteHistoryBucket.class))
+          .publishPercentileHistogram()
+          .register(meterRegistry);
+   }
+
+   @Override
+   public Set<String> bulkAppend(Collection<QuoteHistoryBucket> buckets, Map<String, Integer> expectedCounts) {
+      if (buckets.isEmpty()) {
+         return Set.of(); // The driver rejects empty bulk writes
+      }
+
+      List<String> ids = new ArrayList<>(buckets.size());
+      BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, QuoteHistoryBucket.class);
+      for (QuoteHistoryBucket bucket : buckets) {
+         Document fields = new Document();
+         mongoTemplate.getConverter().write(bucket, fields);
+         fields.remove("_id");
+         fields.remove("_class");
+
+         Update update = new Update();
+         fields.forEach(update::set);
+
+         // If the stored count moved on, the filter misses and the upsert fails on the existing _id
+         bulkOps.upsert(
+             Query.query(Criteria.where("_id").is(bucket.id()).and("count").is(expectedCounts.getOrDefault(bucket.id(), 0))),
+             update);
+         ids.add(bucket.id());
+      }
+
+      try {
+         bulkWriteTimer.record(bulkOps::execute);
+         return Set.of();
+      } catch (BulkOperationException e) {
+         Set<String> conflicts = new HashSet<>();
+         for (BulkWriteError error : e.getErrors()) {
+            if (ErrorCategory.fromErrorCode(error.getCode()) != ErrorCategory.DUPLICATE_KEY) {
+               throw e;
+            }
+            conflicts.add(ids.get(error.getIndex()));
+         }
+         return conflicts;
+      }
+   }
+}
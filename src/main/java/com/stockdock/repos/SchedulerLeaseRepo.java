@@ -0,0 +1,17 @@
+package com.stockdock.repos;
+
+import com.stockdock.models.SchedulerLease;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface SchedulerLeaseRepo extends MongoRepository<SchedulerLease, String> {
+
+   /**
+    * The leases still alive at the given time.
+    */
+   List<SchedulerLease> findByExpiresAtAfter(Instant now);
+}
@@ -1,11 +1,45 @@
 package com.stockdock.schedulers;
 
+import com.stockdock.clients.ChunkedRequestExecutor;
+import com.stockdock.clients.QuoteStreamClient;
+import com.stockdock.clients.RequestPriority;
+import com.stockdock.config.AlpacaProperties;
+import com.stockdock.config.QuoteRefreshProperties;
+import com.stockdock.config.SymbolConfig;
+import com.stockdock.dto.RefreshScheduleStats;
+import com.stockdock.dto.StockQuote;
+import com.stockdock.dto.StockQuotes;
+import com.stockdock.dto.SymbolRefreshStats;
+import com.stockdock.services.ClusterMembership;
 import com.stockdock.services.CurrentStockService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
 
 
 @Component
@@ -13,31 +47,398 @@ public class CurrentStockScheduler {
 
    private final static Logger logger = LoggerFactory.getLogger(CurrentStockScheduler.class);
    private final CurrentStockService currentStockService;
+   private final QuoteStreamClient quoteStreamClient;
+   private final AlpacaProperties alpacaProperties;
+   private final SymbolConfig symbolConfig;
+   private final QuoteRefreshProperties refreshProperties;
+   private final MarketCalendar marketCalendar;
+   private final ChunkedRequestExecutor chunkedRequestExecutor;
+   private final ClusterMembership clusterMembership;
+   private final MeterRegistry meterRegistry;
+   private final Counter refreshFailures;
+
+   // One schedule per predefined symbol, the map itself is never modified after construction
+   private final Map<String, SymbolSchedule> schedules = new LinkedHashMap<>();
+   private final AtomicBoolean running = new AtomicBoolean();
+   private volatile MarketSession session;
+
+   // The scheduler's own request budget, only changed by the running refresh
+   private volatile double budgetTokens;
+   private long budgetRefilledNanos;
 
-   public CurrentStockScheduler(CurrentStockService currentStockService) {
+   private final LongAdder requests = new LongAdder();
+   private final LongAdder refreshedSymbols = new LongAdder();
+   private final LongAdder followedSymbols = new LongAdder();
+   private final LongAdder deferredSymbols = new LongAdder();
+   private final LongAdder overlapsSkipped = new LongAdder();
+
+   public CurrentStockScheduler(
+       CurrentStockService currentStockService,
+       QuoteStreamClient quoteStreamClient,
+       AlpacaProperties alpacaProperties,
+       SymbolConfig symbolConfig,
+       QuoteRefreshProperties refreshProperties,
+       MarketCalendar marketCalendar,
+       ChunkedRequestExecutor chunkedRequestExecutor,
+       ClusterMembership clusterMembership,
+       MeterRegistry meterRegistry) {
       this.currentStockService = currentStockService;
+      this.quoteStreamClient = quoteStreamClient;
+      this.alpacaProperties = alpacaProperties;
+      this.symbolConfig = symbolConfig;
+      this.refreshProperties = refreshProperties;
+      this.marketCalendar = marketCalendar;
+      this.chunkedRequestExecutor = chunkedRequestExecutor;
+      this.clusterMembership = clusterMembership;
+      this.meterRegistry = meterRegistry;
+      this.refreshFailures = Counter.builder("stockdock.scheduler.failures")
+          .description("Failed scheduled quote refreshes")
+          .tag("task", "currentStock")
+          .register(meterRegistry);
+      this.budgetTokens = refreshProperties.getBudgetBurst();
+      this.budgetRefilledNanos = System.nanoTime();
+
+      buildSchedules();
+      registerMeters();
+   }
+
+   /**
+    * Start push-based quote ingestion once the application is ready.
+    *
+    * When {@code alpaca.stream.enabled} is set, quotes for all predefined symbols are streamed from
+    * the market data WebSocket and applied to the quote cache and MongoDB as they arrive. Every
+    * instance caches all streamed quotes but only writes the symbols it owns in the cluster.
+    */
+   @EventListener(ApplicationReadyEvent.class)
+   public void startQuoteStream() {
+      if (!alpacaProperties.getStream().isEnabled()) {
+         logger.info("Quote stream disabled, relying on scheduled REST polling.");
+         return;
+      }
+
+      quoteStreamClient.start(symbolConfig.getPredefined(), quotes -> {
+         try {
+            currentStockService.applyStreamedQuotes(quotes, clusterMembership::owns);
+         } catch (Exception e) {
+            logger.error("Failed to apply streamed quotes: {}", e.getMessage(), e);
+         }
+      });
    }
 
    /**
-    * Scheduled task to fetch and save current stock data for all predefined symbols.
+    * Scheduled task to fetch and save the quotes of the predefined symbols that are due.
+    *
+    * Every symbol has its own refresh interval instead of one fixed rate for all:
+    * <ul>
+    *    <li>Its tier ({@code quotes.refresh.tiers.*}) sets the regular-session interval, e.g. seconds
+    *        for heavily traded symbols and minutes for thin ones.</li>
+    *    <li>With {@code quotes.refresh.adaptive} the interval halves, down to the tier interval, when a
+    *        refresh finds a newer quote, and grows by half, up to the tier's maximum, when it does not.</li>
+    *    <li>The {@link MarketCalendar} session scales it: pre-market and after-hours multiply it by
+    *        {@code extended-hours-factor}; while the market is closed every symbol uses
+    *        {@code closed-interval}. Each session change refreshes all symbols once and resets
+    *        adapted intervals.</li>
+    * </ul>
     *
-    * This task runs every 5 minutes and fetches the latest stock prices for all predefined
-    * symbols from the Alpaca API. The fetched data is then saved to the MongoDB database.
+    * Every tick the due symbols are fetched in as few chunked requests as possible. Symbols past
+    * {@code piggyback-threshold} of their interval fill up the last chunk for free. The scheduler
+    * spends at most {@code budget-per-minute} upstream requests; most overdue symbols go first and
+    * the rest wait for the next tick. While the quote stream is live the REST refresh is skipped.
     *
-    * If an error occurs during the process, it logs the error and continues to the next scheduled run.
+    * With several instances each symbol is fetched by the one node that owns it in the
+    * {@link ClusterMembership}. The other nodes follow the same schedule but load the symbol's stored
+    * quote from MongoDB into their cache instead, which costs no upstream request.
     *
-    * The predefined list of stock symbols is configured in the application's symbol configuration.
+    * Runs never overlap: the task uses a fixed delay, and a run that still finds the previous one
+    * going (e.g. a fixed-rate trigger on virtual threads) is skipped and counted. The refresh runs with
+    * {@link RequestPriority#SCHEDULED}, so it is served ahead of user requests when the upstream
+    * rate limit is tight. Every run that refreshes is timed as {@code stockdock.scheduler.runs},
+    * tagged with its outcome, and failures are counted in {@code stockdock.scheduler.failures}.
     */
-   @Scheduled (fixedRate = 300000) // Runs every 5 minutes (300,000 ms)
+   @Scheduled (fixedDelayString = "${quotes.refresh.tick:1s}")
    public void scheduleCurrentStock() {
-      logger.info("Scheduled task started: Fetching current stock data...");
+      if (!running.compareAndSet(false, true)) {
+         overlapsSkipped.increment();
+         logger.debug("Previous quote refresh still running, skipping this run.");
+         return;
+      }
+
+      try {
+         refreshDueQuotes(Instant.now());
+      } finally {
+         running.set(false);
+      }
+   }
+
+   public RefreshScheduleStats stats() {
+      List<SymbolRefreshStats> symbols = schedules.values().stream()
+          .sorted(Comparator.comparing(schedule -> schedule.nextRefresh))
+          .map(schedule -> new SymbolRefreshStats(
+              schedule.symbol,
+              schedule.tierName,
+              clusterMembership.owns(schedule.symbol),
+              schedule.interval.toSeconds(),
+              schedule.lastRefresh,
+              schedule.nextRefresh,
+              schedule.lastQuoteTime))
+          .toList();
+
+      MarketSession current = session;
+      return new RefreshScheduleStats(
+          current == null ? null : current.name(),
+          quoteStreamClient.isLive(),
+          clusterMembership.nodeId(),
+          clusterMembership.liveNodes().size(),
+          refreshProperties.getBudgetPerMinute(),
+          Math.floor(budgetTokens * 100) / 100,
+          requests.sum(),
+          refreshedSymbols.sum(),
+          followedSymbols.sum(),
+          deferredSymbols.sum(),
+          overlapsSkipped.sum(),
+          symbols
+      );
+   }
+
+   // Package-private so tests can drive runs at chosen instants
+   void refreshDueQuotes(Instant now) {
+      MarketSession current = marketCalendar.sessionAt(now);
+      if (current != session) {
+         logger.info("Market session is now {}, refreshing all {} symbols.", current, schedules.size());
+         session = current;
+         schedules.values().forEach(schedule -> schedule.reset(now));
+      }
+
+      List<SymbolSchedule> due = schedules.values().stream()
+          .filter(schedule -> !schedule.nextRefresh.isAfter(now))
+          .sorted(Comparator.comparing(schedule -> schedule.nextRefresh))
+          .toList();
+      if (due.isEmpty()) {
+         return;
+      }
+
+      Timer.Sample sample = Timer.start(meterRegistry);
+      if (quoteStreamClient.isLive()) {
+         logger.debug("Quote stream is live, skipping scheduled REST refresh of {} symbols.", due.size());
+         due.forEach(schedule -> schedule.nextRefresh = now.plus(effectiveInterval(schedule, current)));
+         sample.stop(runTimer("skipped"));
+         return;
+      }
+
+      // Symbols owned by another node are followed through MongoDB instead of fetched
+      Map<Boolean, List<SymbolSchedule>> byOwnership = due.stream()
+          .collect(Collectors.partitioningBy(schedule -> clusterMembership.owns(schedule.symbol)));
+      if (!byOwnership.get(false).isEmpty()) {
+         followStoredQuotes(byOwnership.get(false), now, current);
+      }
+      List<SymbolSchedule> owned = byOwnership.get(true);
+      if (owned.isEmpty()) {
+         sample.stop(runTimer("followed"));
+         return;
+      }
+
+      Batch batch = selectWithinBudget(owned, now, current);
+      long deferred = owned.stream().filter(schedule -> !batch.schedules().contains(schedule)).count();
+      if (deferred > 0) {
+         deferredSymbols.add(deferred);
+         logger.debug("Request budget spent, deferring {} due symbols.", deferred);
+      }
+      if (batch.schedules().isEmpty()) {
+         return;
+      }
+
+      List<String> symbols = batch.schedules().stream().map(schedule -> schedule.symbol).toList();
+      logger.info("Scheduled task started: Refreshing {} symbols ({} due) in {} requests during {}.",
+          symbols.size(), owned.size() - deferred, batch.requests(), current);
 
       try {
-         // Fetch and save current stock data
-         currentStockService.saveAllQuotesToDb();
-         logger.info("Scheduled task completed: Fetched current stock data");
+         // Fetch and save the current quotes of the selected symbols
+         StockQuotes quotes = RequestPriority.callWith(RequestPriority.SCHEDULED, () -> currentStockService.refreshQuotes(symbols));
+         for (SymbolSchedule schedule : batch.schedules()) {
+            StockQuote quote = quotes.quotes().get(schedule.symbol);
+            schedule.refreshed(now, quote == null ? null : quote.t(), refreshProperties.isAdaptive());
+            schedule.nextRefresh = now.plus(effectiveInterval(schedule, current));
+         }
+         refreshedSymbols.add(symbols.size());
+         sample.stop(runTimer("success"));
       } catch (Exception e) {
          logger.error("Scheduled task failed: {}", e.getMessage(), e);
+         refreshFailures.increment();
+         // Retry at the symbols' normal cadence rather than on every tick
+         batch.schedules().forEach(schedule -> schedule.nextRefresh = now.plus(effectiveInterval(schedule, current)));
+         sample.stop(runTimer("failure"));
+      }
+   }
+
+   // Follow the quotes the owning nodes stored, without an upstream request
+   private void followStoredQuotes(List<SymbolSchedule> followed, Instant now, MarketSession current) {
+      List<String> symbols = followed.stream().map(schedule -> schedule.symbol).toList();
+      try {
+         StockQuotes quotes = currentStockService.loadStoredQuotes(symbols);
+         for (SymbolSchedule schedule : followed) {
+            StockQuote quote = quotes.quotes().get(schedule.symbol);
+            schedule.refreshed(now, quote == null ? null : quote.t(), refreshProperties.isAdaptive());
+         }
+         followedSymbols.add(symbols.size());
+      } catch (Exception e) {
+         logger.warn("Failed to load {} stored quotes owned by other nodes: {}", symbols.size(), e.getMessage());
+      }
+      followed.forEach(schedule -> schedule.nextRefresh = now.plus(effectiveInterval(schedule, current)));
+   }
+
+   /**
+    * Pick the due symbols the budget allows, plus nearly due symbols that fit into the same requests.
+    *
+    * Chunks are packed in order, so the first chunks of the due symbols followed by the piggyback
+    * candidates hold exactly the due symbols, with spare room in the last chunk going to candidates.
+    */
+   private Batch selectWithinBudget(List<SymbolSchedule> due, Instant now, MarketSession current) {
+      refillBudget();
+      int available = (int) budgetTokens;
+      if (available == 0) {
+         return new Batch(List.of(), 0);
+      }
+
+      List<SymbolSchedule> candidates = new ArrayList<>(due);
+      schedules.values().stream()
+          .filter(schedule -> schedule.nextRefresh.isAfter(now) && canPiggyback(schedule, now, current))
+          .filter(schedule -> clusterMembership.owns(schedule.symbol))
+          .sorted(Comparator.comparing(schedule -> schedule.nextRefresh))
+          .forEach(candidates::add);
+
+      int required = chunkedRequestExecutor.partition(due.stream().map(schedule -> schedule.symbol).toList()).size();
+      List<List<String>> chunks = chunkedRequestExecutor.partition(candidates.stream().map(schedule -> schedule.symbol).toList());
+      int taken = Math.min(required, available);
+      budgetTokens -= taken;
+      requests.add(taken);
+
+      Set<String> selected = new HashSet<>();
+      chunks.subList(0, taken).forEach(selected::addAll);
+      return new Batch(candidates.stream().filter(schedule -> selected.contains(schedule.symbol)).toList(), taken);
+   }
+
+   private void refillBudget() {
+      long now = System.nanoTime();
+      double perNano = refreshProperties.getBudgetPerMinute() / (double) TimeUnit.MINUTES.toNanos(1);
+      budgetTokens = Math.min(refreshProperties.getBudgetBurst(), budgetTokens + (now - budgetRefilledNanos) * perNano);
+      budgetRefilledNanos = now;
+   }
+
+   private boolean canPiggyback(SymbolSchedule schedule, Instant now, MarketSession current) {
+      if (schedule.lastRefresh == null) {
+         return true;
+      }
+      long elapsed = Duration.between(schedule.lastRefresh, now).toMillis();
+      return elapsed >= refreshProperties.getPiggybackThreshold() * effectiveInterval(schedule, current).toMillis();
+   }
+
+   private Duration effectiveInterval(SymbolSchedule schedule, MarketSession current) {
+      return switch (current) {
+         case REGULAR -> schedule.interval;
+         case PRE_MARKET, AFTER_HOURS -> schedule.interval.multipliedBy(Math.max(1, refreshProperties.getExtendedHoursFactor()));
+         case CLOSED -> refreshProperties.getClosedInterval();
+      };
+   }
+
+   // Assign every predefined symbol to its tier, falling back to the default tier
+   private void buildSchedules() {
+      Map<String, String> tierBySymbol = new HashMap<>();
+      refreshProperties.getTiers().forEach((name, tier) ->
+          tier.getSymbols().forEach(symbol -> tierBySymbol.put(symbol.toUpperCase(Locale.ROOT), name)));
+
+      for (String symbol : symbolConfig.getPredefined()) {
+         String tierName = tierBySymbol.remove(symbol.toUpperCase(Locale.ROOT));
+         if (tierName == null) {
+            tierName = refreshProperties.getDefaultTier();
+         }
+         QuoteRefreshProperties.Tier tier = refreshProperties.getTiers().getOrDefault(tierName, new QuoteRefreshProperties.Tier());
+         schedules.put(symbol, new SymbolSchedule(symbol, tierName, tier));
+      }
+
+      if (!tierBySymbol.isEmpty()) {
+         logger.warn("Ignoring refresh tiers for symbols that are not predefined: {}", tierBySymbol.keySet());
+      }
+      logger.info("Refresh schedule covers {} symbols in tiers {}", schedules.size(),
+          schedules.values().stream().map(schedule -> schedule.tierName).distinct().toList());
+   }
+
+   private void registerMeters() {
+      FunctionCounter.builder("stockdock.scheduler.requests", requests, LongAdder::sum)
+          .description("Upstream requests made by scheduled quote refreshes")
+          .tag("task", "currentStock")
+          .register(meterRegistry);
+      FunctionCounter.builder("stockdock.scheduler.followed", followedSymbols, LongAdder::sum)
+          .description("Symbols owned by other nodes whose stored quotes were loaded from MongoDB")
+          .tag("task", "currentStock")
+          .register(meterRegistry);
+      FunctionCounter.builder("stockdock.scheduler.deferred", deferredSymbols, LongAdder::sum)
+          .description("Due symbols postponed because the refresh budget was spent, counted per run")
+          .tag("task", "currentStock")
+          .register(meterRegistry);
+      FunctionCounter.builder("stockdock.scheduler.overlaps", overlapsSkipped, LongAdder::sum)
+          .description("Scheduled runs skipped because the previous run was still going")
+          .tag("task", "currentStock")
+          .register(meterRegistry);
+      Gauge.builder("stockdock.scheduler.budget.tokens", this, scheduler -> scheduler.budgetTokens)
+          .description("Upstream requests the scheduler can start right now")
+          .tag("task", "currentStock")
+          .register(meterRegistry);
+   }
+
+   private Timer runTimer(String outcome) {
+      return Timer.builder("stockdock.scheduler.runs")
+          .description("Duration of scheduled quote refreshes")
+          .tag("task", "currentStock")
+          .tag("outcome", outcome)
+          .register(meterRegistry);
+   }
+
+   private record Batch(List<SymbolSchedule> schedules, int requests) {
+   }
+
+   /**
+    * Refresh state of one symbol. Only the running refresh writes it; stats read it concurrently.
+    */
+   private static final class SymbolSchedule {
+
+      private final String symbol;
+      private final String tierName;
+      private final QuoteRefreshProperties.Tier tier;
+      private volatile Duration interval;          // Adapted regular-session interval
+      private volatile Instant lastRefresh;
+      private volatile Instant nextRefresh = Instant.EPOCH;
+      private volatile Instant lastQuoteTime;
+
+      private SymbolSchedule (String symbol, String tierName, QuoteRefreshProperties.Tier tier) {
+         this.symbol = symbol;
+         this.tierName = tierName;
+         this.tier = tier;
+         this.interval = tier.getInterval();
+      }
+
+      // A new session starts from the tier interval and refreshes right away
+      private void reset(Instant now) {
+         interval = tier.getInterval();
+         nextRefresh = now;
+      }
+
+      private void refreshed(Instant now, Instant quoteTime, boolean adaptive) {
+         boolean moved = quoteTime != null && !quoteTime.equals(lastQuoteTime);
+         if (quoteTime != null) {
+            lastQuoteTime = quoteTime;
+         }
+         lastRefresh = now;
+
+         if (!adaptive) {
+            return;
+         }
+         if (moved) {
+            Duration halved = interval.dividedBy(2);
+            interval = halved.compareTo(tier.getInterval()) < 0 ? tier.getInterval() : halved;
+         } else {
+            Duration grown = interval.plus(interval.dividedBy(2));
+            interval = grown.compareTo(tier.getMaxInterval()) > 0 ? tier.getMaxInterval() : grown;
+         }
       }
    }
 }
@@ -0,0 +1,89 @@
+package com.stockdock.schedulers;
+
+import com.stockdock.config.QuoteRefreshProperties;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Set;
+
+/**
+ * Session calendar of the US equity exchanges.
+ *
+ * Weekdays follow the fixed NYSE/Nasdaq session times in New York time, so daylight saving time is
+ * handled by the zone. Holidays and early closes are not computed; they are listed per year in
+ * market-calendar.yml ({@code quotes.refresh.calendar.*}), and a warning is logged at startup when the
+ * current year is missing.
+ */
+@Component
+public class MarketCalendar {
+
+   private static final Logger logger = LoggerFactory.getLogger(MarketCalendar.class);
+
+   public static final ZoneId ZONE = ZoneId.of("America/New_York");
+
+   private static final LocalTime PRE_MARKET_OPEN = LocalTime.of(4, 0);
+   private static final LocalTime REGULAR_OPEN = LocalTime.of(9, 30);
+   private static final LocalTime REGULAR_CLOSE = LocalTime.of(16, 0);
+   private static final LocalTime AFTER_HOURS_CLOSE = LocalTime.of(20, 0);
+   private static final LocalTime EARLY_REGULAR_CLOSE = LocalTime.of(13, 0);
+   private static final LocalTime EARLY_AFTER_HOURS_CLOSE = LocalTime.of(17, 0);
+
+   private final Set<LocalDate> holidays;
+   private final Set<LocalDate> earlyCloses;
+
+   public MarketCalendar (QuoteRefreshProperties properties) {
+      this.holidays = Set.copyOf(properties.getCalendar().getHolidays());
+      this.earlyCloses = Set.copyOf(properties.getCalendar().getEarlyCloses());
+   }
+
+   @PostConstruct
+   public void checkCoverage() {
+      int year = LocalDate.now(ZONE).getYear();
+      if (holidays.stream().noneMatch(date -> date.getYear() == year)) {
+         logger.warn("Market calendar lists no holidays for {}, holidays will be treated as trading days.", year);
+      }
+   }
+
+   /**
+    * The session the market is in at the given instant.
+    */
+   public MarketSession sessionAt(Instant instant) {
+      ZonedDateTime local = instant.atZone(ZONE);
+      LocalDate date = local.toLocalDate();
+      if (!isTradingDay(date)) {
+         return MarketSession.CLOSED;
+      }
+
+      boolean earlyClose = earlyCloses.contains(date);
+      LocalTime time = local.toLocalTime();
+      if (time.isBefore(PRE_MARKET_OPEN)) {
+         return MarketSession.CLOSED;
+      }
+      if (time.isBefore(REGULAR_OPEN)) {
+         return MarketSession.PRE_MARKET;
+      }
+      if (time.isBefore(earlyClose ? EARLY_REGULAR_CLOSE : REGULAR_CLOSE)) {
+         return MarketSession.REGULAR;
+      }
+      if (time.isBefore(earlyClose ? EARLY_AFTER_HOURS_CLOSE : AFTER_HOURS_CLOSE)) {
+         return MarketSession.AFTER_HOURS;
+      }
+      return MarketSession.CLOSED;
+   }
+
+   /**
+    * Whether the exchanges open at all on the given New York date.
+    */
+   public boolean isTradingDay(LocalDate date) {
+      DayOfWeek day = date.getDayOfWeek();
+      return day != DayOfWeek.SATURDAY && day != DayOfWeek.SUNDAY && !holidays.contains(date);
+   }
+}
@@ -0,0 +1,11 @@
+package com.stockdock.schedulers;
+
+/**
+ * Trading sessions of the US equity exchanges, in New York time.
+ */
+public enum MarketSession {
+   PRE_MARKET,   // 04:00 - 09:30
+   REGULAR,      // 09:30 - 16:00, 13:00 on early-close days
+   AFTER_HOURS,  // 16:00 - 20:00, 13:00 - 17:00 on early-close days
+   CLOSED        // Overnight, weekends and holidays
+}
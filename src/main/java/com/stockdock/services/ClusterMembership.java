@@ -0,0 +1,257 @@
+package com.stockdock.services;
+
+import com.stockdock.config.ClusterProperties;
+import com.stockdock.models.SchedulerLease;
+import com.stockdock.repos.SchedulerLeaseRepo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Splits the symbol universe between the running instances, coordinated through MongoDB leases.
+ *
+ * Every instance keeps a lease document in {@code scheduler_leases} and renews it every
+ * {@code cluster.renew-interval}; each renewal also reads the leases that have not expired. The live
+ * nodes form a {@link ConsistentHashRing} and each symbol is refreshed by the node it hashes to.
+ * Renewals run on a thread of their own rather than as a {@code @Scheduled} task: with virtual threads
+ * Spring runs all fixed-delay tasks on one scheduler thread, where a slow refresh would delay the
+ * renewal past the lease fence.
+ *
+ * Ownership is handed over so that two nodes never refresh the same symbol:
+ * <ul>
+ *    <li>A node that could not renew its lease for {@code lease-duration - renew-interval} stops
+ *        owning anything, before the others can see its lease expire. The margin covers clock skew.</li>
+ *    <li>Symbols of a node that left (lease expired or released on shutdown) are taken over as soon
+ *        as the next renewal sees it gone, at most {@code lease-duration + renew-interval} after its
+ *        last renewal.</li>
+ *    <li>Symbols that move away from a node that is still live, e.g. because another node joined,
+ *        are only taken over after {@code handover-delay}. By then the previous owner has renewed
+ *        and seen the new membership.</li>
+ * </ul>
+ *
+ * The fence also applies during a MongoDB outage: a node that cannot renew owns nothing, so with
+ * clustering on no instance refreshes from Alpaca until MongoDB is back. That is the price of never
+ * refreshing a symbol twice, and why {@code cluster.enabled} is off by default and only meant for
+ * multi-replica deployments. With {@code cluster.enabled=false} this instance owns every symbol,
+ * whether MongoDB is reachable or not.
+ */
+@Component
+public class ClusterMembership {
+
+   private static final Logger logger = LoggerFactory.getLogger(ClusterMembership.class);
+
+   private final ClusterProperties properties;
+   private final SchedulerLeaseRepo leaseRepo;
+   private final String nodeId;
+   private final Clock clock;
+   private final LongSupplier nanoTime;
+   private final Instant startedAt;
+
+   // Membership history, current view last; older views are kept while they overlap the handover delay
+   private volatile List<View> views = List.of();
+   private volatile long lastRenewalNanos;
+   private volatile boolean renewed;
+   private final LongAdder renewalFailures = new LongAdder();
+   private ScheduledExecutorService renewer;
+
+   private record View(ConsistentHashRing ring, Instant since) {
+   }
+
+   @Autowired
+   public ClusterMembership (ClusterProperties properties, SchedulerLeaseRepo leaseRepo) {
+      this(properties, leaseRepo, Clock.systemUTC(), System::nanoTime);
+   }
+
+   /**
+    * @param clock    Wall clock for lease timestamps, shared with the other nodes through MongoDB.
+    * @param nanoTime Monotonic time for this node's own lease fence.
+    */
+   ClusterMembership (ClusterProperties properties, SchedulerLeaseRepo leaseRepo, Clock clock, LongSupplier nanoTime) {
+      this.properties = properties;
+      this.leaseRepo = leaseRepo;
+      this.clock = clock;
+      this.nanoTime = nanoTime;
+      this.startedAt = clock.instant();
+      this.nodeId = properties.getNodeId() == null || properties.getNodeId().isBlank()
+          ? defaultNodeId()
+          : properties.getNodeId();
+   }
+
+   @PostConstruct
+   public void start() {
+      if (properties.isEnabled()) {
+         renewer = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("cluster-lease").factory());
+         renewer.scheduleWithFixedDelay(this::renewLease, 0, properties.getRenewInterval().toNanos(), TimeUnit.NANOSECONDS);
+      }
+   }
+
+   /**
+    * Renew this node's lease and re-read the live nodes.
+    */
+   public void renewLease() {
+      if (!properties.isEnabled()) {
+         return;
+      }
+
+      long startNanos = nanoTime.getAsLong();
+      Instant now = clock.instant();
+      try {
+         leaseRepo.save(new SchedulerLease(nodeId, startedAt, now, now.plus(properties.getLeaseDuration())));
+         Set<String> live = leaseRepo.findByExpiresAtAfter(now).stream()
+             .map(SchedulerLease::nodeId)
+             .collect(Collectors.toCollection(HashSet::new));
+         live.add(nodeId);
+
+         if (!holdsLease()) {
+            views = List.of(); // The others may have taken over while the lease lapsed, rejoin as a new node
+         }
+         updateViews(live, now);
+         lastRenewalNanos = startNanos;
+         renewed = true;
+      } catch (Exception e) {
+         renewalFailures.increment();
+         logger.warn("Failed to renew scheduler lease of node {}: {}", nodeId, e.getMessage());
+      }
+   }
+
+   /**
+    * Whether this node is the one that refreshes the given symbol right now.
+    */
+   public boolean owns(String symbol) {
+      if (!properties.isEnabled()) {
+         return true;
+      }
+      List<View> history = views;
+      if (!holdsLease() || history.isEmpty()) {
+         return false;
+      }
+
+      View current = history.getLast();
+      if (!nodeId.equals(current.ring().ownerOf(symbol))) {
+         return false;
+      }
+
+      // Wait out the handover delay for symbols whose previous owner is still live
+      Instant windowStart = clock.instant().minus(properties.getHandoverDelay());
+      for (int i = 0; i < history.size() - 1; i++) {
+         if (history.get(i + 1).since().isBefore(windowStart)) {
+            continue;
+         }
+         String previousOwner = history.get(i).ring().ownerOf(symbol);
+         if (!nodeId.equals(previousOwner) && current.ring().nodes().contains(previousOwner)) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Whether the lease was renewed recently enough that no other node can consider it expired.
+    */
+   public boolean holdsLease() {
+      if (!properties.isEnabled()) {
+         return true;
+      }
+      Duration fence = properties.getLeaseDuration().minus(properties.getRenewInterval());
+      return renewed && nanoTime.getAsLong() - lastRenewalNanos < fence.toNanos();
+   }
+
+   public String nodeId() {
+      return nodeId;
+   }
+
+   /**
+    * The live nodes as of the last renewal, including this one.
+    */
+   public Set<String> liveNodes() {
+      List<View> history = views;
+      return history.isEmpty() ? Set.of() : history.getLast().ring().nodes();
+   }
+
+   public long renewalFailures() {
+      return renewalFailures.sum();
+   }
+
+   /**
+    * Give up the lease on shutdown so the other nodes take over without waiting for it to expire.
+    */
+   @PreDestroy
+   public void releaseLease() {
+      if (renewer != null) {
+         renewer.shutdownNow();
+         try {
+            renewer.awaitTermination(5, TimeUnit.SECONDS); // A renewal still running would save the lease again
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         }
+      }
+      if (!properties.isEnabled() || !renewed) {
+         return;
+      }
+      renewed = false;
+      try {
+         leaseRepo.deleteById(nodeId);
+         logger.info("Released scheduler lease of node {}", nodeId);
+      } catch (Exception e) {
+         logger.warn("Failed to release scheduler lease of node {}, it expires in {}: {}",
+             nodeId, properties.getLeaseDuration(), e.getMessage());
+      }
+   }
+
+   private void updateViews(Set<String> live, Instant now) {
+      List<View> history = views;
+      List<View> next = new ArrayList<>(history);
+
+      if (history.isEmpty()) {
+         // Joining: until now the other live nodes shared every symbol between them
+         Set<String> others = new HashSet<>(live);
+         others.remove(nodeId);
+         if (!others.isEmpty()) {
+            next.add(new View(new ConsistentHashRing(others, properties.getVirtualNodes()), now));
+         }
+         logger.info("Node {} joined the cluster with {} live nodes: {}", nodeId, live.size(), new TreeSet<>(live));
+         next.add(new View(new ConsistentHashRing(live, properties.getVirtualNodes()), now));
+      } else if (!history.getLast().ring().nodes().equals(live)) {
+         logger.info("Cluster membership changed from {} to {} nodes: {}",
+             history.getLast().ring().nodes().size(), live.size(), new TreeSet<>(live));
+         next.add(new View(new ConsistentHashRing(live, properties.getVirtualNodes()), now));
+      }
+
+      // Drop views that ended before the handover window
+      Instant windowStart = now.minus(properties.getHandoverDelay());
+      while (next.size() > 1 && next.get(1).since().isBefore(windowStart)) {
+         next.removeFirst();
+      }
+      views = List.copyOf(next);
+   }
+
+   private static String defaultNodeId() {
+      String host;
+      try {
+         host = InetAddress.getLocalHost().getHostName();
+      } catch (Exception e) {
+         host = "node";
+      }
+      return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+   }
+}
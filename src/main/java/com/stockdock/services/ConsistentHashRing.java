@@ -0,0 +1,68 @@
+package com.stockdock.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring that maps keys (symbols) to nodes.
+ *
+ * Every node is placed on the ring at {@code virtualNodes} points and a key belongs to the first
+ * node point at or after its own hash, wrapping around. When a node joins or leaves only the keys
+ * next to its points move, roughly {@code 1 / nodes} of them, so the other nodes keep their symbols.
+ *
+ * Immutable; membership changes build a new ring.
+ */
+public final class ConsistentHashRing {
+
+   private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+   private static final long FNV_PRIME = 0x100000001b3L;
+
+   private final TreeMap<Long, String> points = new TreeMap<>();
+   private final Set<String> nodes;
+
+   /**
+    * @param nodes        The live node ids.
+    * @param virtualNodes Points per node; more points spread keys more evenly.
+    */
+   public ConsistentHashRing (Collection<String> nodes, int virtualNodes) {
+      this.nodes = Set.copyOf(nodes);
+      for (String node : this.nodes) {
+         for (int i = 0; i < Math.max(1, virtualNodes); i++) {
+            points.putIfAbsent(hash(node + "#" + i), node);
+         }
+      }
+   }
+
+   public Set<String> nodes() {
+      return nodes;
+   }
+
+   public boolean isEmpty() {
+      return points.isEmpty();
+   }
+
+   /**
+    * The node a key belongs to, or null if the ring has no nodes.
+    */
+   public String ownerOf(String key) {
+      if (points.isEmpty()) {
+         return null;
+      }
+      Map.Entry<Long, String> point = points.ceilingEntry(hash(key));
+      return point != null ? point.getValue() : points.firstEntry().getValue();
+   }
+
+   // FNV-1a over the UTF-8 bytes, finished with the SplitMix64 mixer so similar ids land far apart
+   private static long hash(String value) {
+      long hash = FNV_OFFSET_BASIS;
+      for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+         hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+      }
+      hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+      hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+      return hash ^ (hash >>> 31);
+   }
+}
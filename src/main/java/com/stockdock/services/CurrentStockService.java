@@ -1,44 +1,175 @@
 package com.stockdock.services;
 
+import com.stockdock.charts.BarResampler;
+import com.stockdock.charts.Downsampler;
+import com.stockdock.clients.ChunkedRequestExecutor;
+import com.stockdock.clients.ChunkedRequestExecutor.ChunkResult;
 import com.stockdock.clients.CurrentStockClient;
+import com.stockdock.config.StaleWhileRevalidateProperties;
+import com.stockdock.config.SymbolConfig;
+import com.stockdock.dto.BarSeries;
+import com.stockdock.dto.ChartOptions;
+import com.stockdock.dto.HistoricalBar;
+import com.stockdock.dto.QuoteHistoryResponse;
+import com.stockdock.dto.QuoteWriteResult;
 import com.stockdock.dto.StockQuote;
 import com.stockdock.dto.StockQuoteResponse;
 import com.stockdock.dto.StockQuotes;
 import com.stockdock.dto.StockSnapshotResponse;
+import com.stockdock.dto.StockSnapshotsResponse;
 import com.stockdock.dto.HistoricalBarsResponse;
+import com.stockdock.dto.TimeRange;
+import com.stockdock.dto.Timeframe;
 import com.stockdock.exceptions.*;
 import com.stockdock.models.CurrentStock;
 import com.stockdock.repos.CurrentStockRepo;
+import com.stockdock.services.StaleWhileRevalidate.Served;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class CurrentStockService {
 
    private static final Logger logger = LoggerFactory.getLogger(CurrentStockService.class);
+   private static final String DEFAULT_CURRENCY = "USD";
+   private static final int MAX_BARS_PAGE_SIZE = 10000; // Alpaca's upper bound for the bars limit parameter
 
    private final CurrentStockClient currentStockClient;
    private final CurrentStockRepo currentStockRepo;
-
-   public CurrentStockService (CurrentStockClient currentStockClient, CurrentStockRepo currentStockRepo) {
+   private final SymbolConfig symbolConfig;
+   private final QuoteCache quoteCache;
+   private final HistoricalBarStore historicalBarStore;
+   private final ChunkedRequestExecutor chunkedRequestExecutor;
+   private final QuoteBroadcaster quoteBroadcaster;
+   private final QuoteWriteBehindQueue quoteWriteBehindQueue;
+   private final QuoteHistoryStore quoteHistoryStore;
+   private final StaleWhileRevalidate staleWhileRevalidate;
+   private final StaleWhileRevalidateProperties staleWhileRevalidateProperties;
+
+   // Last fetched snapshot per symbol, served while Alpaca is unavailable (access-ordered LRU)
+   private final Map<String, StockSnapshotResponse> lastSnapshots;
+
+   // Concurrent identical upstream requests share one in-flight call
+   private final SingleFlight<String, StockQuoteResponse> quoteRequests = new SingleFlight<>();
+   private final SingleFlight<String, StockSnapshotResponse> snapshotRequests = new SingleFlight<>();
+   private final SingleFlight<String, BarSeries> barRequests = new SingleFlight<>();
+
+   public CurrentStockService (
+       CurrentStockClient currentStockClient,
+       CurrentStockRepo currentStockRepo,
+       SymbolConfig symbolConfig,
+       QuoteCache quoteCache,
+       HistoricalBarStore historicalBarStore,
+       ChunkedRequestExecutor chunkedRequestExecutor,
+       QuoteBroadcaster quoteBroadcaster,
+       QuoteWriteBehindQueue quoteWriteBehindQueue,
+       QuoteHistoryStore quoteHistoryStore,
+       StaleWhileRevalidate staleWhileRevalidate,
+       StaleWhileRevalidateProperties staleWhileRevalidateProperties
+                              ) {
       this.currentStockClient = currentStockClient;
       this.currentStockRepo = currentStockRepo;
+      this.symbolConfig = symbolConfig;
+      this.quoteCache = quoteCache;
+      this.historicalBarStore = historicalBarStore;
+      this.chunkedRequestExecutor = chunkedRequestExecutor;
+      this.quoteBroadcaster = quoteBroadcaster;
+      this.quoteWriteBehindQueue = quoteWriteBehindQueue;
+      this.quoteHistoryStore = quoteHistoryStore;
+      this.staleWhileRevalidate = staleWhileRevalidate;
+      this.staleWhileRevalidateProperties = staleWhileRevalidateProperties;
+
+      int maxSnapshots = staleWhileRevalidateProperties.getMaxSnapshots();
+      this.lastSnapshots = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+         @Override
+         protected boolean removeEldestEntry(Map.Entry<String, StockSnapshotResponse> eldest) {
+            return size() > maxSnapshots;
+         }
+      });
    }
 
    /**
-    * Fetch all quotes for the predefined list of symbols from the Alpaca API.
-    * If the currency in the response is null or blank, it defaults to USD.
+    * Fetch all quotes for the predefined list of symbols, answering from the quote cache when possible.
     *
     * @return StockQuotes containing the latest quotes for all predefined symbols.
     * @throws InvalidSymbolException if no quotes are found for the predefined symbols.
     */
    public StockQuotes fetchAllQuotes() {
+      return fetchAllQuotes(false);
+   }
+
+   /**
+    * Fetch all quotes for the predefined list of symbols.
+    *
+    * Quotes are served from the in-memory cache when every predefined symbol is cached and fresh.
+    * Otherwise, or when {@code forceRefresh} is set, they are fetched from the Alpaca API and the
+    * cache is updated. If the currency in the response is null or blank, it defaults to USD.
+    *
+    * When Alpaca is unavailable or exceeds {@code stale-while-revalidate.quotes-budget}, the last
+    * known quotes are served instead, from the cache or from 'current_stocks', and marked stale in
+    * the cache. Cached stale quotes are served as they are while a refresh runs in the background.
+    *
+    * @param forceRefresh Skip the cache and fetch fresh quotes from the Alpaca API.
+    * @return StockQuotes containing the latest quotes for all predefined symbols.
+    * @throws InvalidSymbolException if no quotes are found for the predefined symbols.
+    */
+   public StockQuotes fetchAllQuotes(boolean forceRefresh) {
+      return fetchAllQuotesServed(forceRefresh).value();
+   }
+
+   /**
+    * Fetch all quotes for the predefined list of symbols, telling whether any of them is not a fresh one.
+    *
+    * @param forceRefresh Skip the cache and fetch fresh quotes from the Alpaca API.
+    * @return The quotes, stale if any of them was preloaded or is the last known one.
+    * @see #fetchAllQuotes(boolean)
+    */
+   public Served<StockQuotes> fetchAllQuotesServed(boolean forceRefresh) {
+      if (!forceRefresh) {
+         Optional<StockQuotes> cached = quoteCache.getAll(symbolConfig.getPredefined());
+         if (cached.isPresent()) {
+            logger.debug("Serving {} quotes from cache.", cached.get().quotes().size());
+            boolean stale = quoteCache.isStale(cached.get().quotes().keySet());
+            if (stale) {
+               staleWhileRevalidate.revalidate("quotes", this::fetchAllQuotesFromApi);
+            }
+            return new Served<>(cached.get(), stale);
+         }
+      }
+
+      Served<StockQuotes> served = staleWhileRevalidate.fetch("quotes", staleWhileRevalidateProperties.getQuotesBudget(),
+          this::fetchAllQuotesFromApi, this::lastKnownQuotes);
+      if (served.stale()) {
+         StockQuotes quotes = served.value();
+         quotes.quotes().forEach((symbol, quote) -> quoteCache.putStale(symbol, quotes.currency(), quote));
+      }
+      return served;
+   }
+
+   // Fetch all predefined quotes from Alpaca and record them, never falling back to stale quotes
+   private StockQuotes fetchAllQuotesFromApi() {
       logger.info("Fetching all stock quotes from Alpaca API.");
 
       // Fetch quotes from Alpaca API
@@ -50,7 +181,7 @@ public class CurrentStockService {
       // Default to USD if the currency is null or blank
       String currency = stockQuotes.currency();
       if (currency == null || currency.isBlank()) {
-         currency = "USD";
+         currency = DEFAULT_CURRENCY;
          logger.warn("Currency in the response was null or blank. Defaulting to USD.");
       }
 
@@ -59,6 +190,7 @@ public class CurrentStockService {
       }
 
       logger.info("Successfully fetched {} quotes with currency {}.", stockQuotes.quotes().size(), currency);
+      recordQuotes(currency, stockQuotes.quotes());
 
       // Return a new StockQuotes object with the validated currency
       return new StockQuotes(currency, stockQuotes.quotes());
@@ -66,26 +198,76 @@ public class CurrentStockService {
 
 
    /**
-    * Fetch a single quote by symbol from the Alpaca API.
+    * Fetch a single quote by symbol, answering from the quote cache when possible.
     *
     * @param symbol The stock symbol to fetch (e.g., AAPL).
     * @return StockQuote containing the latest quote for the given symbol.
     */
    public StockQuote fetchQuoteBySymbol(String symbol) {
+      return fetchQuoteBySymbol(symbol, false);
+   }
+
+   /**
+    * Fetch a single quote by symbol.
+    *
+    * The quote is served from the in-memory cache if present and fresh. Otherwise, or when
+    * {@code forceRefresh} is set, it is fetched from the Alpaca API and the cache is updated.
+    * Concurrent fetches of the same symbol share one upstream request. Like {@link #fetchAllQuotes(boolean)}
+    * it serves the last known quote while Alpaca is unavailable or slow.
+    *
+    * @param symbol       The stock symbol to fetch (e.g., AAPL).
+    * @param forceRefresh Skip the cache and fetch a fresh quote from the Alpaca API.
+    * @return StockQuote containing the latest quote for the given symbol.
+    */
+   public StockQuote fetchQuoteBySymbol(String symbol, boolean forceRefresh) {
+      return fetchQuoteBySymbolServed(symbol, forceRefresh).value();
+   }
+
+   /**
+    * Fetch a single quote by symbol, telling whether it is not a fresh one.
+    *
+    * @param symbol       The stock symbol to fetch (e.g., AAPL).
+    * @param forceRefresh Skip the cache and fetch a fresh quote from the Alpaca API.
+    * @return The quote, stale if it was preloaded or is the last known one.
+    * @see #fetchQuoteBySymbol(String, boolean)
+    */
+   public Served<StockQuote> fetchQuoteBySymbolServed(String symbol, boolean forceRefresh) {
       if (symbol == null || symbol.isBlank()) {
          throw new InvalidSymbolException("Symbol cannot be null or blank.");
       }
 
+      if (!forceRefresh) {
+         Optional<QuoteCache.CachedQuote> cached = quoteCache.get(symbol);
+         if (cached.isPresent()) {
+            if (cached.get().stale()) {
+               staleWhileRevalidate.revalidate("quote " + symbol.toUpperCase(Locale.ROOT), () -> fetchQuoteFromApi(symbol));
+            }
+            return new Served<>(cached.get().quote(), cached.get().stale());
+         }
+      }
+
+      Served<QuoteCache.CachedQuote> served = staleWhileRevalidate.fetch("quote " + symbol, staleWhileRevalidateProperties.getQuotesBudget(),
+          () -> new QuoteCache.CachedQuote(fetchQuoteFromApi(symbol), DEFAULT_CURRENCY, Instant.now(), false),
+          () -> lastKnownQuote(symbol));
+      if (served.stale()) {
+         quoteCache.putStale(symbol, served.value().currency(), served.value().quote());
+      }
+      return served.map(QuoteCache.CachedQuote::quote);
+   }
+
+   private StockQuote fetchQuoteFromApi(String symbol) {
       logger.info("Fetching stock quote for symbol {}", symbol);
 
-      // Fetch StockQuoteResponse
-      StockQuoteResponse response = currentStockClient.getSingleQuoteBySymbol(symbol);
+      // Fetch StockQuoteResponse, joining an identical request that is already in flight
+      StockQuoteResponse response = quoteRequests.execute(symbol.toUpperCase(Locale.ROOT),
+          () -> currentStockClient.getSingleQuoteBySymbol(symbol));
 
       if (response == null || response.quote() == null) {
          throw new InvalidSymbolException("No stock quote found for symbol " + symbol);
       }
 
       logger.info("Successfully fetched stock quote for symbol {}", symbol);
+      recordQuotes(DEFAULT_CURRENCY, Map.of(symbol, response.quote())); // Single quote replies carry no currency
 
       // Return the StockQuote
       return response.quote();
@@ -93,30 +275,288 @@ public class CurrentStockService {
 
    /**
     * Fetch all quotes for predefined symbols from the Alpaca API and save them to MongoDB.
-    * Replaces existing data in the 'current_stocks' collection for each symbol.
+    *
+    * The changed quotes are handed to the write-behind queue, which upserts them into the
+    * 'current_stocks' collection in batches, so a slow MongoDB does not hold up the call.
+    * Symbols whose quote timestamp has not moved since the last successful write are skipped.
+    *
+    * @return QuoteWriteResult with the number of queued, skipped and dropped quotes.
     */
-   public void saveAllQuotesToDb() {
+   public QuoteWriteResult saveAllQuotesToDb() {
       logger.info("Fetching all stock quotes from Alpaca API to save to MongoDB.");
-      // Get all quotes from the API
-      StockQuotes response = fetchAllQuotes();
+      // Get fresh quotes from the API, this also refills the quote cache; stale quotes are never saved
+      StockQuotes response = fetchAllQuotesFromApi();
 
-      logger.info("Fetched {} quotes. Saving them to MongoDB.", response.quotes().size());
+      logger.info("Fetched {} quotes. Saving changed quotes to MongoDB.", response.quotes().size());
+      return writeQuotes(response.currency(), response.quotes());
+   }
 
-      // Map the quotes to CurrentStock objects and save to the database
-      response.quotes().forEach((symbol, stockQuote) -> {
-         // Defensive validation
-         Objects.requireNonNull(stockQuote, "Stock quote for symbol " + symbol + " cannot be null.");
+   /**
+    * Fetch the latest quotes for some symbols from the Alpaca API and save the changed ones to MongoDB.
+    *
+    * Used by the adaptive refresh schedule, which only refreshes the symbols that are due. Like
+    * {@link #saveAllQuotesToDb()} it refills the quote cache and notifies stream subscribers.
+    *
+    * @param symbols The symbols to refresh.
+    * @return The fetched quotes keyed by symbol; symbols without a quote are absent.
+    */
+   public StockQuotes refreshQuotes(List<String> symbols) {
+      StockQuotes response = currentStockClient.getQuotes(symbols);
 
-         CurrentStock currentStock = new CurrentStock(
-             symbol,
-             response.currency(), // Use the currency from the response (e.g., USD)
-             stockQuote           // Latest quote data for the stock
-         );
+      String currency = response.currency();
+      if (currency == null || currency.isBlank()) {
+         currency = DEFAULT_CURRENCY;
+      }
+      Map<String, StockQuote> quotes = response.quotes() == null ? Map.of() : response.quotes();
 
-         logger.info("Saving data for symbol: {}", symbol);
-         currentStockRepo.save(currentStock); // Save or update the document in MongoDB
+      recordQuotes(currency, quotes);
+      QuoteWriteResult result = writeQuotes(currency, quotes);
+      logger.info("Refreshed {} of {} symbols: {} queued for saving, {} unchanged",
+          quotes.size(), symbols.size(), result.queued(), result.skipped());
+      return new StockQuotes(currency, quotes);
+   }
+
+   /**
+    * Apply quotes pushed by the market data stream.
+    *
+    * The quotes update the quote cache immediately and are queued for 'current_stocks'.
+    *
+    * @param quotes The streamed quotes keyed by symbol.
+    * @return QuoteWriteResult with the number of queued, skipped and dropped quotes.
+    */
+   public QuoteWriteResult applyStreamedQuotes(Map<String, StockQuote> quotes) {
+      return applyStreamedQuotes(quotes, symbol -> true);
+   }
+
+   /**
+    * Apply quotes pushed by the market data stream, saving only some of them to MongoDB.
+    *
+    * Every quote updates the quote cache; only the symbols this instance owns in the cluster are
+    * written, so replicas receiving the same stream do not write the same documents.
+    *
+    * @param quotes  The streamed quotes keyed by symbol.
+    * @param persist Whether a symbol's quote should be written to 'current_stocks'.
+    * @return QuoteWriteResult with the number of queued, skipped and dropped quotes.
+    */
+   public QuoteWriteResult applyStreamedQuotes(Map<String, StockQuote> quotes, Predicate<String> persist) {
+      recordQuotes(DEFAULT_CURRENCY, quotes);
+
+      Map<String, StockQuote> owned = new LinkedHashMap<>();
+      quotes.forEach((symbol, quote) -> {
+         if (persist.test(symbol)) {
+            owned.put(symbol, quote);
+         }
       });
-      logger.info("All quotes have been successfully saved to MongoDB.");
+      return writeQuotes(DEFAULT_CURRENCY, owned);
+   }
+
+   /**
+    * Load the stored quotes of some symbols from MongoDB into the quote cache.
+    *
+    * In a cluster each symbol is fetched from Alpaca by one instance only. The others follow the
+    * quotes it wrote to 'current_stocks', which costs no upstream request.
+    *
+    * @param symbols The symbols to load.
+    * @return The stored quotes keyed by symbol; symbols without a document are absent.
+    */
+   public StockQuotes loadStoredQuotes(List<String> symbols) {
+      Map<String, StockQuote> quotes = new LinkedHashMap<>();
+      String currency = DEFAULT_CURRENCY;
+
+      for (CurrentStock stock : currentStockRepo.findAllById(symbols)) {
+         if (stock.latestQuote() == null) {
+            continue;
+         }
+         quotes.put(stock.symbol(), stock.latestQuote());
+         if (stock.currency() != null && !stock.currency().isBlank()) {
+            currency = stock.currency();
+         }
+         quoteWriteBehindQueue.markWritten(stock.symbol(), stock.latestQuote().t()); // Already stored, no need to write it again on takeover
+      }
+
+      recordQuotes(currency, quotes);
+      logger.debug("Loaded {} of {} stored quotes from MongoDB.", quotes.size(), symbols.size());
+      return new StockQuotes(currency, quotes);
+   }
+
+   /**
+    * Fetch all predefined quotes as stored in MongoDB, without consulting the quote cache or Alpaca.
+    *
+    * @return StockQuotes with the stored quotes in predefined order; symbols without a document are absent.
+    * @throws DataNotFoundException if none of the predefined symbols has a stored quote.
+    */
+   public StockQuotes fetchAllQuotesFromDb() {
+      List<String> symbols = symbolConfig.getPredefined();
+      Map<String, CurrentStock> stored = new HashMap<>();
+      currentStockRepo.findAllById(symbols).forEach(stock -> stored.put(stock.symbol(), stock));
+
+      Map<String, StockQuote> quotes = new LinkedHashMap<>();
+      String currency = DEFAULT_CURRENCY;
+      for (String symbol : symbols) {
+         CurrentStock stock = stored.get(symbol);
+         if (stock == null || stock.latestQuote() == null) {
+            continue;
+         }
+         quotes.put(symbol, stock.latestQuote());
+         if (stock.currency() != null && !stock.currency().isBlank()) {
+            currency = stock.currency();
+         }
+      }
+
+      if (quotes.isEmpty()) {
+         throw new DataNotFoundException("No stored quotes found for the predefined symbols.");
+      }
+      logger.debug("Read {} of {} quotes from MongoDB.", quotes.size(), symbols.size());
+      return new StockQuotes(currency, quotes);
+   }
+
+   /**
+    * Load every stored quote from 'current_stocks' into the quote cache, marked stale.
+    *
+    * Used on startup so the first requests after a deploy are answered from memory. The documents
+    * are read through a projected cursor and handed to the cache one batch at a time. Quotes that a
+    * refresh already cached are left alone, and documents without a quote timestamp are skipped.
+    *
+    * @param batchSize The number of documents per cursor batch.
+    * @return The number of quotes added to the cache.
+    */
+   public int preloadStoredQuotes(int batchSize) {
+      Map<String, Map<String, StockQuote>> batch = new HashMap<>();
+      int batched = 0;
+      int loaded = 0;
+
+      try (Stream<CurrentStock> stocks = currentStockRepo.streamLatestQuotes(batchSize)) {
+         Iterator<CurrentStock> iterator = stocks.iterator();
+         while (iterator.hasNext()) {
+            CurrentStock stock = iterator.next();
+            if (stock.latestQuote() == null || stock.latestQuote().t() == null) {
+               logger.debug("Skipping stored quote of {} without a timestamp.", stock.symbol());
+               continue;
+            }
+            batch.computeIfAbsent(currencyOf(stock), key -> new LinkedHashMap<>()).put(stock.symbol(), stock.latestQuote());
+            quoteWriteBehindQueue.markWritten(stock.symbol(), stock.latestQuote().t()); // Already stored, no need to write it again
+
+            if (++batched == batchSize) {
+               loaded += preload(batch);
+               batched = 0;
+            }
+         }
+      }
+      return loaded + preload(batch);
+   }
+
+   /**
+    * Fetch the recorded quote history of a symbol.
+    *
+    * Every quote that is saved to 'current_stocks' is also appended to the symbol's history buckets
+    * in 'historical_stock_data', so this covers the refresh schedule's and the stream's quotes.
+    *
+    * @param symbol The stock symbol (e.g., AAPL).
+    * @param start  The start of the range in RFC-3339 or YYYY-MM-DD format.
+    * @param end    The end of the range in RFC-3339 or YYYY-MM-DD format.
+    * @return QuoteHistoryResponse with the quotes in the range, oldest first.
+    * @throws InvalidDateRangeException if the dates cannot be parsed, start is after end or the range
+    *                                   is longer than {@code quotes.history.max-range}.
+    */
+   public QuoteHistoryResponse fetchQuoteHistory(String symbol, String start, String end) {
+      if (symbol == null || symbol.isBlank()) {
+         throw new InvalidSymbolException("Symbol cannot be null or blank.");
+      }
+      if (start == null || start.isBlank() || end == null || end.isBlank()) {
+         throw new MissingRequiredParameterException("Start and end dates cannot be null or blank.");
+      }
+
+      return quoteHistoryStore.getHistory(symbol.trim().toUpperCase(Locale.ROOT), TimeRange.parse(start, end));
+   }
+
+   /**
+    * Open a Server-Sent Events stream of quote updates.
+    *
+    * The subscriber first receives the cached quotes of its symbols, then every newer quote
+    * as it is fetched or streamed in.
+    *
+    * @param symbols The symbols to subscribe to, or null/empty for all predefined symbols.
+    * @return The emitter that delivers the updates.
+    */
+   public SseEmitter streamQuotes(List<String> symbols) {
+      List<String> requested = symbols == null || symbols.isEmpty() ? symbolConfig.getPredefined() : symbols;
+      Set<String> normalized = requested.stream()
+          .filter(symbol -> symbol != null && !symbol.isBlank())
+          .map(symbol -> symbol.trim().toUpperCase(Locale.ROOT))
+          .collect(Collectors.toCollection(LinkedHashSet::new));
+
+      Map<String, StockQuote> initial = new LinkedHashMap<>();
+      normalized.forEach(symbol -> quoteCache.get(symbol).ifPresent(cached -> initial.put(symbol, cached.quote())));
+
+      return quoteBroadcaster.subscribe(normalized, initial);
+   }
+
+   // Make freshly fetched quotes visible to readers and stream subscribers
+   private void recordQuotes(String currency, Map<String, StockQuote> quotes) {
+      quoteCache.putAll(currency, quotes);
+      quoteBroadcaster.publish(quotes);
+   }
+
+   // The last known quote of a symbol with its currency: the cached one however old, else the one in 'current_stocks'
+   private Optional<QuoteCache.CachedQuote> lastKnownQuote(String symbol) {
+      Optional<QuoteCache.CachedQuote> cached = quoteCache.getLastKnown(symbol);
+      if (cached.isPresent()) {
+         return cached;
+      }
+      return currentStockRepo.findById(symbol.toUpperCase(Locale.ROOT))
+          .filter(stock -> stock.latestQuote() != null)
+          .map(stock -> new QuoteCache.CachedQuote(stock.latestQuote(), currencyOf(stock), Instant.now(), true));
+   }
+
+   // The last known quotes of the predefined symbols in predefined order, reading MongoDB only for the uncached ones
+   private Optional<StockQuotes> lastKnownQuotes() {
+      List<String> symbols = symbolConfig.getPredefined();
+      Map<String, QuoteCache.CachedQuote> cached = new HashMap<>();
+      List<String> missing = new ArrayList<>();
+      for (String symbol : symbols) {
+         quoteCache.getLastKnown(symbol).ifPresentOrElse(quote -> cached.put(symbol, quote), () -> missing.add(symbol));
+      }
+
+      Map<String, CurrentStock> stored = new HashMap<>();
+      if (!missing.isEmpty()) {
+         currentStockRepo.findAllById(missing).forEach(stock -> stored.put(stock.symbol(), stock));
+      }
+
+      Map<String, StockQuote> quotes = new LinkedHashMap<>();
+      String currency = DEFAULT_CURRENCY;
+      for (String symbol : symbols) {
+         if (cached.containsKey(symbol)) {
+            quotes.put(symbol, cached.get(symbol).quote());
+            currency = cached.get(symbol).currency();
+         } else if (stored.containsKey(symbol) && stored.get(symbol).latestQuote() != null) {
+            quotes.put(symbol, stored.get(symbol).latestQuote());
+            currency = currencyOf(stored.get(symbol));
+         }
+      }
+      return quotes.isEmpty() ? Optional.empty() : Optional.of(new StockQuotes(currency, quotes));
+   }
+
+   private static String currencyOf(CurrentStock stock) {
+      return stock.currency() == null || stock.currency().isBlank() ? DEFAULT_CURRENCY : stock.currency();
+   }
+
+   // Hand one batch of stored quotes to the cache, grouped by currency, and clear it
+   private int preload(Map<String, Map<String, StockQuote>> batch) {
+      int loaded = 0;
+      for (Map.Entry<String, Map<String, StockQuote>> entry : batch.entrySet()) {
+         loaded += quoteCache.preload(entry.getKey(), entry.getValue());
+      }
+      batch.clear();
+      return loaded;
+   }
+
+   // Queue the quotes whose timestamp moved since the last write and append them to the quote history
+   private QuoteWriteResult writeQuotes(String currency, Map<String, StockQuote> quotes) {
+      quoteHistoryStore.record(currency, quotes);
+      QuoteWriteResult result = quoteWriteBehindQueue.submit(currency, quotes);
+      logger.debug("Queued quotes for MongoDB: {} queued, {} unchanged, {} dropped.",
+          result.queued(), result.skipped(), result.dropped());
+      return result;
    }
 
    /**
@@ -128,14 +568,36 @@ public class CurrentStockService {
     * @throws InvalidSymbolException if the symbol is invalid or no snapshot data is found for the symbol.
     */
    public StockSnapshotResponse fetchStockSnapshot(String symbol) {
+      return fetchStockSnapshotServed(symbol).value();
+   }
+
+   /**
+    * Fetches the snapshot of a single stock, serving the last known one while Alpaca is unavailable.
+    *
+    * The last {@code stale-while-revalidate.max-snapshots} fetched snapshots are kept in memory. When
+    * Alpaca fails or exceeds {@code stale-while-revalidate.snapshots-budget}, the last known snapshot
+    * of the symbol is served and the fetch carries on in the background.
+    *
+    * @param symbol The stock symbol to fetch (e.g., "AAPL").
+    * @return The snapshot and whether it is the last known one rather than a fresh read.
+    * @throws InvalidSymbolException if the symbol is invalid or no snapshot data is found for the symbol.
+    */
+   public Served<StockSnapshotResponse> fetchStockSnapshotServed(String symbol) {
       if (symbol == null || symbol.isBlank()) {
          throw new InvalidSymbolException("Symbol cannot be null or blank.");
       }
 
+      String key = symbol.toUpperCase(Locale.ROOT);
+      return staleWhileRevalidate.fetch("snapshot " + key, staleWhileRevalidateProperties.getSnapshotsBudget(),
+          () -> fetchSnapshotFromApi(symbol), () -> Optional.ofNullable(lastSnapshots.get(key)));
+   }
+
+   private StockSnapshotResponse fetchSnapshotFromApi(String symbol) {
       logger.info("Fetching snapshot for stock: {}", symbol);
 
-      // Fetch snapshot data from Alpaca API
-      StockSnapshotResponse snapshot = currentStockClient.getStockSnapshot(symbol);
+      // Fetch snapshot data from Alpaca API, joining an identical request that is already in flight
+      StockSnapshotResponse snapshot = snapshotRequests.execute(symbol.toUpperCase(Locale.ROOT),
+          () -> currentStockClient.getStockSnapshot(symbol));
 
       // Defensive validation
       if (snapshot == null) {
@@ -143,9 +605,54 @@ public class CurrentStockService {
       }
 
       logger.info("Successfully fetched snapshot for stock: {}", symbol);
+      lastSnapshots.put(symbol.toUpperCase(Locale.ROOT), snapshot);
       return snapshot;
    }
 
+   /**
+    * Fetches snapshot data for several symbols at once.
+    *
+    * The symbols are fetched from Alpaca's multi-symbol snapshot endpoint in URL-safe chunks that
+    * run concurrently. A failing chunk or a symbol without data is reported in the errors map
+    * of the response instead of failing the whole request.
+    *
+    * @param symbols The stock symbols to fetch (e.g., ["AAPL", "MSFT"]).
+    * @return A {@link StockSnapshotsResponse} with the snapshots and per-symbol errors.
+    * @throws InvalidSymbolException if no symbols are given.
+    */
+   public StockSnapshotsResponse fetchStockSnapshots(List<String> symbols) {
+      List<String> requested = symbols == null ? List.of() : symbols.stream()
+          .filter(symbol -> symbol != null && !symbol.isBlank())
+          .map(symbol -> symbol.trim().toUpperCase(Locale.ROOT))
+          .distinct()
+          .toList();
+
+      if (requested.isEmpty()) {
+         throw new InvalidSymbolException("At least one symbol must be provided.");
+      }
+
+      logger.info("Fetching snapshots for {} symbols", requested.size());
+
+      Map<String, StockSnapshotResponse> snapshots = new LinkedHashMap<>();
+      Map<String, String> errors = new LinkedHashMap<>();
+
+      for (ChunkResult<Map<String, StockSnapshotResponse>> chunk
+          : chunkedRequestExecutor.execute(requested, currentStockClient::getStockSnapshots)) {
+         for (String symbol : chunk.symbols()) {
+            if (chunk.failed()) {
+               errors.put(symbol, chunk.error().getMessage());
+            } else if (chunk.value().containsKey(symbol)) {
+               snapshots.put(symbol, chunk.value().get(symbol));
+            } else {
+               errors.put(symbol, "No snapshot data found for symbol " + symbol);
+            }
+         }
+      }
+
+      logger.info("Fetched {} snapshots, {} symbols failed", snapshots.size(), errors.size());
+      return new StockSnapshotsResponse(snapshots, errors);
+   }
+
    /**
     * Fetches historical stock bars for a given symbol and timeframe from the Alpaca API.
     *
@@ -170,6 +677,181 @@ public class CurrentStockService {
     * @throws EmptyResponseException If no historical bars are returned by the Alpaca API for the given inputs.
     */
    public HistoricalBarsResponse fetchHistoricalBars(String symbol, String timeframe, String start, String end) {
+      return fetchHistoricalBars(symbol, timeframe, start, end, null);
+   }
+
+   /**
+    * Fetches historical stock bars through the local bar store.
+    *
+    * Bars of closed periods that were fetched before are read from MongoDB; only the missing gaps of
+    * the range are requested from Alpaca, following its pagination until each gap has been read.
+    * Concurrent requests for the same range share one lookup.
+    *
+    * @param limit The page size for each upstream request (1 to 10000), or null for Alpaca's default.
+    * @return A {@link HistoricalBarsResponse} containing every bar in the range.
+    *
+    * @throws InvalidDateRangeException If the dates cannot be parsed or start is after end.
+    * @see #fetchHistoricalBars(String, String, String, String)
+    */
+   public HistoricalBarsResponse fetchHistoricalBars(String symbol, String timeframe, String start, String end, Integer limit) {
+      return fetchHistoricalBars(symbol, timeframe, start, end, limit, ChartOptions.NONE);
+   }
+
+   /**
+    * Fetches historical stock bars through the local bar store, resampled and downsampled as requested.
+    *
+    * @param options The optional base timeframe, point budget and downsampling method.
+    * @return A {@link HistoricalBarsResponse} containing the shaped bars.
+    * @see #fetchChartSeries(String, String, String, String, Integer, ChartOptions)
+    */
+   public HistoricalBarsResponse fetchHistoricalBars(String symbol, String timeframe, String start, String end, Integer limit,
+                                                     ChartOptions options) {
+      return fetchHistoricalBarsServed(symbol, timeframe, start, end, limit, options).value();
+   }
+
+   /**
+    * Fetches historical stock bars shaped as requested, serving the stored bars while Alpaca is unavailable.
+    *
+    * @return The bars and whether they are the last known ones rather than a complete fresh read.
+    * @see #fetchBarSeriesServed(String, String, String, String, Integer)
+    */
+   public Served<HistoricalBarsResponse> fetchHistoricalBarsServed(String symbol, String timeframe, String start, String end,
+                                                                   Integer limit, ChartOptions options) {
+      return fetchChartSeriesServed(symbol, timeframe, start, end, limit, options)
+          .map(series -> new HistoricalBarsResponse(series.toBars(), symbol, null));
+   }
+
+   /**
+    * Fetches historical stock bars through the local bar store as a columnar {@link BarSeries}.
+    *
+    * This is the compact form for charting and analytics: one primitive array per field instead of
+    * one object per bar.
+    *
+    * @param limit The page size for each upstream request (1 to 10000), or null for Alpaca's default.
+    * @return A {@link BarSeries} with every bar in the range.
+    *
+    * @throws EmptyResponseException If no historical bars exist for the given inputs.
+    * @see #fetchHistoricalBars(String, String, String, String, Integer)
+    */
+   public BarSeries fetchBarSeries(String symbol, String timeframe, String start, String end, Integer limit) {
+      return fetchBarSeriesServed(symbol, timeframe, start, end, limit).value();
+   }
+
+   /**
+    * Fetches historical stock bars as a columnar {@link BarSeries}, serving the stored bars while Alpaca is unavailable.
+    *
+    * When fetching the missing gaps fails or exceeds {@code stale-while-revalidate.bars-budget}, the bars
+    * already stored in 'historical_bars' for the range are served instead, and the fetch carries on in
+    * the background. The stored bars may miss the latest ones.
+    *
+    * @return The bars and whether they are the stored ones rather than a complete fresh read.
+    * @throws EmptyResponseException If no historical bars exist for the given inputs.
+    * @see #fetchBarSeries(String, String, String, String, Integer)
+    */
+   public Served<BarSeries> fetchBarSeriesServed(String symbol, String timeframe, String start, String end, Integer limit) {
+      validateBarsRequest(symbol, timeframe, start, end, limit);
+
+      Timeframe parsedTimeframe = Timeframe.parse(timeframe);
+      TimeRange range = TimeRange.parse(start, end);
+      String requestKey = String.join("|", symbol.toUpperCase(Locale.ROOT), parsedTimeframe.toString(),
+          range.start().toString(), range.end().toString(), String.valueOf(limit));
+
+      Served<BarSeries> served = staleWhileRevalidate.fetch("bars " + requestKey, staleWhileRevalidateProperties.getBarsBudget(),
+          () -> barRequests.execute(requestKey, () -> historicalBarStore.getSeries(symbol, parsedTimeframe, range, limit)),
+          () -> Optional.of(historicalBarStore.getStoredSeries(symbol, parsedTimeframe, range)).filter(series -> !series.isEmpty()));
+
+      if (served.value().isEmpty()) {
+         throw new EmptyResponseException("No historical bars found for symbol " + symbol);
+      }
+      return served;
+   }
+
+   /**
+    * Fetches historical stock bars shaped for a chart.
+    *
+    * With a base timeframe, bars are fetched (and stored) in that finer timeframe and rolled up
+    * locally into the requested one, so one stored fine series serves every zoom level without new
+    * upstream calls. The range start is widened to the start of its bucket so the first bar is
+    * complete. With {@code maxPoints}, the result is then downsampled to at most that many bars.
+    *
+    * @param options The optional base timeframe, point budget and downsampling method.
+    * @return A {@link BarSeries} in the requested timeframe.
+    *
+    * @throws InvalidRequestParameterException If the timeframe cannot be built from the base, or the
+    *                                          downsampling options are invalid.
+    * @see #fetchBarSeries(String, String, String, String, Integer)
+    */
+   public BarSeries fetchChartSeries(String symbol, String timeframe, String start, String end, Integer limit, ChartOptions options) {
+      return fetchChartSeriesServed(symbol, timeframe, start, end, limit, options).value();
+   }
+
+   /**
+    * Fetches historical stock bars shaped for a chart, serving the stored bars while Alpaca is unavailable.
+    *
+    * @return The shaped bars and whether they are the stored ones rather than a complete fresh read.
+    * @see #fetchChartSeries(String, String, String, String, Integer, ChartOptions)
+    * @see #fetchBarSeriesServed(String, String, String, String, Integer)
+    */
+   public Served<BarSeries> fetchChartSeriesServed(String symbol, String timeframe, String start, String end, Integer limit,
+                                                  ChartOptions options) {
+      Downsampler.Method method = Downsampler.Method.parse(options.downsample());
+      Served<BarSeries> series;
+
+      if (options.baseTimeframe() == null || options.baseTimeframe().isBlank()) {
+         series = fetchBarSeriesServed(symbol, timeframe, start, end, limit);
+      } else {
+         validateBarsRequest(symbol, timeframe, start, end, limit);
+         Timeframe target = Timeframe.parse(timeframe);
+         Timeframe base = Timeframe.parse(options.baseTimeframe());
+         BarResampler.validate(base, target);
+
+         String alignedStart = TimeRange.format(BarResampler.bucketStart(TimeRange.parse(start, end).start(), target));
+         series = fetchBarSeriesServed(symbol, base.toString(), alignedStart, end, limit)
+             .map(baseSeries -> BarResampler.resample(baseSeries, base, target));
+      }
+
+      if (options.maxPoints() != null) {
+         series = series.map(shaped -> Downsampler.downsample(shaped, options.maxPoints(), method));
+      }
+      return series;
+   }
+
+   /**
+    * Whether every bar of a range belongs to a closed period, so the response for it can no longer change.
+    *
+    * Uses the same cut-off as the bar store: a period is closed once its full length has passed. With a
+    * base timeframe, the fetched base bars decide, since the resampled bars are derived from them.
+    *
+    * @return false if a parameter is missing; invalid values are rejected as in {@link #fetchChartSeries}.
+    */
+   public boolean isClosedRange(String timeframe, String start, String end, ChartOptions options) {
+      String fetchedTimeframe = options.baseTimeframe() == null || options.baseTimeframe().isBlank() ? timeframe : options.baseTimeframe();
+      if (fetchedTimeframe == null || fetchedTimeframe.isBlank() || start == null || start.isBlank() || end == null || end.isBlank()) {
+         return false;
+      }
+      Instant closedUntil = Instant.now().minus(Timeframe.parse(fetchedTimeframe).duration());
+      return TimeRange.parse(start, end).end().isBefore(closedUntil);
+   }
+
+   /**
+    * Streams historical stock bars page by page without holding the whole range in memory.
+    *
+    * Parameters are validated immediately; upstream pages are only requested while the returned
+    * stream is consumed, so callers must close it or consume it fully.
+    *
+    * @param limit The page size for each upstream request (1 to 10000), or null for Alpaca's default.
+    * @return An ordered stream of every bar in the range.
+    *
+    * @see #fetchHistoricalBars(String, String, String, String)
+    */
+   public Stream<HistoricalBar> streamHistoricalBars(String symbol, String timeframe, String start, String end, Integer limit) {
+      validateBarsRequest(symbol, timeframe, start, end, limit);
+
+      logger.info("Streaming historical bars for symbol {} with page size {}", symbol, limit);
+      return currentStockClient.streamHistoricalBars(symbol, timeframe, start, end, limit);
+   }
+
+   private void validateBarsRequest(String symbol, String timeframe, String start, String end, Integer limit) {
       if (symbol == null || symbol.isBlank()) {
          throw new InvalidSymbolException("Symbol cannot be null or blank.");
       }
@@ -179,14 +861,8 @@ public class CurrentStockService {
       if (start == null || start.isBlank() || end == null || end.isBlank()) {
          throw new MissingRequiredParameterException("Start and end dates cannot be null or blank.");
       }
-
-      HistoricalBarsResponse response = currentStockClient.getHistoricalBars(symbol, timeframe, start, end);
-
-      if (response == null || response.bars().isEmpty()) {
-         throw new EmptyResponseException("No historical bars found for symbol " + symbol);
+      if (limit != null && (limit < 1 || limit > MAX_BARS_PAGE_SIZE)) {
+         throw new InvalidRequestParameterException("Limit must be between 1 and " + MAX_BARS_PAGE_SIZE + ".");
       }
-
-      return response;
    }
 }
-
@@ -0,0 +1,214 @@
+package com.stockdock.services;
+
+import com.stockdock.clients.CurrentStockClient;
+import com.stockdock.dto.BarSeries;
+import com.stockdock.dto.HistoricalBar;
+import com.stockdock.dto.TimeRange;
+import com.stockdock.dto.Timeframe;
+import com.stockdock.models.BarCoverage;
+import com.stockdock.models.BarCoverage.CoveredRange;
+import com.stockdock.models.StoredBar;
+import com.stockdock.repos.BarCoverageRepo;
+import com.stockdock.repos.HistoricalBarRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Persistent store for historical bars in the 'historical_bars' collection.
+ *
+ * Bars of a closed period never change, so every range that has been fetched once is recorded in
+ * 'bar_coverage'. A request only goes to the Alpaca API for the parts of its range that are not
+ * covered yet; everything else is read from MongoDB. Bars of periods that are still open are stored
+ * but not marked as covered, so they are refreshed on the next request.
+ */
+@Service
+public class HistoricalBarStore {
+
+   private static final Logger logger = LoggerFactory.getLogger(HistoricalBarStore.class);
+   private static final int WRITE_BATCH_SIZE = 5000;
+   private static final int INITIAL_SERIES_CAPACITY = 8192;
+
+   private final CurrentStockClient currentStockClient;
+   private final HistoricalBarRepo historicalBarRepo;
+   private final BarCoverageRepo barCoverageRepo;
+
+   // Covered ranges per "<symbol>:<timeframe>", loaded lazily from bar_coverage
+   private final Map<String, List<CoveredRange>> coverageByKey = new ConcurrentHashMap<>();
+
+   public HistoricalBarStore (
+       CurrentStockClient currentStockClient,
+       HistoricalBarRepo historicalBarRepo,
+       BarCoverageRepo barCoverageRepo
+                             ) {
+      this.currentStockClient = currentStockClient;
+      this.historicalBarRepo = historicalBarRepo;
+      this.barCoverageRepo = barCoverageRepo;
+   }
+
+   /**
+    * Get all bars of a symbol and timeframe within a range, fetching only missing gaps from Alpaca.
+    *
+    * Stored bars are read through a cursor and appended straight into the columns of a
+    * {@link BarSeries}, so no intermediate list of bar objects is built.
+    *
+    * @param symbol    The stock symbol (e.g., "AAPL").
+    * @param timeframe The bar timeframe.
+    * @param range     The inclusive range of bar timestamps.
+    * @param limit     The page size for upstream requests, or null for Alpaca's default.
+    * @return The bars in the range, sorted by timestamp.
+    */
+   public BarSeries getSeries(String symbol, Timeframe timeframe, TimeRange range, Integer limit) {
+      return readSeries(ensureStored(symbol, timeframe, range, limit), timeframe, range);
+   }
+
+   /**
+    * Get the bars of a symbol and timeframe within a range as they are stored, without asking Alpaca.
+    *
+    * Used to serve the last known bars while Alpaca is unavailable, so the series may miss bars of
+    * gaps that were never fetched and the latest bar of an open period may be outdated.
+    *
+    * @return The stored bars in the range, sorted by timestamp; empty if none are stored.
+    */
+   public BarSeries getStoredSeries(String symbol, Timeframe timeframe, TimeRange range) {
+      return readSeries(symbol.toUpperCase(Locale.ROOT), timeframe, range);
+   }
+
+   private BarSeries readSeries(String storeSymbol, Timeframe timeframe, TimeRange range) {
+      BarSeries.Builder series = BarSeries.builder(storeSymbol, timeframe.toString(), expectedBars(timeframe, range));
+
+      try (Stream<StoredBar> bars = historicalBarRepo.streamRange(
+          storeSymbol, timeframe.toString(), range.start(), range.end(), Sort.by("t"))) {
+         bars.forEach(bar -> series.add(bar.t().toEpochMilli(), bar.o(), bar.h(), bar.l(), bar.c(), bar.v(), bar.n(), bar.vw()));
+      }
+      return series.build();
+   }
+
+   // Fetch the uncovered gaps of the range from Alpaca, returning the symbol as it is stored
+   private String ensureStored(String symbol, Timeframe timeframe, TimeRange range, Integer limit) {
+      String storeSymbol = symbol.toUpperCase(Locale.ROOT);
+      String key = storeSymbol + ":" + timeframe;
+
+      List<TimeRange> gaps = findGaps(coverage(key), range);
+      if (gaps.isEmpty()) {
+         logger.debug("Serving {} bars for {} from the local store", timeframe, storeSymbol);
+      }
+
+      // Bars are only final once their whole period has passed
+      Instant closedUntil = Instant.now().minus(timeframe.duration());
+      for (TimeRange gap : gaps) {
+         int stored = fetchAndStore(symbol, storeSymbol, timeframe, gap, limit);
+         logger.info("Fetched {} {} bars for {} between {} and {}", stored, timeframe, storeSymbol, gap.start(), gap.end());
+
+         Instant coveredEnd = gap.end().isAfter(closedUntil) ? closedUntil : gap.end();
+         if (!coveredEnd.isBefore(gap.start())) {
+            recordCoverage(key, storeSymbol, timeframe, new CoveredRange(gap.start(), coveredEnd));
+         }
+      }
+      return storeSymbol;
+   }
+
+   // Upper bound for the initial column capacity; intraday series are sparse outside market hours
+   private static int expectedBars(Timeframe timeframe, TimeRange range) {
+      long periods = Duration.between(range.start(), range.end()).dividedBy(timeframe.duration()) + 1;
+      return (int) Math.min(periods, INITIAL_SERIES_CAPACITY);
+   }
+
+   /**
+    * Compute the parts of {@code range} that are not covered by the given sorted, merged ranges.
+    */
+   static List<TimeRange> findGaps(List<CoveredRange> covered, TimeRange range) {
+      List<TimeRange> gaps = new ArrayList<>();
+      Instant cursor = range.start();
+      boolean cursorCovered = false;
+
+      for (CoveredRange coveredRange : covered) {
+         if (coveredRange.end().isBefore(cursor)) {
+            continue;
+         }
+         if (coveredRange.start().isAfter(range.end())) {
+            break;
+         }
+         if (coveredRange.start().isAfter(cursor)) {
+            gaps.add(new TimeRange(cursor, coveredRange.start()));
+         }
+         cursor = coveredRange.end();
+         cursorCovered = true;
+      }
+
+      if (cursor.isBefore(range.end()) || !cursorCovered) {
+         gaps.add(new TimeRange(cursor, range.end()));
+      }
+      return gaps;
+   }
+
+   /**
+    * Add a range to a sorted list of ranges, merging it with every range it overlaps or touches.
+    */
+   static List<CoveredRange> merge(List<CoveredRange> ranges, CoveredRange added) {
+      List<CoveredRange> sorted = new ArrayList<>(ranges);
+      sorted.add(added);
+      sorted.sort(Comparator.comparing(CoveredRange::start));
+
+      List<CoveredRange> merged = new ArrayList<>();
+      for (CoveredRange next : sorted) {
+         CoveredRange last = merged.isEmpty() ? null : merged.getLast();
+         if (last != null && !next.start().isAfter(last.end())) {
+            Instant end = next.end().isAfter(last.end()) ? next.end() : last.end();
+            merged.set(merged.size() - 1, new CoveredRange(last.start(), end));
+         } else {
+            merged.add(next);
+         }
+      }
+      return merged;
+   }
+
+   private List<CoveredRange> coverage(String key) {
+      return coverageByKey.computeIfAbsent(key, k -> barCoverageRepo.findById(k)
+          .map(BarCoverage::ranges)
+          .orElse(List.of()));
+   }
+
+   private void recordCoverage(String key, String symbol, Timeframe timeframe, CoveredRange added) {
+      // Persist inside compute so concurrent requests for the same key cannot drop each other's ranges
+      coverageByKey.compute(key, (k, existing) -> {
+         List<CoveredRange> merged = merge(existing == null ? List.of() : existing, added);
+         barCoverageRepo.save(new BarCoverage(key, symbol, timeframe.toString(), merged));
+         return merged;
+      });
+   }
+
+   // Stream one gap from Alpaca into MongoDB in bounded batches
+   private int fetchAndStore(String symbol, String storeSymbol, Timeframe timeframe, TimeRange gap, Integer limit) {
+      int stored = 0;
+      List<StoredBar> batch = new ArrayList<>(WRITE_BATCH_SIZE);
+
+      try (Stream<HistoricalBar> bars = currentStockClient.streamHistoricalBars(
+          symbol, timeframe.toString(), TimeRange.format(gap.start()), TimeRange.format(gap.end()), limit)) {
+         Iterator<HistoricalBar> iterator = bars.iterator();
+         while (iterator.hasNext()) {
+            batch.add(StoredBar.from(storeSymbol, timeframe.toString(), iterator.next()));
+            if (batch.size() == WRITE_BATCH_SIZE) {
+               historicalBarRepo.bulkUpsert(batch);
+               stored += batch.size();
+               batch.clear();
+            }
+         }
+      }
+
+      historicalBarRepo.bulkUpsert(batch);
+      return stored + batch.size();
+   }
+}
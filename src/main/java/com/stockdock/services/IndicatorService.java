@@ -0,0 +1,179 @@
+package com.stockdock.services;
+
+import com.stockdock.config.IndicatorProperties;
+import com.stockdock.dto.BarSeries;
+import com.stockdock.dto.IndicatorsResponse;
+import com.stockdock.dto.Timeframe;
+import com.stockdock.exceptions.InvalidRequestParameterException;
+import com.stockdock.indicators.Indicator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Computes technical indicators over historical bar series.
+ *
+ * Each indicator series is cached per symbol, timeframe, first bar and parameters together with the
+ * indicator's running state. A later request only feeds the bars that were added since, so appending
+ * the latest bar costs O(1) per indicator instead of a pass over the whole history. Bars whose period
+ * is still open may change, so they are evaluated on a copy of the state and never cached.
+ */
+@Service
+public class IndicatorService {
+
+   private static final Logger logger = LoggerFactory.getLogger(IndicatorService.class);
+
+   private final CurrentStockService currentStockService;
+   private final IndicatorProperties properties;
+   private final ConcurrentHashMap<String, IndicatorState> cache = new ConcurrentHashMap<>();
+
+   public IndicatorService (CurrentStockService currentStockService, IndicatorProperties properties) {
+      this.currentStockService = currentStockService;
+      this.properties = properties;
+   }
+
+   /**
+    * Compute indicators for the bars of a symbol in a range.
+    *
+    * @param specs Indicator specs such as {@code sma:20}, {@code ema:50}, {@code rsi:14},
+    *              {@code macd:12:26:9}, {@code bb:20:2} or {@code vwap:20}.
+    * @return The bar timestamps and one value array per indicator output, aligned with them.
+    * @throws InvalidRequestParameterException if no, too many or invalid indicators are requested.
+    */
+   public IndicatorsResponse computeIndicators(String symbol, String timeframe, String start, String end, List<String> specs) {
+      List<Indicator> indicators = parse(specs);
+      BarSeries series = currentStockService.fetchBarSeries(symbol, timeframe, start, end, null);
+
+      // Bars are only final once their whole period has passed
+      long closedUntil = Instant.now().minus(Timeframe.parse(timeframe).duration()).toEpochMilli();
+
+      Map<String, double[]> values = new LinkedHashMap<>();
+      for (Indicator indicator : indicators) {
+         String key = String.join("|", series.symbol(), series.timeframe(), String.valueOf(series.t()[0]), indicator.name());
+         IndicatorState state = cache.computeIfAbsent(key, k -> new IndicatorState(indicator));
+         double[][] lines;
+         synchronized (state) {
+            state.lastAccess = System.nanoTime();
+            lines = state.evaluate(series, closedUntil);
+         }
+         List<String> outputs = indicator.outputs();
+         for (int i = 0; i < outputs.size(); i++) {
+            values.put(outputs.get(i), lines[i]);
+         }
+      }
+
+      evictOverflow();
+      return new IndicatorsResponse(series.symbol(), series.timeframe(), series.t(), values);
+   }
+
+   private List<Indicator> parse(List<String> specs) {
+      List<String> requested = specs == null ? List.of() : specs.stream().filter(spec -> !spec.isBlank()).distinct().toList();
+      if (requested.isEmpty()) {
+         throw new InvalidRequestParameterException("At least one indicator must be provided.");
+      }
+      if (requested.size() > properties.getMaxPerRequest()) {
+         throw new InvalidRequestParameterException("At most " + properties.getMaxPerRequest() + " indicators can be requested at once.");
+      }
+      return requested.stream().map(Indicator::parse).toList();
+   }
+
+   // Drop the least recently used series once the cache grows past its bound
+   private void evictOverflow() {
+      int overflow = cache.size() - properties.getCacheMaxEntries();
+      if (overflow <= 0) {
+         return;
+      }
+
+      cache.entrySet().stream()
+          .sorted(Comparator.comparingLong(entry -> entry.getValue().lastAccess))
+          .limit(overflow)
+          .forEach(entry -> cache.remove(entry.getKey(), entry.getValue()));
+
+      logger.debug("Evicted {} indicator series to stay within {} entries", overflow, properties.getCacheMaxEntries());
+   }
+
+   /**
+    * The running state of one indicator and its values for every closed bar fed so far.
+    */
+   private static final class IndicatorState {
+
+      private final Indicator template;
+      private Indicator indicator;
+      private long[] t = new long[0];
+      private double[][] lines;
+      private int count;
+      private volatile long lastAccess;
+
+      private IndicatorState (Indicator indicator) {
+         this.template = indicator;
+         reset();
+      }
+
+      private void reset() {
+         indicator = template.copy();
+         t = new long[0];
+         lines = new double[template.outputs().size()][0];
+         count = 0;
+      }
+
+      /**
+       * Bring the state up to date with the series and return the values aligned with it.
+       */
+      private double[][] evaluate(BarSeries series, long closedUntil) {
+         long[] times = series.t();
+         int overlap = Math.min(count, times.length);
+         if (overlap > 0 && times[overlap - 1] != t[overlap - 1]) {
+            // The stored bars changed underneath us, start over
+            reset();
+            overlap = 0;
+         }
+
+         // Commit closed bars beyond what is cached
+         int index = overlap;
+         double[] out = new double[lines.length];
+         while (index < times.length && times[index] <= closedUntil) {
+            append(times[index], series, index, out);
+            index++;
+         }
+
+         double[][] result = new double[lines.length][];
+         for (int line = 0; line < lines.length; line++) {
+            result[line] = Arrays.copyOf(lines[line], times.length);
+         }
+
+         // Evaluate still-open bars on a copy so they can be revised on the next request
+         Indicator open = index < times.length ? indicator.copy() : null;
+         for (int i = index; i < times.length; i++) {
+            open.update(series.h()[i], series.l()[i], series.c()[i], series.v()[i], series.vw()[i], out);
+            for (int line = 0; line < lines.length; line++) {
+               result[line][i] = out[line];
+            }
+         }
+         return result;
+      }
+
+      private void append(long time, BarSeries series, int index, double[] out) {
+         if (count == t.length) {
+            int capacity = Math.max(16, t.length + (t.length >> 1));
+            t = Arrays.copyOf(t, capacity);
+            for (int line = 0; line < lines.length; line++) {
+               lines[line] = Arrays.copyOf(lines[line], capacity);
+            }
+         }
+         indicator.update(series.h()[index], series.l()[index], series.c()[index], series.v()[index], series.vw()[index], out);
+         t[count] = time;
+         for (int line = 0; line < lines.length; line++) {
+            lines[line][count] = out[line];
+         }
+         count++;
+      }
+   }
+}
@@ -0,0 +1,212 @@
+package com.stockdock.services;
+
+import com.stockdock.config.QuoteStreamProperties;
+import com.stockdock.dto.StockQuote;
+import com.stockdock.exceptions.InvalidSymbolException;
+import com.stockdock.exceptions.ServiceUnavailableException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes quote updates to Server-Sent Events subscribers.
+ *
+ * Every subscriber has a conflation buffer that only keeps the latest quote per subscribed symbol,
+ * so a slow client receives fewer, newer updates instead of an ever-growing backlog. At most one
+ * send per subscriber is in flight; it runs on a virtual thread that only exists while there is
+ * something to deliver, which keeps idle connections cheap. Idle connections get periodic heartbeats.
+ */
+@Component
+public class QuoteBroadcaster {
+
+   private static final Logger logger = LoggerFactory.getLogger(QuoteBroadcaster.class);
+
+   private final QuoteStreamProperties properties;
+   private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+   private final AtomicInteger openSubscribers = new AtomicInteger(); // Slots taken, reserved before a subscriber is registered
+   private final Map<String, Set<Subscriber>> subscribersBySymbol = new ConcurrentHashMap<>();
+   private final Map<String, Instant> lastPublished = new ConcurrentHashMap<>();
+
+   private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+   private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(
+       Thread.ofPlatform().name("quote-stream-heartbeat").daemon().factory());
+
+   public QuoteBroadcaster (QuoteStreamProperties properties) {
+      this.properties = properties;
+      long interval = properties.getHeartbeatInterval().toMillis();
+      heartbeats.scheduleAtFixedRate(this::sendHeartbeats, interval, interval, TimeUnit.MILLISECONDS);
+   }
+
+   /**
+    * Register a new subscriber for a set of symbols.
+    *
+    * @param symbols The symbols to receive updates for.
+    * @param initial The latest known quotes, sent immediately so the client does not start empty.
+    * @return The emitter to return from the controller.
+    * @throws InvalidSymbolException if no symbols or too many symbols are requested.
+    * @throws ServiceUnavailableException if the subscriber limit has been reached.
+    */
+   public SseEmitter subscribe(Set<String> symbols, Map<String, StockQuote> initial) {
+      if (symbols.isEmpty()) {
+         throw new InvalidSymbolException("At least one symbol must be provided.");
+      }
+      if (symbols.size() > properties.getMaxSymbolsPerSubscriber()) {
+         throw new InvalidSymbolException("At most " + properties.getMaxSymbolsPerSubscriber() + " symbols can be streamed per connection.");
+      }
+      // Reserve the slot first so concurrent subscribes cannot overshoot the limit
+      if (openSubscribers.incrementAndGet() > properties.getMaxSubscribers()) {
+         openSubscribers.decrementAndGet();
+         throw new ServiceUnavailableException("Too many open quote streams, try again later.");
+      }
+
+      SseEmitter emitter = new SseEmitter(properties.getEmitterTimeout().toMillis());
+      Subscriber subscriber = new Subscriber(emitter, Set.copyOf(symbols));
+
+      // Registered before the callbacks, so every removal releases exactly the slot reserved above
+      subscribers.add(subscriber);
+      emitter.onCompletion(() -> remove(subscriber));
+      emitter.onTimeout(() -> remove(subscriber));
+      emitter.onError(error -> remove(subscriber));
+
+      symbols.forEach(symbol -> subscribersBySymbol.computeIfAbsent(symbol, key -> ConcurrentHashMap.newKeySet()).add(subscriber));
+      logger.debug("Quote stream subscriber added for {} symbols, {} open", symbols.size(), openSubscribers.get());
+
+      initial.forEach(subscriber::offer);
+      subscriber.heartbeatDue.set(true); // Flushes the response headers even when nothing is cached yet
+      schedule(subscriber);
+      return emitter;
+   }
+
+   /**
+    * Publish new quotes to every subscriber of their symbols.
+    *
+    * Quotes whose timestamp has not moved since they were last published are ignored.
+    */
+   public void publish(Map<String, StockQuote> quotes) {
+      quotes.forEach((rawSymbol, quote) -> {
+         String symbol = rawSymbol.toUpperCase(Locale.ROOT);
+         if (quote.t() != null && quote.t().equals(lastPublished.put(symbol, quote.t()))) {
+            return;
+         }
+         for (Subscriber subscriber : subscribersBySymbol.getOrDefault(symbol, Set.of())) {
+            subscriber.offer(symbol, quote);
+            schedule(subscriber);
+         }
+      });
+   }
+
+   public int subscriberCount() {
+      return openSubscribers.get();
+   }
+
+   @PreDestroy
+   public void shutdown() {
+      heartbeats.shutdownNow();
+      subscribers.forEach(subscriber -> subscriber.emitter.complete());
+      senders.shutdownNow();
+   }
+
+   private void sendHeartbeats() {
+      for (Subscriber subscriber : subscribers) {
+         subscriber.heartbeatDue.set(true);
+         schedule(subscriber);
+      }
+   }
+
+   // Start a sender for the subscriber unless one is already running
+   private void schedule(Subscriber subscriber) {
+      if (subscriber.sending.compareAndSet(false, true)) {
+         senders.execute(() -> drain(subscriber));
+      }
+   }
+
+   private void drain(Subscriber subscriber) {
+      try {
+         while (true) {
+            Map<String, StockQuote> batch = subscriber.takePending();
+            boolean heartbeat = subscriber.heartbeatDue.getAndSet(false);
+
+            if (!batch.isEmpty()) {
+               subscriber.emitter.send(SseEmitter.event().name("quotes").data(batch));
+            } else if (heartbeat) {
+               subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+
+            subscriber.sending.set(false);
+            // Re-check after releasing, an update may have arrived while the send was in flight
+            if (!subscriber.hasWork() || !subscriber.sending.compareAndSet(false, true)) {
+               return;
+            }
+         }
+      } catch (Exception e) {
+         logger.debug("Dropping quote stream subscriber: {}", e.getMessage());
+         subscriber.emitter.completeWithError(e);
+         remove(subscriber);
+      }
+   }
+
+   private void remove(Subscriber subscriber) {
+      if (subscribers.remove(subscriber)) {
+         openSubscribers.decrementAndGet();
+         subscriber.symbols.forEach(symbol -> {
+            Set<Subscriber> forSymbol = subscribersBySymbol.get(symbol);
+            if (forSymbol != null) {
+               forSymbol.remove(subscriber);
+            }
+         });
+         logger.debug("Quote stream subscriber removed, {} open", openSubscribers.get());
+      }
+   }
+
+   private static final class Subscriber {
+      private final SseEmitter emitter;
+      private final Set<String> symbols;
+      // Conflation buffer: holds at most one pending quote per subscribed symbol
+      private final Map<String, StockQuote> pending = new ConcurrentHashMap<>();
+      private final AtomicBoolean sending = new AtomicBoolean();
+      private final AtomicBoolean heartbeatDue = new AtomicBoolean();
+
+      private Subscriber(SseEmitter emitter, Set<String> symbols) {
+         this.emitter = emitter;
+         this.symbols = symbols;
+      }
+
+      private void offer(String symbol, StockQuote quote) {
+         if (symbols.contains(symbol)) {
+            pending.put(symbol, Objects.requireNonNull(quote));
+         }
+      }
+
+      private Map<String, StockQuote> takePending() {
+         Map<String, StockQuote> batch = new LinkedHashMap<>();
+         for (String symbol : List.copyOf(pending.keySet())) {
+            StockQuote quote = pending.remove(symbol);
+            if (quote != null) {
+               batch.put(symbol, quote);
+            }
+         }
+         return batch;
+      }
+
+      private boolean hasWork() {
+         return !pending.isEmpty() || heartbeatDue.get();
+      }
+   }
+}
@@ -0,0 +1,278 @@
+package com.stockdock.services;
+
+import com.stockdock.config.QuoteCacheProperties;
+import com.stockdock.config.SymbolConfig;
+import com.stockdock.dto.QuoteCacheStats;
+import com.stockdock.dto.StockQuote;
+import com.stockdock.dto.StockQuotes;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory cache of the latest quote per symbol.
+ *
+ * Entries expire after the configured TTL and the cache never holds more than
+ * {@code quotes.cache.max-size} symbols; when it overflows the least recently written entries are evicted.
+ * Expired entries are not served as fresh but kept as the last known quote, which is served
+ * when Alpaca is unavailable (see {@link StaleWhileRevalidate}).
+ * Reads are lock-free on a {@link ConcurrentHashMap}, so controller reads are answered without
+ * touching the Alpaca API. Writes take a lock to keep the eviction order, which makes eviction O(1)
+ * per entry instead of sorting the whole cache.
+ *
+ * Quotes preloaded from 'current_stocks' on startup, and last known quotes served while
+ * Alpaca is unavailable, are marked stale until a fetched or streamed quote replaces them,
+ * so callers can tell them from live data.
+ */
+@Component
+public class QuoteCache {
+
+   private static final Logger logger = LoggerFactory.getLogger(QuoteCache.class);
+
+   private final QuoteCacheProperties properties;
+   private final SymbolConfig symbolConfig;
+   private final ConcurrentHashMap<String, CachedQuote> entries = new ConcurrentHashMap<>();
+
+   // Guarded by writeLock: the cached symbols, least recently written first
+   private final ReentrantLock writeLock = new ReentrantLock();
+   private final LinkedHashSet<String> writeOrder = new LinkedHashSet<>();
+
+   private final LongAdder hits = new LongAdder();
+   private final LongAdder misses = new LongAdder();
+   private final LongAdder evictions = new LongAdder();
+
+   public QuoteCache (QuoteCacheProperties properties, SymbolConfig symbolConfig) {
+      this.properties = properties;
+      this.symbolConfig = symbolConfig;
+   }
+
+   /**
+    * The predefined symbols are read with {@link #getAll}, which only hits when all of them are cached.
+    */
+   @PostConstruct
+   public void checkMaxSize() {
+      int predefined = symbolConfig.getPredefined() == null ? 0 : symbolConfig.getPredefined().size();
+      if (properties.getMaxSize() < predefined) {
+         throw new IllegalStateException("quotes.cache.max-size (" + properties.getMaxSize()
+             + ") must be at least the number of predefined symbols (" + predefined + "), or the quote list is never served from the cache");
+      }
+   }
+
+   /**
+    * A cached quote together with the currency it was reported in, the time it was cached and
+    * whether it is a preloaded or last known quote rather than a fetched one.
+    */
+   public record CachedQuote(StockQuote quote, String currency, Instant cachedAt, boolean stale) {
+   }
+
+   /**
+    * Look up the cached quote for a symbol.
+    *
+    * @param symbol The stock symbol (case-insensitive).
+    * @return The cached quote, or empty if it is missing or has expired.
+    */
+   public Optional<CachedQuote> get(String symbol) {
+      CachedQuote cached = entries.get(normalize(symbol));
+
+      if (cached == null || isExpired(cached)) {
+         misses.increment(); // An expired entry stays as the last known quote
+         return Optional.empty();
+      }
+
+      hits.increment();
+      return Optional.of(cached);
+   }
+
+   /**
+    * Look up the cached quotes for a list of symbols.
+    *
+    * The result is only present when every symbol is cached and fresh, so callers never
+    * serve a partial quote list. The lookup counts as one hit or one miss, however many
+    * symbols it covers.
+    *
+    * @param symbols The symbols to look up.
+    * @return All quotes keyed by symbol in request order, or empty if any symbol misses.
+    */
+   public Optional<StockQuotes> getAll(List<String> symbols) {
+      Map<String, StockQuote> quotes = new LinkedHashMap<>();
+      String currency = null;
+
+      for (String symbol : symbols) {
+         CachedQuote cached = entries.get(normalize(symbol));
+         if (cached == null || isExpired(cached)) {
+            misses.increment();
+            return Optional.empty();
+         }
+         quotes.put(symbol, cached.quote());
+         currency = cached.currency();
+      }
+
+      hits.increment();
+      return Optional.of(new StockQuotes(currency, quotes));
+   }
+
+   /**
+    * Look up the last quote cached for a symbol, however old it is.
+    *
+    * @param symbol The stock symbol (case-insensitive).
+    * @return The last cached quote, or empty if the symbol was never cached or has been evicted.
+    */
+   public Optional<CachedQuote> getLastKnown(String symbol) {
+      return Optional.ofNullable(entries.get(normalize(symbol)));
+   }
+
+   /**
+    * Store the latest quote for a single symbol.
+    */
+   public void put(String symbol, String currency, StockQuote quote) {
+      writeLock.lock();
+      try {
+         write(normalize(symbol), new CachedQuote(quote, currency, Instant.now(), false));
+         evictOverflow();
+      } finally {
+         writeLock.unlock();
+      }
+   }
+
+   /**
+    * Store a batch of quotes that were fetched together.
+    */
+   public void putAll(String currency, Map<String, StockQuote> quotes) {
+      Instant now = Instant.now();
+      writeLock.lock();
+      try {
+         quotes.forEach((symbol, quote) -> write(normalize(symbol), new CachedQuote(quote, currency, now, false)));
+         evictOverflow();
+      } finally {
+         writeLock.unlock();
+      }
+   }
+
+   /**
+    * Store stored quotes as stale entries, without replacing anything already cached.
+    *
+    * A refresh that lands while the stored quotes are still loading is never overwritten by them.
+    * Entries count as cached now, however old the quote is, so the first requests after a deploy are
+    * answered from the cache; being stale, they trigger a background refresh.
+    *
+    * @param currency The currency the quotes were stored with.
+    * @param quotes   The stored quotes keyed by symbol.
+    * @return The number of quotes added.
+    */
+   public int preload(String currency, Map<String, StockQuote> quotes) {
+      Instant now = Instant.now();
+      int added = 0;
+      writeLock.lock();
+      try {
+         for (Map.Entry<String, StockQuote> entry : quotes.entrySet()) {
+            String key = normalize(entry.getKey());
+            if (!entries.containsKey(key)) {
+               write(key, new CachedQuote(entry.getValue(), currency, now, true));
+               added++;
+            }
+         }
+         evictOverflow();
+      } finally {
+         writeLock.unlock();
+      }
+      return added;
+   }
+
+   /**
+    * Store a last known quote that is served while Alpaca is unavailable, marked stale.
+    *
+    * Readers get it from the cache until the TTL expires, so a failing upstream is not asked again
+    * on every request. An entry that has not expired yet is kept.
+    *
+    * @param symbol   The stock symbol.
+    * @param currency The currency the quote was reported in.
+    * @param quote    The last known quote.
+    */
+   public void putStale(String symbol, String currency, StockQuote quote) {
+      String key = normalize(symbol);
+      writeLock.lock();
+      try {
+         CachedQuote existing = entries.get(key);
+         if (existing == null || isExpired(existing)) {
+            write(key, new CachedQuote(quote, currency, Instant.now(), true));
+            evictOverflow();
+         }
+      } finally {
+         writeLock.unlock();
+      }
+   }
+
+   /**
+    * Whether any of the symbols is served from a preloaded or last known quote that has not been refreshed yet.
+    *
+    * @param symbols The symbols to check (case-insensitive).
+    * @return True if at least one symbol is cached as stale.
+    */
+   public boolean isStale(Collection<String> symbols) {
+      for (String symbol : symbols) {
+         CachedQuote cached = entries.get(normalize(symbol));
+         if (cached != null && cached.stale()) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   public QuoteCacheStats stats() {
+      return new QuoteCacheStats(
+          hits.sum(),
+          misses.sum(),
+          evictions.sum(),
+          entries.size(),
+          (int) entries.values().stream().filter(CachedQuote::stale).count(),
+          properties.getMaxSize(),
+          properties.getTtl().toSeconds()
+      );
+   }
+
+   private boolean isExpired(CachedQuote cached) {
+      return cached.cachedAt().plus(properties.getTtl()).isBefore(Instant.now());
+   }
+
+   // Store an entry and move it to the end of the eviction order; callers hold writeLock
+   private void write(String key, CachedQuote cached) {
+      entries.put(key, cached);
+      writeOrder.remove(key);
+      writeOrder.add(key);
+   }
+
+   // Drop the least recently written entries once the cache grows past its bound; callers hold writeLock
+   private void evictOverflow() {
+      int overflow = writeOrder.size() - properties.getMaxSize();
+      if (overflow <= 0) {
+         return;
+      }
+
+      Iterator<String> eldest = writeOrder.iterator();
+      for (int i = 0; i < overflow; i++) {
+         entries.remove(eldest.next());
+         eldest.remove();
+         evictions.increment();
+      }
+
+      logger.debug("Evicted {} quotes from cache to stay within {} entries", overflow, properties.getMaxSize());
+   }
+
+   private static String normalize(String symbol) {
+      return symbol.toUpperCase(Locale.ROOT);
+   }
+}
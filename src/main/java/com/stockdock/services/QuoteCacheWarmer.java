@@ -0,0 +1,66 @@
+package com.stockdock.services;
+
+import com.stockdock.config.QuoteCacheProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills the quote cache from 'current_stocks' on startup.
+ *
+ * Application runners finish before Spring Boot publishes the ready event and switches the
+ * readiness probe to accepting traffic, so the first requests after a deploy are answered from
+ * memory instead of going to Alpaca. The preloaded quotes are served as stale, however old they are,
+ * until a refresh replaces them; serving one starts a background revalidation.
+ *
+ * Readiness is held back for at most {@code quotes.cache.warm-start.timeout}. A load that takes
+ * longer keeps running in the background; one that fails (e.g. MongoDB is down) leaves the cache
+ * empty, as before.
+ */
+@Component
+public class QuoteCacheWarmer implements ApplicationRunner {
+
+   private static final Logger logger = LoggerFactory.getLogger(QuoteCacheWarmer.class);
+
+   private final CurrentStockService currentStockService;
+   private final QuoteCacheProperties.WarmStart properties;
+
+   public QuoteCacheWarmer (CurrentStockService currentStockService, QuoteCacheProperties properties) {
+      this.currentStockService = currentStockService;
+      this.properties = properties.getWarmStart();
+   }
+
+   @Override
+   public void run(ApplicationArguments args) {
+      if (!properties.isEnabled()) {
+         logger.info("Quote cache warm start is disabled.");
+         return;
+      }
+
+      Duration timeout = properties.getTimeout();
+      Thread loader = Thread.ofVirtual().name("quote-cache-warm-start").start(this::load);
+      try {
+         if (!loader.join(timeout)) {
+            logger.warn("Warm start did not finish within {}, reporting ready while stored quotes keep loading.", timeout);
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   private void load() {
+      long started = System.nanoTime();
+      try {
+         int loaded = currentStockService.preloadStoredQuotes(properties.getBatchSize());
+         logger.info("Warm start loaded {} stored quotes from current_stocks in {} ms.",
+             loaded, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+      } catch (RuntimeException e) {
+         logger.warn("Warm start failed, the quote cache starts empty: {}", e.getMessage());
+      }
+   }
+}
@@ -0,0 +1,359 @@
+package com.stockdock.services;
+
+import com.stockdock.dto.StockQuote;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Delta encoding of the quotes stored in a 'historical_stock_data' bucket.
+ *
+ * Each quote is one row, encoded against the previous quote of the bucket (the first one against the
+ * bucket start and an empty quote):
+ * <ul>
+ *    <li>a flags byte saying which of the fields below changed or need the raw form;</li>
+ *    <li>the timestamp as nanoseconds since the previous quote, as an unsigned varint;</li>
+ *    <li>ask and bid price as the change in ten-thousandths, as a zigzag varint. A price with more
+ *        decimals is stored as a raw double instead, so the encoding is lossless;</li>
+ *    <li>ask and bid size as the change, as a zigzag varint;</li>
+ *    <li>exchanges, tape and conditions only when they differ from the previous quote.</li>
+ * </ul>
+ * A typical quote takes about 10 bytes instead of the ~150 of a BSON quote document.
+ */
+public final class QuoteHistoryCodec {
+
+   private static final double PRICE_SCALE = 10_000;
+   private static final long MAX_EXACT_TICKS = 1L << 53;
+
+   private static final int ASK_PRICE_RAW = 1;
+   private static final int BID_PRICE_RAW = 1 << 1;
+   private static final int ASK_EXCHANGE = 1 << 2;
+   private static final int BID_EXCHANGE = 1 << 3;
+   private static final int TAPE = 1 << 4;
+   private static final int CONDITIONS = 1 << 5;
+
+   private QuoteHistoryCodec() {
+   }
+
+   /**
+    * Decode all quotes of a bucket.
+    *
+    * @param start The bucket start the first quote is encoded against.
+    * @param data  The encoded quotes.
+    * @return The quotes in timestamp order.
+    */
+   public static List<StockQuote> decode(Instant start, byte[] data) {
+      Reader reader = new Reader(data);
+      Row row = new Row(epochNanos(start));
+      List<StockQuote> quotes = new ArrayList<>();
+      while (reader.hasMore()) {
+         quotes.add(row.read(reader));
+      }
+      return quotes;
+   }
+
+   /**
+    * Appends quotes to an encoded bucket. Not thread-safe.
+    */
+   public static final class Encoder {
+
+      private byte[] buffer;
+      private int size;
+      private int count;
+      private Row previous;
+      private Instant last;
+
+      public Encoder (Instant start) {
+         this.buffer = new byte[256];
+         this.previous = new Row(epochNanos(start));
+      }
+
+      /**
+       * Continue an encoded bucket, e.g. one read back from MongoDB.
+       */
+      public static Encoder resume(Instant start, byte[] data) {
+         Encoder encoder = new Encoder(start);
+         Reader reader = new Reader(data);
+         while (reader.hasMore()) {
+            encoder.last = encoder.previous.read(reader).t();
+            encoder.count++;
+         }
+         encoder.buffer = Arrays.copyOf(data, Math.max(data.length, 256));
+         encoder.size = data.length;
+         return encoder;
+      }
+
+      /**
+       * Add a quote; its timestamp must not be before the previous one.
+       */
+      public void append(StockQuote quote) {
+         Objects.requireNonNull(quote.t(), "Quote timestamp cannot be null.");
+         if (last != null && quote.t().isBefore(last)) {
+            throw new IllegalArgumentException("Quotes must be appended in timestamp order.");
+         }
+         previous.write(quote, this);
+         last = quote.t();
+         count++;
+      }
+
+      public Encoder copy() {
+         Encoder copy = new Encoder(Instant.EPOCH);
+         copy.buffer = Arrays.copyOf(buffer, buffer.length);
+         copy.size = size;
+         copy.count = count;
+         copy.previous = previous.copy();
+         copy.last = last;
+         return copy;
+      }
+
+      public int count() {
+         return count;
+      }
+
+      public Instant last() {
+         return last;
+      }
+
+      public byte[] toByteArray() {
+         return Arrays.copyOf(buffer, size);
+      }
+
+      private void writeByte(int value) {
+         if (size == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+         }
+         buffer[size++] = (byte) value;
+      }
+
+      private void writeVarLong(long value) {
+         while ((value & ~0x7FL) != 0) {
+            writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+         }
+         writeByte((int) value);
+      }
+
+      private void writeZigZag(long value) {
+         writeVarLong((value << 1) ^ (value >> 63));
+      }
+
+      private void writeDouble(double value) {
+         long bits = Double.doubleToRawLongBits(value);
+         for (int i = 0; i < 8; i++) {
+            writeByte((int) (bits >>> (8 * i)));
+         }
+      }
+
+      // Length + 1, so 0 can stand for null
+      private void writeString(String value) {
+         if (value == null) {
+            writeVarLong(0);
+            return;
+         }
+         byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+         writeVarLong(bytes.length + 1L);
+         for (byte b : bytes) {
+            writeByte(b);
+         }
+      }
+   }
+
+   // The previous quote, which the next row is encoded against
+   private static final class Row {
+      private long epochNanos;
+      private long askTicks;
+      private long bidTicks;
+      private int askSize;
+      private int bidSize;
+      private String askExchange;
+      private String bidExchange;
+      private String tape;
+      private List<String> conditions;
+
+      private Row (long epochNanos) {
+         this.epochNanos = epochNanos;
+      }
+
+      private Row copy() {
+         Row copy = new Row(epochNanos);
+         copy.askTicks = askTicks;
+         copy.bidTicks = bidTicks;
+         copy.askSize = askSize;
+         copy.bidSize = bidSize;
+         copy.askExchange = askExchange;
+         copy.bidExchange = bidExchange;
+         copy.tape = tape;
+         copy.conditions = conditions;
+         return copy;
+      }
+
+      private void write(StockQuote quote, Encoder out) {
+         long quoteNanos = epochNanos(quote.t());
+         long askTicks = ticks(quote.ap());
+         long bidTicks = ticks(quote.bp());
+         boolean askRaw = askTicks / PRICE_SCALE != quote.ap() || Math.abs(askTicks) >= MAX_EXACT_TICKS;
+         boolean bidRaw = bidTicks / PRICE_SCALE != quote.bp() || Math.abs(bidTicks) >= MAX_EXACT_TICKS;
+
+         int flags = (askRaw ? ASK_PRICE_RAW : 0)
+             | (bidRaw ? BID_PRICE_RAW : 0)
+             | (Objects.equals(quote.ax(), askExchange) ? 0 : ASK_EXCHANGE)
+             | (Objects.equals(quote.bx(), bidExchange) ? 0 : BID_EXCHANGE)
+             | (Objects.equals(quote.z(), tape) ? 0 : TAPE)
+             | (Objects.equals(quote.c(), conditions) ? 0 : CONDITIONS);
+
+         out.writeByte(flags);
+         out.writeVarLong(quoteNanos - epochNanos);
+         if (askRaw) {
+            out.writeDouble(quote.ap());
+         } else {
+            out.writeZigZag(askTicks - this.askTicks);
+         }
+         if (bidRaw) {
+            out.writeDouble(quote.bp());
+         } else {
+            out.writeZigZag(bidTicks - this.bidTicks);
+         }
+         out.writeZigZag((long) quote.as() - askSize);
+         out.writeZigZag((long) quote.bs() - bidSize);
+         if ((flags & ASK_EXCHANGE) != 0) {
+            out.writeString(quote.ax());
+         }
+         if ((flags & BID_EXCHANGE) != 0) {
+            out.writeString(quote.bx());
+         }
+         if ((flags & TAPE) != 0) {
+            out.writeString(quote.z());
+         }
+         if ((flags & CONDITIONS) != 0) {
+            if (quote.c() == null) {
+               out.writeVarLong(0);
+            } else {
+               out.writeVarLong(quote.c().size() + 1L);
+               quote.c().forEach(out::writeString);
+            }
+         }
+
+         this.epochNanos = quoteNanos;
+         this.askTicks = askTicks;
+         this.bidTicks = bidTicks;
+         this.askSize = quote.as();
+         this.bidSize = quote.bs();
+         this.askExchange = quote.ax();
+         this.bidExchange = quote.bx();
+         this.tape = quote.z();
+         this.conditions = quote.c() == null ? null : Collections.unmodifiableList(new ArrayList<>(quote.c()));
+      }
+
+      private StockQuote read(Reader in) {
+         int flags = in.readByte();
+         epochNanos += in.readVarLong();
+
+         double askPrice;
+         if ((flags & ASK_PRICE_RAW) != 0) {
+            askPrice = in.readDouble();
+            askTicks = ticks(askPrice);
+         } else {
+            askTicks += in.readZigZag();
+            askPrice = askTicks / PRICE_SCALE;
+         }
+         double bidPrice;
+         if ((flags & BID_PRICE_RAW) != 0) {
+            bidPrice = in.readDouble();
+            bidTicks = ticks(bidPrice);
+         } else {
+            bidTicks += in.readZigZag();
+            bidPrice = bidTicks / PRICE_SCALE;
+         }
+         askSize += (int) in.readZigZag();
+         bidSize += (int) in.readZigZag();
+         if ((flags & ASK_EXCHANGE) != 0) {
+            askExchange = in.readString();
+         }
+         if ((flags & BID_EXCHANGE) != 0) {
+            bidExchange = in.readString();
+         }
+         if ((flags & TAPE) != 0) {
+            tape = in.readString();
+         }
+         if ((flags & CONDITIONS) != 0) {
+            int size = (int) in.readVarLong();
+            if (size == 0) {
+               conditions = null;
+            } else {
+               List<String> read = new ArrayList<>(size - 1);
+               for (int i = 0; i < size - 1; i++) {
+                  read.add(in.readString());
+               }
+               conditions = Collections.unmodifiableList(read);
+            }
+         }
+
+         return new StockQuote(askPrice, askSize, askExchange, bidPrice, bidSize, bidExchange, conditions,
+             Instant.ofEpochSecond(0, epochNanos), tape);
+      }
+   }
+
+   private static final class Reader {
+      private final byte[] data;
+      private int position;
+
+      private Reader (byte[] data) {
+         this.data = data;
+      }
+
+      private boolean hasMore() {
+         return position < data.length;
+      }
+
+      private int readByte() {
+         return data[position++] & 0xFF;
+      }
+
+      private long readVarLong() {
+         long value = 0;
+         for (int shift = 0; ; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+               return value;
+            }
+         }
+      }
+
+      private long readZigZag() {
+         long value = readVarLong();
+         return (value >>> 1) ^ -(value & 1);
+      }
+
+      private double readDouble() {
+         long bits = 0;
+         for (int i = 0; i < 8; i++) {
+            bits |= (long) readByte() << (8 * i);
+         }
+         return Double.longBitsToDouble(bits);
+      }
+
+      private String readString() {
+         int length = (int) readVarLong();
+         if (length == 0) {
+            return null;
+         }
+         String value = new String(data, position, length - 1, StandardCharsets.UTF_8);
+         position += length - 1;
+         return value;
+      }
+   }
+
+   private static long ticks(double price) {
+      return Math.round(price * PRICE_SCALE);
+   }
+
+   private static long epochNanos(Instant instant) {
+      return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000_000L), instant.getNano());
+   }
+}
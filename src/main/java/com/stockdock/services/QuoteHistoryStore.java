@@ -0,0 +1,390 @@
+package com.stockdock.services;
+
+import com.stockdock.config.QuoteHistoryProperties;
+import com.stockdock.dto.QuoteHistoryResponse;
+import com.stockdock.dto.StockQuote;
+import com.stockdock.dto.TimeRange;
+import com.stockdock.exceptions.InvalidDateRangeException;
+import com.stockdock.models.QuoteHistoryBucket;
+import com.stockdock.repos.QuoteHistoryRepo;
+import com.stockdock.schedulers.MarketCalendar;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Intraday quote history in the 'historical_stock_data' collection.
+ *
+ * Saved quotes are recorded in memory and written every {@code quotes.history.flush-interval} into
+ * bucket documents, one per symbol and hour (or New York trading day) holding at most
+ * {@code max-per-bucket} quotes. Within a bucket the quotes are delta-encoded by
+ * {@link QuoteHistoryCodec} and ordered by timestamp; a quote that is not newer than the last one
+ * of its symbol is a duplicate and skipped.
+ *
+ * The bucket each symbol appends to is kept in memory, so a flush costs one bulk write and no reads.
+ * It is loaded from MongoDB on the first flush of a symbol. A bucket is only replaced if its stored
+ * count is still the one it was built on; if another instance appended in the meantime, the bucket
+ * is reloaded and the quotes are appended again on the next flush. Failed flushes keep their quotes
+ * for the next one, up to {@code max-pending-per-symbol} per symbol.
+ *
+ * Flushes run on a virtual thread of their own rather than as a {@code @Scheduled} task, so a slow
+ * MongoDB never holds up the scheduler thread the quote refresh runs on.
+ */
+@Service
+public class QuoteHistoryStore {
+
+   private static final Logger logger = LoggerFactory.getLogger(QuoteHistoryStore.class);
+   private static final String DEFAULT_CURRENCY = "USD";
+
+   private final QuoteHistoryRepo quoteHistoryRepo;
+   private final QuoteHistoryProperties properties;
+   private final ReentrantLock flushLock = new ReentrantLock();
+   private final CountDownLatch stopped = new CountDownLatch(1);
+
+   // Quotes recorded since the last flush, per symbol; mutated only inside map operations on the symbol
+   private final Map<String, PendingQuotes> pending = new ConcurrentHashMap<>();
+
+   // Last written bucket per symbol, empty if the symbol has none yet; guarded by flushLock
+   private final Map<String, Optional<OpenBucket>> openBuckets = new HashMap<>();
+
+   private final LongAdder recorded = new LongAdder();
+   private final LongAdder written = new LongAdder();
+   private final LongAdder duplicates = new LongAdder();
+   private final LongAdder dropped = new LongAdder();
+   private final LongAdder failedFlushes = new LongAdder();
+
+   private static final class PendingQuotes {
+      private final String currency;
+      private final ArrayDeque<StockQuote> quotes = new ArrayDeque<>();
+
+      private PendingQuotes (String currency) {
+         this.currency = currency;
+      }
+   }
+
+   // The encoder holds the written quotes and continues after them
+   private record OpenBucket(String currency, Instant start, int sequence, Instant first, QuoteHistoryCodec.Encoder encoder) {
+   }
+
+   public QuoteHistoryStore (QuoteHistoryRepo quoteHistoryRepo, QuoteHistoryProperties properties) {
+      this.quoteHistoryRepo = quoteHistoryRepo;
+      this.properties = properties;
+   }
+
+   @PostConstruct
+   public void start() {
+      if (properties.isEnabled()) {
+         Thread.ofVirtual().name("quote-history-flush").start(this::flushLoop);
+      }
+   }
+
+   /**
+    * Record quotes to be appended to the history on the next flush.
+    *
+    * @param currency The currency of the quotes.
+    * @param quotes   The quotes keyed by symbol; quotes without a timestamp are ignored.
+    */
+   public void record(String currency, Map<String, StockQuote> quotes) {
+      if (!properties.isEnabled()) {
+         return;
+      }
+      quotes.forEach((symbol, quote) -> {
+         if (quote != null && quote.t() != null) {
+            pending.compute(symbol, (key, waiting) -> {
+               PendingQuotes next = waiting != null ? waiting : new PendingQuotes(currency);
+               if (add(next, quote)) {
+                  recorded.increment();
+               }
+               return next;
+            });
+         }
+      });
+   }
+
+   /**
+    * Read the recorded quotes of a symbol within a range.
+    *
+    * One indexed query reads every bucket of the periods the range touches; quotes recorded since
+    * the last flush are included.
+    *
+    * @param symbol The stock symbol (e.g., "AAPL").
+    * @param range  The inclusive range of quote timestamps.
+    * @return The quotes in the range, oldest first.
+    * @throws InvalidDateRangeException if the range is longer than {@code quotes.history.max-range}.
+    */
+   public QuoteHistoryResponse getHistory(String symbol, TimeRange range) {
+      if (range.start().plus(properties.getMaxRange()).isBefore(range.end())) {
+         throw new InvalidDateRangeException("Quote history ranges can be at most " + properties.getMaxRange() + " long.");
+      }
+
+      List<QuoteHistoryBucket> buckets = quoteHistoryRepo.findBuckets(
+          symbol, bucketStart(range.start()), range.end(), Sort.by("start", "sequence"));
+
+      String currency = DEFAULT_CURRENCY;
+      List<StockQuote> quotes = new ArrayList<>();
+      Instant last = null;
+      for (QuoteHistoryBucket bucket : buckets) {
+         // Stored dates have millisecond precision, the encoded timestamps keep their nanoseconds
+         if (bucket.last() == null || bucket.last().plusMillis(1).isBefore(range.start())) {
+            continue;
+         }
+         if (bucket.currency() != null && !bucket.currency().isBlank()) {
+            currency = bucket.currency();
+         }
+         for (StockQuote quote : QuoteHistoryCodec.decode(bucket.start(), bucket.data())) {
+            if (range.contains(quote.t()) && (last == null || quote.t().isAfter(last))) {
+               quotes.add(quote);
+               last = quote.t();
+            }
+         }
+      }
+
+      // Not flushed yet
+      List<StockQuote> unwritten = new ArrayList<>();
+      pending.computeIfPresent(symbol, (key, waiting) -> {
+         unwritten.addAll(waiting.quotes);
+         return waiting;
+      });
+      for (StockQuote quote : unwritten) {
+         if (range.contains(quote.t()) && (last == null || quote.t().isAfter(last))) {
+            quotes.add(quote);
+            last = quote.t();
+         }
+      }
+      return new QuoteHistoryResponse(symbol, currency, quotes);
+   }
+
+   /**
+    * Append the recorded quotes to their buckets in one bulk write.
+    */
+   public void flush() {
+      if (!properties.isEnabled() || pending.isEmpty() || !flushLock.tryLock()) {
+         return;
+      }
+      try {
+         flushPending();
+      } finally {
+         flushLock.unlock();
+      }
+   }
+
+   /**
+    * Write what has been recorded before the MongoDB client shuts down.
+    */
+   @PreDestroy
+   public void flushOnShutdown() {
+      stopped.countDown();
+      if (!properties.isEnabled() || pending.isEmpty()) {
+         return;
+      }
+      flushLock.lock();
+      try {
+         flushPending();
+      } finally {
+         flushLock.unlock();
+      }
+   }
+
+   public int pendingQuotes() {
+      return pending.values().stream().mapToInt(waiting -> waiting.quotes.size()).sum();
+   }
+
+   public long recorded() {
+      return recorded.sum();
+   }
+
+   public long written() {
+      return written.sum();
+   }
+
+   public long duplicates() {
+      return duplicates.sum();
+   }
+
+   public long dropped() {
+      return dropped.sum();
+   }
+
+   public long failedFlushes() {
+      return failedFlushes.sum();
+   }
+
+   // Flush every flush-interval until shutdown, which writes what is left itself
+   private void flushLoop() {
+      try {
+         while (!stopped.await(properties.getFlushInterval().toNanos(), TimeUnit.NANOSECONDS)) {
+            try {
+               flush();
+            } catch (RuntimeException e) {
+               logger.error("Quote history flush failed, trying again in {}", properties.getFlushInterval(), e);
+            }
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   // Callers must hold flushLock
+   private void flushPending() {
+      Map<String, PendingQuotes> taken = new LinkedHashMap<>();
+      for (String symbol : List.copyOf(pending.keySet())) {
+         PendingQuotes waiting = pending.remove(symbol);
+         if (waiting != null) {
+            taken.put(symbol, waiting);
+         }
+      }
+
+      List<QuoteHistoryBucket> writes = new ArrayList<>();
+      Map<String, Integer> expectedCounts = new HashMap<>();
+      Map<String, String> symbolByBucket = new HashMap<>();
+      Map<String, OpenBucket> appended = new HashMap<>();
+      Map<String, Integer> appendedQuotes = new HashMap<>();
+
+      for (Map.Entry<String, PendingQuotes> entry : taken.entrySet()) {
+         String symbol = entry.getKey();
+         Optional<OpenBucket> open;
+         try {
+            open = openBucket(symbol);
+         } catch (Exception e) {
+            failedFlushes.increment();
+            logger.warn("Failed to load the quote history of {}, keeping {} symbols for the next flush: {}",
+                symbol, taken.size(), e.getMessage());
+            taken.forEach(this::restore);
+            return;
+         }
+
+         OpenBucket bucket = open.map(current -> new OpenBucket(current.currency(), current.start(), current.sequence(),
+             current.first(), current.encoder().copy())).orElse(null);
+         int expected = open.map(current -> current.encoder().count()).orElse(0);
+         int added = 0;
+
+         for (StockQuote quote : entry.getValue().quotes) {
+            if (bucket != null && bucket.encoder().last() != null && !quote.t().isAfter(bucket.encoder().last())) {
+               duplicates.increment();
+               continue;
+            }
+
+            Instant start = bucketStart(quote.t());
+            if (bucket == null || !start.equals(bucket.start()) || bucket.encoder().count() >= properties.getMaxPerBucket()) {
+               if (bucket != null && bucket.encoder().count() > expected) {
+                  addWrite(symbol, bucket, expected, writes, expectedCounts, symbolByBucket); // Sealed, continues in the next bucket
+               }
+               int sequence = bucket != null && start.equals(bucket.start()) ? bucket.sequence() + 1 : 0;
+               bucket = new OpenBucket(entry.getValue().currency, start, sequence, quote.t(), new QuoteHistoryCodec.Encoder(start));
+               expected = 0;
+            }
+            bucket.encoder().append(quote);
+            added++;
+         }
+
+         if (bucket != null && bucket.encoder().count() > expected) {
+            addWrite(symbol, bucket, expected, writes, expectedCounts, symbolByBucket);
+            appended.put(symbol, bucket);
+            appendedQuotes.put(symbol, added);
+         }
+      }
+
+      if (writes.isEmpty()) {
+         return;
+      }
+
+      Set<String> conflicts;
+      try {
+         conflicts = quoteHistoryRepo.bulkAppend(writes, expectedCounts);
+      } catch (Exception e) {
+         failedFlushes.increment();
+         logger.warn("Failed to write the quote history of {} symbols, retrying on the next flush: {}",
+             appended.size(), e.getMessage());
+         taken.forEach(this::restore);
+         return;
+      }
+
+      Set<String> conflictedSymbols = new HashSet<>();
+      conflicts.forEach(id -> conflictedSymbols.add(symbolByBucket.get(id)));
+      appended.forEach((symbol, bucket) -> {
+         if (conflictedSymbols.contains(symbol)) {
+            openBuckets.remove(symbol); // Reload what the other writer stored
+            restore(symbol, taken.get(symbol));
+         } else {
+            openBuckets.put(symbol, Optional.of(bucket));
+            written.add(appendedQuotes.get(symbol));
+         }
+      });
+
+      if (!conflictedSymbols.isEmpty()) {
+         logger.warn("Quote history of {} was changed by another instance, appending again on the next flush.", conflictedSymbols);
+      }
+      logger.debug("Wrote {} quote history buckets of {} symbols.", writes.size(), appended.size());
+   }
+
+   private void addWrite(String symbol, OpenBucket bucket, int expected, List<QuoteHistoryBucket> writes,
+                         Map<String, Integer> expectedCounts, Map<String, String> symbolByBucket) {
+      String id = QuoteHistoryBucket.id(symbol, bucket.start(), bucket.sequence());
+      writes.add(new QuoteHistoryBucket(id, symbol, bucket.currency(), bucket.start(), bucket.sequence(), bucket.first(),
+          bucket.encoder().last(), bucket.encoder().count(), bucket.encoder().toByteArray()));
+      expectedCounts.put(id, expected);
+      symbolByBucket.put(id, symbol);
+   }
+
+   // Callers must hold flushLock
+   private Optional<OpenBucket> openBucket(String symbol) {
+      Optional<OpenBucket> open = openBuckets.get(symbol);
+      if (open == null) {
+         open = quoteHistoryRepo.findFirstBySymbolOrderByStartDescSequenceDesc(symbol)
+             .map(stored -> new OpenBucket(stored.currency(), stored.start(), stored.sequence(), stored.first(),
+                 QuoteHistoryCodec.Encoder.resume(stored.start(), stored.data())));
+         openBuckets.put(symbol, open);
+      }
+      return open;
+   }
+
+   // Put quotes of a failed flush back in front of the ones recorded since
+   private void restore(String symbol, PendingQuotes failed) {
+      pending.merge(symbol, failed, (recordedSince, older) -> {
+         recordedSince.quotes.forEach(quote -> add(older, quote));
+         return older;
+      });
+   }
+
+   // Skips quotes that are not newer than the last recorded one and drops the oldest beyond the per-symbol bound
+   private boolean add(PendingQuotes waiting, StockQuote quote) {
+      StockQuote last = waiting.quotes.peekLast();
+      if (last != null && !quote.t().isAfter(last.t())) {
+         duplicates.increment();
+         return false;
+      }
+      if (waiting.quotes.size() >= properties.getMaxPendingPerSymbol()) {
+         waiting.quotes.pollFirst();
+         dropped.increment();
+      }
+      waiting.quotes.addLast(quote);
+      return true;
+   }
+
+   private Instant bucketStart(Instant instant) {
+      return switch (properties.getBucket()) {
+         case HOUR -> instant.truncatedTo(ChronoUnit.HOURS);
+         case DAY -> instant.atZone(MarketCalendar.ZONE).toLocalDate().atStartOfDay(MarketCalendar.ZONE).toInstant();
+      };
+   }
+}
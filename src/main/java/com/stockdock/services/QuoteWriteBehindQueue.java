@@ -0,0 +1,417 @@
+package com.stockdock.services;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.stockdock.config.WriteBehindProperties;
+import com.stockdock.dto.QuoteWriteResult;
+import com.stockdock.dto.StockQuote;
+import com.stockdock.dto.WriteBehindStats;
+import com.stockdock.models.CurrentStock;
+import com.stockdock.repos.CurrentStockRepo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind queue between the quote producers and the 'current_stocks' collection.
+ *
+ * Fetches and stream messages hand their quotes over and return at once; a single flusher thread
+ * upserts them with {@link CurrentStockRepo#bulkUpsert}. Only the newest quote per symbol waits in
+ * the queue, so a symbol that updates faster than MongoDB accepts writes costs one document write
+ * per flush. A flush starts once {@code quotes.write-behind.batch-size} symbols are waiting or the
+ * oldest has waited {@code flush-interval}.
+ *
+ * A failed flush keeps its quotes queued and is retried with a growing delay, so a MongoDB outage
+ * delays the writes without failing the refreshes. The queue holds at most {@code max-pending}
+ * symbols; when it is full a new symbol either drops the one waiting longest or makes the caller
+ * wait ({@code overflow}). On shutdown the remaining quotes are written before MongoDB closes.
+ */
+@Component
+public class QuoteWriteBehindQueue {
+
+   private static final Logger logger = LoggerFactory.getLogger(QuoteWriteBehindQueue.class);
+
+   private final CurrentStockRepo currentStockRepo;
+   private final WriteBehindProperties properties;
+   private final Timer flushTimer;
+   private final Timer failedFlushTimer;
+
+   private final ReentrantLock lock = new ReentrantLock();
+   private final Condition changed = lock.newCondition(); // Quotes arrived, room was freed or shutdown started
+
+   // Guarded by lock: newest waiting quote per symbol, in the order the symbols were queued
+   private final LinkedHashMap<String, Pending> pending = new LinkedHashMap<>();
+   private boolean stopping;
+
+   // Quote timestamp of the last successful write per symbol, used to skip unchanged quotes
+   private final Map<String, Instant> lastWrittenQuoteTimes = new ConcurrentHashMap<>();
+
+   private final LongAdder queued = new LongAdder();
+   private final LongAdder coalesced = new LongAdder();
+   private final LongAdder dropped = new LongAdder();
+   private final LongAdder written = new LongAdder();
+   private final LongAdder flushes = new LongAdder();
+   private final LongAdder failedFlushes = new LongAdder();
+   private final AtomicLong lastFlushNanos = new AtomicLong();
+   private final AtomicLong maxFlushNanos = new AtomicLong();
+
+   private Thread flusher;
+
+   private record Pending(CurrentStock stock, long queuedNanos) {
+   }
+
+   public QuoteWriteBehindQueue (CurrentStockRepo currentStockRepo, WriteBehindProperties properties, MeterRegistry meterRegistry) {
+      this.currentStockRepo = currentStockRepo;
+      this.properties = properties;
+      this.flushTimer = flushTimer(meterRegistry, "success");
+      this.failedFlushTimer = flushTimer(meterRegistry, "failure");
+   }
+
+   @PostConstruct
+   public void start() {
+      if (properties.isEnabled()) {
+         flusher = Thread.ofVirtual().name("quote-write-behind").start(this::flushLoop);
+      }
+   }
+
+   /**
+    * Queue quotes to be written to 'current_stocks'.
+    *
+    * Quotes whose timestamp is not newer than the last written one, or than the one already waiting
+    * for the symbol, are skipped. With the queue disabled, or once shutdown has started, the quotes
+    * are written synchronously and a MongoDB failure is thrown to the caller.
+    *
+    * @param currency The currency of the quotes.
+    * @param quotes   The quotes keyed by symbol.
+    * @return QuoteWriteResult with the number of queued, skipped and dropped quotes.
+    */
+   public QuoteWriteResult submit(String currency, Map<String, StockQuote> quotes) {
+      if (!properties.isEnabled()) {
+         return writeNow(currency, quotes);
+      }
+
+      QuoteWriteResult result = enqueue(currency, quotes);
+      if (result == null) {
+         return writeNow(currency, quotes); // The flusher is draining, nothing queued now would be written
+      }
+
+      queued.add(result.queued());
+      if (result.dropped() > 0) {
+         dropped.add(result.dropped());
+         logger.warn("Write-behind queue full, dropped {} quotes.", result.dropped());
+      }
+      return result;
+   }
+
+   /**
+    * Remember that a quote is already stored, e.g. because it was read from 'current_stocks'.
+    */
+   public void markWritten(String symbol, Instant quoteTime) {
+      if (quoteTime != null) {
+         lastWrittenQuoteTimes.merge(symbol, quoteTime, (previous, current) -> current.isAfter(previous) ? current : previous);
+      }
+   }
+
+   public WriteBehindStats stats() {
+      int depth;
+      long oldestNanos;
+      lock.lock();
+      try {
+         depth = pending.size();
+         oldestNanos = pending.isEmpty() ? 0 : System.nanoTime() - pending.firstEntry().getValue().queuedNanos();
+      } finally {
+         lock.unlock();
+      }
+      return new WriteBehindStats(
+          properties.isEnabled(),
+          depth,
+          properties.getMaxPending(),
+          TimeUnit.NANOSECONDS.toMillis(oldestNanos),
+          queued.sum(),
+          coalesced.sum(),
+          dropped.sum(),
+          written.sum(),
+          flushes.sum(),
+          failedFlushes.sum(),
+          TimeUnit.NANOSECONDS.toMillis(lastFlushNanos.get()),
+          TimeUnit.NANOSECONDS.toMillis(maxFlushNanos.get())
+      );
+   }
+
+   /**
+    * Write the remaining quotes before the MongoDB client shuts down.
+    */
+   @PreDestroy
+   public void stop() {
+      int remaining;
+      lock.lock();
+      try {
+         stopping = true;
+         remaining = pending.size();
+         changed.signalAll();
+      } finally {
+         lock.unlock();
+      }
+      if (flusher == null) {
+         return;
+      }
+
+      if (remaining > 0) {
+         logger.info("Writing {} queued quotes to MongoDB before shutdown.", remaining);
+      }
+      try {
+         flusher.join(properties.getDrainTimeout());
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+      if (flusher.isAlive()) {
+         flusher.interrupt();
+         logger.error("Write-behind queue not drained within {}, {} quotes were not written.",
+             properties.getDrainTimeout(), stats().depth());
+      }
+   }
+
+   private void flushLoop() {
+      long retryNanos = properties.getRetryDelay().toNanos();
+      while (true) {
+         List<Pending> batch;
+         lock.lock();
+         try {
+            while (!stopping && !isFlushDue()) {
+               long wait = nanosUntilFlushDue();
+               if (wait == Long.MAX_VALUE) {
+                  changed.await();
+               } else {
+                  changed.awaitNanos(wait);
+               }
+            }
+            if (pending.isEmpty()) {
+               return; // Stopping and drained
+            }
+            batch = takeBatch();
+            changed.signalAll(); // Room for callers waiting with overflow=block
+         } catch (InterruptedException e) {
+            return;
+         } finally {
+            lock.unlock();
+         }
+
+         try {
+            flush(batch.stream().map(Pending::stock).toList());
+            retryNanos = properties.getRetryDelay().toNanos();
+         } catch (Exception e) {
+            logger.warn("Failed to write {} queued quotes to MongoDB, retrying in {} ms: {}",
+                batch.size(), TimeUnit.NANOSECONDS.toMillis(retryNanos), e.getMessage());
+            requeue(batch);
+            try {
+               TimeUnit.NANOSECONDS.sleep(retryNanos);
+            } catch (InterruptedException interrupted) {
+               return;
+            }
+            retryNanos = Math.min(retryNanos * 2, properties.getMaxRetryDelay().toNanos());
+         }
+      }
+   }
+
+   // Returns null once shutdown has started
+   private QuoteWriteResult enqueue(String currency, Map<String, StockQuote> quotes) {
+      int accepted = 0;
+      int skipped = 0;
+      int droppedQuotes = 0;
+      long deadline = System.nanoTime() + properties.getOfferTimeout().toNanos();
+
+      lock.lock();
+      try {
+         if (stopping) {
+            return null;
+         }
+
+         for (Map.Entry<String, StockQuote> entry : quotes.entrySet()) {
+            String symbol = entry.getKey();
+            StockQuote quote = Objects.requireNonNull(entry.getValue(), "Stock quote for symbol " + symbol + " cannot be null.");
+
+            if (!isNewer(quote.t(), lastWrittenQuoteTimes.get(symbol))) {
+               skipped++;
+               continue;
+            }
+            if (!pending.containsKey(symbol) && pending.size() >= properties.getMaxPending()) {
+               // Either a waiting quote makes way for this one, or this one finds no room; both are dropped
+               droppedQuotes++;
+               if (!makeRoom(deadline)) {
+                  continue;
+               }
+            }
+
+            Pending waiting = pending.get(symbol);
+            if (waiting == null) {
+               pending.put(symbol, new Pending(new CurrentStock(symbol, currency, quote), System.nanoTime()));
+            } else if (isNewer(quote.t(), waiting.stock().latestQuote().t())) {
+               // Replacing keeps the symbol's place in the queue and its original wait time
+               pending.put(symbol, new Pending(new CurrentStock(symbol, currency, quote), waiting.queuedNanos()));
+               coalesced.increment();
+            } else {
+               skipped++;
+               continue;
+            }
+            accepted++;
+         }
+
+         if (accepted > 0) {
+            changed.signalAll();
+         }
+      } finally {
+         lock.unlock();
+      }
+      return new QuoteWriteResult(accepted, skipped, droppedQuotes);
+   }
+
+   // Bulk upsert on the calling thread; used when the queue is disabled or shutting down
+   private QuoteWriteResult writeNow(String currency, Map<String, StockQuote> quotes) {
+      List<CurrentStock> changedStocks = new ArrayList<>();
+      quotes.forEach((symbol, quote) -> {
+         Objects.requireNonNull(quote, "Stock quote for symbol " + symbol + " cannot be null.");
+         if (isNewer(quote.t(), lastWrittenQuoteTimes.get(symbol))) {
+            changedStocks.add(new CurrentStock(symbol, currency, quote));
+         }
+      });
+      flush(changedStocks);
+      return new QuoteWriteResult(changedStocks.size(), quotes.size() - changedStocks.size(), 0);
+   }
+
+   private void flush(List<CurrentStock> stocks) {
+      if (stocks.isEmpty()) {
+         return;
+      }
+
+      long startNanos = System.nanoTime();
+      BulkWriteResult result;
+      try {
+         result = currentStockRepo.bulkUpsert(stocks);
+      } catch (RuntimeException e) {
+         failedFlushes.increment();
+         failedFlushTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+         throw e;
+      }
+
+      long elapsed = System.nanoTime() - startNanos;
+      flushTimer.record(elapsed, TimeUnit.NANOSECONDS);
+      lastFlushNanos.set(elapsed);
+      maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+      flushes.increment();
+      written.add(stocks.size());
+
+      // Only remember timestamps once they are safely written
+      stocks.forEach(stock -> markWritten(stock.symbol(), stock.latestQuote().t()));
+      logger.debug("Saved {} quotes to MongoDB in {} ms: {} inserted, {} modified.",
+          stocks.size(), TimeUnit.NANOSECONDS.toMillis(elapsed), result.getUpserts().size(), result.getModifiedCount());
+   }
+
+   // Callers must hold the lock. Returns false if the new quote has to be dropped, true if there is room,
+   // either freed by the flusher or by dropping the oldest waiting quote.
+   private boolean makeRoom(long deadline) {
+      if (pending.isEmpty()) {
+         return false; // max-pending below 1
+      }
+      if (properties.getOverflow() == WriteBehindProperties.Overflow.DROP_OLDEST) {
+         Iterator<Map.Entry<String, Pending>> oldest = pending.entrySet().iterator();
+         String symbol = oldest.next().getKey();
+         oldest.remove();
+         logger.debug("Write-behind queue full, dropped the waiting quote of {}", symbol);
+         return true;
+      }
+
+      changed.signalAll(); // The flusher may still be waiting for the flush interval
+      try {
+         while (pending.size() >= properties.getMaxPending()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || stopping) {
+               return false;
+            }
+            changed.awaitNanos(remaining);
+         }
+         return true;
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         return false;
+      }
+   }
+
+   // Callers must hold the lock
+   private boolean isFlushDue() {
+      return pending.size() >= properties.getBatchSize() || nanosUntilFlushDue() <= 0;
+   }
+
+   // Callers must hold the lock
+   private long nanosUntilFlushDue() {
+      if (pending.isEmpty()) {
+         return Long.MAX_VALUE;
+      }
+      long waited = System.nanoTime() - pending.firstEntry().getValue().queuedNanos();
+      return properties.getFlushInterval().toNanos() - waited;
+   }
+
+   // Callers must hold the lock
+   private List<Pending> takeBatch() {
+      List<Pending> batch = new ArrayList<>(Math.min(pending.size(), properties.getBatchSize()));
+      Iterator<Pending> iterator = pending.values().iterator();
+      while (iterator.hasNext() && batch.size() < properties.getBatchSize()) {
+         batch.add(iterator.next());
+         iterator.remove();
+      }
+      return batch;
+   }
+
+   // Put a failed batch back at the head of the queue unless a newer quote arrived in the meantime
+   private void requeue(List<Pending> batch) {
+      lock.lock();
+      try {
+         LinkedHashMap<String, Pending> merged = new LinkedHashMap<>();
+         batch.forEach(waiting -> merged.put(waiting.stock().symbol(), waiting));
+         pending.forEach((symbol, waiting) -> merged.merge(symbol, waiting, (failed, newer) ->
+             isNewer(failed.stock().latestQuote().t(), newer.stock().latestQuote().t()) ? failed : newer));
+
+         pending.clear();
+         pending.putAll(merged);
+         if (properties.getOverflow() == WriteBehindProperties.Overflow.DROP_OLDEST && pending.size() > properties.getMaxPending()) {
+            int overflow = pending.size() - properties.getMaxPending();
+            for (int i = 0; i < overflow; i++) {
+               pending.pollFirstEntry();
+            }
+            dropped.add(overflow);
+            logger.warn("Write-behind queue full after a failed flush, dropped {} quotes.", overflow);
+         }
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   // Quotes without a timestamp are always treated as newer
+   private static boolean isNewer(Instant quoteTime, Instant previous) {
+      return quoteTime == null || previous == null || quoteTime.isAfter(previous);
+   }
+
+   private static Timer flushTimer(MeterRegistry meterRegistry, String outcome) {
+      return Timer.builder("stockdock.quote.writebehind.flush")
+          .description("Latency of one write-behind flush to current_stocks")
+          .tag("outcome", outcome)
+          .publishPercentileHistogram()
+          .register(meterRegistry);
+   }
+}
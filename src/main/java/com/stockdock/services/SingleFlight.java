@@ -0,0 +1,66 @@
+package com.stockdock.services;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent identical calls into one.
+ *
+ * The first caller for a key runs the call; callers arriving with the same key while it is in flight
+ * wait for it and receive the same result or exception. Nothing is cached: once the call completes,
+ * the next caller for the key starts a new one.
+ *
+ * @param <K> The request key.
+ * @param <V> The result type.
+ */
+public class SingleFlight<K, V> {
+
+   private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+   private final LongAdder coalesced = new LongAdder();
+
+   public V execute(K key, Supplier<V> call) {
+      CompletableFuture<V> created = new CompletableFuture<>();
+      CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+
+      if (existing != null) {
+         coalesced.increment();
+         return await(existing);
+      }
+
+      try {
+         V value = call.get();
+         created.complete(value);
+         return value;
+      } catch (RuntimeException | Error e) {
+         created.completeExceptionally(e);
+         throw e;
+      } finally {
+         inFlight.remove(key, created);
+      }
+   }
+
+   /**
+    * @return How many calls were answered by another caller's in-flight call.
+    */
+   public long coalescedCount() {
+      return coalesced.sum();
+   }
+
+   private V await(CompletableFuture<V> future) {
+      try {
+         return future.join();
+      } catch (CompletionException e) {
+         if (e.getCause() instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+         }
+         if (e.getCause() instanceof Error error) {
+            throw error;
+         }
+         throw e;
+      }
+   }
+}
@@ -0,0 +1,222 @@
+package com.stockdock.services;
+
+import com.stockdock.clients.RequestPriority;
+import com.stockdock.config.StaleWhileRevalidateProperties;
+import com.stockdock.exceptions.ApiRequestException;
+import com.stockdock.exceptions.RateLimitExceededException;
+import com.stockdock.exceptions.ServiceUnavailableException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Serves the last known value when Alpaca is too slow or failing, and keeps revalidating in the background.
+ *
+ * An upstream read runs on its own virtual thread and the caller waits for it up to a latency budget.
+ * If the budget runs out, or the call fails because Alpaca is unavailable (open circuit breaker, rate
+ * limit, timeout, 5xx or 429), the caller gets the last known value flagged as stale. A call that
+ * exceeded the budget keeps running and updates the caches when it completes. Errors that are the
+ * request's fault (e.g. an unknown symbol) are never hidden behind stale data, and without a last known
+ * value the caller waits for Alpaca as before.
+ */
+@Component
+public class StaleWhileRevalidate {
+
+   private static final Logger logger = LoggerFactory.getLogger(StaleWhileRevalidate.class);
+
+   private final StaleWhileRevalidateProperties properties;
+   private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+   private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+
+   private final LongAdder fresh = new LongAdder();
+   private final LongAdder staleAfterBudget = new LongAdder();
+   private final LongAdder staleAfterFailure = new LongAdder();
+   private final LongAdder revalidations = new LongAdder();
+
+   public StaleWhileRevalidate (StaleWhileRevalidateProperties properties) {
+      this.properties = properties;
+   }
+
+   /**
+    * A value together with whether it is the last known one rather than a fresh read.
+    */
+   public record Served<T>(T value, boolean stale) {
+
+      public <R> Served<R> map(Function<T, R> mapper) {
+         return new Served<>(mapper.apply(value), stale);
+      }
+   }
+
+   /**
+    * Read from Alpaca within a latency budget, falling back to the last known value.
+    *
+    * @param name      What is read, for logging (e.g. "snapshot AAPL").
+    * @param budget    Longest the caller waits before the last known value is served.
+    * @param upstream  The upstream read, including whatever caching it does on success.
+    * @param lastKnown The last known value; only asked for when it is needed and may be slow (MongoDB).
+    * @return The fresh value, or the last known one flagged as stale.
+    */
+   public <T> Served<T> fetch(String name, Duration budget, Supplier<T> upstream, Supplier<Optional<T>> lastKnown) {
+      if (!properties.isEnabled()) {
+         return new Served<>(upstream.get(), false);
+      }
+
+      RequestPriority priority = RequestPriority.current();
+      CompletableFuture<T> call = CompletableFuture.supplyAsync(() -> RequestPriority.callWith(priority, upstream), executor);
+      try {
+         T value = call.get(budget.toNanos(), TimeUnit.NANOSECONDS);
+         fresh.increment();
+         return new Served<>(value, false);
+      } catch (TimeoutException e) {
+         Optional<T> fallback = lastKnown(name, lastKnown);
+         if (fallback.isEmpty()) {
+            fresh.increment();
+            return new Served<>(await(call), false); // Nothing to serve instead, wait as before
+         }
+         call.exceptionally(error -> {
+            logger.debug("Background revalidation of {} failed: {}", name, error.getMessage());
+            return null;
+         });
+         staleAfterBudget.increment();
+         logger.debug("Alpaca exceeded the {} ms budget for {}, serving the last known value", budget.toMillis(), name);
+         return new Served<>(fallback.get(), true);
+      } catch (ExecutionException e) {
+         RuntimeException cause = unwrap(e.getCause());
+         if (!isUpstreamFailure(cause)) {
+            throw cause;
+         }
+         Optional<T> fallback = lastKnown(name, lastKnown);
+         if (fallback.isEmpty()) {
+            throw cause;
+         }
+         staleAfterFailure.increment();
+         logger.warn("Serving the last known {}, Alpaca failed: {}", name, cause.getMessage());
+         return new Served<>(fallback.get(), true);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new ServiceUnavailableException("Interrupted while waiting for Alpaca.");
+      }
+   }
+
+   /**
+    * Run a refresh in the background unless one with the same key is already running.
+    *
+    * Used when a stale value is served from a cache, so the next read finds a fresh one.
+    */
+   public void revalidate(String key, Runnable refresh) {
+      if (!revalidating.add(key)) {
+         return;
+      }
+      revalidations.increment();
+      RequestPriority priority = RequestPriority.current();
+      executor.execute(() -> {
+         try {
+            RequestPriority.callWith(priority, () -> {
+               refresh.run();
+               return null;
+            });
+         } catch (RuntimeException e) {
+            logger.debug("Background revalidation of {} failed: {}", key, e.getMessage());
+         } finally {
+            revalidating.remove(key);
+         }
+      });
+   }
+
+   /**
+    * Stop the upstream reads and revalidations still running, so they do not outlive the clients they use.
+    */
+   @PreDestroy
+   public void stop() {
+      executor.shutdownNow();
+   }
+
+   /**
+    * @return Reads answered by Alpaca.
+    */
+   public long freshCount() {
+      return fresh.sum();
+   }
+
+   /**
+    * @return Reads answered with the last known value because Alpaca exceeded the latency budget.
+    */
+   public long staleAfterBudgetCount() {
+      return staleAfterBudget.sum();
+   }
+
+   /**
+    * @return Reads answered with the last known value because Alpaca was unavailable.
+    */
+   public long staleAfterFailureCount() {
+      return staleAfterFailure.sum();
+   }
+
+   /**
+    * @return Background refreshes started for stale cached values.
+    */
+   public long revalidationCount() {
+      return revalidations.sum();
+   }
+
+   // The last known value, or empty if there is none or it cannot be read
+   private static <T> Optional<T> lastKnown(String name, Supplier<Optional<T>> lastKnown) {
+      try {
+         return lastKnown.get();
+      } catch (RuntimeException e) {
+         logger.warn("Could not read the last known {}: {}", name, e.getMessage());
+         return Optional.empty();
+      }
+   }
+
+   // Whether Alpaca could not answer, as opposed to rejecting the request itself
+   private static boolean isUpstreamFailure(Throwable error) {
+      if (error instanceof ApiRequestException && error.getCause() != null) {
+         return isUpstreamFailure(error.getCause());
+      }
+      return error instanceof ServiceUnavailableException
+          || error instanceof RateLimitExceededException
+          || error instanceof ResourceAccessException
+          || error instanceof HttpServerErrorException
+          || error instanceof HttpClientErrorException.TooManyRequests;
+   }
+
+   private static <T> T await(CompletableFuture<T> call) {
+      try {
+         return call.get();
+      } catch (ExecutionException e) {
+         throw unwrap(e.getCause());
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new ServiceUnavailableException("Interrupted while waiting for Alpaca.");
+      }
+   }
+
+   private static RuntimeException unwrap(Throwable cause) {
+      if (cause instanceof RuntimeException runtimeException) {
+         return runtimeException;
+      }
+      if (cause instanceof Error error) {
+         throw error;
+      }
+      return new IllegalStateException(cause);
+   }
+}
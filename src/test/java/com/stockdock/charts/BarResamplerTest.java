@@ -0,0 +1,69 @@
+package com.stockdock.charts;
+
+import com.stockdock.dto.BarSeries;
+import com.stockdock.dto.Timeframe;
+import com.stockdock.exceptions.InvalidRequestParameterException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BarResamplerTest {
+
+   private static final Timeframe ONE_MIN = Timeframe.parse("1Min");
+   private static final Timeframe FIVE_MIN = Timeframe.parse("5Min");
+   private static final Timeframe ONE_DAY = Timeframe.parse("1Day");
+
+   @Test
+   void minuteBarsRollUpIntoFiveMinuteBars() {
+      BarSeries.Builder builder = BarSeries.builder("AAPL", "1Min");
+      long open = Instant.parse("2026-10-16T13:30:00Z").toEpochMilli();
+      for (int i = 0; i < 7; i++) {
+         builder.add(open + i * 60_000L, 10 + i, 11 + i, 9 + i, 10.5 + i, 100, 2, 10 + i);
+      }
+
+      BarSeries resampled = BarResampler.resample(builder.build(), ONE_MIN, FIVE_MIN);
+
+      assertThat(resampled.size()).isEqualTo(2);
+      assertThat(resampled.timeframe()).isEqualTo("5Min");
+      assertThat(resampled.t()).containsExactly(open, open + 300_000L);
+      assertThat(resampled.o()).containsExactly(10, 15);
+      assertThat(resampled.h()).containsExactly(15, 17);
+      assertThat(resampled.l()).containsExactly(9, 14);
+      assertThat(resampled.c()).containsExactly(14.5, 16.5);
+      assertThat(resampled.v()).containsExactly(500, 200);
+      assertThat(resampled.n()).containsExactly(10, 4);
+      assertThat(resampled.vw()).containsExactly(12, 15.5);
+   }
+
+   @Test
+   void dayBucketsFollowTheNewYorkCalendar() {
+      // 21:00 in New York is already the next day in UTC
+      Instant evening = Instant.parse("2026-10-17T01:00:00Z");
+      Instant summer = Instant.parse("2026-10-16T04:00:00Z");
+      Instant winter = Instant.parse("2026-12-16T05:00:00Z");
+
+      assertThat(BarResampler.bucketStart(evening, ONE_DAY)).isEqualTo(summer);
+      assertThat(BarResampler.bucketStart(Instant.parse("2026-12-16T20:59:00Z"), ONE_DAY)).isEqualTo(winter);
+   }
+
+   @Test
+   void weekAndMonthBucketsStartOnMondayAndTheFirst() {
+      Instant friday = Instant.parse("2026-10-16T19:59:00Z");
+
+      assertThat(BarResampler.bucketStart(friday, Timeframe.parse("1Week"))).isEqualTo(Instant.parse("2026-10-12T04:00:00Z"));
+      assertThat(BarResampler.bucketStart(friday, Timeframe.parse("1Month"))).isEqualTo(Instant.parse("2026-10-01T04:00:00Z"));
+   }
+
+   @Test
+   void targetsThatAreNotAnExactRollUpAreRejected() {
+      assertThatThrownBy(() -> BarResampler.validate(FIVE_MIN, ONE_MIN)).isInstanceOf(InvalidRequestParameterException.class);
+      assertThatThrownBy(() -> BarResampler.validate(Timeframe.parse("2Min"), FIVE_MIN)).isInstanceOf(InvalidRequestParameterException.class);
+      assertThatThrownBy(() -> BarResampler.validate(Timeframe.parse("1Week"), Timeframe.parse("1Month")))
+          .isInstanceOf(InvalidRequestParameterException.class);
+      BarResampler.validate(ONE_MIN, Timeframe.parse("1Hour"));
+      BarResampler.validate(FIVE_MIN, ONE_DAY);
+   }
+}
@@ -0,0 +1,112 @@
+package com.stockdock.charts;
+
+import com.stockdock.dto.BarSeries;
+import com.stockdock.exceptions.InvalidRequestParameterException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DownsamplerTest {
+
+   private static final long START = 1_760_621_400_000L; // 2025-10-16T13:30:00Z
+   private static final long MINUTE = 60_000L;
+
+   @Test
+   void lttbKeepsFirstAndLastBarAndReturnsThresholdBarsInOrder() {
+      BarSeries series = wave(1000);
+
+      BarSeries sampled = Downsampler.downsample(series, 50, Downsampler.Method.LTTB);
+
+      assertThat(sampled.size()).isEqualTo(50);
+      assertThat(sampled.t()[0]).isEqualTo(series.t()[0]);
+      assertThat(sampled.t()[49]).isEqualTo(series.t()[999]);
+      assertThat(sampled.t()).isSorted().doesNotHaveDuplicates();
+   }
+
+   @Test
+   void lttbPicksThePeakOfASingleSpike() {
+      double[] y = new double[101];
+      y[40] = 100;
+      long[] x = new long[101];
+      for (int i = 0; i < x.length; i++) {
+         x[i] = i;
+      }
+
+      assertThat(Downsampler.lttb(x, y, 3)).containsExactly(0, 40, 100);
+   }
+
+   @Test
+   void minMaxKeepsTheExtremes() {
+      BarSeries series = wave(1000);
+
+      BarSeries sampled = Downsampler.downsample(series, 20, Downsampler.Method.MIN_MAX);
+
+      assertThat(sampled.size()).isBetween(2, 20);
+      assertThat(sampled.t()[0]).isEqualTo(series.t()[0]);
+      assertThat(sampled.t()[sampled.size() - 1]).isEqualTo(series.t()[999]);
+      assertThat(sampled.t()).isSorted().doesNotHaveDuplicates();
+      assertThat(min(sampled.l())).isEqualTo(min(series.l()));
+      assertThat(max(sampled.h())).isEqualTo(max(series.h()));
+   }
+
+   @Test
+   void minMaxWithOneBucketReturnsFourBars() {
+      double[] low = {5, 4, 1, 3, 6, 4, 5};
+      double[] high = {6, 5, 2, 4, 9, 5, 6};
+
+      assertThat(Downsampler.minMax(low, high, 4)).containsExactly(0, 2, 4, 6);
+   }
+
+   @Test
+   void seriesWithinTheLimitIsReturnedUnchanged() {
+      BarSeries series = wave(10);
+
+      assertThat(Downsampler.downsample(series, 10, Downsampler.Method.LTTB)).isSameAs(series);
+      assertThat(Downsampler.downsample(series, 25, Downsampler.Method.MIN_MAX)).isSameAs(series);
+   }
+
+   @Test
+   void tooFewPointsAreRejected() {
+      BarSeries series = wave(100);
+
+      assertThatThrownBy(() -> Downsampler.downsample(series, 2, Downsampler.Method.LTTB))
+          .isInstanceOf(InvalidRequestParameterException.class);
+      assertThatThrownBy(() -> Downsampler.downsample(series, 3, Downsampler.Method.MIN_MAX))
+          .isInstanceOf(InvalidRequestParameterException.class);
+      assertThat(Downsampler.downsample(series, 3, Downsampler.Method.LTTB).size()).isEqualTo(3);
+   }
+
+   @Test
+   void methodNamesAreParsedCaseInsensitively() {
+      assertThat(Downsampler.Method.parse(" LTTB ")).isEqualTo(Downsampler.Method.LTTB);
+      assertThat(Downsampler.Method.parse("minmax")).isEqualTo(Downsampler.Method.MIN_MAX);
+      assertThat(Downsampler.Method.parse("Min-Max")).isEqualTo(Downsampler.Method.MIN_MAX);
+      assertThatThrownBy(() -> Downsampler.Method.parse("average")).isInstanceOf(InvalidRequestParameterException.class);
+   }
+
+   private static BarSeries wave(int size) {
+      BarSeries.Builder builder = BarSeries.builder("AAPL", "1Min", size);
+      for (int i = 0; i < size; i++) {
+         double close = 100 + 10 * Math.sin(i / 25.0) + (i % 7) * 0.1;
+         builder.add(START + i * MINUTE, close, close + 0.5 + (i % 3) * 0.2, close - 0.5 - (i % 5) * 0.1, close, 100 + i, 10, close);
+      }
+      return builder.build();
+   }
+
+   private static double min(double[] values) {
+      double min = Double.MAX_VALUE;
+      for (double value : values) {
+         min = Math.min(min, value);
+      }
+      return min;
+   }
+
+   private static double max(double[] values) {
+      double max = -Double.MAX_VALUE;
+      for (double value : values) {
+         max = Math.max(max, value);
+      }
+      return max;
+   }
+}
@@ -0,0 +1,163 @@
+package com.stockdock.clients;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stand-in for Alpaca's market data WebSocket, speaking the same connect/auth/subscribe protocol.
+ *
+ * Any key is accepted. Subscribed symbols receive random-walk quotes at a fixed interval, and
+ * connections can optionally be dropped periodically to exercise reconnect and resubscribe handling.
+ */
+class LocalQuoteFeedHandler extends TextWebSocketHandler {
+
+   private static final Logger logger = LoggerFactory.getLogger(LocalQuoteFeedHandler.class);
+   private static final int SEND_TIME_LIMIT_MS = 5000;
+   private static final int BUFFER_SIZE_LIMIT = 512 * 1024;
+
+   private final ObjectMapper objectMapper;
+   private final Duration dropInterval;
+   private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+       Thread.ofPlatform().name("local-quote-feed").daemon().factory());
+
+   private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+   private final Map<String, Set<String>> subscriptions = new ConcurrentHashMap<>();
+   private final Map<String, Double> prices = new ConcurrentHashMap<>();
+   private final AtomicInteger connections = new AtomicInteger();
+
+   /**
+    * @param interval     How often subscribed symbols receive a quote.
+    * @param dropInterval How long after connecting each session is dropped, zero to never drop.
+    */
+   LocalQuoteFeedHandler (ObjectMapper objectMapper, Duration interval, Duration dropInterval) {
+      this.objectMapper = objectMapper;
+      this.dropInterval = dropInterval;
+      scheduler.scheduleAtFixedRate(this::publishQuotes, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+   }
+
+   @Override
+   public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+      connections.incrementAndGet();
+      WebSocketSession concurrentSession = new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS, BUFFER_SIZE_LIMIT);
+      sessions.put(session.getId(), concurrentSession);
+      subscriptions.put(session.getId(), ConcurrentHashMap.newKeySet());
+      send(concurrentSession, List.of(Map.of("T", "success", "msg", "connected")));
+
+      if (!dropInterval.isZero()) {
+         scheduler.schedule(() -> close(concurrentSession), dropInterval.toMillis(), TimeUnit.MILLISECONDS);
+      }
+   }
+
+   @Override
+   protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+      WebSocketSession concurrentSession = sessions.get(session.getId());
+      Set<String> subscribed = subscriptions.get(session.getId());
+      JsonNode request = objectMapper.readTree(message.getPayload());
+
+      switch (request.path("action").asText()) {
+         case "auth" -> send(concurrentSession, List.of(Map.of("T", "success", "msg", "authenticated")));
+         case "subscribe" -> {
+            request.path("quotes").forEach(symbol -> subscribed.add(symbol.asText()));
+            send(concurrentSession, List.of(subscriptionMessage(subscribed)));
+         }
+         case "unsubscribe" -> {
+            request.path("quotes").forEach(symbol -> subscribed.remove(symbol.asText()));
+            send(concurrentSession, List.of(subscriptionMessage(subscribed)));
+         }
+         default -> send(concurrentSession, List.of(Map.of("T", "error", "code", 400, "msg", "invalid syntax")));
+      }
+   }
+
+   @Override
+   public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+      sessions.remove(session.getId());
+      subscriptions.remove(session.getId());
+   }
+
+   /**
+    * The number of connections accepted so far, reconnects included.
+    */
+   int connections() {
+      return connections.get();
+   }
+
+   void stop() {
+      scheduler.shutdownNow();
+   }
+
+   private void publishQuotes() {
+      sessions.forEach((id, session) -> {
+         List<Map<String, Object>> quotes = new ArrayList<>();
+         for (String symbol : subscriptions.getOrDefault(id, Set.of())) {
+            quotes.add(randomQuote(symbol));
+         }
+         if (!quotes.isEmpty()) {
+            send(session, quotes);
+         }
+      });
+   }
+
+   private Map<String, Object> randomQuote(String symbol) {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      double mid = prices.compute(symbol, (key, price) -> price == null
+          ? 50 + random.nextDouble(450)
+          : Math.max(1, price * (1 + random.nextGaussian() * 0.0005)));
+      double spread = Math.max(0.01, mid * 0.0002);
+
+      return Map.ofEntries(
+          Map.entry("T", "q"),
+          Map.entry("S", symbol),
+          Map.entry("bx", "V"),
+          Map.entry("bp", Math.round((mid - spread / 2) * 100) / 100.0),
+          Map.entry("bs", random.nextInt(1, 20)),
+          Map.entry("ax", "V"),
+          Map.entry("ap", Math.round((mid + spread / 2) * 100) / 100.0),
+          Map.entry("as", random.nextInt(1, 20)),
+          Map.entry("c", List.of("R")),
+          Map.entry("z", "C"),
+          Map.entry("t", Instant.now().toString())
+      );
+   }
+
+   private Map<String, Object> subscriptionMessage(Set<String> subscribed) {
+      return Map.of("T", "subscription", "trades", List.of(), "quotes", List.copyOf(subscribed), "bars", List.of());
+   }
+
+   private void send(WebSocketSession session, List<?> messages) {
+      try {
+         session.sendMessage(new TextMessage(objectMapper.writeValueAsString(messages)));
+      } catch (IOException | IllegalStateException e) {
+         logger.debug("Local feed failed to send to session {}: {}", session.getId(), e.getMessage());
+      }
+   }
+
+   private void close(WebSocketSession session) {
+      try {
+         logger.info("Local feed dropping session {} to exercise reconnects", session.getId());
+         session.close(CloseStatus.SERVICE_RESTARTED);
+      } catch (IOException e) {
+         logger.debug("Local feed failed to close session {}: {}", session.getId(), e.getMessage());
+      }
+   }
+}
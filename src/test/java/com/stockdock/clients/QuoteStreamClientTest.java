@@ -0,0 +1,120 @@
+package com.stockdock.clients;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockdock.config.AlpacaProperties;
+import com.stockdock.dto.StockQuote;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.websocket.servlet.WebSocketServletAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the stream client against {@link LocalQuoteFeedHandler}, which drops every connection
+ * shortly after it is opened so the client has to reconnect and subscribe again.
+ */
+@SpringBootTest(classes = QuoteStreamClientTest.LocalFeed.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class QuoteStreamClientTest {
+
+   private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+   @LocalServerPort
+   private int port;
+
+   @Autowired
+   private LocalQuoteFeedHandler feed;
+
+   @Autowired
+   private ObjectMapper objectMapper;
+
+   private QuoteStreamClient client;
+
+   @Configuration
+   @EnableWebSocket
+   @ImportAutoConfiguration({
+       ServletWebServerFactoryAutoConfiguration.class,
+       DispatcherServletAutoConfiguration.class,
+       WebSocketServletAutoConfiguration.class,
+       JacksonAutoConfiguration.class
+   })
+   static class LocalFeed {
+
+      @Bean(destroyMethod = "stop")
+      LocalQuoteFeedHandler localQuoteFeedHandler(ObjectMapper objectMapper) {
+         return new LocalQuoteFeedHandler(objectMapper, Duration.ofMillis(50), Duration.ofMillis(500));
+      }
+
+      @Bean
+      WebSocketConfigurer localQuoteFeedEndpoint(LocalQuoteFeedHandler localQuoteFeedHandler) {
+         return registry -> registry.addHandler(localQuoteFeedHandler, "/local-feed/v2/{feed}");
+      }
+   }
+
+   @AfterEach
+   void stopClient() {
+      if (client != null) {
+         client.stop();
+      }
+   }
+
+   @Test
+   void parsesQuotesAndResubscribesAfterTheFeedDropsTheConnection() {
+      AlpacaProperties properties = new AlpacaProperties();
+      properties.getStream().setUrl("ws://localhost:" + port + "/local-feed/v2/iex");
+      properties.getStream().setReconnectInitialDelay(Duration.ofMillis(50));
+      client = new QuoteStreamClient(properties, objectMapper, HttpClient.newHttpClient(), "key", "secret");
+
+      Queue<Map<String, StockQuote>> batches = new ConcurrentLinkedQueue<>();
+      client.start(List.of("AAPL", "MSFT"), batches::add);
+
+      await(() -> !batches.isEmpty());
+      Map<String, StockQuote> first = batches.peek();
+      assertThat(first).containsOnlyKeys("AAPL", "MSFT");
+      StockQuote quote = first.get("AAPL");
+      assertThat(quote.bp()).isPositive();
+      assertThat(quote.ap()).isGreaterThanOrEqualTo(quote.bp());
+      assertThat(quote.c()).containsExactly("R");
+      assertThat(quote.t()).isNotNull();
+      assertThat(quote.z()).isEqualTo("C");
+      assertThat(client.isLive()).isTrue();
+
+      // Quotes arriving on a later connection prove the client authenticated and subscribed again
+      await(() -> feed.connections() >= 2);
+      batches.clear();
+      await(() -> batches.stream().anyMatch(batch -> batch.keySet().equals(Set.of("AAPL", "MSFT"))));
+      assertThat(client.isLive()).isTrue();
+   }
+
+   private static void await(BooleanSupplier condition) {
+      long deadline = System.nanoTime() + TIMEOUT.toNanos();
+      while (!condition.getAsBoolean()) {
+         assertThat(System.nanoTime()).as("condition not met within %s", TIMEOUT).isLessThan(deadline);
+         try {
+            Thread.sleep(20);
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError(e);
+         }
+      }
+   }
+}
@@ -0,0 +1,168 @@
+package com.stockdock.clients;
+
+import com.stockdock.clients.UpstreamCircuitBreaker.State;
+import com.stockdock.config.AlpacaProperties;
+import com.stockdock.exceptions.RateLimitExceededException;
+import com.stockdock.exceptions.ServiceUnavailableException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UpstreamCircuitBreakerTest {
+
+   private static final AlpacaEndpoint ENDPOINT = AlpacaEndpoint.LATEST_QUOTES;
+
+   private final AlpacaProperties alpacaProperties = new AlpacaProperties();
+   private final AlpacaProperties.CircuitBreaker properties = alpacaProperties.getCircuitBreaker();
+   private final AtomicLong nanoTime = new AtomicLong();
+   private final AtomicInteger executions = new AtomicInteger();
+   private final UpstreamCircuitBreaker breaker;
+   private final ClientHttpRequestInterceptor interceptor;
+
+   UpstreamCircuitBreakerTest () {
+      properties.setWindowSize(10);
+      properties.setMinimumCalls(4);
+      properties.setFailureRateThreshold(50);
+      properties.setOpenDuration(Duration.ofSeconds(30));
+      breaker = new UpstreamCircuitBreaker(alpacaProperties, nanoTime::get);
+      interceptor = breaker.interceptor(ENDPOINT);
+   }
+
+   @Test
+   void opensAtTheThresholdOnceMinimumCallsAreReached() throws IOException {
+      call(status(HttpStatus.SERVICE_UNAVAILABLE));
+      call(status(HttpStatus.TOO_MANY_REQUESTS));
+      assertThatThrownBy(() -> call(timeout())).isInstanceOf(SocketTimeoutException.class);
+      assertThat(breaker.state(ENDPOINT)).isEqualTo(State.CLOSED); // 3 of 3 failed, but fewer than minimum calls
+
+      call(status(HttpStatus.SERVICE_UNAVAILABLE));
+
+      assertThat(breaker.state(ENDPOINT)).isEqualTo(State.OPEN);
+      assertThat(breaker.stats().get(ENDPOINT.ordinal()).opened()).isEqualTo(1);
+   }
+
+   @Test
+   void staysClosedBelowTheThreshold() throws IOException {
+      call(status(HttpStatus.OK));
+      call(status(HttpStatus.OK));
+      call(status(HttpStatus.OK));
+      call(status(HttpStatus.SERVICE_UNAVAILABLE));
+      call(status(HttpStatus.SERVICE_UNAVAILABLE));
+
+      assertThat(breaker.state(ENDPOINT)).isEqualTo(State.CLOSED); // 2 of 5 is 40%
+   }
+
+   @Test
+   void clientErrorsCountAsSuccesses() throws IOException {
+      for (int i = 0; i < 10; i++) {
+         call(status(HttpStatus.NOT_FOUND));
+      }
+
+      assertThat(breaker.state(ENDPOINT)).isEqualTo(State.CLOSED);
+      assertThat(breaker.stats().get(ENDPOINT.ordinal()).failureRate()).isZero();
+   }
+
+   @Test
+   void openBreakerFailsFastWithoutCallingAlpaca() throws IOException {
+      open();
+      int before = executions.get();
+
+      assertThatThrownBy(() -> call(status(HttpStatus.OK))).isInstanceOf(ServiceUnavailableException.class);
+
+      assertThat(executions.get()).isEqualTo(before);
+      assertThat(breaker.rejected(ENDPOINT)).isEqualTo(1);
+   }
+
+   @Test
+   void halfOpenLetsExactlyOneTrialThroughAndClosesOnSuccess() throws IOException {
+      open();
+      nanoTime.addAndGet(Duration.ofSeconds(30).toNanos());
+      assertThat(breaker.state(ENDPOINT)).isEqualTo(State.HALF_OPEN);
+
+      // A second call while the trial is in flight is rejected
+      call((request, body) -> {
+         assertThatThrownBy(() -> call(status(HttpStatus.OK))).isInstanceOf(ServiceUnavailableException.class);
+         return response(HttpStatus.OK);
+      });
+
+      assertThat(breaker.state(ENDPOINT)).isEqualTo(State.CLOSED);
+      assertThat(breaker.rejected(ENDPOINT)).isEqualTo(1);
+   }
+
+   @Test
+   void failedTrialOpensTheBreakerAgain() throws IOException {
+      open();
+      nanoTime.addAndGet(Duration.ofSeconds(30).toNanos());
+
+      call(status(HttpStatus.BAD_GATEWAY));
+
+      assertThat(breaker.state(ENDPOINT)).isEqualTo(State.OPEN);
+      assertThat(breaker.stats().get(ENDPOINT.ordinal()).opened()).isEqualTo(2);
+      assertThat(breaker.stats().get(ENDPOINT.ordinal()).openForMillis()).isEqualTo(30_000);
+   }
+
+   @Test
+   void rateLimiterRejectionFreesTheTrialSlot() throws IOException {
+      open();
+      nanoTime.addAndGet(Duration.ofSeconds(30).toNanos());
+
+      assertThatThrownBy(() -> call((request, body) -> {
+         throw new RateLimitExceededException("No token");
+      })).isInstanceOf(RateLimitExceededException.class);
+      assertThat(breaker.state(ENDPOINT)).isEqualTo(State.HALF_OPEN);
+
+      call(status(HttpStatus.OK));
+
+      assertThat(breaker.state(ENDPOINT)).isEqualTo(State.CLOSED);
+   }
+
+   @Test
+   void invalidWindowIsRejectedOnStartup() {
+      properties.setWindowSize(0);
+      assertThatThrownBy(alpacaProperties::check).isInstanceOf(IllegalStateException.class);
+
+      properties.setWindowSize(5);
+      properties.setMinimumCalls(6);
+      assertThatThrownBy(alpacaProperties::check).isInstanceOf(IllegalStateException.class);
+   }
+
+   private void open() throws IOException {
+      for (int i = 0; i < properties.getMinimumCalls(); i++) {
+         call(status(HttpStatus.SERVICE_UNAVAILABLE));
+      }
+      assertThat(breaker.state(ENDPOINT)).isEqualTo(State.OPEN);
+   }
+
+   private ClientHttpResponse call(ClientHttpRequestExecution execution) throws IOException {
+      return interceptor.intercept(new MockClientHttpRequest(), new byte[0], execution);
+   }
+
+   private ClientHttpRequestExecution status(HttpStatus status) {
+      return (request, body) -> response(status);
+   }
+
+   private ClientHttpRequestExecution timeout() {
+      return (request, body) -> {
+         executions.incrementAndGet();
+         throw new SocketTimeoutException("Read timed out");
+      };
+   }
+
+   private ClientHttpResponse response(HttpStatus status) {
+      executions.incrementAndGet();
+      return new MockClientHttpResponse(new byte[0], status);
+   }
+}
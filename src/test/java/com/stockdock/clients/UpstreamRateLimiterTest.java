@@ -0,0 +1,123 @@
+package com.stockdock.clients;
+
+import com.stockdock.config.AlpacaProperties;
+import com.stockdock.dto.RateLimiterStats;
+import com.stockdock.exceptions.RateLimitExceededException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UpstreamRateLimiterTest {
+
+   // 600 per minute is one token every 100 ms
+   private final AlpacaProperties alpacaProperties = new AlpacaProperties();
+   private final AlpacaProperties.RateLimit rateLimit = alpacaProperties.getRateLimit();
+
+   UpstreamRateLimiterTest () {
+      rateLimit.setRequestsPerMinute(600);
+      rateLimit.setBurst(2);
+      rateLimit.setSchedulerReserve(0);
+      rateLimit.setMaxWait(Duration.ofSeconds(2));
+   }
+
+   @Test
+   void burstIsAvailableWithoutWaiting() {
+      UpstreamRateLimiter limiter = new UpstreamRateLimiter(alpacaProperties);
+
+      limiter.acquire();
+      limiter.acquire();
+
+      RateLimiterStats stats = limiter.stats();
+      assertThat(stats.acquired()).isEqualTo(2);
+      assertThat(stats.delayed()).isZero();
+   }
+
+   @Test
+   void emptyBucketWaitsForTheNextToken() {
+      UpstreamRateLimiter limiter = new UpstreamRateLimiter(alpacaProperties);
+      limiter.acquire();
+      limiter.acquire();
+
+      long start = System.nanoTime();
+      limiter.acquire();
+      long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+      assertThat(waitedMillis).isBetween(50L, 1000L);
+      assertThat(limiter.stats().delayed()).isEqualTo(1);
+   }
+
+   @Test
+   void tokensRefillOverTime() throws InterruptedException {
+      UpstreamRateLimiter limiter = new UpstreamRateLimiter(alpacaProperties);
+      limiter.acquire();
+      limiter.acquire();
+
+      Thread.sleep(250);
+
+      assertThat(limiter.stats().availableTokens()).isBetween(1.5, 2.0);
+   }
+
+   @Test
+   void callersThatWouldWaitTooLongAreRejected() {
+      rateLimit.setMaxWait(Duration.ofMillis(10));
+      UpstreamRateLimiter limiter = new UpstreamRateLimiter(alpacaProperties);
+      limiter.acquire();
+      limiter.acquire();
+
+      assertThatThrownBy(limiter::acquire).isInstanceOf(RateLimitExceededException.class);
+      assertThat(limiter.stats().rejected()).isEqualTo(1);
+   }
+
+   @Test
+   void fullQueueFailsFast() {
+      rateLimit.setMaxQueueDepth(0);
+      UpstreamRateLimiter limiter = new UpstreamRateLimiter(alpacaProperties);
+      limiter.acquire();
+      limiter.acquire();
+
+      long start = System.nanoTime();
+      assertThatThrownBy(limiter::acquire).isInstanceOf(RateLimitExceededException.class);
+      assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(50);
+   }
+
+   @Test
+   void reserveIsOnlyForScheduledRefreshes() {
+      rateLimit.setSchedulerReserve(1);
+      rateLimit.setMaxWait(Duration.ofMillis(10));
+      UpstreamRateLimiter limiter = new UpstreamRateLimiter(alpacaProperties);
+      limiter.acquire(); // Leaves the reserved token
+
+      assertThatThrownBy(limiter::acquire).isInstanceOf(RateLimitExceededException.class);
+      RequestPriority.callWith(RequestPriority.SCHEDULED, () -> {
+         limiter.acquire();
+         return null;
+      });
+      assertThat(limiter.stats().acquired()).isEqualTo(2);
+   }
+
+   @Test
+   void disabledLimiterNeverWaits() {
+      rateLimit.setEnabled(false);
+      UpstreamRateLimiter limiter = new UpstreamRateLimiter(alpacaProperties);
+
+      for (int i = 0; i < 100; i++) {
+         limiter.acquire();
+      }
+      assertThat(limiter.stats().rejected()).isZero();
+   }
+
+   @Test
+   void burstThatLeavesNothingBeyondTheReserveIsRejectedOnStartup() {
+      rateLimit.setBurst(5);
+      rateLimit.setSchedulerReserve(5);
+
+      assertThatThrownBy(alpacaProperties::check).isInstanceOf(IllegalStateException.class);
+
+      rateLimit.setBurst(6);
+      alpacaProperties.check();
+   }
+}
@@ -0,0 +1,152 @@
+package com.stockdock.indicators;
+
+import com.stockdock.exceptions.InvalidRequestParameterException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class IndicatorTest {
+
+   // Reference closes from the StockCharts RSI example (Wilder, 14 periods)
+   private static final double[] CLOSES = {
+       44.34, 44.09, 44.15, 43.61, 44.33, 44.83, 45.10, 45.42, 45.84, 46.08,
+       45.89, 46.03, 45.61, 46.28, 46.28, 46.00, 46.03, 46.41, 46.22, 45.64
+   };
+
+   @Test
+   void smaIsUndefinedUntilTheWindowIsFull() {
+      double[][] values = run(Indicator.parse("sma:5"));
+
+      for (int i = 0; i < 4; i++) {
+         assertThat(values[i][0]).isNaN();
+      }
+      assertThat(values[4][0]).isCloseTo(44.104, within(1e-9));
+      assertThat(values[5][0]).isCloseTo(44.202, within(1e-9));
+      assertThat(values[6][0]).isCloseTo(44.404, within(1e-9));
+   }
+
+   @Test
+   void emaIsSeededWithTheSimpleAverage() {
+      double[][] values = run(Indicator.parse("ema:5"));
+
+      assertThat(values[3][0]).isNaN();
+      assertThat(values[4][0]).isCloseTo(44.104, within(1e-9));
+      assertThat(values[5][0]).isCloseTo(44.346, within(1e-9));  // 44.104 + 2/6 * (44.83 - 44.104)
+      assertThat(values[6][0]).isCloseTo(44.597333, within(1e-6));
+      assertThat(values[19][0]).isCloseTo(45.996054, within(1e-6));
+   }
+
+   @Test
+   void rsiMatchesTheReferenceSeries() {
+      double[][] values = run(Indicator.parse("rsi:14"));
+
+      assertThat(values[13][0]).isNaN();
+      // StockCharts rounds its intermediate averages, so its published values differ in the second decimal
+      double[] reference = { 70.53, 66.32, 66.55, 69.41, 66.36, 57.97 };
+      for (int i = 0; i < reference.length; i++) {
+         assertThat(values[14 + i][0]).isCloseTo(reference[i], within(0.1));
+      }
+      assertThat(values[14][0]).isCloseTo(70.464135, within(1e-6));
+   }
+
+   @Test
+   void rsiOfAFlatSeriesIsFifty() {
+      Indicator rsi = Indicator.parse("rsi:3");
+      double[] out = new double[1];
+      for (int i = 0; i < 5; i++) {
+         rsi.update(10, 10, 10, 100, 10, out);
+      }
+      assertThat(out[0]).isEqualTo(50);
+   }
+
+   @Test
+   void macdIsTheDifferenceOfTwoEmasWithItsSignalLine() {
+      double[][] values = run(Indicator.parse("macd:3:5:2"));
+
+      assertThat(values[3][0]).isNaN();
+      assertThat(values[4][0]).isCloseTo(0.011833, within(1e-6));
+      assertThat(values[4][1]).isNaN();
+      assertThat(values[5][0]).isCloseTo(0.126917, within(1e-6));
+      assertThat(values[5][1]).isCloseTo(0.069375, within(1e-6));
+      assertThat(values[9][0]).isCloseTo(0.286227, within(1e-6));
+      assertThat(values[9][1]).isCloseTo(0.275115, within(1e-6));
+      assertThat(values[9][2]).isCloseTo(values[9][0] - values[9][1], within(1e-12));
+   }
+
+   @Test
+   void bollingerBandsUsePopulationDeviation() {
+      double[][] values = run(Indicator.parse("bb:5:2"));
+
+      assertThat(values[3][0]).isNaN();
+      assertThat(values[19][0]).isCloseTo(46.06, within(1e-9));
+      assertThat(values[19][1]).isCloseTo(46.573030, within(1e-6));
+      assertThat(values[19][2]).isCloseTo(45.546970, within(1e-6));
+   }
+
+   @Test
+   void vwapWeightsEachBarByVolume() {
+      Indicator vwap = Indicator.parse("vwap:2");
+      double[] out = new double[1];
+
+      vwap.update(11, 9, 10, 100, 10, out);
+      assertThat(out[0]).isNaN();
+      vwap.update(21, 19, 20, 300, 20, out);
+      assertThat(out[0]).isCloseTo(17.5, within(1e-9));
+      // Without a feed VWAP the typical price (30 + 24 + 27) / 3 = 27 is used
+      vwap.update(30, 24, 27, 100, 0, out);
+      assertThat(out[0]).isCloseTo((20 * 300 + 27 * 100) / 400.0, within(1e-9));
+   }
+
+   @Test
+   void copyDoesNotShareState() {
+      Indicator sma = Indicator.parse("sma:2");
+      double[] out = new double[1];
+      sma.update(0, 0, 10, 0, 0, out);
+      sma.update(0, 0, 20, 0, 0, out);
+
+      Indicator copy = sma.copy();
+      copy.update(0, 0, 100, 0, 0, out);
+      assertThat(out[0]).isEqualTo(60);
+
+      sma.update(0, 0, 30, 0, 0, out);
+      assertThat(out[0]).isEqualTo(25);
+   }
+
+   @Test
+   void parseAppliesDefaultsAndNamesOutputs() {
+      assertThat(Indicator.parse("SMA").name()).isEqualTo("sma(20)");
+      assertThat(Indicator.parse("macd").outputs()).containsExactly("macd(12,26,9)", "macd(12,26,9).signal", "macd(12,26,9).histogram");
+      assertThat(Indicator.parse("bb:20:2.5").outputs()).containsExactly("bb(20,2.5).middle", "bb(20,2.5).upper", "bb(20,2.5).lower");
+   }
+
+   @Test
+   void parseRejectsInvalidSpecs() {
+      assertThatThrownBy(() -> Indicator.parse("foo:3")).isInstanceOf(InvalidRequestParameterException.class);
+      assertThatThrownBy(() -> Indicator.parse("sma:0")).isInstanceOf(InvalidRequestParameterException.class);
+      assertThatThrownBy(() -> Indicator.parse("sma:" + (Indicator.MAX_PERIOD + 1))).isInstanceOf(InvalidRequestParameterException.class);
+      assertThatThrownBy(() -> Indicator.parse("ema:x")).isInstanceOf(InvalidRequestParameterException.class);
+   }
+
+   @Test
+   void rollingWindowKeepsTheSumOfTheLastValues() {
+      RollingWindow window = new RollingWindow(3);
+      window.push(1);
+      window.push(2);
+      assertThat(window.isFull()).isFalse();
+      window.push(3);
+      window.push(4);
+
+      assertThat(window.isFull()).isTrue();
+      assertThat(window.sum()).isEqualTo(9);
+   }
+
+   private static double[][] run(Indicator indicator) {
+      double[][] values = new double[CLOSES.length][indicator.outputs().size()];
+      for (int i = 0; i < CLOSES.length; i++) {
+         indicator.update(CLOSES[i], CLOSES[i], CLOSES[i], 1000, CLOSES[i], values[i]);
+      }
+      return values;
+   }
+}
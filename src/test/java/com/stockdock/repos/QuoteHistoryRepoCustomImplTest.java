@@ -0,0 +1,94 @@
+package com.stockdock.repos;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.stockdock.models.QuoteHistoryBucket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class QuoteHistoryRepoCustomImplTest {
+
+   private static final int DUPLICATE_KEY = 11000;
+   private static final int DOCUMENT_VALIDATION_FAILURE = 121;
+
+   private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+   private final BulkOperations bulkOps = mock(BulkOperations.class);
+   private final QuoteHistoryRepoCustomImpl repo;
+
+   private final QuoteHistoryBucket extended = bucket("AAPL");
+   private final QuoteHistoryBucket created = bucket("MSFT");
+
+   QuoteHistoryRepoCustomImplTest () {
+      when(mongoTemplate.getCollectionName(QuoteHistoryBucket.class)).thenReturn("historical_stock_data");
+      when(mongoTemplate.getConverter()).thenReturn(mock(MongoConverter.class));
+      when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, QuoteHistoryBucket.class)).thenReturn(bulkOps);
+      repo = new QuoteHistoryRepoCustomImpl(mongoTemplate, new SimpleMeterRegistry());
+   }
+
+   @Test
+   void upsertsOnlyMatchTheExpectedCount() {
+      Set<String> conflicts = repo.bulkAppend(List.of(extended, created), Map.of(extended.id(), 2));
+
+      ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+      verify(bulkOps, times(2)).upsert(queries.capture(), any(Update.class));
+      assertThat(queries.getAllValues().get(0).getQueryObject()).containsEntry("_id", extended.id()).containsEntry("count", 2);
+      assertThat(queries.getAllValues().get(1).getQueryObject()).containsEntry("_id", created.id()).containsEntry("count", 0);
+      assertThat(conflicts).isEmpty();
+   }
+
+   @Test
+   void duplicateKeyErrorsAreReportedAsConflicts() {
+      when(bulkOps.execute()).thenThrow(bulkFailure(DUPLICATE_KEY, 1));
+
+      assertThat(repo.bulkAppend(List.of(extended, created), Map.of(extended.id(), 2))).containsExactly(created.id());
+   }
+
+   @Test
+   void otherWriteErrorsAreThrown() {
+      when(bulkOps.execute()).thenThrow(bulkFailure(DOCUMENT_VALIDATION_FAILURE, 0));
+
+      assertThatThrownBy(() -> repo.bulkAppend(List.of(extended, created), Map.of())).isInstanceOf(BulkOperationException.class);
+   }
+
+   @Test
+   void emptyBatchWritesNothing() {
+      assertThat(repo.bulkAppend(List.of(), Map.of())).isEmpty();
+      verifyNoInteractions(bulkOps);
+   }
+
+   private static BulkOperationException bulkFailure(int code, int index) {
+      BulkWriteError error = new BulkWriteError(code, "write error", new BsonDocument(), index);
+      MongoBulkWriteException cause = new MongoBulkWriteException(
+          BulkWriteResult.unacknowledged(), List.of(error), null, new ServerAddress(), Set.of());
+      return new BulkOperationException(cause.getMessage(), cause);
+   }
+
+   private static QuoteHistoryBucket bucket(String symbol) {
+      Instant start = Instant.parse("2026-10-16T14:00:00Z");
+      return new QuoteHistoryBucket(QuoteHistoryBucket.id(symbol, start, 0), symbol, "USD", start, 0, start, start, 1, new byte[] {0});
+   }
+}
@@ -0,0 +1,148 @@
+package com.stockdock.schedulers;
+
+import com.stockdock.clients.ChunkedRequestExecutor;
+import com.stockdock.clients.QuoteStreamClient;
+import com.stockdock.config.AlpacaProperties;
+import com.stockdock.config.QuoteRefreshProperties;
+import com.stockdock.config.SymbolConfig;
+import com.stockdock.dto.RefreshScheduleStats;
+import com.stockdock.dto.StockQuote;
+import com.stockdock.dto.StockQuotes;
+import com.stockdock.dto.SymbolRefreshStats;
+import com.stockdock.services.ClusterMembership;
+import com.stockdock.services.CurrentStockService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CurrentStockSchedulerTest {
+
+   private static final Instant NOW = Instant.parse("2026-10-16T15:00:00Z");
+
+   private final CurrentStockService currentStockService = mock(CurrentStockService.class);
+   private final MarketCalendar marketCalendar = mock(MarketCalendar.class);
+   private final ClusterMembership clusterMembership = mock(ClusterMembership.class);
+   private final QuoteRefreshProperties refreshProperties = new QuoteRefreshProperties();
+   private final AlpacaProperties alpacaProperties = new AlpacaProperties();
+
+   @BeforeEach
+   void setUp() {
+      refreshProperties.setTiers(new LinkedHashMap<>(Map.of(
+          "hot", tier(Duration.ofSeconds(10), Duration.ofSeconds(60), "AAPL", "MSFT"),
+          "cold", tier(Duration.ofMinutes(5), Duration.ofMinutes(15)))));
+      alpacaProperties.getBatch().setChunkSize(1); // One request per symbol
+
+      when(marketCalendar.sessionAt(any())).thenReturn(MarketSession.REGULAR);
+      when(clusterMembership.owns(any())).thenReturn(true);
+      when(currentStockService.refreshQuotes(anyList())).thenAnswer(invocation -> {
+         Map<String, StockQuote> quotes = new LinkedHashMap<>();
+         for (String symbol : invocation.<List<String>>getArgument(0)) {
+            quotes.put(symbol, quote(NOW)); // Never moves after the first refresh
+         }
+         return new StockQuotes("USD", quotes);
+      });
+   }
+
+   @Test
+   void symbolsRefreshAtTheirTierInterval() {
+      CurrentStockScheduler scheduler = scheduler();
+
+      scheduler.refreshDueQuotes(NOW);
+
+      assertThat(symbol(scheduler, "AAPL").tier()).isEqualTo("hot");
+      assertThat(symbol(scheduler, "XYZ").tier()).isEqualTo("cold");
+      assertThat(interval(scheduler, "AAPL")).isEqualTo(Duration.ofSeconds(10));
+      assertThat(interval(scheduler, "MSFT")).isEqualTo(Duration.ofSeconds(10));
+      assertThat(interval(scheduler, "XYZ")).isEqualTo(Duration.ofMinutes(5));
+      assertThat(scheduler.stats().requests()).isEqualTo(3);
+   }
+
+   @Test
+   void extendedHoursAndClosedMarketStretchTheInterval() {
+      CurrentStockScheduler scheduler = scheduler();
+
+      when(marketCalendar.sessionAt(any())).thenReturn(MarketSession.AFTER_HOURS);
+      scheduler.refreshDueQuotes(NOW);
+      assertThat(interval(scheduler, "AAPL")).isEqualTo(Duration.ofSeconds(40));
+
+      when(marketCalendar.sessionAt(any())).thenReturn(MarketSession.CLOSED);
+      scheduler.refreshDueQuotes(NOW.plusSeconds(1));
+      assertThat(interval(scheduler, "AAPL")).isEqualTo(Duration.ofHours(1));
+      assertThat(interval(scheduler, "XYZ")).isEqualTo(Duration.ofHours(1));
+   }
+
+   @Test
+   void intervalGrowsWhileTheQuoteDoesNotMove() {
+      CurrentStockScheduler scheduler = scheduler();
+
+      scheduler.refreshDueQuotes(NOW);
+      scheduler.refreshDueQuotes(NOW.plusSeconds(10));
+
+      assertThat(symbol(scheduler, "AAPL").intervalSeconds()).isEqualTo(15);
+      assertThat(symbol(scheduler, "XYZ").lastRefresh()).isEqualTo(NOW);
+   }
+
+   @Test
+   void dueSymbolsBeyondTheBudgetAreDeferred() {
+      refreshProperties.setBudgetBurst(2);
+      refreshProperties.setBudgetPerMinute(1);
+      CurrentStockScheduler scheduler = scheduler();
+
+      scheduler.refreshDueQuotes(NOW);
+
+      RefreshScheduleStats stats = scheduler.stats();
+      assertThat(stats.requests()).isEqualTo(2);
+      assertThat(stats.refreshedSymbols()).isEqualTo(2);
+      assertThat(stats.deferredSymbols()).isEqualTo(1);
+      assertThat(stats.symbols().stream().filter(symbol -> symbol.lastRefresh() == null)).hasSize(1);
+   }
+
+   private CurrentStockScheduler scheduler() {
+      SymbolConfig symbolConfig = new SymbolConfig();
+      symbolConfig.setPredefined(List.of("AAPL", "MSFT", "XYZ"));
+      return new CurrentStockScheduler(
+          currentStockService,
+          mock(QuoteStreamClient.class),
+          alpacaProperties,
+          symbolConfig,
+          refreshProperties,
+          marketCalendar,
+          new ChunkedRequestExecutor(alpacaProperties),
+          clusterMembership,
+          new SimpleMeterRegistry());
+   }
+
+   private static SymbolRefreshStats symbol(CurrentStockScheduler scheduler, String symbol) {
+      return scheduler.stats().symbols().stream().filter(stats -> stats.symbol().equals(symbol)).findFirst().orElseThrow();
+   }
+
+   // The effective interval in the current session, as applied to the next refresh
+   private static Duration interval(CurrentStockScheduler scheduler, String symbol) {
+      SymbolRefreshStats stats = symbol(scheduler, symbol);
+      return Duration.between(stats.lastRefresh(), stats.nextRefresh());
+   }
+
+   private static QuoteRefreshProperties.Tier tier(Duration interval, Duration maxInterval, String... symbols) {
+      QuoteRefreshProperties.Tier tier = new QuoteRefreshProperties.Tier();
+      tier.setInterval(interval);
+      tier.setMaxInterval(maxInterval);
+      tier.setSymbols(List.of(symbols));
+      return tier;
+   }
+
+   private static StockQuote quote(Instant time) {
+      return new StockQuote(1.5, 1, "V", 1.4, 1, "V", List.of("R"), time, "C");
+   }
+}
@@ -0,0 +1,73 @@
+package com.stockdock.schedulers;
+
+import com.stockdock.config.QuoteRefreshProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MarketCalendarTest {
+
+   private static final LocalDate THANKSGIVING = LocalDate.parse("2026-11-26");
+   private static final LocalDate DAY_AFTER_THANKSGIVING = LocalDate.parse("2026-11-27");
+
+   private final MarketCalendar calendar = new MarketCalendar(properties());
+
+   @Test
+   void regularSessionOpensAtHalfPastNineNewYorkTimeAcrossTheMarchSwitch() {
+      // Friday before the switch on 2026-03-08 is on EST (UTC-5), the Monday after on EDT (UTC-4)
+      assertThat(session("2026-03-06T14:29:59Z")).isEqualTo(MarketSession.PRE_MARKET);
+      assertThat(session("2026-03-06T14:30:00Z")).isEqualTo(MarketSession.REGULAR);
+      assertThat(session("2026-03-09T13:29:59Z")).isEqualTo(MarketSession.PRE_MARKET);
+      assertThat(session("2026-03-09T13:30:00Z")).isEqualTo(MarketSession.REGULAR);
+   }
+
+   @Test
+   void regularSessionClosesAtFourNewYorkTimeAcrossTheNovemberSwitch() {
+      // Friday before the switch on 2026-11-01 is on EDT, the Monday after on EST
+      assertThat(session("2026-10-30T19:59:59Z")).isEqualTo(MarketSession.REGULAR);
+      assertThat(session("2026-10-30T20:00:00Z")).isEqualTo(MarketSession.AFTER_HOURS);
+      assertThat(session("2026-11-02T20:59:59Z")).isEqualTo(MarketSession.REGULAR);
+      assertThat(session("2026-11-02T21:00:00Z")).isEqualTo(MarketSession.AFTER_HOURS);
+   }
+
+   @Test
+   void extendedHoursRunFromFourToTwentyNewYorkTime() {
+      assertThat(session("2026-11-02T08:59:59Z")).isEqualTo(MarketSession.CLOSED);
+      assertThat(session("2026-11-02T09:00:00Z")).isEqualTo(MarketSession.PRE_MARKET);
+      assertThat(session("2026-11-03T00:59:59Z")).isEqualTo(MarketSession.AFTER_HOURS);
+      assertThat(session("2026-11-03T01:00:00Z")).isEqualTo(MarketSession.CLOSED);
+   }
+
+   @Test
+   void holidaysAndWeekendsAreClosed() {
+      assertThat(calendar.isTradingDay(THANKSGIVING)).isFalse();
+      assertThat(calendar.isTradingDay(LocalDate.parse("2026-10-31"))).isFalse();
+      assertThat(calendar.isTradingDay(LocalDate.parse("2026-11-25"))).isTrue();
+      assertThat(session("2026-11-26T16:00:00Z")).isEqualTo(MarketSession.CLOSED);
+      assertThat(session("2026-10-31T16:00:00Z")).isEqualTo(MarketSession.CLOSED);
+   }
+
+   @Test
+   void earlyCloseEndsTheRegularSessionAtOneAndAfterHoursAtFive() {
+      assertThat(session("2026-11-27T17:59:59Z")).isEqualTo(MarketSession.REGULAR);
+      assertThat(session("2026-11-27T18:00:00Z")).isEqualTo(MarketSession.AFTER_HOURS);
+      assertThat(session("2026-11-27T21:59:59Z")).isEqualTo(MarketSession.AFTER_HOURS);
+      assertThat(session("2026-11-27T22:00:00Z")).isEqualTo(MarketSession.CLOSED);
+      assertThat(session("2026-11-25T18:00:00Z")).isEqualTo(MarketSession.REGULAR);
+   }
+
+   private MarketSession session(String instant) {
+      return calendar.sessionAt(Instant.parse(instant));
+   }
+
+   private static QuoteRefreshProperties properties() {
+      QuoteRefreshProperties properties = new QuoteRefreshProperties();
+      properties.getCalendar().setHolidays(List.of(THANKSGIVING));
+      properties.getCalendar().setEarlyCloses(List.of(DAY_AFTER_THANKSGIVING));
+      return properties;
+   }
+}
@@ -0,0 +1,282 @@
+package com.stockdock.services;
+
+import com.stockdock.config.ClusterProperties;
+import com.stockdock.models.SchedulerLease;
+import com.stockdock.repos.SchedulerLeaseRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs three nodes in process against one in-memory lease collection, stepping a shared clock.
+ *
+ * After every step no symbol may be owned by more than one running node, partitioned nodes included.
+ */
+class ClusterMembershipTest {
+
+   private static final Duration STEP = Duration.ofMillis(500);
+   private static final List<String> SYMBOLS = IntStream.range(0, 100).mapToObj(i -> "SYM" + i).toList();
+
+   private final ManualClock clock = new ManualClock();
+   private final Map<String, SchedulerLease> leases = new ConcurrentHashMap<>();
+   private final Set<String> partitioned = ConcurrentHashMap.newKeySet();
+   private final Map<String, Node> nodes = new LinkedHashMap<>();
+
+   @Test
+   void symbolsAreSplitAndHandedOverWithAtMostOneOwner() {
+      start("a");
+      run(Duration.ofSeconds(1));
+      assertThat(owned("a")).hasSize(SYMBOLS.size());
+
+      // Join: the newcomers take their share only after the handover delay
+      start("b");
+      clock.advance(Duration.ofSeconds(2));
+      start("c");
+      run(Duration.ofSeconds(1));
+      assertThat(owned("b")).isEmpty();
+      assertThat(owned("c")).isEmpty();
+      run(Duration.ofSeconds(20));
+      assertSplitBetween("a", "b", "c");
+
+      // Crash: c stops without releasing its lease, its symbols are taken over once the lease expires
+      stop("c");
+      run(Duration.ofSeconds(10));
+      assertThat(ownerCounts()).containsValue(0);
+      run(Duration.ofSeconds(11)); // lease-duration + renew-interval after c's last renewal
+      assertSplitBetween("a", "b");
+
+      // Partition: b keeps running but cannot renew, so it stops owning before a takes over
+      partitioned.add("b");
+      run(Duration.ofSeconds(11));
+      assertThat(owned("b")).isEmpty();
+      run(Duration.ofSeconds(10));
+      assertSplitBetween("a");
+
+      // Rejoin: b comes back as a new node and waits out the handover delay again
+      partitioned.remove("b");
+      run(Duration.ofSeconds(6));
+      assertThat(owned("b")).isEmpty();
+      run(Duration.ofSeconds(20));
+      assertSplitBetween("a", "b");
+
+      // Leave: a releases its lease on shutdown, b takes over on its next renewal
+      nodes.get("a").membership.releaseLease();
+      stop("a");
+      run(Duration.ofSeconds(6));
+      assertSplitBetween("b");
+   }
+
+   @Test
+   void leaseIsRenewedWhileAScheduledRefreshIsBlocked() throws InterruptedException {
+      // The scheduler Spring uses with virtual threads, which runs fixed-delay tasks one at a time
+      SimpleAsyncTaskScheduler scheduler = new SimpleAsyncTaskScheduler();
+      scheduler.setVirtualThreads(true);
+      CountDownLatch refreshStarted = new CountDownLatch(1);
+      CountDownLatch release = new CountDownLatch(1);
+
+      ClusterProperties properties = new ClusterProperties();
+      properties.setEnabled(true);
+      properties.setNodeId("busy");
+      properties.setLeaseDuration(Duration.ofMillis(300));
+      properties.setRenewInterval(Duration.ofMillis(50));
+      SchedulerLeaseRepo repo = repo("busy");
+      ClusterMembership membership = new ClusterMembership(properties, repo, Clock.systemUTC(), System::nanoTime);
+      try {
+         scheduler.scheduleWithFixedDelay(() -> {
+            refreshStarted.countDown();
+            try {
+               release.await(); // A refresh stuck on the rate limiter or a slow upstream
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+            }
+         }, Duration.ofMillis(10));
+         assertThat(refreshStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+         membership.start();
+
+         verify(repo, timeout(5_000).atLeast(10)).save(any(SchedulerLease.class));
+         assertThat(membership.holdsLease()).isTrue();
+         assertThat(SYMBOLS).allMatch(membership::owns);
+      } finally {
+         release.countDown();
+         membership.releaseLease();
+         scheduler.close();
+      }
+   }
+
+   @Test
+   void clusteringIsOffByDefault() {
+      assertThat(new ClusterProperties().isEnabled()).isFalse();
+   }
+
+   @Test
+   void disabledClusterOwnsEverythingWhileMongoIsDown() {
+      ClusterProperties properties = new ClusterProperties();
+      properties.setEnabled(false);
+      ClusterMembership membership = new ClusterMembership(properties, repo("solo"), clock, clock::nanos);
+      partitioned.add("solo");
+
+      membership.renewLease();
+
+      assertThat(SYMBOLS).allMatch(membership::owns);
+      assertThat(membership.holdsLease()).isTrue();
+   }
+
+   // The trade-off of clustering: a single node that cannot renew stops refreshing until MongoDB is back
+   @Test
+   void clusteredNodeOwnsNothingWhileMongoIsDown() {
+      start("solo");
+      run(Duration.ofSeconds(1));
+      assertThat(owned("solo")).hasSize(SYMBOLS.size());
+
+      partitioned.add("solo");
+      run(Duration.ofSeconds(11));
+      assertThat(owned("solo")).isEmpty();
+
+      partitioned.remove("solo");
+      run(Duration.ofSeconds(6));
+      assertThat(owned("solo")).hasSize(SYMBOLS.size()); // No other live node, nothing to wait for
+   }
+
+   private void start(String id) {
+      ClusterProperties properties = new ClusterProperties();
+      properties.setEnabled(true);
+      properties.setNodeId(id);
+      ClusterMembership membership = new ClusterMembership(properties, repo(id), clock, clock::nanos);
+      Node node = new Node(membership, properties.getRenewInterval());
+      node.nextRenewal = clock.instant();
+      nodes.put(id, node);
+   }
+
+   private void stop(String id) {
+      nodes.remove(id);
+   }
+
+   // Advance the clock step by step, renewing every node on its own schedule
+   private void run(Duration duration) {
+      Instant end = clock.instant().plus(duration);
+      while (clock.instant().isBefore(end)) {
+         for (Node node : nodes.values()) {
+            if (!clock.instant().isBefore(node.nextRenewal)) {
+               node.membership.renewLease();
+               node.nextRenewal = node.nextRenewal.plus(node.renewInterval);
+            }
+         }
+         assertThat(ownerCounts().values()).allMatch(owners -> owners <= 1);
+         clock.advance(STEP);
+      }
+   }
+
+   private Map<String, Integer> ownerCounts() {
+      Map<String, Integer> counts = new HashMap<>();
+      for (String symbol : SYMBOLS) {
+         counts.put(symbol, (int) nodes.values().stream().filter(node -> node.membership.owns(symbol)).count());
+      }
+      return counts;
+   }
+
+   private List<String> owned(String id) {
+      return SYMBOLS.stream().filter(nodes.get(id).membership::owns).toList();
+   }
+
+   // Every symbol has exactly one owner, and the given nodes share all of them
+   private void assertSplitBetween(String... ids) {
+      assertThat(ownerCounts().values()).allMatch(owners -> owners == 1);
+      int owned = 0;
+      for (String id : ids) {
+         assertThat(owned(id)).isNotEmpty();
+         owned += owned(id).size();
+      }
+      assertThat(owned).isEqualTo(SYMBOLS.size());
+   }
+
+   // The shared lease collection as seen by one node; a partitioned node cannot reach it
+   private SchedulerLeaseRepo repo(String id) {
+      SchedulerLeaseRepo repo = mock(SchedulerLeaseRepo.class);
+      when(repo.save(any(SchedulerLease.class))).thenAnswer(invocation -> {
+         reachable(id);
+         SchedulerLease lease = invocation.getArgument(0);
+         leases.put(lease.nodeId(), lease);
+         return lease;
+      });
+      when(repo.findByExpiresAtAfter(any())).thenAnswer(invocation -> {
+         reachable(id);
+         Instant now = invocation.getArgument(0);
+         return leases.values().stream().filter(lease -> lease.expiresAt().isAfter(now)).toList();
+      });
+      doAnswer(invocation -> {
+         reachable(id);
+         return leases.remove(invocation.<String>getArgument(0));
+      }).when(repo).deleteById(anyString());
+      return repo;
+   }
+
+   private void reachable(String id) {
+      if (partitioned.contains(id)) {
+         throw new IllegalStateException("Node " + id + " is partitioned from MongoDB");
+      }
+   }
+
+   private static final class Node {
+      private final ClusterMembership membership;
+      private final Duration renewInterval;
+      private Instant nextRenewal;
+
+      private Node (ClusterMembership membership, Duration renewInterval) {
+         this.membership = membership;
+         this.renewInterval = renewInterval;
+      }
+   }
+
+   // Wall and monotonic time of all nodes, moved only by the test
+   private static final class ManualClock extends Clock {
+      private Instant now = Instant.parse("2026-10-16T14:00:00Z");
+
+      void advance(Duration duration) {
+         now = now.plus(duration);
+      }
+
+      long nanos() {
+         return Duration.between(Instant.EPOCH, now).toNanos();
+      }
+
+      @Override
+      public Instant instant() {
+         return now;
+      }
+
+      @Override
+      public ZoneId getZone() {
+         return ZoneOffset.UTC;
+      }
+
+      @Override
+      public Clock withZone(ZoneId zone) {
+         return this;
+      }
+   }
+}
@@ -0,0 +1,62 @@
+package com.stockdock.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConsistentHashRingTest {
+
+   private static final List<String> KEYS = IntStream.range(0, 2000).mapToObj(i -> "SYM" + i).toList();
+
+   @Test
+   void joiningNodeOnlyTakesKeysFromTheOthers() {
+      ConsistentHashRing before = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+      ConsistentHashRing after = new ConsistentHashRing(List.of("a", "b", "c", "d"), 128);
+
+      int moved = 0;
+      for (String key : KEYS) {
+         if (!before.ownerOf(key).equals(after.ownerOf(key))) {
+            assertThat(after.ownerOf(key)).isEqualTo("d");
+            moved++;
+         }
+      }
+      // About a quarter of the keys move, all of them to the new node
+      assertThat(moved).isBetween(KEYS.size() / 8, KEYS.size() * 3 / 8);
+   }
+
+   @Test
+   void leavingNodeOnlyGivesUpItsOwnKeys() {
+      ConsistentHashRing before = new ConsistentHashRing(List.of("a", "b", "c", "d"), 128);
+      ConsistentHashRing after = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+
+      for (String key : KEYS) {
+         if (!before.ownerOf(key).equals("d")) {
+            assertThat(after.ownerOf(key)).isEqualTo(before.ownerOf(key));
+         }
+      }
+   }
+
+   @Test
+   void keysAreSpreadOverAllNodes() {
+      ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b", "c", "d"), 128);
+
+      Map<String, Integer> counts = new HashMap<>();
+      KEYS.forEach(key -> counts.merge(ring.ownerOf(key), 1, Integer::sum));
+
+      assertThat(counts).containsOnlyKeys("a", "b", "c", "d");
+      assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween(KEYS.size() / 8, KEYS.size() * 3 / 8));
+   }
+
+   @Test
+   void emptyRingHasNoOwner() {
+      ConsistentHashRing ring = new ConsistentHashRing(List.of(), 128);
+
+      assertThat(ring.isEmpty()).isTrue();
+      assertThat(ring.ownerOf("AAPL")).isNull();
+   }
+}
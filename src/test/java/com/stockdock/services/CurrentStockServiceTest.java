@@ -0,0 +1,109 @@
+package com.stockdock.services;
+
+import com.stockdock.clients.ChunkedRequestExecutor;
+import com.stockdock.clients.CurrentStockClient;
+import com.stockdock.config.QuoteCacheProperties;
+import com.stockdock.config.StaleWhileRevalidateProperties;
+import com.stockdock.config.SymbolConfig;
+import com.stockdock.dto.StockQuote;
+import com.stockdock.exceptions.ServiceUnavailableException;
+import com.stockdock.models.CurrentStock;
+import com.stockdock.repos.CurrentStockRepo;
+import com.stockdock.services.StaleWhileRevalidate.Served;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CurrentStockServiceTest {
+
+   private final CurrentStockClient currentStockClient = mock(CurrentStockClient.class);
+   private final CurrentStockRepo currentStockRepo = mock(CurrentStockRepo.class);
+   private final QuoteWriteBehindQueue quoteWriteBehindQueue = mock(QuoteWriteBehindQueue.class);
+   private final QuoteCache quoteCache = new QuoteCache(new QuoteCacheProperties(), new SymbolConfig());
+   private final StaleWhileRevalidate staleWhileRevalidate = new StaleWhileRevalidate(new StaleWhileRevalidateProperties());
+   private final CurrentStockService service = new CurrentStockService(
+       currentStockClient,
+       currentStockRepo,
+       new SymbolConfig(),
+       quoteCache,
+       mock(HistoricalBarStore.class),
+       mock(ChunkedRequestExecutor.class),
+       mock(QuoteBroadcaster.class),
+       quoteWriteBehindQueue,
+       mock(QuoteHistoryStore.class),
+       staleWhileRevalidate,
+       new StaleWhileRevalidateProperties());
+
+   @AfterEach
+   void stop() {
+      staleWhileRevalidate.stop();
+   }
+
+   @Test
+   void preloadSkipsStoredQuotesWithoutATimestamp() {
+      Instant recent = Instant.now().minusSeconds(30);
+      when(currentStockRepo.streamLatestQuotes(100)).thenReturn(Stream.of(
+          new CurrentStock("AAPL", "USD", quote(recent)),
+          new CurrentStock("MSFT", "USD", quote(null)),
+          new CurrentStock("NVDA", "USD", null)));
+
+      assertThat(service.preloadStoredQuotes(100)).isEqualTo(1);
+
+      assertThat(quoteCache.getLastKnown("AAPL")).isPresent();
+      assertThat(quoteCache.getLastKnown("MSFT")).isEmpty();
+      assertThat(quoteCache.getLastKnown("NVDA")).isEmpty();
+      verify(quoteWriteBehindQueue).markWritten("AAPL", recent);
+      verify(quoteWriteBehindQueue, never()).markWritten(eq("MSFT"), any());
+   }
+
+   @Test
+   void preloadedQuotesAreServedAsStaleHoweverOld() {
+      Instant lastClose = Instant.now().minus(16, ChronoUnit.HOURS);
+      when(currentStockRepo.streamLatestQuotes(100)).thenReturn(Stream.of(
+          new CurrentStock("AAPL", "EUR", quote(Instant.now().minusSeconds(30))),
+          new CurrentStock("MSFT", "USD", quote(lastClose))));
+      Instant before = Instant.now();
+
+      service.preloadStoredQuotes(100);
+
+      QuoteCache.CachedQuote aapl = quoteCache.get("AAPL").orElseThrow();
+      assertThat(aapl.currency()).isEqualTo("EUR");
+      assertThat(aapl.stale()).isTrue();
+      // Older than the TTL, still served from the cache until a refresh lands
+      QuoteCache.CachedQuote msft = quoteCache.get("MSFT").orElseThrow();
+      assertThat(msft.quote().t()).isEqualTo(lastClose);
+      assertThat(msft.cachedAt()).isAfterOrEqualTo(before);
+      assertThat(msft.stale()).isTrue();
+   }
+
+   @Test
+   void storedQuoteServedWhileAlpacaIsUnavailableKeepsItsCurrency() {
+      StockQuote stored = quote(Instant.now().minus(16, ChronoUnit.HOURS));
+      when(currentStockRepo.findById("SAP")).thenReturn(Optional.of(new CurrentStock("SAP", "EUR", stored)));
+      when(currentStockClient.getSingleQuoteBySymbol("SAP")).thenThrow(new ServiceUnavailableException("Circuit open"));
+
+      Served<StockQuote> served = service.fetchQuoteBySymbolServed("SAP", false);
+
+      assertThat(served).isEqualTo(new Served<>(stored, true));
+      QuoteCache.CachedQuote cached = quoteCache.getLastKnown("SAP").orElseThrow();
+      assertThat(cached.currency()).isEqualTo("EUR");
+      assertThat(cached.stale()).isTrue();
+   }
+
+   private static StockQuote quote(Instant time) {
+      return new StockQuote(1.5, 1, "V", 1.4, 1, "V", List.of("R"), time, "C");
+   }
+}
@@ -0,0 +1,74 @@
+package com.stockdock.services;
+
+import com.stockdock.dto.TimeRange;
+import com.stockdock.models.BarCoverage.CoveredRange;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HistoricalBarStoreTest {
+
+   private static final TimeRange JANUARY = new TimeRange(day(1), day(31));
+
+   @Test
+   void wholeRangeIsAGapWithoutCoverage() {
+      assertThat(HistoricalBarStore.findGaps(List.of(), JANUARY)).containsExactly(JANUARY);
+   }
+
+   @Test
+   void noGapWhenCoverageSpansTheRange() {
+      assertThat(HistoricalBarStore.findGaps(List.of(covered(0, 40)), JANUARY)).isEmpty();
+      assertThat(HistoricalBarStore.findGaps(List.of(covered(1, 31)), JANUARY)).isEmpty();
+   }
+
+   @Test
+   void coverageInTheMiddleLeavesGapsOnBothSides() {
+      assertThat(HistoricalBarStore.findGaps(List.of(covered(10, 20)), JANUARY))
+          .containsExactly(new TimeRange(day(1), day(10)), new TimeRange(day(20), day(31)));
+   }
+
+   @Test
+   void onlyTheUncoveredPartsBetweenRangesAreGaps() {
+      List<CoveredRange> covered = List.of(covered(0, 5), covered(10, 15), covered(25, 40));
+
+      assertThat(HistoricalBarStore.findGaps(covered, JANUARY))
+          .containsExactly(new TimeRange(day(5), day(10)), new TimeRange(day(15), day(25)));
+   }
+
+   @Test
+   void coverageOutsideTheRangeIsIgnored() {
+      List<CoveredRange> covered = List.of(covered(-20, -10), covered(40, 50));
+
+      assertThat(HistoricalBarStore.findGaps(covered, JANUARY)).containsExactly(JANUARY);
+   }
+
+   @Test
+   void mergeJoinsOverlappingAndTouchingRanges() {
+      List<CoveredRange> merged = HistoricalBarStore.merge(List.of(covered(1, 5), covered(10, 15)), covered(4, 10));
+
+      assertThat(merged).containsExactly(covered(1, 15));
+   }
+
+   @Test
+   void mergeKeepsDisjointRangesSorted() {
+      List<CoveredRange> merged = HistoricalBarStore.merge(List.of(covered(10, 15)), covered(1, 5));
+
+      assertThat(merged).containsExactly(covered(1, 5), covered(10, 15));
+   }
+
+   @Test
+   void mergeOfAContainedRangeChangesNothing() {
+      assertThat(HistoricalBarStore.merge(List.of(covered(1, 20)), covered(5, 10))).containsExactly(covered(1, 20));
+   }
+
+   private static CoveredRange covered(int startDay, int endDay) {
+      return new CoveredRange(day(startDay), day(endDay));
+   }
+
+   private static Instant day(int day) {
+      return Instant.parse("2025-01-01T00:00:00Z").plusSeconds((day - 1) * 86_400L);
+   }
+}
@@ -0,0 +1,76 @@
+package com.stockdock.services;
+
+import com.stockdock.config.QuoteStreamProperties;
+import com.stockdock.exceptions.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QuoteBroadcasterTest {
+
+   private static final int MAX_SUBSCRIBERS = 10;
+
+   private final QuoteBroadcaster broadcaster = new QuoteBroadcaster(properties());
+
+   @AfterEach
+   void shutdown() {
+      broadcaster.shutdown();
+   }
+
+   @Test
+   void subscribesBeyondTheLimitAreRejected() {
+      for (int i = 0; i < MAX_SUBSCRIBERS; i++) {
+         broadcaster.subscribe(Set.of("AAPL"), Map.of());
+      }
+
+      assertThatThrownBy(() -> broadcaster.subscribe(Set.of("AAPL"), Map.of())).isInstanceOf(ServiceUnavailableException.class);
+      assertThat(broadcaster.subscriberCount()).isEqualTo(MAX_SUBSCRIBERS);
+   }
+
+   @Test
+   void concurrentSubscribesNeverOvershootTheLimit() throws Exception {
+      int attempts = 200;
+      CountDownLatch start = new CountDownLatch(1);
+      AtomicInteger rejected = new AtomicInteger();
+      List<Future<?>> results = new ArrayList<>();
+
+      try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+         for (int i = 0; i < attempts; i++) {
+            results.add(executor.submit(() -> {
+               start.await();
+               try {
+                  broadcaster.subscribe(Set.of("AAPL", "MSFT"), Map.of());
+               } catch (ServiceUnavailableException e) {
+                  rejected.incrementAndGet();
+               }
+               return null;
+            }));
+         }
+         start.countDown();
+         for (Future<?> result : results) {
+            result.get();
+         }
+      }
+
+      assertThat(broadcaster.subscriberCount()).isEqualTo(MAX_SUBSCRIBERS);
+      assertThat(rejected).hasValue(attempts - MAX_SUBSCRIBERS);
+   }
+
+   private static QuoteStreamProperties properties() {
+      QuoteStreamProperties properties = new QuoteStreamProperties();
+      properties.setMaxSubscribers(MAX_SUBSCRIBERS);
+      return properties;
+   }
+}
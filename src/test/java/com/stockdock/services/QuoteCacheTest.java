@@ -0,0 +1,92 @@
+package com.stockdock.services;
+
+import com.stockdock.config.QuoteCacheProperties;
+import com.stockdock.config.SymbolConfig;
+import com.stockdock.dto.QuoteCacheStats;
+import com.stockdock.dto.StockQuote;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QuoteCacheTest {
+
+   private final QuoteCacheProperties properties = new QuoteCacheProperties();
+   private final SymbolConfig symbolConfig = new SymbolConfig();
+   private final QuoteCache cache = new QuoteCache(properties, symbolConfig);
+
+   @Test
+   void getAllCountsOneHitWhenEverySymbolIsCached() {
+      cache.putAll("USD", Map.of("AAPL", quote(), "MSFT", quote(), "NVDA", quote()));
+
+      assertThat(cache.getAll(List.of("AAPL", "MSFT", "NVDA"))).isPresent();
+
+      QuoteCacheStats stats = cache.stats();
+      assertThat(stats.hits()).isEqualTo(1);
+      assertThat(stats.misses()).isZero();
+   }
+
+   @Test
+   void getAllCountsOneMissAndNoHitsWhenASymbolIsMissing() {
+      cache.putAll("USD", Map.of("AAPL", quote(), "MSFT", quote()));
+
+      assertThat(cache.getAll(List.of("AAPL", "MSFT", "NVDA"))).isEmpty();
+
+      QuoteCacheStats stats = cache.stats();
+      assertThat(stats.hits()).isZero();
+      assertThat(stats.misses()).isEqualTo(1);
+   }
+
+   @Test
+   void getAllKeepsRequestOrder() {
+      cache.putAll("USD", Map.of("AAPL", quote(), "MSFT", quote(), "NVDA", quote()));
+
+      assertThat(cache.getAll(List.of("NVDA", "AAPL", "MSFT")).orElseThrow().quotes().keySet())
+          .containsExactly("NVDA", "AAPL", "MSFT");
+   }
+
+   @Test
+   void overflowEvictsTheLeastRecentlyWrittenSymbols() {
+      properties.setMaxSize(2);
+      cache.put("AAPL", "USD", quote());
+      cache.put("MSFT", "USD", quote());
+      cache.put("AAPL", "USD", quote()); // Rewritten, so MSFT is now the eldest
+
+      cache.put("NVDA", "USD", quote());
+
+      assertThat(cache.getLastKnown("MSFT")).isEmpty();
+      assertThat(cache.getLastKnown("AAPL")).isPresent();
+      assertThat(cache.getLastKnown("NVDA")).isPresent();
+      assertThat(cache.stats().evictions()).isEqualTo(1);
+      assertThat(cache.stats().size()).isEqualTo(2);
+   }
+
+   @Test
+   void keptStaleEntryDoesNotChangeTheEvictionOrder() {
+      properties.setMaxSize(2);
+      cache.put("AAPL", "USD", quote());
+      cache.put("MSFT", "USD", quote());
+      cache.putStale("AAPL", "USD", quote()); // Not expired, so the fresh entry is kept where it is
+
+      cache.put("NVDA", "USD", quote());
+
+      assertThat(cache.getLastKnown("AAPL")).isEmpty();
+      assertThat(cache.getLastKnown("MSFT")).isPresent();
+   }
+
+   @Test
+   void maxSizeBelowThePredefinedSymbolsIsRejected() {
+      properties.setMaxSize(2);
+      symbolConfig.setPredefined(List.of("AAPL", "MSFT", "NVDA"));
+
+      assertThatThrownBy(cache::checkMaxSize).isInstanceOf(IllegalStateException.class);
+   }
+
+   private static StockQuote quote() {
+      return new StockQuote(1.5, 1, "V", 1.4, 1, "V", List.of("R"), Instant.parse("2026-10-16T14:30:00Z"), "C");
+   }
+}
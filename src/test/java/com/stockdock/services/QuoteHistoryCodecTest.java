@@ -0,0 +1,136 @@
+package com.stockdock.services;
+
+import com.stockdock.dto.StockQuote;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QuoteHistoryCodecTest {
+
+   private static final Instant START = Instant.parse("2026-10-16T14:00:00Z");
+
+   @Test
+   void quotesSurviveARoundTrip() {
+      List<StockQuote> quotes = List.of(
+          quote("14:00:00.000000001", 187.25, 187.24, List.of("R")),
+          quote("14:00:00.123456789", 187.26, 187.21, List.of("R")),
+          quote("14:00:00.123456790", 187.22, 187.20, List.of("R")),
+          quote("14:59:59.999999999", 186.5, 186.4, List.of("R")));
+
+      assertThat(roundTrip(quotes)).containsExactlyElementsOf(quotes);
+   }
+
+   @Test
+   void pricesWithoutAnExactTickAreStoredRaw() {
+      List<StockQuote> quotes = List.of(
+          quote("14:00:01", 0.123456789, 187.24, List.of("R")),
+          quote("14:00:02", 187.25, 1e300, List.of("R")),
+          quote("14:00:03", Double.NaN, -0.00005, List.of("R")),
+          quote("14:00:04", 187.25, 187.24, List.of("R")));
+
+      List<StockQuote> decoded = roundTrip(quotes);
+
+      assertThat(decoded).containsExactlyElementsOf(quotes);
+      assertThat(decoded.get(0).ap()).isEqualTo(0.123456789);
+      assertThat(decoded.get(1).bp()).isEqualTo(1e300);
+      assertThat(decoded.get(2).ap()).isNaN();
+   }
+
+   @Test
+   void nullAndChangingConditionsAreKept() {
+      List<StockQuote> quotes = List.of(
+          quote("14:00:01", 1, 1, null),
+          quote("14:00:02", 1, 1, List.of()),
+          quote("14:00:03", 1, 1, List.of("R", "Y")),
+          quote("14:00:04", 1, 1, List.of("R", "Y")),
+          quote("14:00:05", 1, 1, null),
+          new StockQuote(1, 2, null, 1, 3, "Q", List.of("R"), at("14:00:06"), null));
+
+      assertThat(roundTrip(quotes)).containsExactlyElementsOf(quotes);
+   }
+
+   @Test
+   void unchangedFieldsAreNotRepeated() {
+      QuoteHistoryCodec.Encoder encoder = new QuoteHistoryCodec.Encoder(START);
+      encoder.append(quote("14:00:01", 187.25, 187.24, List.of("R")));
+      int first = encoder.toByteArray().length;
+      encoder.append(quote("14:00:02", 187.25, 187.24, List.of("R")));
+
+      // Flags, a 5-byte time delta and one byte each for the unchanged prices and sizes
+      assertThat(encoder.toByteArray().length - first).isEqualTo(10).isLessThan(first);
+   }
+
+   @Test
+   void emptyAndSingleQuoteBuckets() {
+      QuoteHistoryCodec.Encoder encoder = new QuoteHistoryCodec.Encoder(START);
+      assertThat(encoder.toByteArray()).isEmpty();
+      assertThat(encoder.count()).isZero();
+      assertThat(encoder.last()).isNull();
+      assertThat(QuoteHistoryCodec.decode(START, new byte[0])).isEmpty();
+
+      StockQuote quote = quote("14:00:00", 187.25, 187.24, List.of("R"));
+      encoder.append(quote);
+      assertThat(QuoteHistoryCodec.decode(START, encoder.toByteArray())).containsExactly(quote);
+   }
+
+   @Test
+   void resumedEncoderContinuesAPartlyFilledBucket() {
+      List<StockQuote> quotes = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+         quotes.add(quote("14:00:0" + i + ".00000000" + i, 187.25 + i * 0.01, 187.24 - i * 0.01, List.of(i % 2 == 0 ? "R" : "Y")));
+      }
+      QuoteHistoryCodec.Encoder written = new QuoteHistoryCodec.Encoder(START);
+      quotes.subList(0, 3).forEach(written::append);
+
+      QuoteHistoryCodec.Encoder resumed = QuoteHistoryCodec.Encoder.resume(START, written.toByteArray());
+      assertThat(resumed.count()).isEqualTo(3);
+      assertThat(resumed.last()).isEqualTo(quotes.get(2).t());
+      quotes.subList(3, 5).forEach(resumed::append);
+
+      assertThat(QuoteHistoryCodec.decode(START, resumed.toByteArray())).containsExactlyElementsOf(quotes);
+
+      QuoteHistoryCodec.Encoder empty = QuoteHistoryCodec.Encoder.resume(START, new byte[0]);
+      empty.append(quotes.get(0));
+      assertThat(QuoteHistoryCodec.decode(START, empty.toByteArray())).containsExactly(quotes.get(0));
+   }
+
+   @Test
+   void copyIsIndependent() {
+      QuoteHistoryCodec.Encoder encoder = new QuoteHistoryCodec.Encoder(START);
+      encoder.append(quote("14:00:01", 187.25, 187.24, List.of("R")));
+
+      QuoteHistoryCodec.Encoder copy = encoder.copy();
+      copy.append(quote("14:00:02", 187.30, 187.29, List.of("R")));
+
+      assertThat(encoder.count()).isEqualTo(1);
+      assertThat(QuoteHistoryCodec.decode(START, encoder.toByteArray())).hasSize(1);
+      assertThat(QuoteHistoryCodec.decode(START, copy.toByteArray())).hasSize(2);
+   }
+
+   @Test
+   void quotesOutOfOrderAreRejected() {
+      QuoteHistoryCodec.Encoder encoder = new QuoteHistoryCodec.Encoder(START);
+      encoder.append(quote("14:00:02", 1, 1, null));
+
+      assertThatThrownBy(() -> encoder.append(quote("14:00:01", 1, 1, null))).isInstanceOf(IllegalArgumentException.class);
+   }
+
+   private static List<StockQuote> roundTrip(List<StockQuote> quotes) {
+      QuoteHistoryCodec.Encoder encoder = new QuoteHistoryCodec.Encoder(START);
+      quotes.forEach(encoder::append);
+      return QuoteHistoryCodec.decode(START, encoder.toByteArray());
+   }
+
+   private static StockQuote quote(String time, double askPrice, double bidPrice, List<String> conditions) {
+      return new StockQuote(askPrice, 3, "V", bidPrice, 2, "V", conditions, at(time), "C");
+   }
+
+   private static Instant at(String time) {
+      return Instant.parse("2026-10-16T" + time + "Z");
+   }
+}
@@ -0,0 +1,143 @@
+package com.stockdock.services;
+
+import com.stockdock.config.QuoteHistoryProperties;
+import com.stockdock.dto.StockQuote;
+import com.stockdock.models.QuoteHistoryBucket;
+import com.stockdock.repos.QuoteHistoryRepo;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QuoteHistoryStoreTest {
+
+   private static final Instant HOUR = Instant.parse("2026-10-16T14:00:00Z");
+   private static final String BUCKET_ID = QuoteHistoryBucket.id("AAPL", HOUR, 0);
+
+   private final QuoteHistoryRepo repo = mock(QuoteHistoryRepo.class);
+   private final QuoteHistoryStore store = new QuoteHistoryStore(repo, new QuoteHistoryProperties());
+
+   @Test
+   void flushAppendsToTheStoredBucket() {
+      QuoteHistoryBucket stored = bucket(quote(1), quote(2));
+      when(repo.findFirstBySymbolOrderByStartDescSequenceDesc("AAPL")).thenReturn(Optional.of(stored));
+      when(repo.bulkAppend(any(), anyMap())).thenReturn(Set.of());
+
+      store.record("USD", Map.of("AAPL", quote(2))); // Already stored, a duplicate
+      store.record("USD", Map.of("AAPL", quote(3)));
+      store.flush();
+
+      WrittenBucket written = lastWrite();
+      assertThat(written.expectedCount()).isEqualTo(2);
+      assertThat(written.bucket().count()).isEqualTo(3);
+      assertThat(QuoteHistoryCodec.decode(HOUR, written.bucket().data())).containsExactly(quote(1), quote(2), quote(3));
+      assertThat(store.written()).isEqualTo(1);
+      assertThat(store.duplicates()).isEqualTo(1);
+      assertThat(store.pendingQuotes()).isZero();
+   }
+
+   @Test
+   void conflictingWriteReloadsTheBucketAndAppendsAgain() {
+      // Empty on the first load; another instance then stores two quotes in the same bucket
+      when(repo.findFirstBySymbolOrderByStartDescSequenceDesc("AAPL"))
+          .thenReturn(Optional.empty())
+          .thenReturn(Optional.of(bucket(quote(1), quote(2))));
+      when(repo.bulkAppend(any(), anyMap())).thenReturn(Set.of(BUCKET_ID)).thenReturn(Set.of());
+
+      store.record("USD", Map.of("AAPL", quote(3)));
+      store.flush();
+
+      assertThat(lastWrite().expectedCount()).isZero();
+      assertThat(store.written()).isZero();
+      assertThat(store.pendingQuotes()).isEqualTo(1);
+
+      store.record("USD", Map.of("AAPL", quote(4)));
+      store.flush();
+
+      WrittenBucket retried = lastWrite();
+      assertThat(retried.expectedCount()).isEqualTo(2);
+      assertThat(QuoteHistoryCodec.decode(HOUR, retried.bucket().data())).containsExactly(quote(1), quote(2), quote(3), quote(4));
+      assertThat(store.written()).isEqualTo(2);
+      assertThat(store.pendingQuotes()).isZero();
+      verify(repo, times(2)).findFirstBySymbolOrderByStartDescSequenceDesc("AAPL");
+   }
+
+   @Test
+   void failedWriteKeepsTheQuotesForTheNextFlush() {
+      when(repo.findFirstBySymbolOrderByStartDescSequenceDesc("AAPL")).thenReturn(Optional.empty());
+      when(repo.bulkAppend(any(), anyMap())).thenThrow(new IllegalStateException("MongoDB down")).thenReturn(Set.of());
+
+      store.record("USD", Map.of("AAPL", quote(1)));
+      store.flush();
+      assertThat(store.failedFlushes()).isEqualTo(1);
+      assertThat(store.pendingQuotes()).isEqualTo(1);
+
+      store.flush();
+      assertThat(QuoteHistoryCodec.decode(HOUR, lastWrite().bucket().data())).containsExactly(quote(1));
+      assertThat(store.written()).isEqualTo(1);
+   }
+
+   @Test
+   void recordedQuotesAreFlushedOnTheStoresOwnThread() {
+      QuoteHistoryProperties properties = new QuoteHistoryProperties();
+      properties.setFlushInterval(Duration.ofMillis(20));
+      QuoteHistoryStore flushing = new QuoteHistoryStore(repo, properties);
+      AtomicReference<String> flushThread = new AtomicReference<>();
+      when(repo.findFirstBySymbolOrderByStartDescSequenceDesc("AAPL")).thenReturn(Optional.empty());
+      when(repo.bulkAppend(any(), anyMap())).thenAnswer(invocation -> {
+         flushThread.set(Thread.currentThread().getName());
+         return Set.of();
+      });
+
+      flushing.start();
+      try {
+         flushing.record("USD", Map.of("AAPL", quote(1)));
+
+         verify(repo, timeout(5_000)).bulkAppend(any(), anyMap());
+         assertThat(flushThread.get()).isEqualTo("quote-history-flush");
+      } finally {
+         flushing.flushOnShutdown();
+      }
+   }
+
+   private record WrittenBucket(QuoteHistoryBucket bucket, int expectedCount) {
+   }
+
+   @SuppressWarnings("unchecked")
+   private WrittenBucket lastWrite() {
+      ArgumentCaptor<Collection<QuoteHistoryBucket>> buckets = ArgumentCaptor.forClass(Collection.class);
+      ArgumentCaptor<Map<String, Integer>> expectedCounts = ArgumentCaptor.forClass(Map.class);
+      verify(repo, atLeastOnce()).bulkAppend(buckets.capture(), expectedCounts.capture());
+
+      QuoteHistoryBucket bucket = new ArrayList<>(buckets.getValue()).getLast();
+      return new WrittenBucket(bucket, expectedCounts.getValue().get(bucket.id()));
+   }
+
+   private static QuoteHistoryBucket bucket(StockQuote... quotes) {
+      QuoteHistoryCodec.Encoder encoder = new QuoteHistoryCodec.Encoder(HOUR);
+      List.of(quotes).forEach(encoder::append);
+      return new QuoteHistoryBucket(BUCKET_ID, "AAPL", "USD", HOUR, 0, quotes[0].t(), encoder.last(), encoder.count(), encoder.toByteArray());
+   }
+
+   private static StockQuote quote(int second) {
+      return new StockQuote(187.25 + second * 0.01, 3, "V", 187.24, 2, "V", List.of("R"), HOUR.plusSeconds(second), "C");
+   }
+}
@@ -0,0 +1,81 @@
+package com.stockdock.services;
+
+import com.stockdock.config.WriteBehindProperties;
+import com.stockdock.dto.QuoteWriteResult;
+import com.stockdock.dto.StockQuote;
+import com.stockdock.repos.CurrentStockRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The flusher is never started, so submitted quotes stay queued.
+ */
+class QuoteWriteBehindQueueTest {
+
+   private final WriteBehindProperties properties = new WriteBehindProperties();
+
+   @Test
+   void dropOldestReportsTheEvictedQuotes() {
+      properties.setMaxPending(2);
+      QuoteWriteBehindQueue queue = queue();
+
+      QuoteWriteResult result = queue.submit("USD", quotes("AAPL", "MSFT", "NVDA", "AMZN"));
+
+      assertThat(result.queued()).isEqualTo(4);
+      assertThat(result.dropped()).isEqualTo(2);
+      assertThat(queue.stats().depth()).isEqualTo(2);
+      assertThat(queue.stats().dropped()).isEqualTo(2);
+   }
+
+   @Test
+   void newerQuoteForAWaitingSymbolDropsNothing() {
+      properties.setMaxPending(2);
+      QuoteWriteBehindQueue queue = queue();
+      queue.submit("USD", quotes("AAPL", "MSFT"));
+
+      QuoteWriteResult result = queue.submit("USD", Map.of("AAPL", quote(Instant.parse("2026-10-16T14:31:00Z"))));
+
+      assertThat(result.queued()).isEqualTo(1);
+      assertThat(result.dropped()).isZero();
+      assertThat(queue.stats().coalesced()).isEqualTo(1);
+   }
+
+   @Test
+   void blockReportsTheQuotesThatFoundNoRoom() {
+      properties.setMaxPending(2);
+      properties.setOverflow(WriteBehindProperties.Overflow.BLOCK);
+      properties.setOfferTimeout(Duration.ofMillis(10));
+      QuoteWriteBehindQueue queue = queue();
+
+      QuoteWriteResult result = queue.submit("USD", quotes("AAPL", "MSFT", "NVDA"));
+
+      assertThat(result.queued()).isEqualTo(2);
+      assertThat(result.dropped()).isEqualTo(1);
+      assertThat(queue.stats().dropped()).isEqualTo(1);
+   }
+
+   private QuoteWriteBehindQueue queue() {
+      return new QuoteWriteBehindQueue(mock(CurrentStockRepo.class), properties, new SimpleMeterRegistry());
+   }
+
+   private static Map<String, StockQuote> quotes(String... symbols) {
+      Map<String, StockQuote> quotes = new LinkedHashMap<>();
+      for (String symbol : symbols) {
+         quotes.put(symbol, quote(Instant.parse("2026-10-16T14:30:00Z")));
+      }
+      return quotes;
+   }
+
+   private static StockQuote quote(Instant time) {
+      return new StockQuote(1.5, 1, "V", 1.4, 1, "V", List.of("R"), time, "C");
+   }
+}
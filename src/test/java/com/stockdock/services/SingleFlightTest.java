@@ -0,0 +1,99 @@
+package com.stockdock.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+   private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+   @Test
+   void concurrentCallersWithTheSameKeyShareOneCall() throws Exception {
+      AtomicInteger calls = new AtomicInteger();
+      CountDownLatch started = new CountDownLatch(1);
+      CountDownLatch release = new CountDownLatch(1);
+
+      try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+         Future<String> first = executor.submit(() -> singleFlight.execute("AAPL", () -> {
+            calls.incrementAndGet();
+            started.countDown();
+            await(release);
+            return "quote";
+         }));
+         started.await(5, TimeUnit.SECONDS);
+
+         List<Future<String>> joined = new ArrayList<>();
+         for (int i = 0; i < 5; i++) {
+            joined.add(executor.submit(() -> singleFlight.execute("AAPL", () -> "second call")));
+         }
+         waitUntil(() -> singleFlight.coalescedCount() == 5);
+         release.countDown();
+
+         assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("quote");
+         for (Future<String> future : joined) {
+            assertThat(future.get(5, TimeUnit.SECONDS)).isEqualTo("quote");
+         }
+      }
+      assertThat(calls).hasValue(1);
+   }
+
+   @Test
+   void waitingCallersReceiveTheSameException() throws Exception {
+      CountDownLatch started = new CountDownLatch(1);
+      CountDownLatch release = new CountDownLatch(1);
+
+      try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+         Future<String> first = executor.submit(() -> singleFlight.execute("AAPL", () -> {
+            started.countDown();
+            await(release);
+            throw new IllegalStateException("upstream failed");
+         }));
+         started.await(5, TimeUnit.SECONDS);
+         Future<String> joined = executor.submit(() -> singleFlight.execute("AAPL", () -> "second call"));
+         waitUntil(() -> singleFlight.coalescedCount() == 1);
+         release.countDown();
+
+         assertThatThrownBy(first::get).hasCauseInstanceOf(IllegalStateException.class);
+         assertThatThrownBy(joined::get).hasCauseInstanceOf(IllegalStateException.class).hasMessageContaining("upstream failed");
+      }
+   }
+
+   @Test
+   void completedCallsAreNotCached() {
+      assertThat(singleFlight.execute("AAPL", () -> "first")).isEqualTo("first");
+      assertThat(singleFlight.execute("AAPL", () -> "second")).isEqualTo("second");
+      assertThat(singleFlight.coalescedCount()).isZero();
+   }
+
+   @Test
+   void differentKeysDoNotShareCalls() {
+      assertThat(singleFlight.execute("AAPL", () -> singleFlight.execute("MSFT", () -> "nested"))).isEqualTo("nested");
+   }
+
+   private static void await(CountDownLatch latch) {
+      try {
+         latch.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+         Thread.sleep(5);
+      }
+   }
+}
@@ -0,0 +1,108 @@
+package com.stockdock.services;
+
+import com.stockdock.config.StaleWhileRevalidateProperties;
+import com.stockdock.exceptions.InvalidSymbolException;
+import com.stockdock.exceptions.ServiceUnavailableException;
+import com.stockdock.services.StaleWhileRevalidate.Served;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StaleWhileRevalidateTest {
+
+   private static final Duration BUDGET = Duration.ofMillis(50);
+
+   private final StaleWhileRevalidate staleWhileRevalidate = new StaleWhileRevalidate(new StaleWhileRevalidateProperties());
+
+   @AfterEach
+   void stop() {
+      staleWhileRevalidate.stop();
+   }
+
+   @Test
+   void freshValueWithinTheBudget() {
+      Served<String> served = staleWhileRevalidate.fetch("quote", BUDGET, () -> "fresh", () -> Optional.of("last"));
+
+      assertThat(served).isEqualTo(new Served<>("fresh", false));
+      assertThat(staleWhileRevalidate.freshCount()).isEqualTo(1);
+   }
+
+   @Test
+   void lastKnownValueIsServedWhenTheBudgetRunsOut() throws InterruptedException {
+      CountDownLatch release = new CountDownLatch(1);
+      CountDownLatch completed = new CountDownLatch(1);
+
+      Served<String> served = staleWhileRevalidate.fetch("quote", BUDGET, () -> {
+         await(release);
+         completed.countDown();
+         return "fresh";
+      }, () -> Optional.of("last"));
+
+      assertThat(served).isEqualTo(new Served<>("last", true));
+      assertThat(staleWhileRevalidate.staleAfterBudgetCount()).isEqualTo(1);
+
+      // The slow call keeps running in the background
+      release.countDown();
+      assertThat(completed.await(5, TimeUnit.SECONDS)).isTrue();
+   }
+
+   @Test
+   void withoutALastKnownValueTheCallerWaitsPastTheBudget() {
+      Served<String> served = staleWhileRevalidate.fetch("quote", BUDGET, () -> {
+         sleep(BUDGET.multipliedBy(3));
+         return "fresh";
+      }, Optional::empty);
+
+      assertThat(served).isEqualTo(new Served<>("fresh", false));
+      assertThat(staleWhileRevalidate.staleAfterBudgetCount()).isZero();
+   }
+
+   @Test
+   void lastKnownValueIsServedWhenAlpacaIsUnavailable() {
+      Served<String> served = staleWhileRevalidate.fetch("quote", BUDGET, () -> {
+         throw new ServiceUnavailableException("Circuit open");
+      }, () -> Optional.of("last"));
+
+      assertThat(served).isEqualTo(new Served<>("last", true));
+      assertThat(staleWhileRevalidate.staleAfterFailureCount()).isEqualTo(1);
+   }
+
+   @Test
+   void upstreamFailureWithoutALastKnownValueIsThrown() {
+      assertThatThrownBy(() -> staleWhileRevalidate.fetch("quote", BUDGET, () -> {
+         throw new ServiceUnavailableException("Circuit open");
+      }, Optional::empty)).isInstanceOf(ServiceUnavailableException.class);
+   }
+
+   @Test
+   void requestFaultIsNeverMaskedByTheLastKnownValue() {
+      assertThatThrownBy(() -> staleWhileRevalidate.fetch("quote", BUDGET, () -> {
+         throw new InvalidSymbolException("Unknown symbol");
+      }, () -> Optional.of("last"))).isInstanceOf(InvalidSymbolException.class);
+
+      assertThat(staleWhileRevalidate.staleAfterFailureCount()).isZero();
+   }
+
+   private static void await(CountDownLatch latch) {
+      try {
+         latch.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   private static void sleep(Duration duration) {
+      try {
+         Thread.sleep(duration);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+}